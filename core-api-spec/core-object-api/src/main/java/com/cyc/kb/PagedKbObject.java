@@ -0,0 +1,84 @@
+package com.cyc.kb;
+
+/*
+ * #%L
+ * File: PagedKbObject.java
+ * Project: Core API Object Specification
+ * %%
+ * Copyright (C) 2013 - 2015 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A {@link KbObject} whose values can also be read a page at a time. It is a separate interface
+ * so that existing implementations of KbObject need not change; callers check for it with
+ * <code>instanceof</code>.
+ */
+public interface PagedKbObject extends KbObject {
+
+  /**
+   * This method gets one page of the distinct objects in the
+   * <code>getArgPos</code> argument position of the facts visible from
+   * <code>ctx</code> with predicate <code>pred</code> and <code>this</code> at
+   * the <code>thisArgPos</code> arg position. Only the objects are retrieved
+   * from the KB, not the facts themselves. The objects are in the order in
+   * which the KB indexes the facts, so successive pages are consistent as long
+   * as the KB does not change.
+   *
+   * @param pred the predicate of the facts
+   * @param thisArgPos the argument position of this object in the candidate
+   * facts
+   * @param getArgPos the argument position of the returned objects in the
+   * candidate facts
+   * @param <O> the type of the objects returned
+   * @param ctx the context where the facts are found. If null, returns facts
+   * from the default context {@link com.cyc.kb.DefaultContext#forQuery()}
+   * @param offset the number of distinct objects to skip
+   * @param limit the most objects to return, or a negative number for no limit
+   *
+   * @return a list of objects of type O, empty if there are no more
+   *
+   * @see #getValues(KbPredicate, int, int, Context) for all of the objects at
+   * once.
+   */
+  public <O> List<O> getValues(KbPredicate pred, int thisArgPos,
+          int getArgPos, Context ctx, int offset, int limit);
+
+  /**
+   * This method iterates over the distinct objects in the
+   * <code>getArgPos</code> argument position of the facts visible from
+   * <code>ctx</code> with predicate <code>pred</code> and <code>this</code> at
+   * the <code>thisArgPos</code> arg position. The objects are retrieved from
+   * the KB a page at a time, as the iterator reaches them, as by
+   * {@link #getValues(KbPredicate, int, int, Context, int, int)}.
+   *
+   * @param pred the predicate of the facts
+   * @param thisArgPos the argument position of this object in the candidate
+   * facts
+   * @param getArgPos the argument position of the returned objects in the
+   * candidate facts
+   * @param <O> the type of the objects returned
+   * @param ctx the context where the facts are found. If null, returns facts
+   * from the default context {@link com.cyc.kb.DefaultContext#forQuery()}
+   * @param pageSize the number of objects to retrieve from the KB at a time
+   *
+   * @return an iterator over objects of type O
+   */
+  public <O> Iterator<O> iterateValues(KbPredicate pred, int thisArgPos,
+          int getArgPos, Context ctx, int pageSize);
+
+}
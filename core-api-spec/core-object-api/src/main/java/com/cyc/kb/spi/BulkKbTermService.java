@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 Cycorp, Inc..
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cyc.kb.spi;
+
+/*
+ * #%L
+ * File: BulkKbTermService.java
+ * Project: Core API Object Specification
+ * %%
+ * Copyright (C) 2013 - 2015 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.KbTerm;
+import com.cyc.kb.exception.CreateException;
+import com.cyc.kb.exception.KbTypeException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * An optional extension of {@link KbTermService} for implementations which can resolve many terms
+ * at once. The factories use it when the term service implements it, and otherwise resolve the
+ * terms one at a time, so existing KbTermService implementations need not change.
+ *
+ * @param <T> the type of the terms
+ */
+public interface BulkKbTermService<T extends KbTerm> extends KbTermService<T> {
+
+  /**
+   * Provides implementation for {@link com.cyc.kb.KbTermFactory#getAll(java.util.Collection) }.
+   *
+   * @param namesOrIds the string representations or the HLIDs of the terms
+   *
+   * @return a map from each name or HLID which was found as a term to its term
+   */
+  Map<String, T> getAll(Collection<String> namesOrIds);
+
+  /**
+   * Provides implementation for
+   * {@link com.cyc.kb.KbTermFactory#findOrCreateAll(java.util.Collection) }.
+   *
+   * @param namesOrIds the string representations or the HLIDs of the terms
+   *
+   * @return a map from each name or HLID to its term
+   *
+   * @throws KbTypeException
+   * @throws CreateException
+   */
+  Map<String, T> findOrCreateAll(Collection<String> namesOrIds) throws CreateException, KbTypeException;
+
+}
@@ -24,6 +24,10 @@ package com.cyc.kb;
 import com.cyc.core.service.CoreServicesLoader;
 import com.cyc.kb.exception.CreateException;
 import com.cyc.kb.exception.KbTypeException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import com.cyc.kb.spi.BulkKbTermService;
 import com.cyc.kb.spi.KbCollectionService;
 
 /**
@@ -96,6 +100,63 @@ public class KbCollectionFactory {
     return getInstance().getService().findOrCreate(nameOrId);
   }
 
+  /**
+   * Get the <code>KbCollection</code>s with the names or HLIDs <code>namesOrIds</code>, resolving them
+   * in bulk. Unlike {@link #get(java.lang.String)}, a name which is not found, or which is not
+   * already an instance of #$Collection, is not an error: it is simply absent from the result.
+   *
+   * @param namesOrIds the string representations or the HLIDs of the terms
+   *
+   * @return a map, in the iteration order of <code>namesOrIds</code>, from each name or HLID that
+   * was found to its <code>KbCollection</code>
+   */
+  public static Map<String, KbCollection> getAll(Collection<String> namesOrIds) {
+    final KbCollectionService service = getInstance().getService();
+    if (service instanceof BulkKbTermService) {
+      return ((BulkKbTermService) service).getAll(namesOrIds);
+    }
+    final Map<String, KbCollection> results = new LinkedHashMap<String, KbCollection>();
+    for (String nameOrId : namesOrIds) {
+      if (!results.containsKey(nameOrId)) {
+        try {
+          results.put(nameOrId, (KbCollection) service.get(nameOrId));
+        } catch (KbTypeException ex) {
+          // Not of the requested type, so absent from the results.
+        } catch (CreateException ex) {
+          // Not found, so absent from the results.
+        }
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Find or create the <code>KbCollection</code>s named <code>namesOrIds</code>, as by
+   * {@link #findOrCreate(java.lang.String)}. The terms which already exist are resolved in bulk.
+   *
+   * @param namesOrIds the string representations or the HLIDs of the terms
+   *
+   * @return a map, in the iteration order of <code>namesOrIds</code>, from each name or HLID to its
+   * <code>KbCollection</code>
+   *
+   * @throws KbTypeException
+   * @throws CreateException
+   */
+  public static Map<String, KbCollection> findOrCreateAll(Collection<String> namesOrIds)
+          throws CreateException, KbTypeException {
+    final KbCollectionService service = getInstance().getService();
+    if (service instanceof BulkKbTermService) {
+      return ((BulkKbTermService) service).findOrCreateAll(namesOrIds);
+    }
+    final Map<String, KbCollection> results = new LinkedHashMap<String, KbCollection>();
+    for (String nameOrId : namesOrIds) {
+      if (!results.containsKey(nameOrId)) {
+        results.put(nameOrId, (KbCollection) service.findOrCreate(nameOrId));
+      }
+    }
+    return results;
+  }
+
   /**
    * Find or create a <code>KbCollection</code> object named <code>nameOrId</code>, and also make it
    * an instance of <code>constraintCol</code> in the default context specified by
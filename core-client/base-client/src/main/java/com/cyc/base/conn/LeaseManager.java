@@ -26,6 +26,14 @@ import java.util.EventListener;
 import java.util.EventObject;
 
 /**
+ * Manages the api services lease of a connection to a Cyc server.
+ *
+ * <P>Leases are renewed by a shared scheduler rather than by a thread per lease manager. Although
+ * {@link com.cyc.baseclient.connection.CycLeaseManager} still extends Thread, its
+ * <code>start</code>, <code>run</code> and <code>interrupt</code> methods register, renew and
+ * unregister the lease, and no thread is ever started: <code>isAlive()</code> is always false and
+ * <code>join()</code> returns at once. Use {@link #hasValidLease()} to find out whether the lease
+ * is being kept.
  *
  * @author nwinant
  */
@@ -84,7 +92,9 @@ public interface LeaseManager {
    */
   void removeListener(final LeaseManagerListener cycLeaseManagerListener);
 
-  /** Performs periodic Cyc api service lease acquisition, and notifies listeners if the lease fails or is denied. */
+  /**
+   * Renews the lease now. Listeners are notified of the outcome later, from another thread.
+   */
   void run();
 
   /** Sets the lease duration milliseconds.
@@ -93,6 +103,9 @@ public interface LeaseManager {
    */
   void setLeaseDurationMilliseconds(final long leaseDurationMilliseconds);
   
+  /**
+   * Stops renewing the lease. It does not interrupt any thread.
+   */
   public void interrupt();
   
   
@@ -31,6 +31,7 @@ import com.cyc.base.cycobject.CycList;
 import com.cyc.base.cycobject.DenotationalTerm;
 import com.cyc.baseclient.cycobject.CycConstantImpl;
 import com.cyc.baseclient.cycobject.CycSymbolImpl;
+import com.cyc.baseclient.taxonomy.TaxonomyIndex;
 import static com.cyc.baseclient.CycObjectFactory.makeCycSymbol;
 
 /**
@@ -89,6 +90,29 @@ public class AbstractKbTool {
     return getCyc().converse();
   }
   
+  /**
+   * Returns the command tool whose asynchronous methods back the asynchronous kbtool methods.
+   * 
+   * @return the CycCommandTool
+   */
+  protected CycCommandTool getAsyncConverse() {
+    return getCycClient().converse();
+  }
+  
+  /**
+   * Returns the taxonomy index registered for the given microtheory, or null if there is none or
+   * if a transaction is open, since an index does not see the transaction's pending assertions.
+   * 
+   * @param mt the microtheory, or null for any microtheory
+   * @return the TaxonomyIndex, or null
+   */
+  protected TaxonomyIndex getTaxonomyIndex_inner(CycObject mt) {
+    if (!(getCyc() instanceof CycClient) || (getCurrentTransaction() != null)) {
+      return null;
+    }
+    return getCycClient().getTaxonomyIndex(mt);
+  }
+  
   
   // Private
   
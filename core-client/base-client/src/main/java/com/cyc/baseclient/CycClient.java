@@ -35,8 +35,10 @@ import java.net.URLEncoder;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import com.cyc.baseclient.exception.CycApiClosedConnectionException;
 import com.cyc.baseclient.connection.CycConnectionImpl;
+import com.cyc.baseclient.connection.RequestCoalescer;
 import static com.cyc.baseclient.connection.SublApiHelper.makeSubLStmt;
 import com.cyc.baseclient.comm.Comm;
 import com.cyc.baseclient.cycobject.CycConstantImpl;
@@ -49,6 +51,7 @@ import com.cyc.baseclient.util.PasswordManager;
 import com.cyc.base.conn.LeaseManager;
 import com.cyc.base.cycobject.Fort;
 import com.cyc.base.cycobject.CycList;
+import com.cyc.base.cycobject.CycObject;
 import com.cyc.base.exception.CycApiException;
 import com.cyc.session.CycServer;
 import com.cyc.base.kbtool.InspectorTool;
@@ -65,6 +68,7 @@ import com.cyc.baseclient.nl.ParaphraserFactory;
 import com.cyc.baseclient.subl.SublResourceLoader;
 import com.cyc.baseclient.subl.SublSourceFile;
 import com.cyc.baseclient.subl.functions.SublFunctions;
+import com.cyc.baseclient.taxonomy.TaxonomyIndex;
 import com.cyc.nl.Paraphraser;
 import com.cyc.session.CycServerAddress;
 import com.cyc.session.CycSessionConfiguration;
@@ -122,6 +126,9 @@ public class CycClient implements CycAccess {
   private static final Map<Thread, CycClient> cycAccessInstances = new HashMap<Thread, CycClient>();
   
   private static final String UTF8 = "UTF-8";
+  
+  /** The key of the taxonomy index for any microtheory, since a ConcurrentHashMap has no null key. */
+  private static final Object ANY_MT_TAXONOMY_INDEX_KEY = new Object();
 
   private static final String CYC_IMAGE_ID_EXPRESSION = makeSubLStmt("cyc-image-id");
   
@@ -204,6 +211,9 @@ public class CycClient implements CycAccess {
   private CycOwlTool owlTool;
   private CycRkfTool rkfTool;
   private CycServerInfoImpl serverInfo;
+  private final Map<Object, TaxonomyIndex> taxonomyIndexes =
+          new ConcurrentHashMap<Object, TaxonomyIndex>();
+  private volatile RequestCoalescer requestCoalescer = null;
   
   
   // Constructors
@@ -819,6 +829,64 @@ public class CycClient implements CycAccess {
     return serverInfo;
   }
   
+  /**
+   * Registers a taxonomy index, which the KB tools then consult before asking Cyc about genls,
+   * isa and genlMt for the index's microtheory. Replaces any index registered for the same
+   * microtheory.
+   * 
+   * @param index the loaded TaxonomyIndex
+   */
+  public void setTaxonomyIndex(TaxonomyIndex index) {
+    taxonomyIndexes.put(toTaxonomyIndexKey(index.getMt()), index);
+  }
+  
+  /**
+   * Returns the taxonomy index registered for the given microtheory.
+   * 
+   * @param mt the microtheory, or null for the index of any microtheory
+   * @return the TaxonomyIndex, or null if none is registered
+   */
+  public TaxonomyIndex getTaxonomyIndex(CycObject mt) {
+    if (taxonomyIndexes.isEmpty()) {
+      return null;
+    }
+    return taxonomyIndexes.get(toTaxonomyIndexKey(mt));
+  }
+  
+  /**
+   * Unregisters the taxonomy index for the given microtheory, and stops it following its
+   * operation log.
+   * 
+   * @param mt the microtheory, or null for the index of any microtheory
+   * @return the TaxonomyIndex which was removed, or null if none was registered
+   */
+  public TaxonomyIndex removeTaxonomyIndex(CycObject mt) {
+    final TaxonomyIndex index = taxonomyIndexes.remove(toTaxonomyIndexKey(mt));
+    if (index != null) {
+      index.stopFollowing();
+    }
+    return index;
+  }
+  
+  /**
+   * Sets the coalescer through which this client sends its requests, so that identical concurrent
+   * side-effect-free requests share a single call to Cyc. Coalescing is off by default.
+   * 
+   * @param coalescer the RequestCoalescer, or null to stop coalescing
+   */
+  public void setRequestCoalescer(RequestCoalescer coalescer) {
+    this.requestCoalescer = coalescer;
+  }
+  
+  /**
+   * Returns the coalescer through which this client sends its requests.
+   * 
+   * @return the RequestCoalescer, or null if requests are not coalesced
+   */
+  public RequestCoalescer getRequestCoalescer() {
+    return requestCoalescer;
+  }
+  
   
   // Protected
   
@@ -844,7 +912,17 @@ public class CycClient implements CycAccess {
     } catch (IOException ioe) {
       throw new CycConnectionException(ioe);
     }
-    response = converseWithRetrying(command);
+    final RequestCoalescer coalescer = requestCoalescer;
+    if (coalescer == null) {
+      response = converseWithRetrying(command);
+    } else {
+      response = coalescer.converse(command, new RequestCoalescer.Conversation() {
+        @Override
+        public Object[] converse(Object command) throws CycConnectionException, CycApiException {
+          return converseWithRetrying(command);
+        }
+      });
+    }
     previousAccessedMilliseconds = System.currentTimeMillis();
     maybeLogResponse(response);
     return response;
@@ -883,6 +961,10 @@ public class CycClient implements CycAccess {
   
   // Private
   
+  private static Object toTaxonomyIndexKey(CycObject mt) {
+    return (mt == null) ? ANY_MT_TAXONOMY_INDEX_KEY : mt;
+  }
+  
   /** 
    * Re-establishes a stale binary CycConnection. 
    *
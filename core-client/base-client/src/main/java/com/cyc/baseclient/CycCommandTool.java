@@ -26,9 +26,11 @@ import com.cyc.base.CommandTool;
 import com.cyc.base.CycAccess;
 import com.cyc.base.exception.CycApiException;
 import com.cyc.base.exception.CycConnectionException;
+import com.cyc.base.cycobject.CycList;
 import com.cyc.base.cycobject.CycObject;
 import com.cyc.base.cycobject.FormulaSentence;
 import com.cyc.base.cycobject.Fort;
+import com.cyc.baseclient.connection.SublFuture;
 import com.cyc.baseclient.cycobject.CycArrayList;
 import com.cyc.baseclient.cycobject.CycFormulaSentence;
 import java.io.IOException;
@@ -63,14 +65,24 @@ public class CycCommandTool implements CommandTool {
   @Override
   public Object converseObject(Object command)
           throws CycConnectionException, CycApiException {
-    Object[] response = {null, null};
-    response = converse(command);
+    return toObject(command, converse(command));
+  }
 
-    if (response[0].equals(Boolean.TRUE)) {
-      return response[1];
-    } else {
-      throw new ConverseException(command, this.getCyc(), response);
-    }
+  /**
+   * Sends an API command whose result is an object to Cyc, without waiting for the result.
+   *
+   * @param command the command string or CycArrayList
+   *
+   * @return the pending result of processing the API command
+   * @see #converseObject(java.lang.Object)
+   */
+  public SublFuture<Object> converseObjectAsync(final Object command) {
+    return converseAsync(command, new SublFuture.Converter<Object>() {
+      @Override
+      public Object convert(Object[] response) {
+        return toObject(command, response);
+      }
+    });
   }
 
   /**
@@ -88,9 +100,27 @@ public class CycCommandTool implements CommandTool {
   @Override
   public CycArrayList converseList(Object command)
           throws CycConnectionException, CycApiException {
-    Object[] response = {null, null};
-    response = converse(command);
+    return toList(command, converse(command));
+  }
 
+  /**
+   * Sends an API command whose result is a list to Cyc, without waiting for the result.
+   *
+   * @param command the command string or CycArrayList
+   *
+   * @return the pending result of processing the API command
+   * @see #converseList(java.lang.Object)
+   */
+  public SublFuture<CycArrayList> converseListAsync(final Object command) {
+    return converseAsync(command, new SublFuture.Converter<CycArrayList>() {
+      @Override
+      public CycArrayList convert(Object[] response) {
+        return toList(command, response);
+      }
+    });
+  }
+  
+  private CycArrayList toList(final Object command, final Object[] response) {
     if (response[0].equals(Boolean.TRUE)) {
       if (response[1].equals(CycObjectFactory.nil)) {
         return new CycArrayList();
@@ -163,9 +193,27 @@ public class CycCommandTool implements CommandTool {
   @Override
   public String converseString(Object command)
           throws CycConnectionException, CycApiException {
-    Object[] response = {null, null};
-    response = converse(command);
+    return toStringValue(command, converse(command));
+  }
 
+  /**
+   * Sends an API command whose result is a String to Cyc, without waiting for the result.
+   *
+   * @param command the command string or CycArrayList
+   *
+   * @return the pending result of processing the API command
+   * @see #converseString(java.lang.Object)
+   */
+  public SublFuture<String> converseStringAsync(final Object command) {
+    return converseAsync(command, new SublFuture.Converter<String>() {
+      @Override
+      public String convert(Object[] response) {
+        return toStringValue(command, response);
+      }
+    });
+  }
+  
+  private String toStringValue(final Object command, final Object[] response) {
     if (response[0].equals(Boolean.TRUE)) {
       if (!(response[1] instanceof String)) {
         throw new BaseClientRuntimeException("Expected String but received (" + response[1].getClass()
@@ -192,9 +240,27 @@ public class CycCommandTool implements CommandTool {
   @Override
   public boolean converseBoolean(Object command)
           throws CycConnectionException, CycApiException {
-    Object[] response = {null, null};
-    response = converse(command);
+    return toBoolean(command, converse(command));
+  }
 
+  /**
+   * Sends an API command whose result is a boolean to Cyc, without waiting for the result.
+   *
+   * @param command the command string or CycArrayList
+   *
+   * @return the pending result of processing the API command
+   * @see #converseBoolean(java.lang.Object)
+   */
+  public SublFuture<Boolean> converseBooleanAsync(final Object command) {
+    return converseAsync(command, new SublFuture.Converter<Boolean>() {
+      @Override
+      public Boolean convert(Object[] response) {
+        return toBoolean(command, response);
+      }
+    });
+  }
+  
+  private boolean toBoolean(final Object command, final Object[] response) {
     if (response[0].equals(Boolean.TRUE)) {
       if (response[1].toString().equals("T")) {
         return true;
@@ -220,9 +286,27 @@ public class CycCommandTool implements CommandTool {
   @Override
   public int converseInt(Object command)
           throws CycConnectionException, CycApiException {
-    Object[] response = {null, null};
-    response = converse(command);
+    return toInt(command, converse(command));
+  }
 
+  /**
+   * Sends an API command whose result is an int to Cyc, without waiting for the result.
+   *
+   * @param command the command string or CycArrayList
+   *
+   * @return the pending result of processing the API command
+   * @see #converseInt(java.lang.Object)
+   */
+  public SublFuture<Integer> converseIntAsync(final Object command) {
+    return converseAsync(command, new SublFuture.Converter<Integer>() {
+      @Override
+      public Integer convert(Object[] response) {
+        return toInt(command, response);
+      }
+    });
+  }
+  
+  private int toInt(final Object command, final Object[] response) {
     if (response[0].equals(Boolean.TRUE)) {
       return Integer.valueOf(response[1].toString());
     } else {
@@ -251,6 +335,14 @@ public class CycCommandTool implements CommandTool {
     }
   }
   
+  private Object toObject(final Object command, final Object[] response) {
+    if (response[0].equals(Boolean.TRUE)) {
+      return response[1];
+    } else {
+      throw new ConverseException(command, this.getCyc(), response);
+    }
+  }
+  
   private Object ensureCommandReturnsSerializable(Object cmd) {
     if (cmd instanceof String) {
       cmd = "(progn " + (String)cmd + " nil)";
@@ -277,6 +369,28 @@ public class CycCommandTool implements CommandTool {
     return converse(command);
   }
   
+  /**
+   * Sends an API command to Cyc without waiting for the result. The command is sent by a
+   * {@link DefaultSublWorker}, so it is not logged or coalesced as a blocking call would be. A
+   * command string is parsed in the calling thread; a bound PreparedSublCommand is not.
+   *
+   * @param command the command string or CycArrayList
+   * @param converter the converter for the response
+   *
+   * @return the pending result of processing the API command
+   */
+  public <V> SublFuture<V> converseAsync(final Object command,
+          final SublFuture.Converter<V> converter) {
+    final CycList commandList;
+    try {
+      commandList = (command instanceof CycList)
+              ? (CycList) command : getCyc().getObjectTool().makeCycList(command.toString());
+    } catch (CycApiException e) {
+      return SublFuture.failed(e);
+    }
+    return SublFuture.start(commandList, getCyc(), converter);
+  }
+  
   /**
    * Wraps the given api command string with the binding environment for bookkeeping assertions.
    *
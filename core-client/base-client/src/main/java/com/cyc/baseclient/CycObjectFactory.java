@@ -44,11 +44,14 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import com.cyc.baseclient.util.ConcurrentLruCache;
 import com.cyc.baseclient.util.LruCache;
 import com.cyc.baseclient.xml.TextUtil;
 import org.w3c.dom.Document;
@@ -70,11 +73,19 @@ import org.xml.sax.SAXException;
  */
 public class CycObjectFactory {
 
+  /**
+   * The prefix of the system properties which override the cache sizes, e.g.
+   * <tt>com.cyc.baseclient.cache.constantsByName=50000</tt>. The suffixes are <tt>symbols</tt>,
+   * <tt>constantsByName</tt>, <tt>constantsByGuid</tt>, <tt>numbers</tt>, <tt>guids</tt> and
+   * <tt>variables</tt>.
+   */
+  public static final String CACHE_SIZE_PROPERTY_PREFIX = "com.cyc.baseclient.cache.";
   /**
    * Least Recently Used Cache of CycSymbols, so that a reference to an existing <tt>CycSymbolImpl</tt>
    * is returned instead of constructing a duplicate.
    */
-  protected final static LruCache cycSymbolCache = new LruCache(500, 500, true);
+  protected final static LruCache cycSymbolCache = new LruCache(
+          new ConcurrentLruCache<String, CycSymbolImpl>(getConfiguredCacheSize("symbols", 500)));
   /**
    * Built in CycSymbols.
    */
@@ -107,8 +118,9 @@ public class CycObjectFactory {
    * Least Recently Used Cache of CycConstants, so that a reference to an existing <tt>CycConstantImpl</tt>
    * is returned instead of constructing a duplicate. Indexed via the name, so is optimised for the ascii api.
    */
-  protected static LruCache cycConstantCacheByName = new LruCache(1000,
-          CONSTANT_CACHE_BY_NAME_SIZE, true);
+  protected static LruCache cycConstantCacheByName = new LruCache(
+          new ConcurrentLruCache<String, CycConstant>(1000,
+                  getConfiguredCacheSize("constantsByName", CONSTANT_CACHE_BY_NAME_SIZE)));
   /**
    * the default size of the constant cache by GUID
    */
@@ -118,7 +130,8 @@ public class CycObjectFactory {
    * is returned instead of constructing a duplicate. Indexed via the guid.
    */
   protected static LruCache cycConstantCacheByGuid = new LruCache(
-          CONSTANT_CACHE_BY_GUID_SIZE, CONSTANT_CACHE_BY_GUID_SIZE, true);
+          new ConcurrentLruCache<String, CycConstant>(
+                  getConfiguredCacheSize("constantsByGuid", CONSTANT_CACHE_BY_GUID_SIZE)));
   /**
    * the default size of the CycNumberImpl cache
    */
@@ -128,13 +141,14 @@ public class CycObjectFactory {
    * is returned instead of constructing a duplicate.
    */
   protected static LruCache<Number, CycNumberImpl> cycNumberCache =
-          new LruCache<Number, CycNumberImpl>(NUMBER_CACHE_SIZE, NUMBER_CACHE_SIZE,
-          true);
+          new LruCache<Number, CycNumberImpl>(new ConcurrentLruCache<Number, CycNumberImpl>(
+                  getConfiguredCacheSize("numbers", NUMBER_CACHE_SIZE)));
   /**
    * Least Recently Used Cache of guids, so that a reference to an existing <tt>GuidImpl</tt>
    * is returned instead of constructing a duplicate.
    */
-  protected static LruCache guidCache = new LruCache(500, 500, true);
+  protected static LruCache guidCache = new LruCache(
+          new ConcurrentLruCache<String, Guid>(getConfiguredCacheSize("guids", 500)));
   /**
    * the default size of the variable cache
    */
@@ -250,6 +264,24 @@ public class CycObjectFactory {
     return cycSymbolCache.size();
   }
 
+  /**
+   * Returns the object caches, keyed by the suffix of the system property which sizes each one,
+   * so that their hit, miss and eviction counts can be monitored and their sizes tuned. A cache
+   * which a subclass has replaced with one not backed by a ConcurrentLruCache is omitted.
+   *
+   * @return the object caches
+   */
+  public static Map<String, ConcurrentLruCache<?, ?>> getCaches() {
+    final Map<String, ConcurrentLruCache<?, ?>> caches = new LinkedHashMap<String, ConcurrentLruCache<?, ?>>();
+    putConcurrentCache(caches, "symbols", cycSymbolCache);
+    putConcurrentCache(caches, "constantsByName", cycConstantCacheByName);
+    putConcurrentCache(caches, "constantsByGuid", cycConstantCacheByGuid);
+    putConcurrentCache(caches, "numbers", cycNumberCache);
+    putConcurrentCache(caches, "guids", guidCache);
+    putConcurrentCache(caches, "variables", CycVariableFactory.cycVariableCache);
+    return caches;
+  }
+
   /**
    * Resets all the caches.
    */
@@ -264,10 +296,8 @@ public class CycObjectFactory {
    * Resets the Cyc constant caches.
    */
   public static void resetCycConstantCaches() {
-    cycConstantCacheByName = new LruCache(CONSTANT_CACHE_BY_NAME_SIZE,
-            CONSTANT_CACHE_BY_NAME_SIZE, true);
-    cycConstantCacheByGuid = new LruCache(CONSTANT_CACHE_BY_GUID_SIZE,
-            CONSTANT_CACHE_BY_NAME_SIZE, true);
+    cycConstantCacheByName.clear();
+    cycConstantCacheByGuid.clear();
   }
 
   /**
@@ -303,16 +333,10 @@ public class CycObjectFactory {
    */
   public static void removeCaches(final CycConstant cycConstant) {
     if (cycConstant.getName() != null) {
-      Object element = cycConstantCacheByName.get(cycConstant.getName());
-      if (element != null) {
-        cycConstantCacheByName.put(cycConstant.getName(), null);
-      }
+      cycConstantCacheByName.remove(cycConstant.getName());
     }
     if (cycConstant.getGuid() != null) {
-      Object element = cycConstantCacheByGuid.get(cycConstant.getGuid());
-      if (element != null) {
-        cycConstantCacheByGuid.put(cycConstant.getGuid(), null);
-      }
+      cycConstantCacheByGuid.remove(cycConstant.getGuid().toString());
     }
   }
 
@@ -453,7 +477,7 @@ public class CycObjectFactory {
    * Resets the <tt>CycNumberImpl</tt> cache.
    */
   public static void resetCycNumberCache() {
-    cycNumberCache = new LruCache(NUMBER_CACHE_SIZE, NUMBER_CACHE_SIZE, true);
+    cycNumberCache.clear();
   }
 
   /**
@@ -528,7 +552,7 @@ public class CycObjectFactory {
    * Resets the <tt>GuidImpl</tt> cache.
    */
   public static void resetGuidCache() {
-    guidCache = new LruCache(500, 500, true);
+    guidCache.clear();
   }
 
   /**
@@ -833,6 +857,19 @@ public class CycObjectFactory {
     return new ByteArray(bytes);
   }
 
+  private static int getConfiguredCacheSize(final String cacheName, final int defaultSize) {
+    final Integer size = Integer.getInteger(CACHE_SIZE_PROPERTY_PREFIX + cacheName);
+    return ((size == null) || (size < 1)) ? defaultSize : size;
+  }
+
+  private static void putConcurrentCache(final Map<String, ConcurrentLruCache<?, ?>> caches,
+          final String name, final LruCache<?, ?> cache) {
+    final ConcurrentLruCache<?, ?> concurrentCache = (cache == null) ? null : cache.getConcurrentCache();
+    if (concurrentCache != null) {
+      caches.put(name, concurrentCache);
+    }
+  }
+
   private static class CycVariableFactory {
 
     /**
@@ -840,8 +877,9 @@ public class CycObjectFactory {
      * existing <tt>CycVariable</tt> is returned instead of constructing a
      * duplicate.
      */
-    private static LruCache cycVariableCache = new LruCache(
-            VARIABLE_CACHE_SIZE, VARIABLE_CACHE_SIZE, true);
+    private static final LruCache cycVariableCache = new LruCache(
+            new ConcurrentLruCache<String, CycVariable>(
+                    getConfiguredCacheSize("variables", VARIABLE_CACHE_SIZE)));
 
     private static CycVariable get(String name) {
       CycVariable cycVariable = (CycVariable) cycVariableCache.get(name);
@@ -255,8 +255,9 @@ public class DefaultSublWorker implements Worker {
     this.expectIncrementalResults = expectIncrementalResults;
     this.priority = priority;
     
-    if (subLCommandProfiler != null)
-      this.addListener(subLCommandProfiler);
+    final SublCommandProfiler profiler = subLCommandProfiler;
+    if (profiler != null)
+      this.addListener(profiler);
   }
   
   //// Public Area
@@ -270,7 +271,18 @@ public class DefaultSublWorker implements Worker {
     }
     
     Logger.getLogger(com.cyc.baseclient.DefaultSublWorker.class.getName()).log(Level.INFO, "Start of SubL command profiling.");
-    subLCommandProfiler = new SublCommandProfiler();
+    final SublCommandProfiler profiler = new SublCommandProfiler();
+    profiler.registerMBean();
+    subLCommandProfiler = profiler;
+  }
+  
+  /**
+   * Returns the active SubL command profiler, or null if SubL commands are not being profiled.
+   *
+   * @return the active SubL command profiler, or null
+   */
+  public static SublCommandProfiler getProfiler() {
+    return subLCommandProfiler;
   }
   
   /** Ends the profiling SubL commands and creates the profile report.
@@ -290,12 +302,15 @@ public class DefaultSublWorker implements Worker {
     }
     
     Logger.getLogger(com.cyc.baseclient.DefaultSublWorker.class.getName()).log(Level.INFO, "End of SubL command profiling, writing report to " + reportPath);
+    final SublCommandProfiler profiler = subLCommandProfiler;
+    subLCommandProfiler = null;
+    profiler.stopPublishing();
+    profiler.unregisterMBean();
     try {
-    ((SublCommandProfiler) subLCommandProfiler).report(reportPath);
+    profiler.report(reportPath);
     } catch (IOException ioe) {
       throw new CycConnectionException(ioe);
     }
-    subLCommandProfiler = null;
   }
   
   /**
@@ -659,7 +674,7 @@ public class DefaultSublWorker implements Worker {
   private static boolean subLCommandProfiling = false;
   
   /** the SubL command profiler that listens to each event when profiling is in effect */
-  private static WorkerListener subLCommandProfiler = null;
+  private static volatile SublCommandProfiler subLCommandProfiler = null;
   
   
   //// Main
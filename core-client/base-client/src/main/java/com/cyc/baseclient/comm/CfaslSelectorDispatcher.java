@@ -0,0 +1,272 @@
+package com.cyc.baseclient.comm;
+
+/*
+ * #%L
+ * File: CfaslSelectorDispatcher.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+//// Internal Imports
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+//// External Imports
+
+/**
+ * <P>CfaslSelectorDispatcher reads the response channels of any number of non-blocking Comm
+ * connections using a small, fixed set of selector threads. Each registered channel is served by
+ * one selector thread, chosen round robin at registration; whenever bytes arrive they are handed
+ * to the channel's listener on that thread. The number of threads is therefore independent of
+ * the number of connections.
+ *
+ * <P>The size of the shared default dispatcher is read from the
+ * <code>com.cyc.baseclient.comm.selectors</code> system property, and defaults to 2.
+ *
+ * @see SelectorComm
+ */
+public class CfaslSelectorDispatcher {
+
+  /**
+   * Receives the bytes which arrive on a registered channel. Methods are called on a selector
+   * thread, and so must not block.
+   */
+  public interface ChannelListener {
+
+    /**
+     * Called when bytes have been read from the channel.
+     *
+     * @param bytes the buffer whose remaining bytes were just read; it is reused after this call
+     * returns
+     */
+    void bytesReceived(ByteBuffer bytes);
+
+    /**
+     * Called once when the channel has been closed by the peer or has failed. The channel is no
+     * longer selected afterwards.
+     *
+     * @param e the exception which ended the channel, or null if the peer closed it
+     */
+    void channelClosed(Exception e);
+  }
+
+  //// Constructors
+
+  /**
+   * Creates a new instance of CfaslSelectorDispatcher.
+   *
+   * @param threadCount the number of selector threads
+   *
+   * @throws IOException if a selector cannot be opened
+   */
+  public CfaslSelectorDispatcher(final int threadCount) throws IOException {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("A dispatcher needs at least one selector thread.");
+    }
+    selectorThreads = new SelectorThread[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      selectorThreads[i] = new SelectorThread(Selector.open(), i + 1);
+    }
+    for (final SelectorThread thread : selectorThreads) {
+      thread.start();
+    }
+  }
+
+  //// Public Area
+
+  /** The name of the system property which sets the size of the default dispatcher. */
+  public static final String SELECTOR_THREADS_PROPERTY = "com.cyc.baseclient.comm.selectors";
+
+  /**
+   * Returns the dispatcher shared by every SelectorComm which was not given its own.
+   *
+   * @return the shared default dispatcher
+   *
+   * @throws IOException if a selector cannot be opened
+   */
+  public static synchronized CfaslSelectorDispatcher getDefaultDispatcher() throws IOException {
+    if (defaultDispatcher == null) {
+      defaultDispatcher = new CfaslSelectorDispatcher(
+              Integer.getInteger(SELECTOR_THREADS_PROPERTY, DEFAULT_SELECTOR_THREADS));
+    }
+    return defaultDispatcher;
+  }
+
+  /**
+   * Registers the given connected channel, switching it to non-blocking mode. Once the channel is
+   * registered, the listener is called on its selector thread with an empty buffer, so that it can
+   * process any bytes it read from the channel before registration without waiting for more.
+   *
+   * @param channel the channel to read
+   * @param listener the listener which receives the channel's bytes
+   *
+   * @throws IOException if the channel cannot be made non-blocking
+   */
+  public void register(final SocketChannel channel, final ChannelListener listener)
+          throws IOException {
+    channel.configureBlocking(false);
+    final SelectorThread thread = selectorThreads[
+            (nextThread.getAndIncrement() & Integer.MAX_VALUE) % selectorThreads.length];
+    thread.pendingRegistrations.add(new Registration(channel, listener));
+    thread.selector.wakeup();
+  }
+
+  /**
+   * Returns the number of selector threads.
+   *
+   * @return the number of selector threads
+   */
+  public int getThreadCount() {
+    return selectorThreads.length;
+  }
+
+  /**
+   * Returns the number of channels currently registered with this dispatcher.
+   *
+   * @return the number of registered channels
+   */
+  public int getChannelCount() {
+    int count = 0;
+    for (final SelectorThread thread : selectorThreads) {
+      count += thread.selector.keys().size();
+    }
+    return count;
+  }
+
+  //// Private Area
+
+  private static class Registration {
+
+    final SocketChannel channel;
+    final ChannelListener listener;
+
+    Registration(final SocketChannel channel, final ChannelListener listener) {
+      this.channel = channel;
+      this.listener = listener;
+    }
+  }
+
+  private static class SelectorThread extends Thread {
+
+    final Selector selector;
+    final Queue<Registration> pendingRegistrations = new ConcurrentLinkedQueue<Registration>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+    SelectorThread(final Selector selector, final int number) {
+      this.selector = selector;
+      setDaemon(true);
+      setName("CfaslSelectorDispatcher #" + number);
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        try {
+          selector.select();
+          registerPending();
+          final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+          while (keys.hasNext()) {
+            final SelectionKey key = keys.next();
+            keys.remove();
+            if (key.isValid() && key.isReadable()) {
+              read(key);
+            }
+          }
+        } catch (IOException e) {
+          LOGGER.log(Level.SEVERE, "Selector failure.", e);
+        } catch (RuntimeException e) {
+          LOGGER.log(Level.SEVERE, "Unexpected error dispatching CFASL responses.", e);
+        }
+      }
+    }
+
+    private void registerPending() {
+      Registration registration;
+      while ((registration = pendingRegistrations.poll()) != null) {
+        final SelectionKey key;
+        try {
+          key = registration.channel.register(selector, SelectionKey.OP_READ, registration.listener);
+        } catch (ClosedChannelException e) {
+          registration.listener.channelClosed(e);
+          continue;
+        }
+        try {
+          registration.listener.bytesReceived(EMPTY_BUFFER);
+        } catch (RuntimeException e) {
+          closeChannel(key, registration.listener, e);
+        }
+      }
+    }
+
+    private void read(final SelectionKey key) {
+      final SocketChannel channel = (SocketChannel) key.channel();
+      final ChannelListener listener = (ChannelListener) key.attachment();
+      try {
+        // drain what is available, but yield to the other channels once the buffer is full
+        int bytesRead;
+        do {
+          readBuffer.clear();
+          bytesRead = channel.read(readBuffer);
+          if (bytesRead > 0) {
+            readBuffer.flip();
+            listener.bytesReceived(readBuffer);
+          }
+        } while (bytesRead == READ_BUFFER_SIZE);
+        if (bytesRead < 0) {
+          closeChannel(key, listener, null);
+        }
+      } catch (IOException e) {
+        closeChannel(key, listener, e);
+      } catch (RuntimeException e) {
+        closeChannel(key, listener, e);
+      }
+    }
+
+    private void closeChannel(final SelectionKey key, final ChannelListener listener,
+            final Exception e) {
+      key.cancel();
+      try {
+        key.channel().close();
+      } catch (IOException ioe) {
+        // ignore
+      }
+      listener.channelClosed(e);
+    }
+  }
+
+  //// Internal Rep
+
+  private static final Logger LOGGER = Logger.getLogger(CfaslSelectorDispatcher.class.getName());
+  private static final int DEFAULT_SELECTOR_THREADS = 2;
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+  private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0).asReadOnlyBuffer();
+  private static CfaslSelectorDispatcher defaultDispatcher = null;
+  private final SelectorThread[] selectorThreads;
+  private final AtomicInteger nextThread = new AtomicInteger();
+
+}
@@ -0,0 +1,52 @@
+package com.cyc.baseclient.comm;
+
+/*
+ * #%L
+ * File: GatheringComm.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.exception.CycConnectionException;
+import com.cyc.baseclient.exception.CommException;
+import java.nio.ByteBuffer;
+
+/**
+ * <P>GatheringComm is an optional extension of the Comm interface for Comm objects which can
+ * send a request held in a chain of ByteBuffers, typically with one gathering write to a socket
+ * channel. When a CycConnection's Comm implements it, requests are encoded straight into pooled
+ * direct buffers and are never copied into a byte array.
+ *
+ * <P>The request summary is not built by the caller. A Comm which logs its requests should call
+ * {@link #makeRequestSummary} on the message only when the summary is actually needed.
+ *
+ * @see SelectorComm
+ */
+public interface GatheringComm extends Comm {
+
+  /**
+   * Send a NORMAL request to Cyc. The buffers belong to the caller and are valid only until this
+   * method returns, so the request must have been written, or copied, by then.
+   *
+   * @param request The buffers holding the encoded request, ready to be read.
+   * @param message The request object, from which a summary may be made for logging.
+   * @throws CommException If a  problem with Cyc is encountered.
+   * @throws CycConnectionException if a fundamental communications error occurs
+   */
+  void sendRequest(ByteBuffer[] request, Object message) throws CommException, CycConnectionException;
+
+}
@@ -0,0 +1,321 @@
+package com.cyc.baseclient.comm;
+
+/*
+ * #%L
+ * File: SelectorComm.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+//// Internal Imports
+
+import com.cyc.base.conn.CycConnection;
+import com.cyc.base.exception.CycConnectionException;
+import com.cyc.baseclient.connection.CfaslFrameDecoder;
+import com.cyc.baseclient.connection.CycConnectionImpl;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import com.cyc.baseclient.exception.CommException;
+import com.cyc.baseclient.util.Log;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+//// External Imports
+
+/**
+ * <P>SelectorComm is an implementation of the Comm API built on NIO socket channels. Requests
+ * are written to a blocking request channel, as with SocketComm; responses arrive on a
+ * non-blocking channel which is read by a {@link CfaslSelectorDispatcher}, decoded incrementally
+ * and routed to the waiting workers without a per-connection reader thread. Many connections can
+ * therefore share a handful of selector threads.
+ *
+ * <P>Ex.:
+ * <CODE><PRE>
+  Comm comm = new SelectorComm(CycServer.DEFAULT.getHostName(), CycServer.DEFAULT.getBasePort());
+  CycClient cycAccess = new CycClient(comm);
+ </CODE></PRE>
+ *
+ * <P>SelectorComm must be used with a CycConnectionImpl. It implements GatheringComm, so requests
+ * reach the request channel in a single gathering write from pooled direct buffers.
+ */
+public class SelectorComm extends AbstractComm implements GatheringComm {
+
+  //// Constructors
+
+  /**
+   * Creates a new instance of SelectorComm which uses the shared default dispatcher.
+   *
+   * @param hostName the Cyc server host name
+   * @param portNum the Cyc server base port
+   *
+   * @throws IOException if the default dispatcher cannot be started
+   */
+  public SelectorComm(String hostName, int portNum) throws IOException {
+    this(hostName, portNum, CfaslSelectorDispatcher.getDefaultDispatcher());
+  }
+
+  /**
+   * Creates a new instance of SelectorComm.
+   *
+   * @param hostName the Cyc server host name
+   * @param portNum the Cyc server base port
+   * @param dispatcher the dispatcher which reads the response channel
+   */
+  public SelectorComm(String hostName, int portNum, CfaslSelectorDispatcher dispatcher) {
+    this.hostName = hostName;
+    this.port = portNum + CycConnectionImpl.CFASL_PORT_OFFSET;
+    this.dispatcher = dispatcher;
+  }
+
+  //// Public Area
+
+  /**
+   * Sends a request to Cyc. Responses are delivered asynchronously to the CycConnection, so
+   * the returned stream is always null.
+   *
+   * @return null
+   */
+  @Override
+  public InputStream sendRequest(byte request[], String requestSummary, RequestType requestType)
+          throws CommException, CycConnectionException {
+    if (LOGGER.isLoggable(Level.FINE)) {
+      LOGGER.fine(requestSummary);
+    }
+    switch (requestType) {
+      case INIT:
+        try {
+          final SocketChannel channel = openChannel();
+          writeFully(channel, request);
+          readInitializationResponse(channel);
+          responseChannel = channel;
+          return null;
+        } catch (IOException ioe) {
+          throw new CycConnectionException(ioe);
+        }
+      case NORMAL:
+        possiblyInitializeCommWithServer();
+        try {
+          writeFully(requestChannel, request);
+        } catch (IOException ioe) {
+          throw new CycConnectionException(ioe);
+        }
+        return null;
+      default:
+        throw new IllegalArgumentException("Don't know about RequestType: " + requestType);
+    }
+  }
+
+  /**
+   * Sends a request held in the given buffers with a gathering write.
+   */
+  @Override
+  public void sendRequest(ByteBuffer[] request, Object message)
+          throws CommException, CycConnectionException {
+    if (LOGGER.isLoggable(Level.FINE)) {
+      LOGGER.fine(makeRequestSummary(String.valueOf(message)));
+    }
+    possiblyInitializeCommWithServer();
+    if (request.length == 0) {
+      return;
+    }
+    final SocketChannel channel = requestChannel;
+    final ByteBuffer last = request[request.length - 1];
+    try {
+      synchronized (channel) {
+        while (last.hasRemaining()) {
+          channel.write(request);
+        }
+      }
+    } catch (IOException ioe) {
+      throw new CycConnectionException(ioe);
+    }
+  }
+
+  public synchronized void possiblyInitializeCommWithServer()
+          throws CommException, CycConnectionException {
+    if (isInitialized) {
+      return;
+    }
+    final CycConnection conn = getCycConnection();
+    if (!(conn instanceof CycConnectionImpl)) {
+      throw new CommException("SelectorComm requires a CycConnectionImpl, not " + conn);
+    }
+    final CycConnectionImpl cycConnection = (CycConnectionImpl) conn;
+    isInitialized = true;
+    isClosing = false;
+    try {
+      requestChannel = openChannel();
+      final byte[] initializationRequest = AbstractComm.getCycInitializationRequest(cycConnection.getUuid());
+      sendRequest(initializationRequest, makeRequestSummary("initialization request"), RequestType.INIT);
+      // @Note; the connection must be ready before the first response can be dispatched
+      cycConnection.setupNewNonBlockingCommConnection();
+      decoder.setTrace(cycConnection.getTrace());
+      dispatcher.register(responseChannel, new ResponseListener(cycConnection));
+    } catch (IOException ioe) {
+      isInitialized = false;
+      throw new CycConnectionException(ioe);
+    }
+  }
+
+  @Override
+  public String makeRequestSummary(String request) {
+    return request;
+  }
+
+  @Override
+  public synchronized void close() throws CycConnectionException {
+    isClosing = true;
+    CycConnectionException closeException = null;
+    for (final SocketChannel channel : new SocketChannel[]{requestChannel, responseChannel}) {
+      if ((channel != null) && channel.isOpen()) {
+        try {
+          channel.close();
+        } catch (IOException ioe) {
+          closeException = new CycConnectionException(ioe);
+        }
+      }
+    }
+    if (closeException != null) {
+      throw closeException;
+    }
+  }
+
+  @Override
+  public void setCycConnection(CycConnection conn) {
+    isInitialized = false;
+    super.setCycConnection(conn);
+  }
+
+  @Override
+  public String toString() {
+    return "SelectorComm with Host: " + hostName + " Port: " + port;
+  }
+
+  //// Private Area
+
+  private SocketChannel openChannel() throws IOException {
+    final SocketChannel channel = SocketChannel.open();
+    channel.socket().setReceiveBufferSize(channel.socket().getReceiveBufferSize() * 2);
+    channel.socket().setTcpNoDelay(true);
+    channel.socket().setKeepAlive(true);
+    channel.connect(new InetSocketAddress(hostName, port));
+    return channel;
+  }
+
+  private void writeFully(final SocketChannel channel, final byte[] request) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.wrap(request);
+    synchronized (channel) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+  }
+
+  /**
+   * Reads and ignores the server's reply to the initialization request, while the channel is
+   * still blocking. Any bytes which follow the reply stay in the decoder, and are decoded on the
+   * selector thread as soon as the channel is registered.
+   */
+  private void readInitializationResponse(final SocketChannel channel) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate(INIT_BUFFER_SIZE);
+    while (!decoder.decodeNext()) {
+      buffer.clear();
+      if (channel.read(buffer) < 0) {
+        throw new IOException("Cyc closed the response channel during initialization.");
+      }
+      buffer.flip();
+      decoder.append(buffer);
+    }
+  }
+
+  /**
+   * Decodes the bytes of the response channel and routes each response to its worker. It runs on
+   * a selector thread, and never waits on the ApiThreadPool: CycConnectionImpl hands the
+   * notifications to {@link com.cyc.baseclient.connection.ApiThreadPool#executeWithoutWaiting}.
+   */
+  private class ResponseListener implements CfaslSelectorDispatcher.ChannelListener {
+
+    private final CycConnectionImpl cycConnection;
+
+    ResponseListener(final CycConnectionImpl cycConnection) {
+      this.cycConnection = cycConnection;
+    }
+
+    @Override
+    public void bytesReceived(final ByteBuffer bytes) {
+      decoder.append(bytes);
+      try {
+        while (decoder.decodeNext()) {
+          final Object response = decoder.getResponse();
+          if (!(response instanceof CycArrayList)) {
+            Log.current.errorPrintln("Invalid task processor response: " + response);
+            continue;
+          }
+          if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("API response: " + ((CycArrayList) response).stringApiValue());
+          }
+          try {
+            cycConnection.handleTaskProcessorResponse(decoder.getStatus(),
+                    (CycArrayList) response, decoder.isInvalidObject(), decoder.getFrameByteCount());
+          } catch (RuntimeException e) {
+            Log.current.errorPrintln(e.getMessage());
+            Log.current.printStackTrace(e);
+          }
+        }
+      } catch (IOException ioe) {
+        // the stream can no longer be framed, so the channel is unusable
+        throw new CommResponseException(ioe);
+      }
+    }
+
+    @Override
+    public void channelClosed(final Exception e) {
+      if (!isClosing) {
+        cycConnection.handleCommConnectionClosed(
+                (e instanceof CommResponseException) ? (Exception) e.getCause() : e);
+      }
+    }
+  }
+
+  /** Carries a framing failure out of the listener so that the dispatcher closes the channel. */
+  private static class CommResponseException extends RuntimeException {
+
+    CommResponseException(final IOException cause) {
+      super(cause);
+    }
+
+    private static final long serialVersionUID = 1L;
+  }
+
+  //// Internal Rep
+
+  private static final Logger LOGGER = Logger.getLogger(SelectorComm.class.getName());
+  private static final int INIT_BUFFER_SIZE = 8192;
+  private final String hostName;
+  private final int port;
+  private final CfaslSelectorDispatcher dispatcher;
+  private final CfaslFrameDecoder decoder = new CfaslFrameDecoder();
+  private volatile SocketChannel requestChannel;
+  private volatile SocketChannel responseChannel;
+  private volatile boolean isInitialized = false;
+  private volatile boolean isClosing = false;
+
+}
@@ -23,16 +23,49 @@ package com.cyc.baseclient.connection;
 
 //// Internal Imports
 
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 
 /**
- * <P>ApiThreadPool is designed to...
+ * <P>ApiThreadPool runs the notifications of SubL workers, and other short asynchronous api
+ * tasks, for a CycConnection. How its threads are made and bounded is set by its
+ * {@link Strategy}:
+ *
+ * <UL>
+ * <LI>{@link Strategy#BOUNDED}, the default: between 4 and 50 platform threads, each task handed
+ * directly to an idle thread.
+ * <LI>{@link Strategy#QUEUED}: a fixed number of platform threads in front of a bounded queue.
+ * <LI>{@link Strategy#VIRTUAL}: a virtual thread per running task, for Java runtimes which have
+ * virtual threads. Elsewhere the pool falls back to BOUNDED.
+ * </UL>
+ *
+ * <P>The strategy of pools made with the no-argument constructor, including the default pool, is
+ * read from the {@value #STRATEGY_PROPERTY} system property; {@value #MAX_THREADS_PROPERTY},
+ * {@value #QUEUE_SIZE_PROPERTY} and {@value #SUBMIT_TIMEOUT_PROPERTY} tune it. An application may
+ * also install its own default pool with {@link #setDefaultPool} before connecting.
+ *
+ * <P>By default a saturated pool rejects a task at once, as it always has. A pool given a submit
+ * timeout applies backpressure instead: the submitting thread waits for a thread or queue slot to
+ * free up, and the task is rejected only if none does within the timeout. Threads which must never
+ * wait, such as those reading responses off a connection, use {@link #executeWithoutWaiting}, which
+ * defers a task the saturated pool cannot take to an unbounded overflow queue. The pool counts the
+ * tasks submitted, throttled, deferred and rejected, and the time submitters spent waiting, so that
+ * saturation can be monitored.
  *
  * <P>Copyright (c) 2006 Cycorp, Inc.  All rights reserved.
  * <BR>This software is the proprietary information of Cycorp, Inc.
@@ -46,12 +79,75 @@ public class ApiThreadPool extends ThreadPoolExecutor {
   
   //// Constructors
   
-  /** Creates a new instance of ApiThreadPool. */
+  /** Creates a new instance of ApiThreadPool, with the configured strategy. */
   public ApiThreadPool() {
-    super(MIN_THREADS, MAX_THREADS, KEEP_ALIVE_TIME, KEEP_ALIVE_UNITS,
-      DEFAULT_WORK_QUEUE, DEFAULT_THREAD_FACTORY);
+    this(getConfiguredStrategy());
+  }
+  
+  /**
+   * Creates a new instance of ApiThreadPool with the given strategy and the configured maximum
+   * number of threads.
+   *
+   * @param strategy how the pool makes and bounds its threads
+   */
+  public ApiThreadPool(Strategy strategy) {
+    this(strategy, Integer.getInteger(MAX_THREADS_PROPERTY, getDefaultMaxThreads(strategy)));
+  }
+  
+  /**
+   * Creates a new instance of ApiThreadPool.
+   *
+   * @param strategy how the pool makes and bounds its threads; VIRTUAL falls back to BOUNDED when
+   * the Java runtime has no virtual threads
+   * @param maxThreads the maximum number of concurrently running tasks
+   */
+  public ApiThreadPool(Strategy strategy, int maxThreads) {
+    this(getSupportedStrategy(strategy), maxThreads,
+            Integer.getInteger(QUEUE_SIZE_PROPERTY, DEFAULT_QUEUE_SIZE));
+  }
+  
+  private ApiThreadPool(Strategy strategy, int maxThreads, int queueSize) {
+    super(getCoreThreads(strategy, maxThreads), maxThreads, KEEP_ALIVE_TIME, KEEP_ALIVE_UNITS,
+            makeWorkQueue(strategy, queueSize), makeThreadFactory(strategy), BACKPRESSURE_HANDLER);
+    this.strategy = strategy;
+    if (strategy == Strategy.QUEUED) {
+      allowCoreThreadTimeOut(true);
+    }
+    overflowPool = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_TIME, KEEP_ALIVE_UNITS,
+            new LinkedBlockingQueue<Runnable>(), makeThreadFactory(strategy));
+    overflowPool.allowCoreThreadTimeOut(true);
+  }
+  
+  //// Public Area
+  
+  /** How an ApiThreadPool makes and bounds its threads. */
+  public enum Strategy {
+    /** Between 4 and the maximum number of platform threads, with no queue. */
+    BOUNDED,
+    /** The maximum number of platform threads, in front of a bounded queue. */
+    QUEUED,
+    /** A virtual thread per running task, with no queue. */
+    VIRTUAL
   }
   
+  /**
+   * The name of the system property giving the strategy (bounded, queued or virtual) of pools
+   * made with the no-argument constructor.
+   */
+  public static final String STRATEGY_PROPERTY = "com.cyc.baseclient.connection.apiThreadPool";
+  
+  /** The name of the system property giving the maximum number of concurrently running tasks. */
+  public static final String MAX_THREADS_PROPERTY = "com.cyc.baseclient.connection.apiThreadPool.maxThreads";
+  
+  /** The name of the system property giving the capacity of the queue of a QUEUED pool. */
+  public static final String QUEUE_SIZE_PROPERTY = "com.cyc.baseclient.connection.apiThreadPool.queueSize";
+  
+  /**
+   * The name of the system property giving how many milliseconds a submitter waits on a saturated
+   * pool before its task is rejected. It defaults to zero, which rejects the task at once.
+   */
+  public static final String SUBMIT_TIMEOUT_PROPERTY = "com.cyc.baseclient.connection.apiThreadPool.submitTimeoutMillis";
+  
   public static synchronized ApiThreadPool getDefaultPool() {
     if (apiThreadPool == null) {
       apiThreadPool = new ApiThreadPool();
@@ -59,17 +155,227 @@ public class ApiThreadPool extends ThreadPoolExecutor {
     return apiThreadPool;
   }
   
+  /**
+   * Replaces the pool returned by {@link #getDefaultPool}. Connections which already use the
+   * previous default pool keep it, so this is best called before connecting.
+   *
+   * @param pool the new default pool
+   */
+  public static synchronized void setDefaultPool(ApiThreadPool pool) {
+    if (pool == null) {
+      throw new IllegalArgumentException("The default ApiThreadPool cannot be null.");
+    }
+    apiThreadPool = pool;
+  }
+  
   public static ThreadGroup getDefaultThreadGroup() {
     return defaultThreadGroup;
   }
   
+  /**
+   * Returns true if this Java runtime can make virtual threads.
+   *
+   * @return true if the VIRTUAL strategy is available
+   */
+  public static boolean isVirtualThreadSupported() {
+    return VIRTUAL_THREAD_FACTORY != null;
+  }
+  
   /** ensure we only run the right type of runnables **/
+  @Override
   public void execute(Runnable runnable) {
+    submittedCount.incrementAndGet();
     super.execute(runnable);
   }
   
+  /**
+   * Executes the given task without ever making the caller wait, whatever the submit timeout. When
+   * this pool is saturated the task is deferred to an unbounded overflow queue, whose tasks are run
+   * in order by a single thread. This is the submit path for threads, such as response readers,
+   * which must keep reading while the pool is busy.
+   *
+   * @param runnable the task
+   * @throws RejectedExecutionException if this pool has been shut down
+   */
+  public void executeWithoutWaiting(Runnable runnable) {
+    submittedCount.incrementAndGet();
+    isNotWaiting.set(Boolean.TRUE);
+    try {
+      super.execute(runnable);
+      return;
+    } catch (RejectedExecutionException ree) {
+      if (isShutdown()) {
+        throw ree;
+      }
+    } finally {
+      isNotWaiting.remove();
+    }
+    deferredCount.incrementAndGet();
+    overflowPool.execute(runnable);
+  }
+  
+  /**
+   * Returns the strategy of this pool, which is BOUNDED if VIRTUAL was requested but is not
+   * supported.
+   *
+   * @return the strategy of this pool
+   */
+  public Strategy getStrategy() {
+    return strategy;
+  }
+  
+  /**
+   * Returns the number of tasks submitted to this pool.
+   *
+   * @return the number of submitted tasks
+   */
+  public long getSubmittedTaskCount() {
+    return submittedCount.get();
+  }
+  
+  /**
+   * Returns the number of tasks whose submitters had to wait because this pool was saturated.
+   *
+   * @return the number of throttled tasks
+   */
+  public long getThrottledTaskCount() {
+    return throttledCount.get();
+  }
+  
+  /**
+   * Returns the number of tasks which {@link #executeWithoutWaiting} deferred to the overflow queue
+   * because this pool was saturated.
+   *
+   * @return the number of deferred tasks
+   */
+  public long getDeferredTaskCount() {
+    return deferredCount.get();
+  }
+  
+  /**
+   * Returns the number of tasks rejected because this pool was shut down, or stayed saturated
+   * for the whole submit timeout.
+   *
+   * @return the number of rejected tasks
+   */
+  public long getRejectedTaskCount() {
+    return rejectedCount.get();
+  }
+  
+  /**
+   * Returns the total time submitters have waited on this pool while it was saturated.
+   *
+   * @return the total throttled time, in milliseconds
+   */
+  public long getThrottledMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(throttledNanos.get());
+  }
+  
+  /**
+   * Returns the number of tasks now running. Unlike {@link #getActiveCount}, this does not lock
+   * the pool.
+   *
+   * @return the number of running tasks
+   */
+  public int getRunningTaskCount() {
+    return runningCount.get();
+  }
+  
+  /**
+   * Returns the largest number of tasks which have run at once.
+   *
+   * @return the peak number of running tasks
+   */
+  public int getPeakRunningTaskCount() {
+    return peakRunningCount.get();
+  }
+  
+  /**
+   * Returns the fraction of the maximum number of threads now running tasks. A VIRTUAL pool has no
+   * meaningful bound on its threads and is never saturated, so its saturation is always 0.
+   *
+   * @return the saturation of this pool, from 0 to 1
+   */
+  public double getSaturation() {
+    if (strategy == Strategy.VIRTUAL) {
+      return 0.0;
+    }
+    final int maxThreads = getMaximumPoolSize();
+    return (maxThreads <= 0) ? 1.0 : Math.min(1.0, runningCount.get() / (double) maxThreads);
+  }
+  
+  /** Resets the submitted, throttled and rejected counters, and the peak running count. */
+  public void resetStatistics() {
+    submittedCount.set(0);
+    throttledCount.set(0);
+    deferredCount.set(0);
+    rejectedCount.set(0);
+    throttledNanos.set(0);
+    peakRunningCount.set(runningCount.get());
+  }
+  
+  /**
+   * Returns how many milliseconds a submitter waits on this saturated pool before its task is
+   * rejected.
+   *
+   * @return the submit timeout, in milliseconds
+   */
+  public long getSubmitTimeoutMillis() {
+    return submitTimeoutMillis;
+  }
+  
+  /**
+   * Sets how many milliseconds a submitter waits on this saturated pool before its task is
+   * rejected. Zero, the default, rejects tasks as soon as the pool is saturated.
+   *
+   * @param submitTimeoutMillis the submit timeout, in milliseconds
+   */
+  public void setSubmitTimeoutMillis(long submitTimeoutMillis) {
+    this.submitTimeoutMillis = Math.max(0, submitTimeoutMillis);
+  }
+  
+  @Override
+  public String toString() {
+    return "ApiThreadPool " + strategy + " running: " + runningCount.get() + "/" + getMaximumPoolSize()
+            + " submitted: " + submittedCount.get() + " throttled: " + throttledCount.get()
+            + " deferred: " + deferredCount.get() + " rejected: " + rejectedCount.get();
+  }
+  
+  @Override
+  public void shutdown() {
+    super.shutdown();
+    if (overflowPool != null) {
+      overflowPool.shutdown();
+    }
+  }
+  
+  @Override
+  public List<Runnable> shutdownNow() {
+    final List<Runnable> unrunTasks = super.shutdownNow();
+    if (overflowPool != null) {
+      unrunTasks.addAll(overflowPool.shutdownNow());
+    }
+    return unrunTasks;
+  }
+  
   //// Protected Area
   
+  @Override
+  protected void beforeExecute(Thread thread, Runnable runnable) {
+    super.beforeExecute(thread, runnable);
+    final int running = runningCount.incrementAndGet();
+    int peak = peakRunningCount.get();
+    while ((running > peak) && !peakRunningCount.compareAndSet(peak, running)) {
+      peak = peakRunningCount.get();
+    }
+  }
+  
+  @Override
+  protected void afterExecute(Runnable runnable, Throwable throwable) {
+    runningCount.decrementAndGet();
+    super.afterExecute(runnable, throwable);
+  }
+  
   //// Private Area
   static private class ApiThread extends Thread {
     ApiThread(ThreadGroup threadGroup, Runnable command, String name) {
@@ -77,23 +383,148 @@ public class ApiThreadPool extends ThreadPoolExecutor {
     }
   }
   
+  /**
+   * Waits for a saturated pool to take the task: for an idle thread to take it from the hand-off
+   * queue, or for a slot in the bounded queue. Rejects the task at once if the pool has no submit
+   * timeout, or if the submitter must not wait.
+   */
+  private void throttle(final Runnable runnable) {
+    if (isShutdown()) {
+      rejectedCount.incrementAndGet();
+      throw new RejectedExecutionException("ApiThreadPool has been shut down.");
+    }
+    if (isNotWaiting.get() != null) {
+      throw new RejectedExecutionException("ApiThreadPool is saturated: " + this);
+    }
+    if (submitTimeoutMillis <= 0) {
+      rejectedCount.incrementAndGet();
+      throw new RejectedExecutionException("ApiThreadPool is saturated: " + this);
+    }
+    throttledCount.incrementAndGet();
+    final long start = System.nanoTime();
+    boolean accepted = false;
+    try {
+      accepted = getQueue().offer(runnable, submitTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    } finally {
+      throttledNanos.addAndGet(System.nanoTime() - start);
+    }
+    if (!accepted) {
+      rejectedCount.incrementAndGet();
+      throw new RejectedExecutionException("ApiThreadPool stayed saturated for "
+              + submitTimeoutMillis + " ms: " + this);
+    }
+  }
+  
+  private static class BackpressureHandler implements RejectedExecutionHandler {
+    @Override
+    public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+      ((ApiThreadPool) executor).throttle(runnable);
+    }
+  }
+  
+  private static Strategy getConfiguredStrategy() {
+    final String name = System.getProperty(STRATEGY_PROPERTY);
+    if (name == null) {
+      return Strategy.BOUNDED;
+    }
+    try {
+      return Strategy.valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+    } catch (IllegalArgumentException iae) {
+      LOGGER.log(Level.WARNING, "Unknown {0} \"{1}\"; using BOUNDED.", new Object[]{STRATEGY_PROPERTY, name});
+      return Strategy.BOUNDED;
+    }
+  }
+  
+  private static Strategy getSupportedStrategy(final Strategy strategy) {
+    if ((strategy == Strategy.VIRTUAL) && !isVirtualThreadSupported()) {
+      LOGGER.warning("Virtual threads are not available in this Java runtime; using BOUNDED.");
+      return Strategy.BOUNDED;
+    }
+    return strategy;
+  }
+  
+  /** Returns the default maximum, which for a VIRTUAL pool falling back to BOUNDED is BOUNDED's. */
+  private static int getDefaultMaxThreads(final Strategy strategy) {
+    return ((strategy == Strategy.VIRTUAL) && isVirtualThreadSupported()) ? Integer.MAX_VALUE : MAX_THREADS;
+  }
+  
+  private static int getCoreThreads(final Strategy strategy, final int maxThreads) {
+    switch (strategy) {
+      case QUEUED:
+        return maxThreads;
+      case VIRTUAL:
+        return 0;
+      default:
+        return Math.min(MIN_THREADS, maxThreads);
+    }
+  }
+  
+  private static BlockingQueue<Runnable> makeWorkQueue(final Strategy strategy, final int queueSize) {
+    return (strategy == Strategy.QUEUED)
+            ? new LinkedBlockingQueue<Runnable>(queueSize)
+            : new SynchronousQueue<Runnable>();
+  }
+  
+  private static ThreadFactory makeThreadFactory(final Strategy strategy) {
+    return (strategy == Strategy.VIRTUAL) ? VIRTUAL_THREAD_FACTORY : DEFAULT_THREAD_FACTORY;
+  }
+  
+  /**
+   * Makes a factory of virtual threads through reflection, as Base Client is built for Java
+   * runtimes which have none.
+   *
+   * @return the factory, or null if this Java runtime has no virtual threads
+   */
+  private static ThreadFactory makeVirtualThreadFactory() {
+    try {
+      final Method ofVirtual = Thread.class.getMethod("ofVirtual");
+      final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = ofVirtual.invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class)
+              .invoke(builder, "SubL Virtual Thread #", 1L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (Exception e) {
+      return null;
+    }
+  }
+  
   //// Internal Rep
-  private static int threadNum = 1;
+  private static final Logger LOGGER = Logger.getLogger(ApiThreadPool.class.getName());
+  private static final AtomicInteger threadNum = new AtomicInteger(1);
   private static final ThreadGroup defaultThreadGroup = new ThreadGroup("Base Client Thread Group");
 
   private static final int MIN_THREADS = 4;
   private static final int MAX_THREADS = 50;
-  private static final BlockingQueue<Runnable> DEFAULT_WORK_QUEUE = new SynchronousQueue<Runnable>();
+  private static final int DEFAULT_QUEUE_SIZE = 1000;
+  private static final long DEFAULT_SUBMIT_TIMEOUT_MILLIS = 0;
   private static final int KEEP_ALIVE_TIME = 60;
   private static final TimeUnit KEEP_ALIVE_UNITS = TimeUnit.SECONDS;
   private static final ThreadFactory DEFAULT_THREAD_FACTORY = new ThreadFactory() {
       public Thread newThread(Runnable command) {
-        return new ApiThread(defaultThreadGroup, command, "SubL Thread #" + threadNum++);
+        return new ApiThread(defaultThreadGroup, command, "SubL Thread #" + threadNum.getAndIncrement());
       }
     };
+  private static final ThreadFactory VIRTUAL_THREAD_FACTORY = makeVirtualThreadFactory();
+  private static final RejectedExecutionHandler BACKPRESSURE_HANDLER = new BackpressureHandler();
 
   private static ApiThreadPool apiThreadPool = null;
   
+  private final Strategy strategy;
+  /** Runs, one at a time, the tasks which executeWithoutWaiting could not hand to this pool. */
+  private final ThreadPoolExecutor overflowPool;
+  /** Set while executeWithoutWaiting submits, so that a saturated pool rejects rather than waits. */
+  private final ThreadLocal<Boolean> isNotWaiting = new ThreadLocal<Boolean>();
+  private volatile long submitTimeoutMillis = Long.getLong(SUBMIT_TIMEOUT_PROPERTY, DEFAULT_SUBMIT_TIMEOUT_MILLIS);
+  private final AtomicLong submittedCount = new AtomicLong();
+  private final AtomicLong throttledCount = new AtomicLong();
+  private final AtomicLong deferredCount = new AtomicLong();
+  private final AtomicLong rejectedCount = new AtomicLong();
+  private final AtomicLong throttledNanos = new AtomicLong();
+  private final AtomicInteger runningCount = new AtomicInteger();
+  private final AtomicInteger peakRunningCount = new AtomicInteger();
+  
   //// Main
 
   public static void main(String[] args) {
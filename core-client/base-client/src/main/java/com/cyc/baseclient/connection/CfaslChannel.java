@@ -0,0 +1,209 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: CfaslChannel.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.conn.Worker;
+import com.cyc.base.exception.CycConnectionException;
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.DefaultSublWorker;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import com.cyc.baseclient.util.Log;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class CfaslChannel is one lane of a pooled CFASL connection: a request socket, the passive
+ * socket on which the Cyc server returns the responses for that lane, and the UUID by which the
+ * server associates the two. Every channel of a CycConnectionImpl shares the connection's table of
+ * waiting workers, so a response is routed by its request id no matter which lane carried it.
+ */
+class CfaslChannel {
+
+  /**
+   * Constructs a CfaslChannel object.
+   *
+   * @param cycConnection the parent CycConnection
+   * @param uuid the UUID which identifies this lane's passive socket to the Cyc server
+   * @param requestSocket the socket on which requests are sent
+   * @param outputStream the CFASL stream wrapping the request socket
+   * @param responseHandler the handler reading this lane's passive socket
+   * @param writeLock the monitor which guards writes to the output stream, or null to use this
+   * channel
+   */
+  CfaslChannel(final CycConnectionImpl cycConnection,
+          final UUID uuid,
+          final Socket requestSocket,
+          final CfaslOutputStream outputStream,
+          final TaskProcessorBinaryResponseHandler responseHandler,
+          final Object writeLock) {
+    this.cycConnection = cycConnection;
+    this.uuid = uuid;
+    this.requestSocket = requestSocket;
+    this.outputStream = outputStream;
+    this.responseHandler = responseHandler;
+    this.writeLock = (writeLock == null) ? this : writeLock;
+  }
+
+  /**
+   * Returns the UUID which identifies this lane to the Cyc server.
+   *
+   * @return the UUID which identifies this lane to the Cyc server
+   */
+  UUID getUuid() {
+    return uuid;
+  }
+
+  /**
+   * Returns the number of requests sent on this lane which still await their final response.
+   *
+   * @return the number of outstanding requests on this lane
+   */
+  int getOutstandingRequestCount() {
+    return outstandingRequests.get();
+  }
+
+  /** Records that a request has been routed to this lane. */
+  void requestStarted() {
+    outstandingRequests.incrementAndGet();
+  }
+
+  /** Records that a request routed to this lane has received its final response. */
+  void requestFinished() {
+    outstandingRequests.decrementAndGet();
+  }
+
+  /**
+   * Sends the given task-processor request on this lane.
+   *
+   * @param id the api request id
+   * @param worker the worker awaiting the response
+   * @param message the task-processor request
+   * @param pipelined true to queue the request for this lane's request writer
+   *
+   * @throws CycConnectionException when a communication error occurs
+   */
+  void send(final Integer id, final Worker worker, final Object message, final boolean pipelined)
+          throws CycConnectionException {
+    if (pipelined) {
+      getRequestWriter().enqueue(id, worker, message);
+      return;
+    }
+    final SublCommandProfiler profiler = DefaultSublWorker.getProfiler();
+    try {
+      synchronized (writeLock) {
+        final long start = outputStream.getBytesWritten();
+        outputStream.writeObject(message);
+        outputStream.flush();
+        if (profiler != null) {
+          profiler.recordRequestBytes(worker, outputStream.getBytesWritten() - start);
+        }
+      }
+    } catch (IOException ioe) {
+      throw new CycConnectionException(ioe);
+    }
+  }
+
+  /**
+   * Returns the request writer of this lane, or null if the lane has never sent a pipelined
+   * request.
+   *
+   * @return the request writer of this lane, or null
+   */
+  CfaslRequestWriter peekRequestWriter() {
+    return requestWriter;
+  }
+
+  /**
+   * Releases this lane's server resources and closes its sockets. The primary lane is closed by
+   * the parent connection itself, which only asks it to stop its request writer.
+   *
+   * @param releaseServerResources true to ask the server to release this lane's resources
+   */
+  void close(final boolean releaseServerResources) {
+    final CfaslRequestWriter writer = requestWriter;
+    if (writer != null) {
+      writer.close();
+    }
+    if (!releaseServerResources) {
+      return;
+    }
+    responseHandler.isClosing = true;
+    try {
+      synchronized (writeLock) {
+        CycArrayList command = new CycArrayList();
+        command.add(CycObjectFactory.makeCycSymbol("RELEASE-RESOURCES-FOR-JAVA-API-CLIENT"));
+        command.add(uuid);
+        outputStream.writeObject(command);
+        command = new CycArrayList();
+        command.add(CycObjectFactory.makeCycSymbol("API-QUIT"));
+        outputStream.writeObject(command);
+        outputStream.flush();
+      }
+    } catch (Exception e) {
+      if (cycConnection.trace > CycConnectionImpl.API_TRACE_NONE) {
+        Log.current.println("Error releasing the api channel " + uuid + ": " + e.getMessage());
+      }
+    }
+    try {
+      requestSocket.close();
+    } catch (Exception e) {
+      // ignore
+    }
+    responseHandler.interrupt();
+    responseHandler.close();
+  }
+
+  @Override
+  public String toString() {
+    return "CfaslChannel " + uuid + " (" + outstandingRequests.get() + " outstanding)";
+  }
+
+  //// Private Area
+
+  private CfaslRequestWriter getRequestWriter() {
+    CfaslRequestWriter writer = requestWriter;
+    if (writer == null) {
+      synchronized (this) {
+        writer = requestWriter;
+        if (writer == null) {
+          writer = new CfaslRequestWriter(cycConnection, outputStream, writeLock);
+          writer.start();
+          requestWriter = writer;
+        }
+      }
+    }
+    return writer;
+  }
+
+  //// Internal Rep
+
+  private final CycConnectionImpl cycConnection;
+  private final UUID uuid;
+  private final Socket requestSocket;
+  private final CfaslOutputStream outputStream;
+  final TaskProcessorBinaryResponseHandler responseHandler;
+  private final Object writeLock;
+  private final AtomicInteger outstandingRequests = new AtomicInteger();
+  private volatile CfaslRequestWriter requestWriter = null;
+}
@@ -0,0 +1,477 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: CfaslFrameDecoder.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import static com.cyc.baseclient.connection.CfaslInputStream.*;
+
+/**
+ * Class CfaslFrameDecoder decodes task-processor responses from bytes which arrive in arbitrary
+ * pieces, as they do from a non-blocking socket channel. Each response frame is a status object
+ * followed by the response list. Appended bytes are scanned incrementally, so a large frame
+ * which arrives in many pieces is scanned only once; when a frame is complete it is decoded by a
+ * CfaslInputStream which never blocks, because the whole frame is already in memory.
+ * <p>
+ * A decoder is not thread safe; each response channel owns one.
+ */
+public final class CfaslFrameDecoder {
+
+  //// Constructors
+
+  /** Creates a new instance of CfaslFrameDecoder. */
+  public CfaslFrameDecoder() {
+    frameInputStream = new FrameInputStream();
+    cfaslInputStream = new CfaslInputStream(frameInputStream);
+    resetScanner();
+  }
+
+  //// Public Area
+
+  /**
+   * Appends the remaining bytes of the given buffer to the bytes awaiting decoding.
+   *
+   * @param src the buffer whose remaining bytes are consumed
+   */
+  public void append(final ByteBuffer src) {
+    final int length = src.remaining();
+    ensureCapacity(length);
+    src.get(buffer, limit, length);
+    limit += length;
+  }
+
+  /**
+   * Appends the given bytes to the bytes awaiting decoding.
+   *
+   * @param bytes the bytes
+   * @param offset the offset of the first byte to append
+   * @param length the number of bytes to append
+   */
+  public void append(final byte[] bytes, final int offset, final int length) {
+    ensureCapacity(length);
+    System.arraycopy(bytes, offset, buffer, limit, length);
+    limit += length;
+  }
+
+  /**
+   * Decodes the next complete response frame, if one has arrived. The decoded frame is then
+   * available from {@link #getStatus}, {@link #getResponse} and {@link #isInvalidObject}.
+   *
+   * @return true if a frame was decoded, false if more bytes are needed
+   *
+   * @throws IOException if the bytes are not a valid CFASL response frame
+   */
+  public boolean decodeNext() throws IOException {
+    if (!scan()) {
+      return false;
+    }
+    final int frameEnd = position;
+    frameByteCount = frameEnd - frameStart;
+    frameInputStream.setWindow(frameStart, frameEnd);
+    cfaslInputStream.trace = trace;
+    try {
+      cfaslInputStream.resetIsInvalidObject();
+      status = cfaslInputStream.readObject();
+      cfaslInputStream.resetIsInvalidObject();
+      response = cfaslInputStream.readObject();
+      isInvalidObject = cfaslInputStream.isInvalidObject();
+    } finally {
+      // discard anything a failed decoding left behind in the stream's own buffer
+      final int leftover = cfaslInputStream.available();
+      if (leftover > 0) {
+        cfaslInputStream.skip(leftover);
+      }
+      frameStart = frameEnd;
+      resetScanner();
+      compact();
+    }
+    return true;
+  }
+
+  /**
+   * Returns the status object of the most recently decoded frame.
+   *
+   * @return the status object of the most recently decoded frame
+   */
+  public Object getStatus() {
+    return status;
+  }
+
+  /**
+   * Returns the response object of the most recently decoded frame.
+   *
+   * @return the response object of the most recently decoded frame
+   */
+  public Object getResponse() {
+    return response;
+  }
+
+  /**
+   * Returns true if the most recently decoded frame contains an invalid object.
+   *
+   * @return true if the most recently decoded frame contains an invalid object
+   */
+  public boolean isInvalidObject() {
+    return isInvalidObject;
+  }
+
+  /**
+   * Returns the encoded size of the most recently decoded frame.
+   *
+   * @return the number of bytes in the most recently decoded frame
+   */
+  public int getFrameByteCount() {
+    return frameByteCount;
+  }
+
+  /**
+   * Returns the number of received bytes which do not yet form a complete frame.
+   *
+   * @return the number of buffered bytes
+   */
+  public int getBufferedByteCount() {
+    return limit - frameStart;
+  }
+
+  /**
+   * Sets the api trace level used when decoding.
+   *
+   * @param trace the api trace level
+   */
+  public void setTrace(final int trace) {
+    this.trace = trace;
+  }
+
+  //// Private Area
+
+  /**
+   * Advances the scan position over the pending frame.
+   *
+   * @return true if the frame is complete
+   */
+  private boolean scan() throws IOException {
+    while (depth > 0) {
+      final int top = depth - 1;
+      switch (kinds[top]) {
+        case OBJECTS:
+          if (counts[top] == 0) {
+            depth--;
+            break;
+          }
+          if (!scanOpcode(top)) {
+            return false;
+          }
+          break;
+        case SKIP: {
+          final int available = limit - position;
+          if (counts[top] > available) {
+            counts[top] -= available;
+            position = limit;
+            return false;
+          }
+          position += counts[top];
+          depth--;
+          break;
+        }
+        case NART: {
+          if (position >= limit) {
+            return false;
+          }
+          final int nartOpcode = buffer[position++] & 0xFF;
+          depth--;
+          if (nartOpcode == CFASL_LIST) {
+            push(LIST_LENGTH, 0);
+          } else if (nartOpcode != CFASL_NIL) {
+            throw new IOException("Reading nart, expected a list, found " + nartOpcode);
+          }
+          break;
+        }
+        default: {
+          final long length = scanInt();
+          if (length < 0) {
+            return false;
+          }
+          final int kind = kinds[top];
+          depth--;
+          if (kind == LIST_LENGTH) {
+            push(OBJECTS, length);
+          } else if (kind == DOTTED_LENGTH) {
+            push(OBJECTS, length + 1);
+          } else if (kind == BIGNUM_LENGTH) {
+            push(OBJECTS, length);
+          } else {
+            push(SKIP, length);
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Consumes the opcode of the next object at the given level and pushes whatever remains of
+   * the object's body.
+   *
+   * @return false if the opcode has not yet arrived
+   */
+  private boolean scanOpcode(final int top) throws IOException {
+    if (position >= limit) {
+      return false;
+    }
+    int opcode = buffer[position] & 0xFF;
+    int headerLength = 1;
+    if (opcode == CFASL_EXTERNALIZATION) {
+      if (position + 1 >= limit) {
+        return false;
+      }
+      opcode = buffer[position + 1] & 0xFF;
+      headerLength = 2;
+    }
+    position += headerLength;
+    counts[top]--;
+    if (opcode >= CFASL_IMMEDIATE_FIXNUM_OFFSET) {
+      return true;
+    }
+    switch (opcode) {
+      case CFASL_P_8BIT_INT:
+      case CFASL_N_8BIT_INT:
+        push(SKIP, 1);
+        break;
+      case CFASL_P_16BIT_INT:
+      case CFASL_N_16BIT_INT:
+        push(SKIP, 2);
+        break;
+      case CFASL_P_24BIT_INT:
+      case CFASL_N_24BIT_INT:
+        push(SKIP, 3);
+        break;
+      case CFASL_P_32BIT_INT:
+      case CFASL_N_32BIT_INT:
+        push(SKIP, 4);
+        break;
+      case CFASL_P_FLOAT:
+      case CFASL_N_FLOAT:
+      case CFASL_COMPLETE_CONSTANT:
+      case CFASL_ASSERTION:
+      case CFASL_COMPLETE_VARIABLE:
+        push(OBJECTS, 2);
+        break;
+      case CFASL_KEYWORD:
+      case CFASL_SYMBOL:
+      case CFASL_LEGACY_GUID:
+        push(OBJECTS, 1);
+        break;
+      case CFASL_NIL:
+        break;
+      case CFASL_LIST:
+        push(LIST_LENGTH, 0);
+        break;
+      case CFASL_DOTTED:
+        push(DOTTED_LENGTH, 0);
+        break;
+      case CFASL_STRING:
+      case CFASL_UNICODE_STRING:
+      case CFASL_UNICODE_CHAR:
+      case CFASL_BYTE_VECTOR:
+        push(BYTES_LENGTH, 0);
+        break;
+      case CFASL_P_BIGNUM:
+      case CFASL_N_BIGNUM:
+        push(BIGNUM_LENGTH, 0);
+        break;
+      case CFASL_CHARACTER:
+        push(SKIP, 1);
+        break;
+      case CFASL_GUID:
+        push(SKIP, 16);
+        break;
+      case CFASL_NART:
+        push(NART, 0);
+        break;
+      default:
+        throw new IOException("Unsupported cfasl opcode in response: " + opcode);
+    }
+    return true;
+  }
+
+  /**
+   * Consumes a CFASL integer, as read by {@link CfaslInputStream#readInt}.
+   *
+   * @return the integer, or -1 if it has not yet fully arrived
+   */
+  private long scanInt() throws IOException {
+    if (position >= limit) {
+      return -1;
+    }
+    final int opcode = buffer[position] & 0xFF;
+    if (opcode >= CFASL_IMMEDIATE_FIXNUM_OFFSET) {
+      position++;
+      return opcode - CFASL_IMMEDIATE_FIXNUM_OFFSET;
+    }
+    final int byteCount;
+    switch (opcode) {
+      case CFASL_P_8BIT_INT:
+        byteCount = 1;
+        break;
+      case CFASL_P_16BIT_INT:
+        byteCount = 2;
+        break;
+      case CFASL_P_24BIT_INT:
+        byteCount = 3;
+        break;
+      case CFASL_P_32BIT_INT:
+        byteCount = 4;
+        break;
+      default:
+        throw new IOException("Expected a length but received opcode " + opcode);
+    }
+    if (position + byteCount >= limit) {
+      return -1;
+    }
+    long value = 0;
+    for (int i = 0; i < byteCount; i++) {
+      value |= ((long) (buffer[position + 1 + i] & 0xFF)) << (8 * i);
+    }
+    position += byteCount + 1;
+    return value;
+  }
+
+  private void push(final int kind, final long count) {
+    if (depth == kinds.length) {
+      final int[] newKinds = new int[depth * 2];
+      final long[] newCounts = new long[depth * 2];
+      System.arraycopy(kinds, 0, newKinds, 0, depth);
+      System.arraycopy(counts, 0, newCounts, 0, depth);
+      kinds = newKinds;
+      counts = newCounts;
+    }
+    kinds[depth] = kind;
+    counts[depth] = count;
+    depth++;
+  }
+
+  private void resetScanner() {
+    depth = 0;
+    position = frameStart;
+    // a frame is the status object followed by the response object
+    push(OBJECTS, 2);
+  }
+
+  /** Discards the bytes of decoded frames once they make up the bulk of the buffer. */
+  private void compact() {
+    if (frameStart == limit) {
+      frameStart = position = limit = 0;
+      if (buffer.length > MAX_RETAINED_CAPACITY) {
+        buffer = new byte[INITIAL_CAPACITY];
+      }
+    } else if (frameStart > buffer.length / 2) {
+      final int shift = frameStart;
+      System.arraycopy(buffer, shift, buffer, 0, limit - shift);
+      limit -= shift;
+      position -= shift;
+      frameStart = 0;
+    }
+  }
+
+  private void ensureCapacity(final int length) {
+    if (limit + length <= buffer.length) {
+      return;
+    }
+    final int needed = limit - frameStart + length;
+    final byte[] target = (needed <= buffer.length)
+            ? buffer
+            : new byte[Math.max(needed, buffer.length * 2)];
+    System.arraycopy(buffer, frameStart, target, 0, limit - frameStart);
+    limit -= frameStart;
+    position -= frameStart;
+    frameStart = 0;
+    buffer = target;
+  }
+
+  /** An input stream over the bytes of the frame being decoded. */
+  private final class FrameInputStream extends InputStream {
+
+    private int offset;
+    private int end;
+
+    void setWindow(final int offset, final int end) {
+      this.offset = offset;
+      this.end = end;
+    }
+
+    @Override
+    public int read() {
+      return (offset < end) ? (buffer[offset++] & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (offset >= end) {
+        return -1;
+      }
+      final int count = Math.min(len, end - offset);
+      System.arraycopy(buffer, offset, b, off, count);
+      offset += count;
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return end - offset;
+    }
+  }
+
+  //// Internal Rep
+
+  private static final int OBJECTS = 0;
+  private static final int SKIP = 1;
+  private static final int NART = 2;
+  private static final int LIST_LENGTH = 3;
+  private static final int DOTTED_LENGTH = 4;
+  private static final int BYTES_LENGTH = 5;
+  private static final int BIGNUM_LENGTH = 6;
+  private static final int INITIAL_CAPACITY = 8192;
+  private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+  private byte[] buffer = new byte[INITIAL_CAPACITY];
+  /** the offset of the first byte of the pending frame */
+  private int frameStart = 0;
+  /** the offset of the first byte not yet scanned */
+  private int position = 0;
+  /** the offset just past the last received byte */
+  private int limit = 0;
+  /** the scanner's stack of pending work, as parallel arrays of kind and remaining count */
+  private int[] kinds = new int[16];
+  private long[] counts = new long[16];
+  private int depth = 0;
+  private final FrameInputStream frameInputStream;
+  private final CfaslInputStream cfaslInputStream;
+  private int trace = CfaslInputStream.API_TRACE_NONE;
+  private Object status;
+  private Object response;
+  private boolean isInvalidObject;
+  private int frameByteCount;
+}
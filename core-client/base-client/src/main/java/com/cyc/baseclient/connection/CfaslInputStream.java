@@ -29,12 +29,14 @@ import com.cyc.base.cycobject.CycAssertion;
 import com.cyc.base.cycobject.CycConstant;
 import com.cyc.base.cycobject.Nart;
 import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
 import java.lang.reflect.Method;
 
 import java.math.BigInteger;
+import java.nio.charset.Charset;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -78,6 +80,11 @@ public class CfaslInputStream extends BufferedInputStream {
    * caller.
    */
   public boolean reportCfaslErrors = false;
+  /**
+   * The name of the system property which, when true, makes new streams decode in the
+   * buffer-reusing mode described at {@link #setReusingBuffers}.
+   */
+  public static final String REUSE_BUFFERS_PROPERTY = "com.cyc.baseclient.connection.cfasl.reuseBuffers";
   /** CFASL code */
   protected static final int CFASL_IMMEDIATE_FIXNUM_CUTOFF = 128;
   /** CFASL code */
@@ -243,7 +250,8 @@ public class CfaslInputStream extends BufferedInputStream {
    * @param in the underlying input stream.
    */
   public CfaslInputStream(InputStream in) {
-    super(in, DEFAULT_READ_LIMIT);
+    super(new ByteCountingInputStream(in), DEFAULT_READ_LIMIT);
+    byteCounter = (ByteCountingInputStream) this.in;
 
     if (Log.current == null) {
       Log.makeLog("cfasl.log");
@@ -263,6 +271,40 @@ public class CfaslInputStream extends BufferedInputStream {
     isInvalidObject = false;
   }
 
+  /**
+   * Returns the number of bytes consumed from this stream so far. Bytes which have been buffered
+   * but not yet decoded are not counted, so the difference between two calls is the encoded size
+   * of the objects read in between.
+   *
+   * @return the number of bytes consumed
+   */
+  public synchronized long getBytesRead() {
+    return byteCounter.count - (count - pos);
+  }
+
+  /**
+   * Returns true if this stream decodes in the buffer-reusing mode.
+   *
+   * @return true if this stream decodes in the buffer-reusing mode
+   */
+  public boolean isReusingBuffers() {
+    return reusingBuffers;
+  }
+
+  /**
+   * Sets the buffer-reusing decoding mode. In this mode strings are decoded from UTF-8 straight
+   * out of the stream's buffer, or out of a growable scratch buffer owned by the stream when a
+   * string straddles the end of the buffer, rather than from a new byte array per value. Symbols
+   * and keywords resolve through a lock-free table keyed by their encoded names, so a symbol
+   * which has been seen before costs neither an allocation nor a trip through the synchronized
+   * CycObjectFactory cache. The common opcodes are dispatched by a single switch.
+   *
+   * @param reusingBuffers true to decode in the buffer-reusing mode
+   */
+  public void setReusingBuffers(final boolean reusingBuffers) {
+    this.reusingBuffers = reusingBuffers;
+  }
+
   /**
    * Reads an Object from this CfaslInputStream.  Basic Java types are wrapped as appropriate (e.g.
    * ints become Integer objects).  New constants are missing name and GUID values and will be
@@ -274,7 +316,11 @@ public class CfaslInputStream extends BufferedInputStream {
    */
   public Object readObject()
           throws IOException {
-    final int cfaslOpcode = readCfaslOpcode();
+    return readObject(readCfaslOpcode());
+  }
+
+  private Object readObject(final int cfaslOpcode)
+          throws IOException {
     Object o = null;
     if (trace == API_TRACE_DETAILED) {
       debugNote("reading opcode = " + cfaslOpcode + " ("
@@ -286,6 +332,9 @@ public class CfaslInputStream extends BufferedInputStream {
         debugNote("Reading Immediate Fixnum: " + o);
       }
     }
+    if ((o == null) && reusingBuffers) {
+      o = maybeReadReusingBuffers(cfaslOpcode);
+    }
     if (o == null) {
       o = maybeReadNumber(cfaslOpcode);
     }
@@ -561,6 +610,9 @@ public class CfaslInputStream extends BufferedInputStream {
    */
   public CycSymbolImpl readKeyword()
           throws IOException {
+    if (reusingBuffers) {
+      return (CycSymbolImpl) readInternedSymbol(true);
+    }
     String keywordString = (String) readObject();
 
     if (!(keywordString.startsWith(":"))) {
@@ -583,6 +635,9 @@ public class CfaslInputStream extends BufferedInputStream {
     if (trace >= API_TRACE_DETAILED) {
       debugNote("About to read symbol name.");
     }
+    if (reusingBuffers) {
+      return readInternedSymbol(false);
+    }
     Object response = readObject();
     if (!(response instanceof String)) {
       throw new CycApiException("Expecting  a String, got: " + response.getClass() + " for object: " + response);
@@ -684,6 +739,13 @@ public class CfaslInputStream extends BufferedInputStream {
    */
   public String readUnicodeString()
           throws IOException {
+    if (reusingBuffers) {
+      final String retval = readUtf8Body();
+      if (trace == API_TRACE_DETAILED) {
+        debugNote("readUnicodeString: " + retval);
+      }
+      return retval;
+    }
     int off = 0;
     int len = readInt();
     byte[] s = new byte[len];
@@ -928,6 +990,129 @@ public class CfaslInputStream extends BufferedInputStream {
     return cycAssertion;
   }
 
+  /**
+   * Reads the common opcodes in the buffer-reusing mode.
+   *
+   * @return the object read, or null if the opcode is left to the generic readers
+   */
+  private Object maybeReadReusingBuffers(int cfaslOpcode) throws IOException {
+    switch (cfaslOpcode) {
+      case CFASL_LIST:
+        return readCycList();
+      case CFASL_SYMBOL:
+        return readInternedSymbol(false);
+      case CFASL_KEYWORD:
+        return readInternedSymbol(true);
+      case CFASL_NIL:
+        return CycObjectFactory.nil;
+      case CFASL_STRING:
+      case CFASL_UNICODE_STRING:
+        return readUtf8Body();
+      case CFASL_COMPLETE_CONSTANT:
+        return readCompleteConstant();
+      case CFASL_NART:
+        return readNart();
+      case CFASL_P_8BIT_INT:
+        return readFixnumBody(1, false);
+      case CFASL_P_16BIT_INT:
+        return readFixnumBody(2, false);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Reads the body of a symbol or keyword, resolving it through the symbol tables.
+   *
+   * @param isKeyword true if the symbol is a keyword
+   *
+   * @return the CycSymbolImpl, or for a symbol whose name begins with a question mark the
+   * CycVariableImpl
+   */
+  private Object readInternedSymbol(final boolean isKeyword) throws IOException {
+    final int nameOpcode = readCfaslOpcode();
+    if ((nameOpcode != CFASL_STRING) && (nameOpcode != CFASL_UNICODE_STRING)) {
+      return makeSymbol(readObject(nameOpcode), isKeyword);
+    }
+    final int length = readInt();
+    final byte[] bytes = readBody(length);
+    final CfaslSymbolTable table = isKeyword ? KEYWORD_TABLE : SYMBOL_TABLE;
+    Object symbol = table.get(bytes, bodyOffset, length);
+    if (symbol == null) {
+      symbol = makeSymbol(new String(bytes, bodyOffset, length, UTF8), isKeyword);
+      table.put(bytes, bodyOffset, length, symbol);
+    }
+    if (trace == API_TRACE_DETAILED) {
+      debugNote("readInternedSymbol: " + symbol);
+    }
+    return symbol;
+  }
+
+  private Object makeSymbol(final Object name, final boolean isKeyword) {
+    if (!(name instanceof String)) {
+      throw new CycApiException("Expecting  a String, got: " + name.getClass() + " for object: " + name);
+    }
+    final String string = (String) name;
+    if (isKeyword) {
+      return CycObjectFactory.makeCycSymbol(string.startsWith(":") ? string : (":" + string));
+    } else if (string.startsWith("?")) {
+      return CycObjectFactory.makeCycVariable(string);
+    } else {
+      return CycObjectFactory.makeCycSymbol(string);
+    }
+  }
+
+  /**
+   * Reads the length and UTF-8 bytes of a string body, decoding them in place.
+   *
+   * @return the string read
+   */
+  private String readUtf8Body() throws IOException {
+    final int length = readInt();
+    final byte[] bytes = readBody(length);
+    return new String(bytes, bodyOffset, length, UTF8);
+  }
+
+  /**
+   * Consumes the next length bytes and returns the array which holds them, leaving their offset
+   * in bodyOffset. The bytes are valid only until the next read from this stream. When they are
+   * already buffered the stream's own buffer is returned; otherwise they are gathered into the
+   * reusable scratch buffer. Bodies larger than MAX_SCRATCH_SIZE are gathered into an
+   * array of their own, so that one large string does not pin its size for the life of the
+   * connection.
+   *
+   * @param length the number of bytes to consume
+   *
+   * @return the array holding the bytes
+   */
+  private byte[] readBody(final int length) throws IOException {
+    final byte[] buffer = buf;
+    if ((buffer != null) && (count - pos >= length)) {
+      bodyOffset = pos;
+      pos += length;
+      return buffer;
+    }
+    final byte[] body;
+    if (length > MAX_SCRATCH_SIZE) {
+      body = new byte[length];
+    } else {
+      if (scratch.length < length) {
+        scratch = new byte[Math.min(MAX_SCRATCH_SIZE, Math.max(length, scratch.length * 2))];
+      }
+      body = scratch;
+    }
+    int off = 0;
+    while (off < length) {
+      final int bytesRead = read(body, off, length - off);
+      if (bytesRead < 0) {
+        throw new CfaslInputStreamClosedException("Cfasl connection closed by peer in the middle of an object.");
+      }
+      off += bytesRead;
+    }
+    bodyOffset = 0;
+    return body;
+  }
+
   private Object maybeReadNumber(int cfaslOpcode) throws IOException {
     switch (cfaslOpcode) {
       case CFASL_P_8BIT_INT:
@@ -1055,6 +1240,54 @@ public class CfaslInputStream extends BufferedInputStream {
     }
   }
 
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final CfaslSymbolTable SYMBOL_TABLE = new CfaslSymbolTable(4096);
+  private static final CfaslSymbolTable KEYWORD_TABLE = new CfaslSymbolTable(1024);
+  /** the largest scratch buffer a stream keeps between reads */
+  private static final int MAX_SCRATCH_SIZE = 64 * 1024;
+  private boolean reusingBuffers = Boolean.getBoolean(REUSE_BUFFERS_PROPERTY);
+  /** the growable buffer for bodies which are not wholly in the stream's buffer */
+  private byte[] scratch = new byte[256];
+  /** the offset of the last body returned by readBody */
+  private int bodyOffset = 0;
+  /** counts the bytes taken from the underlying stream */
+  private final ByteCountingInputStream byteCounter;
+
+  /** Counts the bytes read from the underlying stream, including those merely buffered. */
+  static private class ByteCountingInputStream extends FilterInputStream {
+
+    private long count = 0;
+
+    ByteCountingInputStream(final InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int b = in.read();
+      if (b >= 0) {
+        count++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+      final int n = in.read(bytes, offset, length);
+      if (n > 0) {
+        count += n;
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+      final long skipped = in.skip(n);
+      count += skipped;
+      return skipped;
+    }
+  }
+
   static private void debugNote(String string) {
     //Log.current.println(string);
     Debug.maybeDebugNote(string, true);
@@ -34,6 +34,7 @@ import com.cyc.baseclient.cycobject.ByteArray;
 import com.cyc.baseclient.cycobject.NartImpl;
 import com.cyc.baseclient.cycobject.CycAssertionImpl;
 import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.reflect.Method;
@@ -231,7 +232,8 @@ public class CfaslOutputStream
    * @param out the underlying output stream.
    */
   public CfaslOutputStream(OutputStream out) {
-    super(out);
+    super(new ByteCountingOutputStream(out));
+    byteCounter = (ByteCountingOutputStream) this.out;
 
     if (Log.current == null) {
       Log.makeLog("cfasl.log");
@@ -247,13 +249,24 @@ public class CfaslOutputStream
    */
   public CfaslOutputStream(OutputStream out, 
                            int size) {
-    super(out, size);
+    super(new ByteCountingOutputStream(out), size);
+    byteCounter = (ByteCountingOutputStream) this.out;
 
     if (Log.current == null) {
       Log.makeLog("cfasl.log");
     }
   }
 
+  /**
+   * Returns the number of bytes written to this stream so far, including those still buffered,
+   * so the difference between two calls is the encoded size of the objects written in between.
+   *
+   * @return the number of bytes written
+   */
+  public synchronized long getBytesWritten() {
+    return byteCounter.count + count;
+  }
+
   /**
    * Writes a boolean onto this CFASL output stream. What is actually written is either the symbol
    * T or NIL.
@@ -1076,4 +1089,29 @@ public class CfaslOutputStream
       writeString(o.toString());
     }
   }
+
+  /** counts the bytes handed to the underlying stream */
+  private final ByteCountingOutputStream byteCounter;
+
+  /** Counts the bytes written to the underlying stream. */
+  static private class ByteCountingOutputStream extends FilterOutputStream {
+
+    private long count = 0;
+
+    ByteCountingOutputStream(final OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+      out.write(bytes, offset, length);
+      count += length;
+    }
+  }
 }
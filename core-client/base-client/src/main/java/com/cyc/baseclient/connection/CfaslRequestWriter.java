@@ -0,0 +1,265 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: CfaslRequestWriter.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.conn.Worker;
+import com.cyc.base.conn.WorkerStatus;
+import com.cyc.base.exception.CycConnectionException;
+import com.cyc.baseclient.DefaultSublWorker;
+import com.cyc.baseclient.exception.CycApiClosedConnectionException;
+import com.cyc.baseclient.util.Log;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Class CfaslRequestWriter is the dedicated writer thread for pipelined task-processor requests.
+ * Callers enqueue request frames without taking the connection monitor; this thread drains every
+ * frame that is ready, writes them back to back onto the CFASL output stream, and issues a single
+ * flush for the whole batch. Responses are still routed by request id through the connection's
+ * waiting reply threads, so any number of requests may be in flight on the socket at once.
+ */
+class CfaslRequestWriter extends Thread {
+
+  /**
+   * Constructs a CfaslRequestWriter object.
+   *
+   * @param cycConnection the parent CycConnection
+   * @param outputStream the CFASL stream onto which request frames are written
+   * @param writeLock the monitor shared with any other writers of the output stream
+   */
+  CfaslRequestWriter(final CycConnectionImpl cycConnection, final CfaslOutputStream outputStream,
+          final Object writeLock) {
+    this.cycConnection = cycConnection;
+    this.outputStream = outputStream;
+    this.writeLock = writeLock;
+    setDaemon(true);
+    setName("CfaslRequestWriter");
+  }
+
+  /**
+   * Queues the given task-processor request for writing.
+   *
+   * @param id the api request id, or null if no worker awaits a response
+   * @param worker the worker awaiting the response, or null
+   * @param message the CFASL-translatable request
+   *
+   * @throws CycConnectionException if this writer has been closed
+   */
+  void enqueue(final Integer id, final Worker worker, final Object message)
+          throws CycConnectionException {
+    // checked and added under the same lock as markClosed(), so that nothing can be queued after
+    // the queue has been drained for the last time
+    synchronized (stateLock) {
+      if (isClosed) {
+        throw new CycApiClosedConnectionException(
+                "Attempt to send a request using a closed request writer.");
+      }
+      pendingRequests.add(new PendingRequest(id, worker, message));
+    }
+  }
+
+  /** Writes queued request frames until this writer is closed. */
+  @Override
+  public void run() {
+    final List<PendingRequest> batch = new ArrayList<PendingRequest>(MAX_BATCH_SIZE);
+    try {
+      while (!isClosed) {
+        batch.add(pendingRequests.take());
+        pendingRequests.drainTo(batch, MAX_BATCH_SIZE - 1);
+        writeBatch(batch);
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      // closing
+    } finally {
+      markClosed();
+      failPendingRequests(null);
+    }
+  }
+
+  /** Stops this writer. Requests which have not yet been written are failed. */
+  void close() {
+    markClosed();
+    if (Thread.currentThread() != this) {
+      interrupt();
+    }
+  }
+
+  /**
+   * Returns true if this writer accepts no more requests.
+   *
+   * @return true if this writer has been closed
+   */
+  boolean isClosed() {
+    return isClosed;
+  }
+
+  /**
+   * Returns the number of requests queued but not yet written to the socket.
+   *
+   * @return the number of requests queued but not yet written to the socket
+   */
+  int getPendingRequestCount() {
+    return pendingRequests.size();
+  }
+
+  /**
+   * Returns the number of request frames written by this writer.
+   *
+   * @return the number of request frames written by this writer
+   */
+  long getWrittenRequestCount() {
+    return writtenRequestCount.get();
+  }
+
+  /**
+   * Returns the number of flushes (batches) issued by this writer.
+   *
+   * @return the number of flushes issued by this writer
+   */
+  long getFlushCount() {
+    return flushCount.get();
+  }
+
+  /**
+   * Returns the mean time in milliseconds that a request spent queued before it was written.
+   *
+   * @return the mean queueing latency in milliseconds
+   */
+  double getMeanQueueMillis() {
+    final long count = writtenRequestCount.get();
+    return (count == 0) ? 0.0 : (totalQueueNanos.get() / (double) count) / NANOS_PER_MILLI;
+  }
+
+  /**
+   * Returns the longest time in milliseconds that a request spent queued before it was written.
+   *
+   * @return the maximum queueing latency in milliseconds
+   */
+  double getMaxQueueMillis() {
+    return maxQueueNanos / (double) NANOS_PER_MILLI;
+  }
+
+  //// Private Area
+
+  private void writeBatch(final List<PendingRequest> batch) {
+    final long now = System.nanoTime();
+    final SublCommandProfiler profiler = DefaultSublWorker.getProfiler();
+    try {
+      // share the monitor with occasional direct writers such as sendBinary()
+      synchronized (writeLock) {
+        for (final PendingRequest request : batch) {
+          final long start = outputStream.getBytesWritten();
+          outputStream.writeObject(request.message);
+          if ((profiler != null) && (request.worker != null)) {
+            profiler.recordRequestBytes(request.worker, outputStream.getBytesWritten() - start);
+          }
+        }
+        outputStream.flush();
+      }
+    } catch (IOException ioe) {
+      cycConnection.logger.log(Level.SEVERE, "Unable to write pipelined API requests.", ioe);
+      markClosed();
+      for (final PendingRequest request : batch) {
+        failRequest(request, ioe);
+      }
+      failPendingRequests(ioe);
+      // part of a frame may have reached the socket, so the stream cannot be trusted again
+      cycConnection.close();
+      return;
+    }
+    flushCount.incrementAndGet();
+    writtenRequestCount.addAndGet(batch.size());
+    for (final PendingRequest request : batch) {
+      final long queueNanos = now - request.enqueuedNanos;
+      totalQueueNanos.addAndGet(queueNanos);
+      if (queueNanos > maxQueueNanos) {
+        maxQueueNanos = queueNanos;
+      }
+    }
+  }
+
+  private void markClosed() {
+    synchronized (stateLock) {
+      isClosed = true;
+    }
+  }
+
+  private void failPendingRequests(final Exception e) {
+    final List<PendingRequest> unsent = new ArrayList<PendingRequest>();
+    pendingRequests.drainTo(unsent);
+    for (final PendingRequest request : unsent) {
+      failRequest(request, e);
+    }
+  }
+
+  private void failRequest(final PendingRequest request, final Exception e) {
+    if (request.worker == null) {
+      return;
+    }
+    final Exception cause = (e != null) ? e
+            : new CycApiClosedConnectionException("Connection closed before the request was sent.");
+    cycConnection.removeWaitingWorker(request.id);
+    try {
+      request.worker.fireSubLWorkerTerminatedEvent(
+              new SublWorkerEvent(request.worker, WorkerStatus.EXCEPTION_STATUS, cause));
+    } catch (RuntimeException re) {
+      Log.current.printStackTrace(re);
+    }
+  }
+
+  /** A request frame awaiting its turn on the socket. */
+  private static class PendingRequest {
+
+    final Integer id;
+    final Worker worker;
+    final Object message;
+    final long enqueuedNanos = System.nanoTime();
+
+    PendingRequest(final Integer id, final Worker worker, final Object message) {
+      this.id = id;
+      this.worker = worker;
+      this.message = message;
+    }
+  }
+
+  //// Internal Rep
+
+  /** the maximum number of request frames written per flush */
+  static final int MAX_BATCH_SIZE = 256;
+  private static final long NANOS_PER_MILLI = 1000000L;
+  private final CycConnectionImpl cycConnection;
+  private final CfaslOutputStream outputStream;
+  private final Object writeLock;
+  private final BlockingQueue<PendingRequest> pendingRequests = new LinkedBlockingQueue<PendingRequest>();
+  private final Object stateLock = new Object();
+  private volatile boolean isClosed = false;
+  private final AtomicLong writtenRequestCount = new AtomicLong();
+  private final AtomicLong flushCount = new AtomicLong();
+  private final AtomicLong totalQueueNanos = new AtomicLong();
+  private volatile long maxQueueNanos = 0;
+}
@@ -0,0 +1,128 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: CfaslSymbolTable.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Class CfaslSymbolTable interns the symbols read by CfaslInputStream, keyed by the UTF-8 bytes
+ * of their names as they appear on the wire. A hit costs no allocation and no lock: the table is
+ * a fixed-size, direct-mapped array of immutable entries, and a colliding name simply replaces
+ * the entry in its slot. The table is therefore a bounded cache in front of CycObjectFactory,
+ * not a registry; a miss falls back to the factory.
+ */
+final class CfaslSymbolTable {
+
+  /**
+   * Constructs a CfaslSymbolTable object.
+   *
+   * @param capacity the number of slots, rounded up to a power of two
+   */
+  CfaslSymbolTable(final int capacity) {
+    int size = 1;
+    while (size < capacity) {
+      size <<= 1;
+    }
+    slots = new AtomicReferenceArray<Entry>(size);
+    mask = size - 1;
+  }
+
+  /**
+   * Returns the symbol whose name has the given UTF-8 encoding, or null if it is not interned.
+   *
+   * @param bytes the array holding the encoded name
+   * @param offset the offset of the name in the array
+   * @param length the length of the encoded name
+   *
+   * @return the interned symbol, or null
+   */
+  Object get(final byte[] bytes, final int offset, final int length) {
+    final int hash = hash(bytes, offset, length);
+    final Entry entry = slots.get(hash & mask);
+    if ((entry != null) && (entry.hash == hash) && entry.matches(bytes, offset, length)) {
+      return entry.symbol;
+    }
+    return null;
+  }
+
+  /**
+   * Interns the given symbol under the given UTF-8 encoding of its name.
+   *
+   * @param bytes the array holding the encoded name
+   * @param offset the offset of the name in the array
+   * @param length the length of the encoded name
+   * @param symbol the symbol
+   */
+  void put(final byte[] bytes, final int offset, final int length, final Object symbol) {
+    if (length > MAX_NAME_LENGTH) {
+      return;
+    }
+    final byte[] name = new byte[length];
+    System.arraycopy(bytes, offset, name, 0, length);
+    final int hash = hash(bytes, offset, length);
+    slots.set(hash & mask, new Entry(name, hash, symbol));
+  }
+
+  //// Private Area
+
+  private static int hash(final byte[] bytes, final int offset, final int length) {
+    // FNV-1a
+    int hash = 0x811C9DC5;
+    for (int i = offset, end = offset + length; i < end; i++) {
+      hash ^= bytes[i];
+      hash *= 0x01000193;
+    }
+    return hash ^ (hash >>> 16);
+  }
+
+  private static final class Entry {
+
+    final byte[] name;
+    final int hash;
+    final Object symbol;
+
+    Entry(final byte[] name, final int hash, final Object symbol) {
+      this.name = name;
+      this.hash = hash;
+      this.symbol = symbol;
+    }
+
+    boolean matches(final byte[] bytes, final int offset, final int length) {
+      if (name.length != length) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        if (name[i] != bytes[offset + i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  //// Internal Rep
+
+  /** names longer than this are not worth interning */
+  private static final int MAX_NAME_LENGTH = 256;
+  private final AtomicReferenceArray<Entry> slots;
+  private final int mask;
+}
@@ -0,0 +1,226 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: CfaslTrafficReader.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.cycobject.CycList;
+import com.cyc.baseclient.CycObjectFactory;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <P>CfaslTrafficReader reads back the records of a log written by {@link CfaslTrafficRecorder}.
+ *
+ * @see CfaslTrafficRecorder
+ */
+public class CfaslTrafficReader implements Closeable {
+  
+  /** A request or response captured by a CfaslTrafficRecorder. */
+  public static class Record {
+    
+    Record(final byte kind, final long nanos, final int connection, final int id, final CycList form) {
+      this.kind = kind;
+      this.nanos = nanos;
+      this.connection = connection;
+      this.id = id;
+      this.form = form;
+    }
+    
+    /** @return true if this record holds a request */
+    public boolean isRequest() {
+      return kind == CfaslTrafficRecorder.REQUEST;
+    }
+    
+    /** @return true if this record holds a response */
+    public boolean isResponse() {
+      return kind == CfaslTrafficRecorder.RESPONSE;
+    }
+    
+    /** @return the nanoseconds from the start of recording until this record was captured */
+    public long getNanos() {
+      return nanos;
+    }
+    
+    /** @return the number of the connection which sent or received this record */
+    public int getConnection() {
+      return connection;
+    }
+    
+    /** @return the api request id */
+    public int getId() {
+      return id;
+    }
+    
+    /** @return the whole <code>task-processor-request</code> or <code>task-processor-response</code> form */
+    public CycList getForm() {
+      return form;
+    }
+    
+    /** @return the SubL command of a request, or the request echoed by a response */
+    public Object getCommand() {
+      return form.get(1);
+    }
+    
+    /** @return the priority of a request or response */
+    public Object getPriority() {
+      return form.get(3);
+    }
+    
+    /** @return the response object of a response */
+    public Object getResponse() {
+      return form.get(TaskProcessorBinaryResponseHandler.TASK_PROCESSOR_RESPONSE_RESPONSE);
+    }
+    
+    /** @return the error string of a response, or NIL if the request succeeded */
+    public Object getError() {
+      return form.get(TaskProcessorBinaryResponseHandler.TASK_PROCESSOR_RESPONSE_STATUS);
+    }
+    
+    /** @return true unless this response is one of several partial results still to be followed by others */
+    public boolean isFinished() {
+      return (form.size() <= TaskProcessorBinaryResponseHandler.TASK_PROCESSOR_RESPONSE_FINISHED_FLAG)
+              || !CycObjectFactory.nil.equals(form.get(TaskProcessorBinaryResponseHandler.TASK_PROCESSOR_RESPONSE_FINISHED_FLAG));
+    }
+    
+    @Override
+    public String toString() {
+      return (isRequest() ? "request " : "response ") + connection + "/" + id + " at " + nanos + "ns: " + form;
+    }
+    
+    private final byte kind;
+    private final long nanos;
+    private final int connection;
+    private final int id;
+    private final CycList form;
+  }
+  
+  //// Constructors
+  
+  /**
+   * Creates a new reader of the given stream.
+   *
+   * @param in the stream from which the log is read; it is closed with this reader
+   * @throws IOException if the stream does not start with a traffic log header
+   */
+  public CfaslTrafficReader(final InputStream in) throws IOException {
+    this.in = new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+    if (this.in.readInt() != CfaslTrafficRecorder.MAGIC) {
+      throw new IOException("Not a CFASL traffic log.");
+    }
+    final int version = this.in.readShort();
+    if (version != CfaslTrafficRecorder.VERSION) {
+      throw new IOException("Unsupported CFASL traffic log version: " + version);
+    }
+    this.startMillis = this.in.readLong();
+  }
+  
+  /**
+   * Creates a new reader of the given file.
+   *
+   * @param file the log file
+   * @throws IOException if the file cannot be opened or is not a traffic log
+   */
+  public CfaslTrafficReader(final File file) throws IOException {
+    this(new FileInputStream(file));
+  }
+  
+  //// Public Area
+  
+  /**
+   * Reads every record of the given log.
+   *
+   * @param file the log file
+   * @return the records, in the order in which they were captured
+   * @throws IOException if the log cannot be read
+   */
+  public static List<Record> readAll(final File file) throws IOException {
+    final CfaslTrafficReader reader = new CfaslTrafficReader(file);
+    try {
+      final List<Record> records = new ArrayList<Record>();
+      for (Record record = reader.read(); record != null; record = reader.read()) {
+        records.add(record);
+      }
+      return records;
+    } finally {
+      reader.close();
+    }
+  }
+  
+  /**
+   * Returns the wall-clock time at which recording began.
+   *
+   * @return the start time, in milliseconds since the epoch
+   */
+  public long getStartMillis() {
+    return startMillis;
+  }
+  
+  /**
+   * Reads the next record. A record cut short, as when the recording process ended abruptly, is
+   * treated as the end of the log.
+   *
+   * @return the next record, or null at the end of the log
+   * @throws IOException if the log cannot be read
+   */
+  public Record read() throws IOException {
+    final int kind = in.read();
+    if (kind < 0) {
+      return null;
+    }
+    try {
+      final long nanos = in.readLong();
+      final int connection = in.readInt();
+      final int id = in.readInt();
+      final byte[] encoded = new byte[in.readInt()];
+      in.readFully(encoded);
+      final Object form = new CfaslInputStream(new ByteArrayInputStream(encoded)).readObject();
+      if ((kind != CfaslTrafficRecorder.REQUEST && kind != CfaslTrafficRecorder.RESPONSE)
+              || !(form instanceof CycList)) {
+        throw new IOException("Invalid CFASL traffic record " + connection + "/" + id);
+      }
+      return new Record((byte) kind, nanos, connection, id, (CycList) form);
+    } catch (EOFException e) {
+      return null;
+    }
+  }
+  
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+  
+  //// Internal Rep
+  
+  private static final int BUFFER_SIZE = 64 * 1024;
+  
+  private final DataInputStream in;
+  
+  private final long startMillis;
+}
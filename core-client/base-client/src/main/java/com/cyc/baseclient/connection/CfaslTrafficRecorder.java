@@ -0,0 +1,235 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: CfaslTrafficRecorder.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.cycobject.CycList;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <P>CfaslTrafficRecorder captures the task-processor traffic of every CycConnectionImpl to a
+ * compact binary log, from which {@link CfaslTrafficReader} reads it back, for example to replay
+ * it against another client build or server. Each request is recorded as it is sent and each
+ * response as it is routed to its worker, with the time since recording began, the connection
+ * and the api request id which pair them. Recording is enabled with
+ * {@link CycConnectionImpl#setTrafficRecorder}.
+ *
+ * <P>The log starts with the {@link #MAGIC} number, the {@link #VERSION} and the wall-clock start
+ * time in milliseconds. Each record then holds:
+ * <ul>
+ * <li>its kind, {@link #REQUEST} or {@link #RESPONSE}, as a byte,</li>
+ * <li>the nanoseconds since the start, as a long,</li>
+ * <li>the connection, numbered from 0 in order of first appearance, as an int,</li>
+ * <li>the api request id, as an int,</li>
+ * <li>the length of the form, as an int, followed by the CFASL encoding of the whole
+ * <code>task-processor-request</code> or <code>task-processor-response</code> form.</li>
+ * </ul>
+ *
+ * <P>Recording never interrupts the traffic: should the log fail, the failure is logged once and
+ * recording stops.
+ */
+public class CfaslTrafficRecorder implements Closeable {
+  
+  //// Constructors
+  
+  /**
+   * Creates a new recorder which writes to the given stream.
+   *
+   * @param out the stream to which the log is written; it is closed with this recorder
+   * @throws IOException if the header cannot be written
+   */
+  public CfaslTrafficRecorder(final OutputStream out) throws IOException {
+    this.out = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+    this.startNanos = System.nanoTime();
+    this.out.writeInt(MAGIC);
+    this.out.writeShort(VERSION);
+    this.out.writeLong(System.currentTimeMillis());
+  }
+  
+  /**
+   * Creates a new recorder which writes to the given file, replacing its contents.
+   *
+   * @param file the log file
+   * @throws IOException if the file cannot be opened or the header cannot be written
+   */
+  public CfaslTrafficRecorder(final File file) throws IOException {
+    this(new FileOutputStream(file));
+  }
+  
+  //// Public Area
+  
+  /** The number with which every traffic log starts. */
+  public static final int MAGIC = 0x43464c52;
+  
+  /** The version of the log format. */
+  public static final int VERSION = 1;
+  
+  /** The kind of a record holding a task-processor request. */
+  public static final byte REQUEST = 1;
+  
+  /** The kind of a record holding a task-processor response. */
+  public static final byte RESPONSE = 2;
+  
+  /**
+   * Records a task-processor request which is being sent.
+   *
+   * @param connection the UUID of the sending connection
+   * @param id the api request id
+   * @param taskProcessorRequest the <code>task-processor-request</code> form
+   */
+  public void recordRequest(final UUID connection, final int id, final CycList taskProcessorRequest) {
+    record(REQUEST, connection, id, taskProcessorRequest);
+  }
+  
+  /**
+   * Records a task-processor response which has been received.
+   *
+   * @param connection the UUID of the receiving connection
+   * @param id the api request id
+   * @param taskProcessorResponse the <code>task-processor-response</code> form
+   */
+  public void recordResponse(final UUID connection, final int id, final CycList taskProcessorResponse) {
+    record(RESPONSE, connection, id, taskProcessorResponse);
+  }
+  
+  /**
+   * Returns the number of records written so far.
+   *
+   * @return the record count
+   */
+  public synchronized long getRecordCount() {
+    return recordCount;
+  }
+  
+  /**
+   * Returns true if recording has stopped, because this recorder was closed or its log failed.
+   *
+   * @return true if recording has stopped
+   */
+  public synchronized boolean isStopped() {
+    return isStopped;
+  }
+  
+  /** Writes any buffered records to the log. */
+  public synchronized void flush() {
+    if (isStopped) {
+      return;
+    }
+    try {
+      out.flush();
+    } catch (IOException e) {
+      fail(e);
+    }
+  }
+  
+  /**
+   * Stops recording and closes the log.
+   *
+   * @throws IOException if the log cannot be closed
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    isStopped = true;
+    out.close();
+  }
+  
+  @Override
+  public synchronized String toString() {
+    return "CfaslTrafficRecorder[" + recordCount + " records" + (isStopped ? ", stopped]" : "]");
+  }
+  
+  //// Private Area
+  
+  private synchronized void record(final byte kind, final UUID connection, final int id, final CycList form) {
+    if (isStopped) {
+      return;
+    }
+    final long nanos = System.nanoTime() - startNanos;
+    try {
+      encoded.reset();
+      cfaslOut.writeObject(form);
+      cfaslOut.flush();
+      out.writeByte(kind);
+      out.writeLong(nanos);
+      out.writeInt(getConnectionNumber(connection));
+      out.writeInt(id);
+      out.writeInt(encoded.size());
+      encoded.writeTo(out);
+      recordCount++;
+    } catch (IOException e) {
+      fail(e);
+    } catch (RuntimeException e) {
+      fail(e);
+    }
+  }
+  
+  private int getConnectionNumber(final UUID connection) {
+    Integer number = connectionNumbers.get(connection);
+    if (number == null) {
+      number = connectionNumbers.size();
+      connectionNumbers.put(connection, number);
+    }
+    return number;
+  }
+  
+  private void fail(final Exception e) {
+    isStopped = true;
+    LOGGER.log(Level.WARNING, "Stopped recording CFASL traffic after " + recordCount + " records.", e);
+    try {
+      out.close();
+    } catch (IOException ioe) {
+      // ignore
+    }
+  }
+  
+  //// Internal Rep
+  
+  private static final int BUFFER_SIZE = 64 * 1024;
+  
+  private static final Logger LOGGER = Logger.getLogger(CfaslTrafficRecorder.class.getName());
+  
+  private final DataOutputStream out;
+  
+  /** the encoding of the current record's form, reused between records */
+  private final ByteArrayOutputStream encoded = new ByteArrayOutputStream(1024);
+  
+  private final CfaslOutputStream cfaslOut = new CfaslOutputStream(encoded);
+  
+  private final Map<UUID, Integer> connectionNumbers = new HashMap<UUID, Integer>();
+  
+  private final long startNanos;
+  
+  private long recordCount = 0;
+  
+  private boolean isStopped = false;
+}
@@ -24,6 +24,7 @@ package com.cyc.baseclient.connection;
 import com.cyc.baseclient.exception.CfaslInputStreamClosedException;
 import com.cyc.base.exception.BaseClientException;
 import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.DefaultSublWorker;
 import com.cyc.base.exception.CycApiException;
 import com.cyc.base.conn.Worker;
 import java.io.ByteArrayOutputStream;
@@ -157,10 +158,12 @@ class CommResponseHandler extends Thread {
         Object status = null;
         CycArrayList taskProcessorResponse = null;
         boolean isInvalidObject = false;
+        long responseBytes = -1;
         if (isClosed || isClosing) {
           break;
         }
         try {
+          final long start = inboundStream.getBytesRead();
           // read status
           inboundStream.resetIsInvalidObject();
           status = inboundStream.readObject();
@@ -175,6 +178,7 @@ class CommResponseHandler extends Thread {
             cycComm.logger.fine("API response: " + taskProcessorResponse.stringApiValue());
           }
           isInvalidObject = inboundStream.isInvalidObject();
+          responseBytes = inboundStream.getBytesRead() - start;
         } catch (Exception e) {
           if (cycComm.taskProcessingEnded) {
             if (cycComm.trace > CycConnectionImpl.API_TRACE_NONE) {
@@ -226,15 +230,18 @@ class CommResponseHandler extends Thread {
             continue;
           }
           final Worker worker = waitingWorkerInfo.getWorker();
+          final SublCommandProfiler profiler = DefaultSublWorker.getProfiler();
+          if (profiler != null) {
+            profiler.recordResponseBytes(worker, responseBytes);
+          }
           // used for example in the XML soap service where there is an upstream SOAPBinaryCycConnection object that
           // needs the whose task processor response.
           final Object response = waitingWorkerInfo.isReturnWholeTaskProcessorResponse ? taskProcessorResponse : taskProcessorResponse.get(TASK_PROCESSOR_RESPONSE_RESPONSE);
           final Runnable notificationTask = new NotificationTask(taskStatus, objectIsInvalid, worker, response, finished, id, cycComm);
           try {
-            cycComm.apiPool.execute(notificationTask);
+            cycComm.apiPool.executeWithoutWaiting(notificationTask);
           } catch (RejectedExecutionException e) {
-            e.printStackTrace();
-            System.err.println("Rejected notification from " + worker);
+            Log.current.errorPrintln("Rejected notification from " + worker + "; the ApiThreadPool has been shut down.");
           }
         } catch (Exception xcpt) {
           if ((!isClosed) && (!isClosing)) {
@@ -29,11 +29,13 @@ import com.cyc.base.CycAccess;
 import com.cyc.baseclient.CycObjectFactory;
 import com.cyc.base.exception.CycApiException;
 import com.cyc.baseclient.CycClient;
+import com.cyc.baseclient.DefaultSublWorker;
 import com.cyc.base.exception.CycConnectionException;
 import com.cyc.base.conn.WorkerStatus;
 import com.cyc.base.conn.Worker;
 import com.cyc.session.CycServer;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.ConnectException;
@@ -41,8 +43,10 @@ import java.net.Socket;
 import java.net.UnknownHostException;
 import java.text.DateFormat;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -51,11 +55,13 @@ import static com.cyc.base.conn.WorkerStatus.*;
 import com.cyc.base.cycobject.CycList;
 import static com.cyc.baseclient.connection.SublApiHelper.makeSubLStmt;
 import com.cyc.baseclient.comm.Comm;
+import com.cyc.baseclient.comm.GatheringComm;
 import com.cyc.baseclient.exception.CommException;
 import com.cyc.base.cycobject.CycObject;
 import com.cyc.baseclient.cycobject.CycArrayList;
 import com.cyc.baseclient.cycobject.CycSymbolImpl;
 import com.cyc.baseclient.cycobject.DefaultCycObject;
+import com.cyc.baseclient.datatype.StringUtils;
 import com.cyc.baseclient.util.Log;
 import com.cyc.base.exception.CycTimeOutException;
 import com.cyc.base.conn.CycConnection;
@@ -176,11 +182,42 @@ public class CycConnectionImpl implements CycConnection {
   protected Map<InputStream, LeaseManager> cycLeaseManagerCommMap = 
           new HashMap<InputStream, LeaseManager>(32);
   
+  /** the service renewing this connection's lease, which is told of its traffic; null if not leased */
+  volatile LeaseRenewalService leaseRenewalService = null;
+  
   
   /** Indicates to the taskProcessor response handlers that the server connection is closed. */
   protected boolean taskProcessingEnded = false;
   /** Indicates that the task processing thread is dead */
   protected volatile boolean taskProcessingThreadDead = false;
+  /**
+   * System property which, when "true", makes new connections send task-processor requests in
+   * pipelined mode.
+   */
+  public static final String PIPELINED_PROPERTY = "com.cyc.baseclient.connection.pipelined";
+  /**
+   * Indicates whether task-processor requests are handed to the dedicated request writer rather
+   * than written synchronously by the calling thread.
+   */
+  private volatile boolean pipelined = Boolean.getBoolean(PIPELINED_PROPERTY);
+  /**
+   * System property giving the number of CFASL channels (request socket and passive response
+   * socket pairs) which new connections open to the Cyc server.
+   */
+  public static final String CHANNEL_POOL_SIZE_PROPERTY = "com.cyc.baseclient.connection.channels";
+  /**
+   * The CFASL channels of this connection. The first is the primary channel formed by
+   * <tt>cfaslSocket</tt> and the original response handler; it is empty when a <tt>Comm</tt>
+   * object provides the transport.
+   */
+  final List<CfaslChannel> channels = new CopyOnWriteArrayList<CfaslChannel>();
+  /**
+   * System property naming a file to which the task-processor traffic of every connection is
+   * recorded, from the time this class is loaded until the JVM exits.
+   */
+  public static final String TRAFFIC_LOG_PROPERTY = "com.cyc.baseclient.connection.trafficLog";
+  /** Records the task-processor traffic of every connection, or null when it is not recorded. */
+  private static volatile CfaslTrafficRecorder trafficRecorder = makeTrafficRecorderFromProperty();
   /**
    * Universally Unique ID that identifies this CycConnection to the Cyc server. It is used when
    * establishing the (second) asychronous socket connection.
@@ -248,6 +285,7 @@ public class CycConnectionImpl implements CycConnection {
     }
     uuid = UUID.randomUUID();
     initializeConcurrentProcessing();
+    setChannelPoolSize(Integer.getInteger(CHANNEL_POOL_SIZE_PROPERTY, 1));
     connectionTimer.isCycConnectionEstablished = true;
   }
   
@@ -376,6 +414,9 @@ public class CycConnectionImpl implements CycConnection {
             handler = new TaskProcessorBinaryResponseHandler(Thread.currentThread(), this, hostName, cfaslPort));
     handler.start();
     handler.waitOnSetupToComplete();
+    if (channels.isEmpty()) {
+      channels.add(new CfaslChannel(this, uuid, cfaslSocket, cfaslOutputStream, handler, this));
+    }
     
     CycLeaseManager lease = new CycLeaseManager(this);
     lease.start();
@@ -416,6 +457,10 @@ public class CycConnectionImpl implements CycConnection {
     }
     isClosed = true;
     
+    for (final CfaslChannel channel : channels) {
+      channel.close(!channel.getUuid().equals(uuid));
+    }
+    
     for(Map.Entry<String, LeaseManager> kv : cycLeaseManagerMap.entrySet()){
       kv.getValue().interrupt();
       //TODO: Should we join the thread here?
@@ -722,6 +767,122 @@ public class CycConnectionImpl implements CycConnection {
     }
   }
 
+  /**
+   * Completes the setup of a Comm connection whose responses are delivered by the Comm itself,
+   * through {@link #handleTaskProcessorResponse}, rather than read from an InputStream by a
+   * dedicated TaskProcessorBinaryResponseHandler thread. Workers are notified on the shared
+   * default ApiThreadPool, so such connections add no per-connection response threads.
+   *
+   * @throws CycConnectionException when a communications error occurs
+   * @throws CycApiException when a Cyc api exception occurs
+   */
+  public synchronized void setupNewNonBlockingCommConnection() throws CycConnectionException, CycApiException {
+    if (comm == null) {
+      throw new CycApiException("A non-blocking connection requires a Comm object.");
+    }
+    apiPool = ApiThreadPool.getDefaultPool();
+    final CycLeaseManager lease = new CycLeaseManager(this);
+    lease.start();
+    cycLeaseManagerMap.put(comm.toString(), lease);
+    connectionTimer.isCycConnectionEstablished = true;
+  }
+
+  /**
+   * Routes a task-processor response received from the Cyc server to the worker awaiting it.
+   * The worker is notified on the api thread pool, so this method does not block on the worker.
+   *
+   * @param status the status object which preceded the response
+   * @param taskProcessorResponse the task-processor response
+   * @param isInvalidObject true if the response contains an invalid object
+   */
+  public void handleTaskProcessorResponse(final Object status,
+          final CycArrayList taskProcessorResponse,
+          final boolean isInvalidObject) {
+    handleTaskProcessorResponse(status, taskProcessorResponse, isInvalidObject, -1);
+  }
+
+  /**
+   * Routes a task-processor response received from the Cyc server to the worker awaiting it,
+   * adding its encoded size to the worker's profile when SubL commands are being profiled.
+   *
+   * @param status the status object which preceded the response
+   * @param taskProcessorResponse the task-processor response
+   * @param isInvalidObject true if the response contains an invalid object
+   * @param responseBytes the encoded size of the status and response, or -1 if unknown
+   */
+  public void handleTaskProcessorResponse(final Object status,
+          final CycArrayList taskProcessorResponse,
+          final boolean isInvalidObject, final long responseBytes) {
+    logger.finest("API status: " + status);
+    if (trace >= API_TRACE_DETAILED) {
+      Log.current.println("cyc --> (" + status + ") " + taskProcessorResponse.toString());
+    }
+    if (taskProcessorResponse.equals(IGNORE_MESSAGE)) {
+      return;
+    }
+    if (trace >= API_TRACE_MESSAGES) {
+      Log.current.println(df.format(new Date()) + "\n    Got response: (" + taskProcessorResponse + ")");
+    }
+    if (!(taskProcessorResponse.get(TaskProcessorBinaryResponseHandler.TASK_PROCESSOR_RESPONSE_ID) instanceof Integer)) {
+      Log.current.println(df.format(new Date()) + "\n    Got invalid response id: (" + taskProcessorResponse + ")");
+    }
+    final Integer id = (Integer) taskProcessorResponse.get(TaskProcessorBinaryResponseHandler.TASK_PROCESSOR_RESPONSE_ID);
+    final Object taskStatus = taskProcessorResponse.get(TaskProcessorBinaryResponseHandler.TASK_PROCESSOR_RESPONSE_STATUS);
+    // handle Cyc images that either support or do not support (legacy) the finished flag
+    final Object finishedFlag = (taskProcessorResponse.size() > TaskProcessorBinaryResponseHandler.TASK_PROCESSOR_RESPONSE_FINISHED_FLAG)
+            ? taskProcessorResponse.get(TaskProcessorBinaryResponseHandler.TASK_PROCESSOR_RESPONSE_FINISHED_FLAG)
+            : CycObjectFactory.t;
+    final boolean finished = !(finishedFlag == CycObjectFactory.nil);
+    final CfaslTrafficRecorder recorder = trafficRecorder;
+    if (recorder != null) {
+      recorder.recordResponse(uuid, id, taskProcessorResponse);
+    }
+    final WaitingWorkerInfo waitingWorkerInfo = (WaitingWorkerInfo) waitingReplyThreads.get(id);
+    if (waitingWorkerInfo == null) {
+      if (trace >= API_TRACE_MESSAGES) {
+        Log.current.println(df.format(new Date()) + "\n    Got response with no waiting working: (" + taskProcessorResponse + ")");
+      }
+      return;
+    }
+    final Worker worker = waitingWorkerInfo.getWorker();
+    if (responseBytes >= 0) {
+      final SublCommandProfiler profiler = DefaultSublWorker.getProfiler();
+      if (profiler != null) {
+        profiler.recordResponseBytes(worker, responseBytes);
+      }
+    }
+    // used for example in the XML soap service where there is an upstream SOAPBinaryCycConnection object that
+    // needs the whole task processor response.
+    final Object response = StringUtils.cyclStringsToJavaStrings(
+            waitingWorkerInfo.isReturnWholeTaskProcessorResponse
+            ? taskProcessorResponse
+            : taskProcessorResponse.get(TaskProcessorBinaryResponseHandler.TASK_PROCESSOR_RESPONSE_RESPONSE));
+    final Runnable notificationTask = new NotificationTask(taskStatus, isInvalidObject, worker, response, finished, id, this);
+    try {
+      // never wait here: this runs on the threads which read responses off the connection
+      apiPool.executeWithoutWaiting(notificationTask);
+    } catch (RejectedExecutionException e) {
+      logger.log(Level.WARNING, "Rejected notification from " + worker + "; the ApiThreadPool has been shut down.", e);
+    }
+  }
+
+  /**
+   * Records that the response stream of a non-blocking Comm connection has ended, and releases
+   * every worker still awaiting a response.
+   *
+   * @param e the exception which ended the stream, or null if the peer closed it
+   */
+  public void handleCommConnectionClosed(final Exception e) {
+    if (isClosed) {
+      return;
+    }
+    if (e != null) {
+      logger.log(Level.SEVERE, "Comm response stream terminated because of exception.", e);
+    }
+    taskProcessingThreadDead = true;
+    forciblyUnblockAllWaitingWorkers(e);
+  }
+
     @Override
     public boolean connectedToStaticCyc() {
         return (comm == null);
@@ -732,13 +893,22 @@ public class CycConnectionImpl implements CycConnection {
     final Worker worker;
     final boolean isReturnWholeTaskProcessorResponse;
     final CycList taskProcessorRequest;
+    final CfaslChannel channel;
 
     WaitingWorkerInfo(final Worker worker,
             final CycList taskProcessorRequest,
             final boolean isReturnWholeTaskProcessorResponse) {
+      this(worker, taskProcessorRequest, isReturnWholeTaskProcessorResponse, null);
+    }
+
+    WaitingWorkerInfo(final Worker worker,
+            final CycList taskProcessorRequest,
+            final boolean isReturnWholeTaskProcessorResponse,
+            final CfaslChannel channel) {
       this.worker = worker;
       this.taskProcessorRequest = taskProcessorRequest;
       this.isReturnWholeTaskProcessorResponse = isReturnWholeTaskProcessorResponse;
+      this.channel = channel;
     }
 
     Worker getWorker() {
@@ -803,7 +973,7 @@ public class CycConnectionImpl implements CycConnection {
       //@note serial communications cannot be canceled right now
       return;
     }
-    String command = "(fif (" + "terminate-active-task-process" + " " + worker.getId() + " \"" + uuid + "\" " + ":cancel"
+    String command = "(fif (" + "terminate-active-task-process" + " " + worker.getId() + " \"" + getChannelUuid(id) + "\" " + ":cancel"
             + ") '(ignore) '(ignore))";
     sendBinary(cycAccess.getObjectTool().makeCycList(command));
     // the SubL implementation of CANCEL will send a CANCEL event back,
@@ -818,7 +988,7 @@ public class CycConnectionImpl implements CycConnection {
       return;
     }
     try {
-      String command = "(fif (" + "terminate-active-task-process" + " " + worker.getId() + " \"" + uuid + "\" " + ":abort"
+      String command = "(fif (" + "terminate-active-task-process" + " " + worker.getId() + " \"" + getChannelUuid(id) + "\" " + ":abort"
               + ") '(ignore) '(ignore))";
       sendBinary(cycAccess.getObjectTool().makeCycList(command));
     } finally {
@@ -826,7 +996,7 @@ public class CycConnectionImpl implements CycConnection {
       // so we do need to perform event signaling and cleanup
       worker.fireSubLWorkerTerminatedEvent(new SublWorkerEvent(worker,
               ABORTED_STATUS, null));
-      waitingReplyThreads.remove(id);
+      removeWaitingWorker(id);
     }
   }
 
@@ -853,11 +1023,17 @@ public class CycConnectionImpl implements CycConnection {
    */
   public void converseBinary(final Worker worker)
           throws CycConnectionException, CycTimeOutException, CycApiException {
-    logger.finest("API request: " + worker.toString());
+    if (logger.isLoggable(Level.FINEST)) {
+      logger.finest("API request: " + worker.toString());
+    }
     if (cycAccess.isClosed() || taskProcessingThreadDead) {
       throw new CycApiClosedConnectionException(
               "Attempt to communicate to Cyc using a closed connection (" + cycAccess.getHostName() + ":" + cycAccess.getBasePort() + ")");
     }
+    final LeaseRenewalService leases = leaseRenewalService;
+    if (leases != null) {
+      leases.noteTraffic(this);
+    }
     /*if ((!worker.shouldIgnoreInvalidLeases()) && (!cycAccess.hasValidLease())) {
      throw new CycApiException("Attempt to communicate to Cyc using a connection with an invalid lease." +
      "\nSubLCommand: " + worker.getSubLCommandCycList().toPrettyCyclifiedString(""));
@@ -874,6 +1050,8 @@ public class CycConnectionImpl implements CycConnection {
     boolean isReturnWholeTaskProcessorResponse = false;
     CycList subLCommand = worker.getSubLCommand();
     final Integer priority = worker.getPriority();
+    final CfaslChannel channel = selectChannel(worker);
+    final String channelUuid = (channel == null) ? uuid.toString() : channel.getUuid().toString();
     if (subLCommand.first().equals(CycObjectFactory.makeCycSymbol(
             "return-whole-task-processor-response"))) {
       isReturnWholeTaskProcessorResponse = true;
@@ -883,7 +1061,7 @@ public class CycConnectionImpl implements CycConnection {
       // client has supplied the task-processor-request form
       taskProcessorRequest = subLCommand;
       id = (Integer) subLCommand.third();
-      taskProcessorRequest.set(6, uuid.toString());  // override the uuid to identify this client
+      taskProcessorRequest.set(6, channelUuid);  // override the uuid to identify this client
     } else {
       id = nextApiRequestId();
       taskProcessorRequest = new CycArrayList();
@@ -893,7 +1071,7 @@ public class CycConnectionImpl implements CycConnection {
       taskProcessorRequest.add(clampPriority(priority)); // priority
       taskProcessorRequest.add(myClientName); // requestor
       taskProcessorRequest.add(CycObjectFactory.nil); // client-bindings
-      taskProcessorRequest.add(uuid.toString()); // uuid to identify this client
+      taskProcessorRequest.add(channelUuid); // uuid to identify this client
     }
     final CycArrayList actualRequest = (CycArrayList) taskProcessorRequest.get(1);
     if (actualRequest.toString().startsWith(
@@ -901,18 +1079,334 @@ public class CycConnectionImpl implements CycConnection {
       // override the uuid used to identify this client
       // (fif (terminate-active-task-process id uuid :cancel) (quote (ignore)) (quote (ignore)))
       final CycArrayList temp = (CycArrayList) actualRequest.second();
-      temp.set(2, uuid.toString());
+      temp.set(2, (temp.get(1) instanceof Integer)
+              ? getChannelUuid((Integer) temp.get(1)).toString() : uuid.toString());
+    }
+    if (logger.isLoggable(Level.FINEST)) {
+      logger.finest("taskProcessorRequest: " + taskProcessorRequest.toPrettyCyclifiedString(""));
     }
-    logger.finest("taskProcessorRequest: " + taskProcessorRequest.toPrettyCyclifiedString(
-            ""));
     WaitingWorkerInfo waitingWorkerInfo = new WaitingWorkerInfo(worker,
-            taskProcessorRequest, isReturnWholeTaskProcessorResponse);
+            taskProcessorRequest, isReturnWholeTaskProcessorResponse, channel);
     // tell everyone this is getting started
+    if (channel != null) {
+      channel.requestStarted();
+    }
     waitingReplyThreads.put(id, waitingWorkerInfo);
     SublWorkerEvent event = new SublWorkerEvent(worker, id);
     worker.fireSubLWorkerStartedEvent(event);
+    final CfaslTrafficRecorder recorder = trafficRecorder;
+    if (recorder != null) {
+      recorder.recordRequest(uuid, id, taskProcessorRequest);
+    }
     //start communication
-    sendBinary(taskProcessorRequest);
+    boolean isSent = false;
+    try {
+      if (channel == null) {
+        sendBinary(taskProcessorRequest, worker);
+      } else if (channel.getUuid().equals(uuid) && !pipelined) {
+        sendBinary(taskProcessorRequest, worker);
+      } else {
+        if (trace >= API_TRACE_MESSAGES) {
+          Log.current.println(
+                  df.format(new Date()) + "\n    Sending request: " + taskProcessorRequest + " on: " + channel);
+        }
+        channel.send(id, worker, taskProcessorRequest, pipelined);
+      }
+      isSent = true;
+    } finally {
+      if (!isSent) {
+        // no response will ever arrive, so release the channel and forget the waiter
+        removeWaitingWorker(id);
+      }
+    }
+  }
+
+  /**
+   * Chooses the channel which will carry the request of the given worker. Workers which expect
+   * incremental (typically large) results are isolated on the last channel of the pool; all other
+   * workers go to whichever remaining channel has the fewest outstanding requests.
+   *
+   * @param worker the worker about to be sent
+   *
+   * @return the chosen channel, or null if this connection has no channels
+   */
+  CfaslChannel selectChannel(final Worker worker) {
+    final int size = channels.size();
+    if (size == 0) {
+      return null;
+    }
+    if (size == 1) {
+      return channels.get(0);
+    }
+    if (worker.expectIncrementalResults()) {
+      return channels.get(size - 1);
+    }
+    CfaslChannel best = channels.get(0);
+    for (int i = 1; i < size - 1; i++) {
+      final CfaslChannel candidate = channels.get(i);
+      if (candidate.getOutstandingRequestCount() < best.getOutstandingRequestCount()) {
+        best = candidate;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Returns the UUID of the channel which carried the given api request, or the UUID of this
+   * connection if the request is unknown.
+   *
+   * @param id the api request id
+   *
+   * @return the UUID of the channel which carried the given api request
+   */
+  private UUID getChannelUuid(final Integer id) {
+    final WaitingWorkerInfo info = (WaitingWorkerInfo) waitingReplyThreads.get(id);
+    return (info == null || info.channel == null) ? uuid : info.channel.getUuid();
+  }
+
+  /**
+   * Opens the traffic log named by {@value #TRAFFIC_LOG_PROPERTY}, which is closed when the JVM
+   * exits.
+   *
+   * @return the traffic recorder, or null if the property is not set or the log cannot be opened
+   */
+  private static CfaslTrafficRecorder makeTrafficRecorderFromProperty() {
+    final String path = System.getProperty(TRAFFIC_LOG_PROPERTY);
+    if ((path == null) || path.isEmpty()) {
+      return null;
+    }
+    try {
+      final CfaslTrafficRecorder recorder = new CfaslTrafficRecorder(new File(path));
+      Runtime.getRuntime().addShutdownHook(new Thread("CFASL traffic log closer") {
+        @Override
+        public void run() {
+          try {
+            recorder.close();
+          } catch (IOException e) {
+            // the JVM is exiting
+          }
+        }
+      });
+      return recorder;
+    } catch (IOException e) {
+      Logger.getLogger(CycConnectionImpl.class.getName()).log(Level.WARNING,
+              "Cannot record CFASL traffic to " + path, e);
+      return null;
+    }
+  }
+
+  /**
+   * Grows the pool of CFASL channels to the given size by opening additional request and passive
+   * response socket pairs to the Cyc server. The pool never shrinks. When the pool has more than
+   * one channel, the last one is reserved for workers expecting incremental results so that large
+   * inference answers do not block small lookups. Connections made through a <tt>Comm</tt> object
+   * have no channel pool and ignore this call.
+   *
+   * @param size the desired number of channels
+   *
+   * @throws CycConnectionException when a communication error occurs
+   */
+  public synchronized void setChannelPoolSize(int size) throws CycConnectionException {
+    if (channels.isEmpty() || isClosed) {
+      return;
+    }
+    while (channels.size() < size) {
+      channels.add(openChannel());
+    }
+  }
+
+  /**
+   * Returns the number of CFASL channels of this connection.
+   *
+   * @return the number of CFASL channels of this connection
+   */
+  public int getChannelPoolSize() {
+    return channels.size();
+  }
+
+  /**
+   * Returns the number of outstanding requests on each CFASL channel, in pool order.
+   *
+   * @return the number of outstanding requests on each channel
+   */
+  public int[] getOutstandingRequestCounts() {
+    final List<CfaslChannel> snapshot = new ArrayList<CfaslChannel>(channels);
+    final int[] counts = new int[snapshot.size()];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = snapshot.get(i).getOutstandingRequestCount();
+    }
+    return counts;
+  }
+
+  /**
+   * Returns the UUIDs which identify the channels of this connection to the Cyc server.
+   *
+   * @return the UUIDs of the channels of this connection
+   */
+  public List<UUID> getChannelUuids() {
+    final List<UUID> uuids = new ArrayList<UUID>(channels.size());
+    for (final CfaslChannel channel : channels) {
+      uuids.add(channel.getUuid());
+    }
+    if (uuids.isEmpty()) {
+      uuids.add(uuid);
+    }
+    return uuids;
+  }
+
+  private CfaslChannel openChannel() throws CycConnectionException {
+    final UUID channelUuid = UUID.randomUUID();
+    try {
+      final Socket socket = new Socket(hostName, cfaslPort);
+      final int val = socket.getReceiveBufferSize();
+      socket.setReceiveBufferSize(val * 2);
+      socket.setTcpNoDelay(true);
+      socket.setKeepAlive(true);
+      final CfaslOutputStream outputStream = new CfaslOutputStream(socket.getOutputStream());
+      outputStream.trace = trace;
+      final TaskProcessorBinaryResponseHandler handler = new TaskProcessorBinaryResponseHandler(
+              Thread.currentThread(), this, hostName, cfaslPort, channelUuid);
+      handler.start();
+      handler.waitOnSetupToComplete();
+      final CfaslChannel channel = new CfaslChannel(this, channelUuid, socket, outputStream, handler, null);
+      if (trace > API_TRACE_NONE) {
+        Log.current.println("Opened " + channel + " to " + connectionInfo());
+      }
+      return channel;
+    } catch (IOException ioe) {
+      throw new CycConnectionException(ioe);
+    }
+  }
+
+  /**
+   * Answers true iff task-processor requests are sent in pipelined mode, i.e. queued for the
+   * dedicated request writer which batches the frames of concurrent callers into a single flush.
+   *
+   * @return true iff task-processor requests are sent in pipelined mode
+   */
+  public boolean isPipelined() {
+    return pipelined;
+  }
+
+  /**
+   * Sets whether task-processor requests are sent in pipelined mode. Pipelining applies only to
+   * direct socket connections; connections made through a <tt>Comm</tt> object ignore it.
+   *
+   * @param pipelined true to queue requests for the dedicated request writer
+   */
+  public void setPipelined(boolean pipelined) {
+    this.pipelined = pipelined;
+  }
+
+  /**
+   * Returns the recorder of the task-processor traffic of every connection.
+   *
+   * @return the traffic recorder, or null if traffic is not being recorded
+   */
+  public static CfaslTrafficRecorder getTrafficRecorder() {
+    return trafficRecorder;
+  }
+
+  /**
+   * Sets the recorder of the task-processor traffic of every connection. The previous recorder,
+   * if any, is not closed.
+   *
+   * @param recorder the traffic recorder, or null to stop recording
+   */
+  public static void setTrafficRecorder(final CfaslTrafficRecorder recorder) {
+    trafficRecorder = recorder;
+  }
+
+  /**
+   * Returns the number of task-processor requests that have been sent (or queued) and are
+   * still awaiting their final response.
+   *
+   * @return the number of requests in flight
+   */
+  public int getInFlightRequestCount() {
+    return waitingReplyThreads.size();
+  }
+
+  /**
+   * Returns the number of pipelined requests queued but not yet written to the socket.
+   *
+   * @return the number of pipelined requests queued but not yet written
+   */
+  public int getPendingRequestCount() {
+    int count = 0;
+    for (final CfaslChannel channel : channels) {
+      final CfaslRequestWriter writer = channel.peekRequestWriter();
+      if (writer != null) {
+        count += writer.getPendingRequestCount();
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the mean time in milliseconds that a pipelined request waited before being written.
+   *
+   * @return the mean queueing latency in milliseconds
+   */
+  public double getMeanRequestQueueMillis() {
+    long written = 0;
+    double totalMillis = 0.0;
+    for (final CfaslChannel channel : channels) {
+      final CfaslRequestWriter writer = channel.peekRequestWriter();
+      if (writer != null) {
+        written += writer.getWrittenRequestCount();
+        totalMillis += writer.getMeanQueueMillis() * writer.getWrittenRequestCount();
+      }
+    }
+    return (written == 0) ? 0.0 : totalMillis / written;
+  }
+
+  /**
+   * Returns the longest time in milliseconds that a pipelined request waited before being written.
+   *
+   * @return the maximum queueing latency in milliseconds
+   */
+  public double getMaxRequestQueueMillis() {
+    double max = 0.0;
+    for (final CfaslChannel channel : channels) {
+      final CfaslRequestWriter writer = channel.peekRequestWriter();
+      if (writer != null) {
+        max = Math.max(max, writer.getMaxQueueMillis());
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Returns the mean number of pipelined requests written per flush of the socket.
+   *
+   * @return the mean number of pipelined requests written per flush
+   */
+  public double getMeanRequestBatchSize() {
+    long written = 0;
+    long flushes = 0;
+    for (final CfaslChannel channel : channels) {
+      final CfaslRequestWriter writer = channel.peekRequestWriter();
+      if (writer != null) {
+        written += writer.getWrittenRequestCount();
+        flushes += writer.getFlushCount();
+      }
+    }
+    return (flushes == 0) ? 0.0 : written / (double) flushes;
+  }
+
+  /**
+   * Forgets the worker awaiting the response to the given api request.
+   *
+   * @param id the api request id
+   */
+  void removeWaitingWorker(Integer id) {
+    if (id != null) {
+      final WaitingWorkerInfo info = (WaitingWorkerInfo) waitingReplyThreads.remove(id);
+      if (info != null && info.channel != null) {
+        info.channel.requestFinished();
+      }
+    }
   }
 
   static public Integer clampPriority(Integer priority) {
@@ -946,8 +1440,23 @@ public class CycConnectionImpl implements CycConnection {
    *
    * @throws IOException when a communication error occurs
    */
-  public synchronized void sendBinary(Object message)
+  public void sendBinary(Object message)
+          throws CycConnectionException {
+    sendBinary(message, null);
+  }
+
+  /**
+   * Sends an object to the CYC server, adding its encoded size to the profile of the given worker
+   * when SubL commands are being profiled.
+   *
+   * @param message the api command
+   * @param worker the worker whose request this is, or null
+   *
+   * @throws CycConnectionException when a communication error occurs
+   */
+  private synchronized void sendBinary(final Object message, final Worker worker)
           throws CycConnectionException {
+    final SublCommandProfiler profiler = (worker == null) ? null : DefaultSublWorker.getProfiler();
     if (trace >= API_TRACE_MESSAGES) {
       Log.current.println(
               df.format(new Date()) + "\n    Sending request: " + message + " to connection: " + this);
@@ -958,29 +1467,70 @@ public class CycConnectionImpl implements CycConnection {
 
     if (this.comm == null) {
       try {
+        final long start = cfaslOutputStream.getBytesWritten();
         cfaslOutputStream.writeObject(message);
         cfaslOutputStream.flush();
+        if (profiler != null) {
+          profiler.recordRequestBytes(worker, cfaslOutputStream.getBytesWritten() - start);
+        }
       } catch (IOException ioe) {
         throw new CycConnectionException(ioe);
       }
     } else {
       try {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream(2048);
-        CfaslOutputStream cfo = new CfaslOutputStream(baos);
-        cfo.writeObject(message);
-        cfo.flush();
-        
-        // Catching CommException and throwing a CycConnectionException to avoid adding CommException in all upper level methods
-        InputStream cisLocal = comm.sendRequest(baos.toByteArray(),
-                comm.makeRequestSummary(message.toString()), Comm.RequestType.NORMAL);
+        final int bytes = sendToComm(message);
+        if (profiler != null) {
+          profiler.recordRequestBytes(worker, bytes);
+        }
       } catch (IOException ioe) {
         throw new CycConnectionException(ioe);
       } catch (CommException e) {
+        // Catching CommException and throwing a CycConnectionException to avoid adding CommException in all upper level methods
         throw new CycConnectionException(e);
       }
     }
   }
 
+  /**
+   * Encodes the given message and sends it through the Comm object. A GatheringComm receives the
+   * message in pooled direct buffers and builds its request summary only if it needs one; any
+   * other Comm receives a byte array and a summary, as the Comm interface requires.
+   *
+   * @return the encoded size of the message
+   */
+  private int sendToComm(final Object message)
+          throws IOException, CommException, CycConnectionException {
+    if (comm instanceof GatheringComm) {
+      // callers hold this connection's monitor, so the encoder can be reused
+      if (commEncoder == null) {
+        commBuffers = new DirectBufferOutputStream();
+        commEncoder = new CfaslOutputStream(commBuffers, DirectBufferOutputStream.BUFFER_SIZE);
+      }
+      boolean isSent = false;
+      try {
+        commEncoder.writeObject(message);
+        commEncoder.flush();
+        final int size = commBuffers.size();
+        ((GatheringComm) comm).sendRequest(commBuffers.toBuffers(), message);
+        isSent = true;
+        return size;
+      } finally {
+        if (!isSent) {
+          // the encoder may hold part of the failed message, e.g. one with a NaN float
+          commEncoder = null;
+        }
+        commBuffers.release();
+      }
+    }
+    ByteArrayOutputStream baos = new ByteArrayOutputStream(2048);
+    CfaslOutputStream cfo = new CfaslOutputStream(baos);
+    cfo.writeObject(message);
+    cfo.flush();
+    InputStream cisLocal = comm.sendRequest(baos.toByteArray(),
+            comm.makeRequestSummary(message.toString()), Comm.RequestType.NORMAL);
+    return baos.size();
+  }
+
   /**
    * Receives an object from the CYC server.
    *
@@ -1052,14 +1602,10 @@ public class CycConnectionImpl implements CycConnection {
       cfaslOutputStream.writeObject(apiResponse);
       cfaslOutputStream.flush();
     } else {
-      ByteArrayOutputStream baos = new ByteArrayOutputStream(2048);
-      CfaslOutputStream cfo = new CfaslOutputStream(baos);
-      cfo.writeObject(message);
-      cfo.flush();
-
       try {
-        InputStream cisLocal = comm.sendRequest(baos.toByteArray(), 
-            comm.makeRequestSummary(message.toString()), Comm.RequestType.NORMAL);
+        sendToComm(message);
+      } catch (IOException ioe) {
+        throw ioe;
       } catch (Exception e) {
         throw new IOException(e);
       }
@@ -1116,6 +1662,11 @@ public class CycConnectionImpl implements CycConnection {
         kv.getValue().inboundStream.trace = trace;
       }
     }
+    for (final CfaslChannel channel : channels) {
+      if (channel.responseHandler.inboundStream != null) {
+        channel.responseHandler.inboundStream.trace = trace;
+      }
+    }
   }
 
   /** Answers true iff this is a valid binary (cfasl) connection to Cyc.
@@ -1258,6 +1809,9 @@ public class CycConnectionImpl implements CycConnection {
                 WorkerStatus.EXCEPTION_STATUS, e);
         waitingWorkerInfo.worker.fireSubLWorkerTerminatedEvent(event);
         iter.remove();
+        if (waitingWorkerInfo.channel != null) {
+          waitingWorkerInfo.channel.requestFinished();
+        }
       }
     }
   }
@@ -1298,4 +1852,13 @@ public class CycConnectionImpl implements CycConnection {
   }
   public static final DateFormat df = DateFormat.getDateTimeInstance();
   public ApiThreadPool apiPool = new ApiThreadPool();
+  /** the reusable encoder of requests sent through a GatheringComm, guarded by this connection */
+  private CfaslOutputStream commEncoder = null;
+  private DirectBufferOutputStream commBuffers = null;
+  /** the (ignore) message from the Cyc server to test if the connection is alive */
+  private static final CycArrayList IGNORE_MESSAGE = new CycArrayList();
+
+  static {
+    IGNORE_MESSAGE.add(new CycSymbolImpl("IGNORE"));
+  }
 }
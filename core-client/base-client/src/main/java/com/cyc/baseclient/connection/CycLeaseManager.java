@@ -30,18 +30,24 @@ import java.util.Collections;
 import java.util.EventListener;
 import java.util.EventObject;
 import java.util.List;
+import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 //// Internal Imports
-import com.cyc.base.exception.CycTimeOutException;
 import com.cyc.base.conn.LeaseManager;
 import static com.cyc.base.conn.LeaseManager.*;
-import com.cyc.base.cycobject.CycList;
 
 /**
  * <P>CycLeaseManager manages api service leases between a Cyc image (server) and application client.
  *
+ * <P>A CycLeaseManager no longer runs a thread of its own: {@link #start()} registers it with the
+ * shared {@link LeaseRenewalService}, which renews the leases of all connections to the same
+ * server in one batch, and {@link #interrupt()} unregisters it. It still extends Thread so that
+ * existing callers of the LeaseManager interface keep working, but since the thread is never
+ * started, <code>isAlive()</code> is always false; see {@link LeaseManager}. Listeners are
+ * notified from the service's notification thread.
+ *
  * <P>Copyright (c) 2003 - 2006 Cycorp, Inc. All rights reserved.
  * <BR>This software is the proprietary information of Cycorp, Inc.
  * <P>Use is subject to license terms.
@@ -85,8 +91,6 @@ public class CycLeaseManager extends Thread implements LeaseManager {
               "listener must not be currently registered");
     }
     assert listeners != null : "listeners must not be null";
-    assert this.isAlive() : "the CycLeaseManager thread has died because a lease timed-out, errored or was denied";
-    // otherwise, this is a SOAP client connection and leasing is never started
 
     listeners.add(cycLeaseManagerListener);
   }
@@ -104,9 +108,6 @@ public class CycLeaseManager extends Thread implements LeaseManager {
               "cycLeaseManagerListener must not be null");
     }
     assert listeners != null : "listeners must not be null";    
-    assert this.isAlive() : "the CycLeaseManager thread has died because a lease timed-out, errored or was denied";
-       
-    // otherwise, this is a SOAP client connection and leasing is never started
 
     listeners.remove(cycLeaseManagerListener);
   }
@@ -126,101 +127,42 @@ public class CycLeaseManager extends Thread implements LeaseManager {
   public void removeAllListeners() {
     //// Preconditions
     assert listeners != null : "listeners must not be null";   
-    assert this.isAlive() : "the CycLeaseManager thread has died because a lease timed-out, errored or was denied";
-    
-    // otherwise, this is a SOAP client connection and leasing is never started
 
     listeners.clear();
   }
   /** the Cyc api services lease request timeout in milliseconds */
   public static long CYC_API_SERVICES_LEASE_REQUEST_TIMEOUT_MILLIS = 120000;
 
-  /** Performs periodic Cyc api service lease acquisition, and notifies listeners if the lease fails or is denied. */
-  public void run() {
+  /**
+   * Starts renewing the lease by registering with the default {@link LeaseRenewalService}. No
+   * thread is started.
+   */
+  @Override
+  public void start() {
+    LeaseRenewalService.getDefault().register(this);
+  }
 
-    //// Preconditions
-    assert listeners != null : "listeners must not be null";
-  //Tag: Fix CycLeaseManager    
-    // assert cycAccess != null : "cycAccess must not be null";
-    assert cycConnection != null : "cycConnection must not be null";
-
-
-    Thread.currentThread().setName("Cyc API services lease manager");
-    Thread.currentThread().setPriority(Thread.MAX_PRIORITY);
-    //while (!cycAccess.isClosed()) {
-    while (!cycConnection.isClosed()) {
-      // SubL side gets a lease request for twice the value of the lease duration
-      final String script = "(with-immediate-execution (acquire-api-services-lease "
-              + (getLeaseDurationMilliseconds() * 2) + " \""
-      //            + cycAccess.getCycConnection().getUuid().toString() + "\"))";
-              + cycConnection.getUuid().toString() + "\"))";
-      final CycList scriptList = cycConnection.cycAccess.getObjectTool().makeCycList(script);
-      String results = null;
-      isLeaseRequestPending = true;
-      logger.fine("Requesting API services lease");
-      try {
-        /*
-        DefaultSubLWorkerSynch worker = new DefaultSubLWorkerSynch(scriptList,
-                cycAccess,
-                CYC_API_SERVICES_LEASE_REQUEST_TIMEOUT_MILLIS);
-        worker.setShouldIgnoreInvalidLeases(true);
-        results = (String) worker.getWork();
-        */
-        
-        Object[] response = {null, null};
-        response = cycConnection.converse(scriptList);
-        results = (String) response[1];
-        
-        logger.finest(results);
-      } catch (CycTimeOutException toe) {
-        isLeaseRequestPending = false;
-        logger.fine(
-                "Cyc communications timeout encountered when attempting " + "to renew the API services lease.\n" + toe.getMessage());
-        notifyListeners(CYC_DOES_NOT_RESPOND_TO_LEASE_REQUEST);
-        try {
-          Thread.sleep(getLeaseDurationMilliseconds());
-        } catch (InterruptedException ex) {
-        }
-        continue;
-      } catch (Exception e) {
-        isLeaseRequestPending = false;
-        logger.fine(
-                "Cyc communications error encountered when attempting " + "to renew the API services lease.\n" + e.getMessage());
-        notifyListeners(CYC_COMMUNICATION_ERROR);
-        try {
-          Thread.sleep(getLeaseDurationMilliseconds());
-        } catch (InterruptedException ex) {
-        }
-        continue;
-      }
-      //cycAccess.getCycConnection().traceOff();
-      isLeaseRequestPending = false;
-      if (results.equals("api services lease denied")) {
-        logger.severe(
-                "The request to renew the API services lease was denied by the Cyc server.");
-        notifyListeners(CYC_DENIES_THE_LEASE_REQUEST);
-      } else {
-        String currentImageID = extractImageID(results);
-        if (cycImageID != null && !cycImageID.equals(currentImageID)) {
-          logger.info("The Cyc server image ID has changed.");
-          notifyListeners(CYC_IMAGE_ID_HAS_CHANGED);
-        } else {
-          logger.fine("API services lease renewed");
-          notifyListeners(LEASE_SUCCESSFULLY_RENEWED);
-        }
-        cycImageID = currentImageID;
-      }
-      try {
-        Thread.sleep(getLeaseDurationMilliseconds());
-      } catch (InterruptedException e) {
-      }
-    }
+  /**
+   * Stops renewing the lease by unregistering from the default {@link LeaseRenewalService}.
+   */
+  @Override
+  public void interrupt() {
+    LeaseRenewalService.getDefault().unregister(this);
+  }
+
+  /**
+   * Renews the lease now, together with the other leases to the same Cyc server, without waiting
+   * for the outcome.
+   */
+  @Override
+  public void run() {
+    LeaseRenewalService.getDefault().renewNow(this);
   }
 
-  /** Immediately renews the current lease by interrupting the sleep of this leasing thread. */
+  /** Immediately renews the current lease, and gives Cyc a moment to renew it. */
   public void immediatelyRenewLease() {
     logger.finest("immedidately renewing the lease");
-    interrupt();
+    run();
     try {
       // give time for Cyc to renew the lease
       sleep(250);
@@ -256,6 +198,7 @@ public class CycLeaseManager extends Thread implements LeaseManager {
     }
 
     this.leaseDurationMilliseconds = leaseDurationMilliseconds;
+    LeaseRenewalService.getDefault().leaseDurationChanged(this);
   }
 
 
@@ -308,10 +251,85 @@ public class CycLeaseManager extends Thread implements LeaseManager {
   }
 
   //// Protected Area
+  
+  /**
+   * Returns the connection whose lease this manages.
+   *
+   * @return the connection
+   */
+  CycConnectionImpl getCycConnection() {
+    return cycConnection;
+  }
+
+  /**
+   * Returns the UUIDs to lease for the connection. Every channel of a pooled connection has its
+   * own passive socket, so each channel UUID is leased; the connection's own UUID is last so that
+   * its lease description is the one reported.
+   *
+   * @return the UUIDs to lease
+   */
+  List<String> getLeaseUuids() {
+    final String connectionUuid = cycConnection.getUuid().toString();
+    final List<String> uuids = new ArrayList<String>();
+    for (final UUID channelUuid : cycConnection.getChannelUuids()) {
+      if (!connectionUuid.equals(channelUuid.toString())) {
+        uuids.add(channelUuid.toString());
+      }
+    }
+    uuids.add(connectionUuid);
+    return uuids;
+  }
+
+  void setLeaseRequestPending(final boolean isLeaseRequestPending) {
+    this.isLeaseRequestPending = isLeaseRequestPending;
+  }
+
+  /**
+   * Handles the server's description of the lease it granted, or of its denial, and notifies the
+   * listeners.
+   *
+   * @param results the lease description
+   */
+  void leaseResponded(final String results) {
+    isLeaseRequestPending = false;
+    logger.finest(results);
+    if ("api services lease denied".equals(results)) {
+      logger.severe(
+              "The request to renew the API services lease was denied by the Cyc server.");
+      notifyListeners(CYC_DENIES_THE_LEASE_REQUEST);
+    } else if ((results == null) || !results.startsWith(LEASE_GRANTED_PREFIX)) {
+      logger.fine("Unexpected response to the API services lease request: " + results);
+      notifyListeners(CYC_COMMUNICATION_ERROR);
+    } else {
+      String currentImageID = extractImageID(results);
+      if (cycImageID != null && !cycImageID.equals(currentImageID)) {
+        logger.info("The Cyc server image ID has changed.");
+        notifyListeners(CYC_IMAGE_ID_HAS_CHANGED);
+      } else {
+        logger.fine("API services lease renewed");
+        notifyListeners(LEASE_SUCCESSFULLY_RENEWED);
+      }
+      cycImageID = currentImageID;
+    }
+  }
+
+  /**
+   * Handles a lease request which failed or got no response, and notifies the listeners.
+   *
+   * @param reason the Cyc lease manager event reason
+   * @param e the failure
+   */
+  void leaseFailed(final LeaseManagerReason reason, final Exception e) {
+    isLeaseRequestPending = false;
+    logger.fine(
+            "Cyc communications error encountered when attempting " + "to renew the API services lease.\n" + e.getMessage());
+    notifyListeners(reason);
+  }
+
   //// Private Area
   private String extractImageID(final String leaseDescription) {
-    assert leaseDescription.startsWith("api services lease granted by ");
-    String currentImageID = leaseDescription.substring(30);
+    assert leaseDescription.startsWith(LEASE_GRANTED_PREFIX);
+    String currentImageID = leaseDescription.substring(LEASE_GRANTED_PREFIX.length());
     final int firstSpaceIndex = currentImageID.indexOf(" ");
     if (firstSpaceIndex > 0) {
       currentImageID = currentImageID.substring(0, firstSpaceIndex);
@@ -345,6 +363,8 @@ public class CycLeaseManager extends Thread implements LeaseManager {
     }
   }
   //// Internal Rep
+  /** the start of the description of a granted lease, which is followed by the image ID */
+  private static final String LEASE_GRANTED_PREFIX = "api services lease granted by ";
   /** the logger */
   private final Logger logger;
   /** the Cyc api services client */
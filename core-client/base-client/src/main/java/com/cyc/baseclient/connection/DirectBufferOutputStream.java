@@ -0,0 +1,126 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: DirectBufferOutputStream.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class DirectBufferOutputStream collects the bytes of an encoded request in a chain of direct
+ * ByteBuffers drawn from a shared pool. The chain can be handed to a socket channel in a single
+ * gathering write, without first being copied into a byte array, and is then released back to
+ * the pool. A stream may be reused once released.
+ */
+final class DirectBufferOutputStream extends OutputStream {
+
+  @Override
+  public void write(final int b) {
+    if ((current == null) || !current.hasRemaining()) {
+      nextBuffer();
+    }
+    current.put((byte) b);
+  }
+
+  @Override
+  public void write(final byte[] bytes, int offset, int length) {
+    while (length > 0) {
+      if ((current == null) || !current.hasRemaining()) {
+        nextBuffer();
+      }
+      final int count = Math.min(length, current.remaining());
+      current.put(bytes, offset, count);
+      offset += count;
+      length -= count;
+    }
+  }
+
+  /**
+   * Returns the buffers holding the bytes written so far, flipped for reading. Nothing more may be
+   * written until the stream is released.
+   *
+   * @return the buffers holding the bytes written
+   */
+  ByteBuffer[] toBuffers() {
+    final ByteBuffer[] result = buffers.toArray(new ByteBuffer[buffers.size()]);
+    for (final ByteBuffer buffer : result) {
+      buffer.flip();
+    }
+    current = null;
+    return result;
+  }
+
+  /**
+   * Returns the number of bytes held by this stream's buffers.
+   *
+   * @return the number of bytes held
+   */
+  int size() {
+    int size = 0;
+    for (final ByteBuffer buffer : buffers) {
+      size += (buffer == current) ? buffer.position() : buffer.limit();
+    }
+    return size;
+  }
+
+  /** Returns this stream's buffers to the pool and empties the stream. */
+  void release() {
+    for (final ByteBuffer buffer : buffers) {
+      if (pooledBufferCount.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+        buffer.clear();
+        POOL.offer(buffer);
+      } else {
+        pooledBufferCount.decrementAndGet();
+      }
+    }
+    buffers.clear();
+    current = null;
+  }
+
+  //// Private Area
+
+  private void nextBuffer() {
+    ByteBuffer buffer = POOL.poll();
+    if (buffer == null) {
+      buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    } else {
+      pooledBufferCount.decrementAndGet();
+    }
+    buffers.add(buffer);
+    current = buffer;
+  }
+
+  //// Internal Rep
+
+  /** the size of each pooled buffer */
+  static final int BUFFER_SIZE = 16 * 1024;
+  /** the most buffers kept in the pool, which bounds the pool at 4 MB */
+  private static final int MAX_POOLED_BUFFERS = 256;
+  private static final Queue<ByteBuffer> POOL = new ConcurrentLinkedQueue<ByteBuffer>();
+  private static final AtomicInteger pooledBufferCount = new AtomicInteger();
+  private final List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+  private ByteBuffer current = null;
+}
@@ -0,0 +1,596 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: LeaseRenewalService.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.conn.LeaseManager;
+import com.cyc.base.conn.LeaseManager.LeaseManagerReason;
+import com.cyc.base.cycobject.CycList;
+import com.cyc.base.exception.CycApiException;
+import com.cyc.base.exception.CycTimeOutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <P>LeaseRenewalService renews the api services leases of every {@link CycLeaseManager} in the
+ * process from a single scheduler thread, instead of a thread per connection.
+ *
+ * <P>The leases of all connections to the same Cyc server are renewed together by one
+ * <code>acquire-api-services-lease</code> batch per lease period, sent without waiting for its
+ * response. When a connection sends a request after three quarters of the period have passed, the
+ * batch is sent at once over that connection rather than waiting for the timer, so busy servers
+ * are renewed alongside their normal traffic and the timer only fires for idle ones.
+ *
+ * <P>The outcome of each renewal is published to the lease managers' listeners from a separate
+ * notification thread, in order for each server, so that a listener which blocks, e.g. one which
+ * reconnects when the image ID has changed, delays only the events of its own server and never
+ * the renewal of any lease.
+ */
+public class LeaseRenewalService {
+  
+  //// Constructors
+  
+  /**
+   * Creates a new instance of LeaseRenewalService with its own scheduler thread. Most
+   * applications should use {@link #getDefault()}.
+   */
+  public LeaseRenewalService() {
+    this(DEFAULT_REQUESTER);
+  }
+  
+  /**
+   * Creates a new instance of LeaseRenewalService which sends its lease batches with the given
+   * requester, e.g. to a stand-in server.
+   *
+   * @param requester sends each lease batch
+   */
+  LeaseRenewalService(final LeaseRequester requester) {
+    final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, THREAD_FACTORY);
+    executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    this.scheduler = executor;
+    final ThreadPoolExecutor pool = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+            NOTIFIER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+            NOTIFIER_THREAD_FACTORY);
+    this.notifier = pool;
+    this.requester = requester;
+  }
+  
+  //// Public Area
+  
+  /**
+   * Returns the service shared by all connections in this process.
+   *
+   * @return the default lease renewal service
+   */
+  public static synchronized LeaseRenewalService getDefault() {
+    if (defaultService == null) {
+      defaultService = new LeaseRenewalService();
+    }
+    return defaultService;
+  }
+  
+  /**
+   * Starts renewing the lease of the given lease manager, together with the other leases to the
+   * same Cyc server. The leases of the server are renewed at once, so that the new one is leased.
+   *
+   * @param lease the lease manager
+   */
+  public void register(final CycLeaseManager lease) {
+    final CycConnectionImpl connection = lease.getCycConnection();
+    final Object key = getServerKey(connection);
+    ServerLeases server;
+    synchronized (servers) {
+      server = servers.get(key);
+      if (server == null) {
+        server = new ServerLeases(key);
+        servers.put(key, server);
+      }
+      server.leases.addIfAbsent(lease);
+      connections.put(connection, server);
+    }
+    connection.leaseRenewalService = this;
+    server.schedule(server.getTickMillis());
+    server.renewLater(connection, false);
+  }
+  
+  /**
+   * Stops renewing the lease of the given lease manager. A server's timer is cancelled along with
+   * its last lease.
+   *
+   * @param lease the lease manager
+   */
+  public void unregister(final CycLeaseManager lease) {
+    final CycConnectionImpl connection = lease.getCycConnection();
+    synchronized (servers) {
+      final ServerLeases server = servers.get(getServerKey(connection));
+      if (server == null) {
+        return;
+      }
+      server.leases.remove(lease);
+      if (!server.hasLeasesFor(connection)) {
+        connections.remove(connection);
+        if (connection.leaseRenewalService == this) {
+          connection.leaseRenewalService = null;
+        }
+      }
+      if (server.leases.isEmpty()) {
+        servers.remove(server.key);
+        server.cancel();
+      }
+    }
+  }
+  
+  /**
+   * Renews the leases of the given lease manager's server now, unless a renewal is already in
+   * flight.
+   *
+   * @param lease the lease manager
+   */
+  public void renewNow(final CycLeaseManager lease) {
+    final ServerLeases server = connections.get(lease.getCycConnection());
+    if (server != null) {
+      server.renewLater(lease.getCycConnection(), false);
+    }
+  }
+  
+  /**
+   * Re-reads the lease durations of the given lease manager's server, after one of them changed.
+   *
+   * @param lease the lease manager
+   */
+  public void leaseDurationChanged(final CycLeaseManager lease) {
+    final ServerLeases server = connections.get(lease.getCycConnection());
+    if (server != null) {
+      server.schedule(server.getTickMillis());
+    }
+  }
+  
+  /**
+   * Notes that the given connection is sending a request. If the leases of its server are due
+   * for renewal, they are renewed at once over this connection. This is called for every request,
+   * so it does no more than a map lookup unless a renewal is due.
+   *
+   * @param connection the connection
+   */
+  public void noteTraffic(final CycConnectionImpl connection) {
+    final ServerLeases server = connections.get(connection);
+    if ((server != null) && !server.isPending
+            && ((System.nanoTime() - server.lastRenewalNanos) >= server.getPiggybackNanos())) {
+      server.renewLater(connection, true);
+    }
+  }
+  
+  /**
+   * Returns the number of Cyc servers whose leases are being renewed.
+   *
+   * @return the number of servers
+   */
+  public int getServerCount() {
+    return servers.size();
+  }
+  
+  /**
+   * Returns the number of lease batches sent, each renewing the leases of one server.
+   *
+   * @return the number of renewals
+   */
+  public long getRenewalCount() {
+    return renewalCount.get();
+  }
+  
+  /**
+   * Returns the number of lease batches which were sent alongside a connection's own traffic
+   * rather than by the timer.
+   *
+   * @return the number of piggybacked renewals
+   */
+  public long getPiggybackedRenewalCount() {
+    return piggybackedRenewalCount.get();
+  }
+  
+  /**
+   * Stops the scheduler thread. Leases are no longer renewed, and listeners are notified of no
+   * further events.
+   */
+  public void shutdown() {
+    scheduler.shutdownNow();
+    notifier.shutdownNow();
+  }
+  
+  //// Protected Area
+  
+  /** Sends a batch of <code>acquire-api-services-lease</code> requests to a Cyc server. */
+  interface LeaseRequester {
+    
+    /**
+     * Sends the given script over the given connection without waiting for its response.
+     *
+     * @param carrier the connection
+     * @param script the SubL script
+     * @return the pending list of lease descriptions
+     */
+    SublFuture<Object> request(CycConnectionImpl carrier, String script);
+  }
+  
+  //// Private Area
+  
+  private static Object getServerKey(final CycConnectionImpl connection) {
+    if (connection.getHostName() == null) {
+      // e.g. a Comm connection: lease it on its own
+      return connection;
+    }
+    return connection.getHostName().toLowerCase() + ":" + connection.getCfaslPort();
+  }
+  
+  /** The leases of all connections to one Cyc server. */
+  private final class ServerLeases implements Runnable {
+    
+    private ServerLeases(final Object key) {
+      this.key = key;
+    }
+    
+    @Override
+    public void run() {
+      try {
+        tick();
+      } catch (RuntimeException e) {
+        LOGGER.log(Level.WARNING, "Error renewing the API services leases of " + key, e);
+      } finally {
+        schedule(getTickMillis());
+      }
+    }
+    
+    private void tick() {
+      removeClosedLeases();
+      final SublFuture<Object> pending = inFlight;
+      if (isPending && (pending != null)
+              && ((System.nanoTime() - inFlightSinceNanos)
+              >= TimeUnit.MILLISECONDS.toNanos(CycLeaseManager.CYC_API_SERVICES_LEASE_REQUEST_TIMEOUT_MILLIS))) {
+        LOGGER.fine("The API services lease request to " + key + " timed out");
+        pending.cancel(true);
+        return;
+      }
+      if (!isPending && ((System.nanoTime() - lastRenewalNanos) >= getPeriodNanos())) {
+        renew(null, false);
+      }
+    }
+    
+    private synchronized void schedule(final long delayMillis) {
+      if (isCancelled || scheduler.isShutdown()) {
+        return;
+      }
+      if (nextTick != null) {
+        nextTick.cancel(false);
+      }
+      nextTick = scheduler.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    private synchronized void cancel() {
+      isCancelled = true;
+      if (nextTick != null) {
+        nextTick.cancel(false);
+      }
+    }
+    
+    private void renewLater(final CycConnectionImpl carrier, final boolean piggybacked) {
+      if (scheduler.isShutdown() || !isRenewalQueued.compareAndSet(false, true)) {
+        return;
+      }
+      scheduler.execute(new Runnable() {
+        @Override
+        public void run() {
+          isRenewalQueued.set(false);
+          renew(carrier, piggybacked);
+        }
+      });
+    }
+    
+    /**
+     * Sends one batch renewing every lease to this server, over <code>carrier</code> if it is
+     * open, or else over the first open connection.
+     */
+    private void renew(CycConnectionImpl carrier, final boolean piggybacked) {
+      synchronized (this) {
+        if (isCancelled) {
+          return;
+        }
+        if (isPending) {
+          // e.g. a lease registered while the batch was in flight; renew again once it completes
+          isRenewalRequested |= !piggybacked;
+          return;
+        }
+        isPending = true;
+        isRenewalRequested = false;
+      }
+      final List<CycLeaseManager> batch = new ArrayList<CycLeaseManager>();
+      for (final CycLeaseManager lease : leases) {
+        if (!lease.getCycConnection().isClosed()) {
+          batch.add(lease);
+        }
+      }
+      if ((carrier == null) || carrier.isClosed()) {
+        carrier = batch.isEmpty() ? null : batch.get(0).getCycConnection();
+      }
+      if (carrier == null) {
+        isPending = false;
+        return;
+      }
+      final StringBuilder script = new StringBuilder("(with-immediate-execution (list");
+      final int[] resultIndexes = new int[batch.size()];
+      final long durationMillis = getPeriodMillis() * 2;
+      int index = 0;
+      for (int i = 0; i < batch.size(); i++) {
+        // each lease's own connection UUID is last, so its lease description is at resultIndexes[i]
+        for (final String uuid : batch.get(i).getLeaseUuids()) {
+          script.append(" (acquire-api-services-lease ").append(durationMillis)
+                  .append(" \"").append(uuid).append("\")");
+          index++;
+        }
+        resultIndexes[i] = index - 1;
+        batch.get(i).setLeaseRequestPending(true);
+      }
+      script.append("))");
+      final SublFuture<Object> future;
+      try {
+        LOGGER.fine("Requesting " + batch.size() + " API services lease(s) from " + key
+                + (piggybacked ? " alongside traffic" : ""));
+        inFlightSinceNanos = System.nanoTime();
+        future = requester.request(carrier, script.toString());
+      } catch (RuntimeException e) {
+        leasesFailed(batch, e);
+        return;
+      }
+      inFlight = future;
+      renewalCount.incrementAndGet();
+      if (piggybacked) {
+        piggybackedRenewalCount.incrementAndGet();
+      }
+      future.addCallback(new SublFuture.Callback<Object>() {
+        @Override
+        public void onSuccess(final Object result) {
+          lastRenewalNanos = System.nanoTime();
+          renewalCompleted();
+          notifyLeases(new Runnable() {
+            @Override
+            public void run() {
+              for (int i = 0; i < batch.size(); i++) {
+                final Object description = !(result instanceof List) ? result
+                        : (resultIndexes[i] < ((List) result).size()) ? ((List) result).get(resultIndexes[i]) : null;
+                batch.get(i).leaseResponded((description == null) ? null : description.toString());
+              }
+            }
+          });
+        }
+        
+        @Override
+        public void onFailure(final Exception exception) {
+          renewalCompleted();
+          leasesFailed(batch, exception);
+        }
+      }, scheduler);
+    }
+    
+    private void renewalCompleted() {
+      final boolean renewAgain;
+      synchronized (this) {
+        inFlight = null;
+        isPending = false;
+        renewAgain = isRenewalRequested;
+      }
+      if (renewAgain) {
+        renewLater(null, false);
+      }
+    }
+    
+    private void leasesFailed(final List<CycLeaseManager> batch, final Exception exception) {
+      isPending = false;
+      final LeaseManagerReason reason =
+              ((exception instanceof CycTimeOutException) || (exception instanceof CancellationException))
+              ? LeaseManager.CYC_DOES_NOT_RESPOND_TO_LEASE_REQUEST
+              : LeaseManager.CYC_COMMUNICATION_ERROR;
+      notifyLeases(new Runnable() {
+        @Override
+        public void run() {
+          for (final CycLeaseManager lease : batch) {
+            lease.leaseFailed(reason, exception);
+          }
+        }
+      });
+    }
+    
+    /**
+     * Runs <code>notification</code> on the notifier, after the earlier notifications of this
+     * server, so that the listeners never hold up the scheduler thread.
+     */
+    private void notifyLeases(final Runnable notification) {
+      notifications.add(notification);
+      drainNotifications();
+    }
+    
+    private void drainNotifications() {
+      if (notifications.isEmpty() || !isNotifying.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        notifier.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              for (Runnable notification = notifications.poll(); notification != null;
+                      notification = notifications.poll()) {
+                try {
+                  notification.run();
+                } catch (RuntimeException e) {
+                  LOGGER.log(Level.WARNING, "Error notifying the API services lease listeners of " + key, e);
+                }
+              }
+            } finally {
+              isNotifying.set(false);
+              // a notification added after the last poll but before the flag was cleared
+              drainNotifications();
+            }
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        // the service was shut down
+        isNotifying.set(false);
+        notifications.clear();
+      }
+    }
+    
+    private void removeClosedLeases() {
+      for (final CycLeaseManager lease : leases) {
+        if (lease.getCycConnection().isClosed()) {
+          unregister(lease);
+        }
+      }
+    }
+    
+    private boolean hasLeasesFor(final CycConnectionImpl connection) {
+      for (final CycLeaseManager lease : leases) {
+        if (lease.getCycConnection() == connection) {
+          return true;
+        }
+      }
+      return false;
+    }
+    
+    /** The shortest lease duration of this server's lease managers. */
+    private long getPeriodMillis() {
+      long period = Long.MAX_VALUE;
+      for (final CycLeaseManager lease : leases) {
+        period = Math.min(period, lease.getLeaseDurationMilliseconds());
+      }
+      return (period == Long.MAX_VALUE) ? DEFAULT_PERIOD_MILLIS : period;
+    }
+    
+    private long getPeriodNanos() {
+      return TimeUnit.MILLISECONDS.toNanos(getPeriodMillis());
+    }
+    
+    /** The timer checks four times per period, so that a lease is never renewed late by more than a quarter period. */
+    private long getTickMillis() {
+      return getPeriodMillis() / 4;
+    }
+    
+    /** Traffic renews the leases once three quarters of the period have passed, before the timer would. */
+    private long getPiggybackNanos() {
+      return getPeriodNanos() - TimeUnit.MILLISECONDS.toNanos(getTickMillis());
+    }
+    
+    private final Object key;
+    private final CopyOnWriteArrayList<CycLeaseManager> leases = new CopyOnWriteArrayList<CycLeaseManager>();
+    private volatile boolean isPending = false;
+    private final AtomicBoolean isRenewalQueued = new AtomicBoolean(false);
+    private final Queue<Runnable> notifications = new ConcurrentLinkedQueue<Runnable>();
+    private final AtomicBoolean isNotifying = new AtomicBoolean(false);
+    private boolean isRenewalRequested = false;
+    private volatile long lastRenewalNanos = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+    private volatile long inFlightSinceNanos;
+    private volatile SublFuture<Object> inFlight;
+    private ScheduledFuture<?> nextTick;
+    private boolean isCancelled = false;
+  }
+  
+  //// Internal Rep
+  
+  private static final Logger LOGGER = Logger.getLogger(LeaseRenewalService.class.getName());
+  
+  private static final long DEFAULT_PERIOD_MILLIS = 120000;
+  
+  private static final ThreadFactory THREAD_FACTORY = new ThreadFactory() {
+    @Override
+    public Thread newThread(Runnable runnable) {
+      final Thread thread = new Thread(runnable, "Cyc API services lease renewal");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MAX_PRIORITY);
+      return thread;
+    }
+  };
+  
+  private static final long NOTIFIER_KEEP_ALIVE_SECONDS = 60;
+  
+  private static final ThreadFactory NOTIFIER_THREAD_FACTORY = new ThreadFactory() {
+    @Override
+    public Thread newThread(Runnable runnable) {
+      final Thread thread = new Thread(runnable, "Cyc API services lease notification");
+      thread.setDaemon(true);
+      return thread;
+    }
+  };
+  
+  private static final SublFuture.Converter<Object> RESPONSE_CONVERTER = new SublFuture.Converter<Object>() {
+    @Override
+    public Object convert(Object[] response) throws CycApiException {
+      if (!Boolean.TRUE.equals(response[0])) {
+        throw new CycApiException(String.valueOf(response[1]));
+      }
+      return response[1];
+    }
+  };
+  
+  private static final LeaseRequester DEFAULT_REQUESTER = new LeaseRequester() {
+    @Override
+    public SublFuture<Object> request(final CycConnectionImpl carrier, final String script) {
+      final CycList command = carrier.cycAccess.getObjectTool().makeCycList(script);
+      return SublFuture.start(command, carrier.cycAccess, RESPONSE_CONVERTER);
+    }
+  };
+  
+  private static LeaseRenewalService defaultService = null;
+  
+  private final ScheduledExecutorService scheduler;
+  
+  /** Runs the listener notifications of every server, so that they never block the scheduler. */
+  private final ExecutorService notifier;
+  
+  private final LeaseRequester requester;
+  
+  /** Cyc servers, by host and CFASL port, to their leases. */
+  private final Map<Object, ServerLeases> servers = new ConcurrentHashMap<Object, ServerLeases>();
+  
+  /** Leased connections to the leases of their servers. */
+  private final Map<CycConnectionImpl, ServerLeases> connections =
+          new ConcurrentHashMap<CycConnectionImpl, ServerLeases>();
+  
+  private final AtomicLong renewalCount = new AtomicLong();
+  
+  private final AtomicLong piggybackedRenewalCount = new AtomicLong();
+}
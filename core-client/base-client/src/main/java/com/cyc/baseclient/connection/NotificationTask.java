@@ -87,7 +87,7 @@ class NotificationTask implements NotificationTaskI {
         }
       }
       if (worker.isDone()) {
-        cycComm.getWaitingReplyThreads().remove(id);
+        cycComm.removeWaitingWorker(id);
       }
     } finally {
       try {
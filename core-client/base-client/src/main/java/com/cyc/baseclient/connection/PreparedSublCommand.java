@@ -0,0 +1,409 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: PreparedSublCommand.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+//// Internal Imports
+import com.cyc.base.CycAccess;
+import com.cyc.base.cycobject.CycObject;
+import com.cyc.base.cycobject.CycSymbol;
+import com.cyc.base.cycobject.Fort;
+import com.cyc.base.exception.CycApiException;
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import com.cyc.baseclient.cycobject.CycListParser;
+import com.cyc.baseclient.cycobject.CycSymbolImpl;
+
+//// External Imports
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <P>PreparedSublCommand is a SubL command template which is parsed once and then bound to
+ * arguments any number of times. Building a command string and handing it to
+ * {@link CycConnectionImpl#converse} costs a round of stringification, tokenizing and parsing per
+ * call, and the parser may even ask Cyc to look up each <code>#$</code> constant. A bound
+ * PreparedSublCommand is already a CycArrayList, so it goes straight to the CFASL encoder.
+ *
+ * <P>Placeholders are symbols which begin with <code>$</code>, optionally followed by a type
+ * suffix after a <code>/</code>:
+ * <CODE><PRE>
+  private static final PreparedSublCommand GENLS_IN_MT =
+          PreparedSublCommand.prepare("(genls $col/term $mt/term)");
+  ...
+  getConverse().converseList(GENLS_IN_MT.bind(collection, mt));
+ </CODE></PRE>
+ *
+ * <P>Arguments are bound positionally, in the order in which the placeholders first appear in
+ * the template; a placeholder which appears more than once is bound once. Each argument is
+ * converted to its CycList API value, so that it means the same thing as its
+ * <code>stringApiValue</code> would have meant in a command string: NARTs are canonicalized,
+ * NAUTs, lists and non-keyword symbols are quoted, and booleans become <code>T</code> or
+ * <code>NIL</code>. A placeholder which already sits inside a quoted form, as in
+ * <code>'(#$isa ?X $col)</code>, receives its argument as is.
+ *
+ * <P>A PreparedSublCommand is immutable, and may be bound by any number of threads at once.
+ *
+ * @see ParameterType
+ */
+public final class PreparedSublCommand {
+
+  /** The types which a placeholder may declare with a <code>/type</code> suffix. */
+  public static enum ParameterType {
+
+    /** any object; the default when no suffix is given */
+    ANY,
+    /** a Fort */
+    FORT,
+    /** any CycObject, including CycLists and formulas */
+    TERM,
+    /** a String */
+    STRING,
+    /** an integral Number */
+    INT,
+    /** a CycSymbol */
+    SYMBOL,
+    /** a List, which is quoted */
+    LIST,
+    /** a Boolean, which becomes T or NIL */
+    BOOLEAN,
+    /** a CycList which is inserted unquoted, as a subform for Cyc to evaluate */
+    FORM;
+
+    /**
+     * Returns the type named by the given placeholder suffix.
+     *
+     * @param suffix the suffix, in any case
+     * @return the type named by the suffix
+     * @throws IllegalArgumentException if no type has the given name
+     */
+    public static ParameterType fromSuffix(String suffix) {
+      return ParameterType.valueOf(CycSymbolImpl.canonicalizeName(suffix));
+    }
+  }
+
+  //// Constructors
+
+  private PreparedSublCommand(final String template, final CycArrayList skeleton,
+          final List<Parameter> parameters) {
+    this.template = template;
+    this.skeleton = skeleton;
+    this.parameters = parameters;
+  }
+
+  //// Public Area
+
+  /**
+   * Prepares a command template which contains no <code>#$</code> constants.
+   *
+   * @param template the SubL command template
+   * @return the prepared command
+   * @throws IllegalArgumentException if the template is not a well-formed list, if a placeholder
+   * names an unknown type, or if the template contains a <code>#$</code> constant
+   */
+  public static PreparedSublCommand prepare(String template) {
+    if (template.contains(CONSTANT_PREFIX)) {
+      throw new IllegalArgumentException(
+              "A template with constants must be prepared with a CycAccess: " + template);
+    }
+    return prepare(null, template);
+  }
+
+  /**
+   * Prepares a command template. The <code>#$</code> constants in the template are looked up
+   * once, here, rather than each time the command is sent.
+   *
+   * @param cycAccess the CycAccess which looks up the constants of the template
+   * @param template the SubL command template
+   * @return the prepared command
+   * @throws IllegalArgumentException if the template is not a well-formed list, or if a
+   * placeholder names an unknown type
+   * @throws CycApiException if a constant of the template cannot be found
+   */
+  public static PreparedSublCommand prepare(CycAccess cycAccess, String template)
+          throws CycApiException {
+    final CycArrayList parsed;
+    try {
+      parsed = new CycListParser(cycAccess).read(template);
+    } catch (RuntimeException e) {
+      if (e instanceof CycApiException) {
+        throw e;
+      }
+      throw new IllegalArgumentException("Invalid SubL command template: " + template, e);
+    }
+    if (parsed == null) {
+      throw new IllegalArgumentException("Invalid SubL command template: " + template);
+    }
+    final List<Parameter> parameters = new ArrayList<Parameter>();
+    final CycArrayList skeleton = compile(parsed, false, parameters);
+    return new PreparedSublCommand(template, skeleton,
+            Collections.unmodifiableList(parameters));
+  }
+
+  /**
+   * Binds the given arguments to the placeholders of this command.
+   *
+   * @param args the arguments, one per distinct placeholder in order of first appearance
+   * @return a new command, ready to be sent to Cyc
+   * @throws IllegalArgumentException if the number of arguments is wrong, or if an argument does
+   * not have the type declared by its placeholder
+   */
+  public CycArrayList bind(Object... args) {
+    final int argCount = (args == null) ? 0 : args.length;
+    if (argCount != parameters.size()) {
+      throw new IllegalArgumentException("Expected " + parameters.size() + " arguments for "
+              + template + " but got " + argCount);
+    }
+    for (int i = 0; i < argCount; i++) {
+      parameters.get(i).check(args[i]);
+    }
+    return instantiate(skeleton, args);
+  }
+
+  /**
+   * Returns the number of arguments which {@link #bind} expects.
+   *
+   * @return the number of distinct placeholders
+   */
+  public int getParameterCount() {
+    return parameters.size();
+  }
+
+  /**
+   * Returns the names of the placeholders, without their <code>$</code> prefix and type suffix,
+   * in binding order.
+   *
+   * @return the names of the placeholders
+   */
+  public List<String> getParameterNames() {
+    final List<String> names = new ArrayList<String>(parameters.size());
+    for (final Parameter parameter : parameters) {
+      names.add(parameter.name);
+    }
+    return names;
+  }
+
+  /**
+   * Returns the declared types of the placeholders, in binding order.
+   *
+   * @return the types of the placeholders
+   */
+  public List<ParameterType> getParameterTypes() {
+    final List<ParameterType> types = new ArrayList<ParameterType>(parameters.size());
+    for (final Parameter parameter : parameters) {
+      types.add(parameter.type);
+    }
+    return types;
+  }
+
+  /**
+   * Returns the template from which this command was prepared.
+   *
+   * @return the template
+   */
+  public String getTemplate() {
+    return template;
+  }
+
+  @Override
+  public String toString() {
+    return "PreparedSublCommand " + template;
+  }
+
+  //// Private Area
+
+  /**
+   * Copies the parsed template, replacing each placeholder symbol with a Slot.
+   */
+  private static CycArrayList compile(final CycArrayList list, final boolean isQuoted,
+          final List<Parameter> parameters) {
+    final CycArrayList compiled = new CycArrayList(list.size());
+    final boolean quotesElements = isQuoted
+            || ((!list.isEmpty()) && CycObjectFactory.quote.equals(list.get(0)));
+    for (final Object element : list) {
+      compiled.add(compileElement(element, quotesElements, parameters));
+    }
+    if (!list.isProperList()) {
+      compiled.setDottedElement(compileElement(list.getDottedElement(), quotesElements, parameters));
+    }
+    return compiled;
+  }
+
+  private static Object compileElement(final Object element, final boolean isQuoted,
+          final List<Parameter> parameters) {
+    if (element instanceof CycArrayList) {
+      return compile((CycArrayList) element, isQuoted, parameters);
+    }
+    if (!(element instanceof CycSymbolImpl)) {
+      return element;
+    }
+    final String symbolName = ((CycSymbolImpl) element).getSymbolName();
+    if ((symbolName.length() < 2) || (symbolName.charAt(0) != PLACEHOLDER_PREFIX)) {
+      return element;
+    }
+    final int typeStart = symbolName.lastIndexOf(TYPE_SEPARATOR);
+    final String name = (typeStart < 0) ? symbolName.substring(1) : symbolName.substring(1, typeStart);
+    ParameterType type = ParameterType.ANY;
+    if (typeStart >= 0) {
+      try {
+        type = ParameterType.fromSuffix(symbolName.substring(typeStart + 1));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Unknown placeholder type in " + symbolName, e);
+      }
+    }
+    for (final Parameter parameter : parameters) {
+      if (parameter.name.equals(name)) {
+        if (parameter.type != type) {
+          throw new IllegalArgumentException("Placeholder $" + name
+                  + " is declared with both " + parameter.type + " and " + type);
+        }
+        return new Slot(parameter, isQuoted);
+      }
+    }
+    final Parameter parameter = new Parameter(name, type, parameters.size());
+    parameters.add(parameter);
+    return new Slot(parameter, isQuoted);
+  }
+
+  private static CycArrayList instantiate(final CycArrayList list, final Object[] args) {
+    final CycArrayList command = new CycArrayList(list.size());
+    for (final Object element : list) {
+      command.add(instantiateElement(element, args));
+    }
+    if (!list.isProperList()) {
+      command.setDottedElement(instantiateElement(list.getDottedElement(), args));
+    }
+    return command;
+  }
+
+  private static Object instantiateElement(final Object element, final Object[] args) {
+    if (element instanceof Slot) {
+      final Slot slot = (Slot) element;
+      return slot.apiValue(args[slot.parameter.index]);
+    } else if (element instanceof CycArrayList) {
+      return instantiate((CycArrayList) element, args);
+    }
+    return element;
+  }
+
+  /**
+   * Returns the given object in a form which Cyc will evaluate to the object itself.
+   */
+  private static Object apiValue(final Object object) {
+    if (object == null) {
+      return CycObjectFactory.nil;
+    } else if (object instanceof Boolean) {
+      return CycObjectFactory.makeCycBoolean((Boolean) object);
+    } else if (object instanceof CycArrayList) {
+      return ((CycArrayList) object).cycListApiValue(true);
+    } else if (object instanceof CycObject) {
+      return ((CycObject) object).cycListApiValue();
+    } else if (object instanceof List) {
+      return CycArrayList.makeCycList(CycObjectFactory.quote, new CycArrayList((List) object));
+    }
+    return object;
+  }
+
+  /** A distinct placeholder of the template. */
+  private static final class Parameter {
+
+    final String name;
+    final ParameterType type;
+    final int index;
+
+    Parameter(final String name, final ParameterType type, final int index) {
+      this.name = name;
+      this.type = type;
+      this.index = index;
+    }
+
+    void check(final Object arg) {
+      final boolean isValid;
+      switch (type) {
+        case FORT:
+          isValid = arg instanceof Fort;
+          break;
+        case TERM:
+          isValid = arg instanceof CycObject;
+          break;
+        case STRING:
+          isValid = arg instanceof String;
+          break;
+        case INT:
+          isValid = (arg instanceof Integer) || (arg instanceof Long) || (arg instanceof Short)
+                  || (arg instanceof Byte) || (arg instanceof BigInteger);
+          break;
+        case SYMBOL:
+          isValid = arg instanceof CycSymbol;
+          break;
+        case LIST:
+          isValid = (arg == null) || (arg instanceof List);
+          break;
+        case BOOLEAN:
+          isValid = arg instanceof Boolean;
+          break;
+        case FORM:
+          isValid = arg instanceof List;
+          break;
+        default:
+          isValid = true;
+      }
+      if (!isValid) {
+        throw new IllegalArgumentException("Argument $" + name + "/" + type + " cannot be bound to "
+                + ((arg == null) ? "null" : arg.getClass().getSimpleName() + " " + arg));
+      }
+    }
+  }
+
+  /** An occurrence of a placeholder within the template. */
+  private static final class Slot {
+
+    final Parameter parameter;
+    final boolean isQuoted;
+
+    Slot(final Parameter parameter, final boolean isQuoted) {
+      this.parameter = parameter;
+      this.isQuoted = isQuoted;
+    }
+
+    Object apiValue(final Object arg) {
+      if ((arg instanceof Boolean) || (arg == null)) {
+        return PreparedSublCommand.apiValue(arg);
+      } else if (isQuoted || (parameter.type == ParameterType.FORM)) {
+        return arg;
+      }
+      return PreparedSublCommand.apiValue(arg);
+    }
+  }
+
+  //// Internal Rep
+
+  private static final String CONSTANT_PREFIX = "#$";
+  private static final char PLACEHOLDER_PREFIX = '$';
+  private static final char TYPE_SEPARATOR = '/';
+  private final String template;
+  /** the parsed template, with a Slot in place of each placeholder */
+  private final CycArrayList skeleton;
+  private final List<Parameter> parameters;
+
+}
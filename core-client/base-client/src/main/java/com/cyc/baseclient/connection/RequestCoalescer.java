@@ -0,0 +1,452 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: RequestCoalescer.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+//// Internal Imports
+import com.cyc.base.cycobject.CycList;
+import com.cyc.base.cycobject.CycSymbol;
+import com.cyc.base.exception.CycApiException;
+import com.cyc.base.exception.CycConnectionException;
+import com.cyc.baseclient.cycobject.CycArrayList;
+
+//// External Imports
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * <P>RequestCoalescer lets concurrent identical side-effect-free requests share a single call to
+ * the Cyc server. The first thread to send such a request makes the call; any thread which sends
+ * an equal request while that call is in flight waits for it and receives a copy of its response,
+ * or the exception it ended with, instead of sending a request of its own.
+ *
+ * <P>Only requests whose operator has been marked side-effect-free are coalesced. The operator of
+ * a request is the head of its outermost form, after looking through the bodies of the
+ * transparent forms in {@link #TRANSPARENT_OPERATORS}, such as <code>with-all-mts</code>. Marking
+ * an operator asserts that calls to it have no side effects, whatever their arguments. Requests
+ * are equal when they are equal Strings or equal CycLists; a String and a CycList for the same
+ * command are not coalesced with each other.
+ *
+ * <P>A waiting thread may receive a response to a request which was sent before its own, so
+ * coalescing is only suitable where such a response is acceptable, as it is for reads which race
+ * with writes anyway. The coalescer is used by a CycClient once it has been set with
+ * {@link com.cyc.baseclient.CycClient#setRequestCoalescer}. Its counts are available from its
+ * getters, and through JMX once {@link #registerMBean} has been called.
+ */
+public class RequestCoalescer implements RequestCoalescerMXBean {
+
+  //// Constructors
+
+  /**
+   * Creates a coalescer which treats the operators in {@link #DEFAULT_SIDE_EFFECT_FREE_OPERATORS}
+   * as side-effect-free.
+   */
+  public RequestCoalescer() {
+    this(DEFAULT_SIDE_EFFECT_FREE_OPERATORS);
+  }
+
+  /**
+   * Creates a coalescer which treats the given operators as side-effect-free.
+   *
+   * @param sideEffectFreeOperators the names of the side-effect-free operators, in any case
+   */
+  public RequestCoalescer(final Collection<String> sideEffectFreeOperators) {
+    for (final String operator : sideEffectFreeOperators) {
+      addSideEffectFreeOperator(operator);
+    }
+  }
+
+  //// Public Area
+
+  /** The name under which the coalescer is registered with the platform MBean server. */
+  public static final String MBEAN_NAME = "com.cyc.baseclient:type=RequestCoalescer";
+
+  /** The read-only operators which the kbtools send most often. */
+  public static final Collection<String> DEFAULT_SIDE_EFFECT_FREE_OPERATORS = Arrays.asList(
+          "all-genls", "all-genls-in-any-mt", "all-instances", "all-instances-in-all-mts",
+          "all-isa", "all-specs", "comment", "count-all-instances", "find-constant",
+          "genl-in-any-mt?", "genl?", "genls", "instances", "isa", "isa-in-any-mt?", "isa?",
+          "max-specs", "min-genls", "min-isa", "specs");
+
+  /**
+   * The forms which are looked through to the form in their last argument, which decides whether
+   * they are coalesced. Their other arguments are assumed to have no side effects.
+   */
+  public static final Collection<String> TRANSPARENT_OPERATORS = Arrays.asList(
+          "remove-duplicates", "with-all-mts", "with-inference-mt-relevance", "with-just-mt",
+          "with-mt");
+
+  /**
+   * Sends a request to the server by way of the caller, e.g. a CycClient.
+   */
+  public interface Conversation {
+
+    /**
+     * Sends the request and returns its response.
+     *
+     * @param command the request
+     * @return the response
+     * @throws CycConnectionException if a communication error occurs
+     * @throws CycApiException if the server returns an error
+     */
+    Object[] converse(Object command) throws CycConnectionException, CycApiException;
+  }
+
+  /**
+   * Marks an operator as side-effect-free, so that identical concurrent requests to it are
+   * coalesced.
+   *
+   * @param operator the name of the operator, in any case
+   */
+  public final void addSideEffectFreeOperator(final String operator) {
+    sideEffectFreeOperators.add(operator.toLowerCase(Locale.ENGLISH));
+  }
+
+  /**
+   * Stops treating an operator as side-effect-free.
+   *
+   * @param operator the name of the operator, in any case
+   */
+  public void removeSideEffectFreeOperator(final String operator) {
+    sideEffectFreeOperators.remove(operator.toLowerCase(Locale.ENGLISH));
+  }
+
+  @Override
+  public String[] getSideEffectFreeOperators() {
+    final String[] operators = sideEffectFreeOperators.toArray(new String[0]);
+    Arrays.sort(operators);
+    return operators;
+  }
+
+  /**
+   * Returns whether the given request would be coalesced with identical concurrent requests.
+   *
+   * @param command the request
+   * @return true if the request is a String or CycList whose operator is side-effect-free
+   */
+  public boolean isCoalescable(final Object command) {
+    final String operator;
+    if (command instanceof CycList) {
+      operator = getOperator((CycList) command);
+    } else if (command instanceof String) {
+      final String string = (String) command;
+      final int start = string.indexOf('(');
+      operator = ((start < 0) || (string.substring(0, start).trim().length() > 0))
+              ? null : getOperator(string, start);
+    } else {
+      operator = null;
+    }
+    return (operator != null) && sideEffectFreeOperators.contains(operator);
+  }
+
+  /**
+   * Sends a request through <code>conversation</code>, unless an identical request is already in
+   * flight, in which case it waits for that request and returns a copy of its response. Requests
+   * which are not {@link #isCoalescable coalescable} are always sent.
+   *
+   * @param command the request
+   * @param conversation the means of sending the request
+   * @return the response to the request
+   * @throws CycConnectionException if a communication error occurs
+   * @throws CycApiException if the server returns an error
+   */
+  public Object[] converse(final Object command, final Conversation conversation)
+          throws CycConnectionException, CycApiException {
+    if (!isCoalescable(command)) {
+      return conversation.converse(command);
+    }
+    requestCount.incrementAndGet();
+    final Flight flight = new Flight();
+    final Flight leader = inFlight.putIfAbsent(command, flight);
+    if (leader != null) {
+      coalescedCount.incrementAndGet();
+      return leader.await();
+    }
+    serverCallCount.incrementAndGet();
+    try {
+      final Object[] response = conversation.converse(command);
+      // the waiters copy a private snapshot, which the caller cannot change while they do
+      flight.complete(copyResponse(response), null);
+      return response;
+    } catch (CycConnectionException e) {
+      flight.complete(null, e);
+      throw e;
+    } catch (RuntimeException e) {
+      flight.complete(null, e);
+      throw e;
+    } catch (Error e) {
+      flight.complete(null, e);
+      throw e;
+    } finally {
+      inFlight.remove(command, flight);
+    }
+  }
+
+  @Override
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  @Override
+  public long getServerCallCount() {
+    return serverCallCount.get();
+  }
+
+  @Override
+  public long getCoalescedCount() {
+    return coalescedCount.get();
+  }
+
+  @Override
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
+
+  @Override
+  public void resetCounts() {
+    requestCount.set(0);
+    serverCallCount.set(0);
+    coalescedCount.set(0);
+  }
+
+  /**
+   * Registers this coalescer with the platform MBean server under {@link #MBEAN_NAME}, replacing
+   * any coalescer registered earlier.
+   *
+   * @return true if this coalescer was registered
+   */
+  public boolean registerMBean() {
+    try {
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      final ObjectName name = new ObjectName(MBEAN_NAME);
+      synchronized (RequestCoalescer.class) {
+        if (server.isRegistered(name)) {
+          server.unregisterMBean(name);
+        }
+        server.registerMBean(this, name);
+      }
+      return true;
+    } catch (JMException e) {
+      LOGGER.log(Level.WARNING, "Unable to register the request coalescer with JMX.", e);
+      return false;
+    }
+  }
+
+  /** Unregisters the coalescer registered under {@link #MBEAN_NAME}, if there is one. */
+  public void unregisterMBean() {
+    try {
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      final ObjectName name = new ObjectName(MBEAN_NAME);
+      synchronized (RequestCoalescer.class) {
+        if (server.isRegistered(name)) {
+          server.unregisterMBean(name);
+        }
+      }
+    } catch (JMException e) {
+      LOGGER.log(Level.WARNING, "Unable to unregister the request coalescer from JMX.", e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "RequestCoalescer requests: " + getRequestCount() + " server calls: "
+            + getServerCallCount() + " coalesced: " + getCoalescedCount();
+  }
+
+  //// Private Area
+
+  /**
+   * Returns the operator of a CycList request, or null if it has none.
+   */
+  private static String getOperator(final CycList command) {
+    Object form = command;
+    for (int depth = 0; depth < MAX_TRANSPARENT_DEPTH; depth++) {
+      if (!(form instanceof CycList) || ((CycList) form).isEmpty()
+              || !(((CycList) form).get(0) instanceof CycSymbol)) {
+        return null;
+      }
+      final CycList list = (CycList) form;
+      final String name = ((CycSymbol) list.get(0)).getSymbolName().toLowerCase(Locale.ENGLISH);
+      if (!TRANSPARENT_OPERATORS.contains(name)) {
+        return name;
+      } else if (list.size() < 2) {
+        return null;
+      }
+      form = list.get(list.size() - 1);
+    }
+    return null;
+  }
+
+  /**
+   * Returns the operator of the form which begins at <code>start</code> in a String request, or
+   * null if it has none.
+   */
+  private static String getOperator(final String command, int start) {
+    for (int depth = 0; depth < MAX_TRANSPARENT_DEPTH; depth++) {
+      int i = start + 1;
+      while ((i < command.length()) && Character.isWhitespace(command.charAt(i))) {
+        i++;
+      }
+      final int headStart = i;
+      while ((i < command.length()) && !isDelimiter(command.charAt(i))) {
+        i++;
+      }
+      if (i == headStart) {
+        return null;
+      }
+      final String name = command.substring(headStart, i).toLowerCase(Locale.ENGLISH);
+      if (!TRANSPARENT_OPERATORS.contains(name)) {
+        return name;
+      }
+      start = findLastArgument(command, i);
+      if ((start < 0) || (command.charAt(start) != '(')) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the index at which the last element of a form begins, given the index just after the
+   * form's head, or -1 if the form is malformed or has no more elements.
+   */
+  private static int findLastArgument(final String command, int i) {
+    int lastStart = -1;
+    int depth = 0;
+    boolean isInString = false;
+    for (; i < command.length(); i++) {
+      final char c = command.charAt(i);
+      if (isInString) {
+        if (c == '\\') {
+          i++;
+        } else if (c == '"') {
+          isInString = false;
+        }
+        continue;
+      }
+      final char previous = command.charAt(i - 1);
+      if ((depth == 0) && !Character.isWhitespace(c) && (c != ')')
+              && (isDelimiter(previous) || (((c == '(') || (c == '"')) && (previous != '\'') && (previous != '#')))) {
+        lastStart = i;
+      }
+      if (c == '"') {
+        isInString = true;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        if (depth == 0) {
+          return lastStart;
+        }
+        depth--;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isDelimiter(final char c) {
+    return Character.isWhitespace(c) || (c == '(') || (c == ')') || (c == '"');
+  }
+
+  /**
+   * Returns a copy of a response which may be used without affecting the threads it is shared
+   * with. It is made once by the thread which sent the request, as a snapshot for the waiting
+   * threads, and again by each waiting thread from that snapshot.
+   */
+  private static Object[] copyResponse(final Object[] response) {
+    if (response == null) {
+      return null;
+    }
+    final Object[] copy = response.clone();
+    for (int i = 0; i < copy.length; i++) {
+      if (copy[i] instanceof CycArrayList) {
+        copy[i] = ((CycArrayList) copy[i]).deepCopy();
+      }
+    }
+    return copy;
+  }
+
+  /** A request in flight, for which other threads may be waiting. */
+  private static final class Flight {
+
+    synchronized void complete(final Object[] response, final Throwable failure) {
+      this.response = response;
+      this.failure = failure;
+      this.isDone = true;
+      notifyAll();
+    }
+
+    Object[] await() throws CycConnectionException, CycApiException {
+      boolean isInterrupted = false;
+      try {
+        synchronized (this) {
+          while (!isDone) {
+            try {
+              wait();
+            } catch (InterruptedException e) {
+              // The request cannot be abandoned, any more than a direct request could be.
+              isInterrupted = true;
+            }
+          }
+        }
+      } finally {
+        if (isInterrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      if (failure instanceof CycConnectionException) {
+        throw (CycConnectionException) failure;
+      } else if (failure instanceof RuntimeException) {
+        throw (RuntimeException) failure;
+      } else if (failure instanceof Error) {
+        throw (Error) failure;
+      }
+      return copyResponse(response);
+    }
+
+    private Object[] response;
+    private Throwable failure;
+    private boolean isDone = false;
+  }
+
+  //// Internal Rep
+
+  private static final Logger LOGGER = Logger.getLogger(RequestCoalescer.class.getName());
+  /** the deepest nesting of transparent forms which is looked through */
+  private static final int MAX_TRANSPARENT_DEPTH = 8;
+  private final Set<String> sideEffectFreeOperators = new CopyOnWriteArraySet<String>();
+  private final ConcurrentMap<Object, Flight> inFlight = new ConcurrentHashMap<Object, Flight>();
+  private final AtomicLong requestCount = new AtomicLong();
+  private final AtomicLong serverCallCount = new AtomicLong();
+  private final AtomicLong coalescedCount = new AtomicLong();
+
+}
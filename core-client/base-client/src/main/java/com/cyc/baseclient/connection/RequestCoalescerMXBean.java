@@ -0,0 +1,67 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: RequestCoalescerMXBean.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * The JMX management interface of {@link RequestCoalescer}.
+ */
+public interface RequestCoalescerMXBean {
+
+  /**
+   * Returns the number of side-effect-free requests seen by the coalescer.
+   *
+   * @return the number of coalescable requests
+   */
+  long getRequestCount();
+
+  /**
+   * Returns the number of coalescable requests which were sent to the server.
+   *
+   * @return the number of server calls
+   */
+  long getServerCallCount();
+
+  /**
+   * Returns the number of coalescable requests which shared the result of an identical request
+   * already in flight, and so were not sent to the server.
+   *
+   * @return the number of coalesced requests
+   */
+  long getCoalescedCount();
+
+  /**
+   * Returns the number of distinct requests now in flight.
+   *
+   * @return the number of requests in flight
+   */
+  int getInFlightCount();
+
+  /**
+   * Returns the operators whose calls are treated as side-effect-free, in order.
+   *
+   * @return the side-effect-free operators
+   */
+  String[] getSideEffectFreeOperators();
+
+  /** Sets every counter back to zero. */
+  void resetCounts();
+}
@@ -0,0 +1,43 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: SublCommandMetricsSink.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+
+/**
+ * A destination for the operator snapshots of a {@link SublCommandProfiler}, such as a metrics
+ * registry or a log. Sinks are called on the thread which publishes, so they should return
+ * quickly.
+ *
+ * @see SublCommandProfiler#addSink
+ * @see SublCommandProfiler#startPublishing
+ */
+public interface SublCommandMetricsSink {
+
+  /**
+   * Receives a snapshot of every operator profiled so far.
+   *
+   * @param snapshots the operator snapshots, in order of operator name; not modifiable
+   */
+  void publish(List<SublCommandProfiler.OperatorSnapshot> snapshots);
+
+}
@@ -20,7 +20,6 @@ package com.cyc.baseclient.connection;
  * limitations under the License.
  * #L%
  */
-
 //// Internal Imports
 
 //// External Imports
@@ -32,14 +31,39 @@ import com.cyc.base.conn.WorkerStatus;
 import com.cyc.base.conn.Worker;
 import com.cyc.base.conn.WorkerEvent;
 import com.cyc.base.cycobject.CycList;
+import com.cyc.base.cycobject.CycSymbol;
+import com.cyc.baseclient.util.LatencyHistogram;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Hashtable;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.io.*;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /**
- * <P>SubLCommandProfiler profiles SubL commands.
+ * <P>SubLCommandProfiler profiles SubL commands. It keeps, for each head operator of the profiled
+ * commands (for example <code>new-cyc-query</code> or <code>fi-assert</code>), a latency histogram,
+ * the number of calls, failures and calls in flight, and the encoded sizes of the requests and
+ * responses. Wrapping forms such as <code>with-bookkeeping-info</code> and <code>clet</code> are
+ * looked through to the command they wrap. It also keeps a ranked list of the slowest individual
+ * commands, written by {@link #report}.
+ *
+ * <P>Recording takes no locks, so the profiler can stay on in production. Snapshots of the
+ * operators are available from {@link #getOperatorSnapshots}, through JMX once
+ * {@link #registerMBean} has been called, and from any {@link SublCommandMetricsSink} added to the
+ * profiler, to which they are published on demand or periodically.
  *
  * <P>Copyright (c) 2003 - 2006 Cycorp, Inc.  All rights reserved.
  * <BR>This software is the proprietary information of Cycorp, Inc.
@@ -48,7 +72,7 @@ import java.io.*;
   date September 2, 2005, 7:37 AM
  * @version $Id: SublCommandProfiler.java 163356 2016-01-04 20:55:47Z nwinant $
  */
-public class SublCommandProfiler implements WorkerListener {
+public class SublCommandProfiler implements WorkerListener, SublCommandProfilerMXBean {
   
   //// Constructors
   
@@ -59,6 +83,12 @@ public class SublCommandProfiler implements WorkerListener {
   
   //// Public Area
   
+  /** The name under which the profiler is registered with the platform MBean server. */
+  public static final String MBEAN_NAME = "com.cyc.baseclient:type=SublCommandProfiler";
+  
+  /** The operator recorded for commands whose head is not a symbol. */
+  public static final String UNKNOWN_OPERATOR = "<unknown>";
+  
   /** Creates the SubL command profile report. 
    *
    * @param reportPath the profiling report path
@@ -72,13 +102,21 @@ public class SublCommandProfiler implements WorkerListener {
     assert mostTimeConsumingSubLCommandInfos != null : "mostTimeConsumingSubLCommandInfos must not be null";
 
     fileWriter = new FileWriter(reportPath);
+    fileWriter.write("Cyc API Requests by Operator");
+    fileWriter.write("\n\n");
+    for (final OperatorSnapshot snapshot : getOperatorSnapshots()) {
+      fileWriter.write(snapshot.toString());
+      fileWriter.write('\n');
+    }
+    fileWriter.write("\n\n");
     fileWriter.write("Longest Duration Cyc API Requests");
     fileWriter.write("\n\n");
-    for (int i = mostTimeConsumingSubLCommandInfos.size() - 1; i >= 0; i--) {
-      final SubLCommandInfo subLCommandInfo = (SubLCommandInfo) mostTimeConsumingSubLCommandInfos.get(i);
-      fileWriter.write("----------------------------------------------------------------------\n");
-      final String subLCommandInfoString = subLCommandInfo.toString();
-      fileWriter.write(subLCommandInfo.toString());  
+    synchronized (mostTimeConsumingSubLCommandInfos_lock) {
+      for (int i = mostTimeConsumingSubLCommandInfos.size() - 1; i >= 0; i--) {
+        final SubLCommandInfo subLCommandInfo = (SubLCommandInfo) mostTimeConsumingSubLCommandInfos.get(i);
+        fileWriter.write("----------------------------------------------------------------------\n");
+        fileWriter.write(subLCommandInfo.toString());  
+      }
     }
     fileWriter.close();
   }
@@ -90,10 +128,15 @@ public class SublCommandProfiler implements WorkerListener {
   public void notifySubLWorkerStarted(WorkerEvent event) {
     //// Preconditions 
     assert event != null : "event must not be null";
-    assert subLWorkerStartTimeDictionary != null : "subLWorkerStartTimeDictionary must not be null";
     
-    subLWorkerStartTimeDictionary.put(event.getWorker(), new Long(System.currentTimeMillis()));
-    logger.fine(event.getWorker().getSubLCommand().toPrettyCyclifiedString(""));
+    final Worker worker = event.getWorker();
+    final OperatorStats stats = getOperatorStats(getHeadOperator(worker.getSubLCommand()));
+    if (calls.putIfAbsent(worker, new Call(stats, System.nanoTime())) == null) {
+      stats.inFlightCount.incrementAndGet();
+    }
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine(worker.getSubLCommand().toPrettyCyclifiedString(""));
+    }
   }
   
   /** This event is fired when new data becomes available in 
@@ -110,26 +153,399 @@ public class SublCommandProfiler implements WorkerListener {
   public void notifySubLWorkerTerminated(WorkerEvent event) {
     //// Preconditions 
     assert event != null : "event must not be null";
-    assert subLWorkerStartTimeDictionary != null : "subLWorkerStartTimeDictionary must not be null";
     
     final Worker subLWorker = event.getWorker();
-    final WorkerStatus status = event.getStatus();
-    if (status.equals(WorkerStatus.FINISHED_STATUS)) {
-      final Long startTime = (Long) subLWorkerStartTimeDictionary.get(subLWorker);
-      if (startTime != null) {
-        final long durationMillis = System.currentTimeMillis() - startTime.longValue();
-        final SubLCommandInfo subLCommandInfo = new SubLCommandInfo(subLWorker.getSubLCommand(), durationMillis);
-        insertSubLCommandInfo(subLCommandInfo);
+    final Call call = calls.remove(subLWorker);
+    if (call == null) {
+      return;
+    }
+    final long durationNanos = System.nanoTime() - call.startNanos;
+    final OperatorStats stats = call.stats;
+    stats.inFlightCount.decrementAndGet();
+    stats.latencies.record(durationNanos);
+    stats.requestBytes.addAndGet(call.requestBytes.get());
+    stats.responseBytes.addAndGet(call.responseBytes.get());
+    if (!WorkerStatus.FINISHED_STATUS.equals(event.getStatus())) {
+      stats.failureCount.incrementAndGet();
+      return;
+    }
+    if (durationNanos >= rankThresholdNanos) {
+      final SubLCommandInfo subLCommandInfo = new SubLCommandInfo(subLWorker.getSubLCommand(), durationNanos);
+      insertSubLCommandInfo(subLCommandInfo);
+      if (logger.isLoggable(Level.FINE)) {
         logger.fine(subLCommandInfo.durationMillisToString() + "\n\n");
       }
     }
-    subLWorkerStartTimeDictionary.remove(subLWorker);
+  }
+  
+  /**
+   * Adds the encoded size of a request sent for the given worker to its profile. Workers which
+   * are not being profiled are ignored.
+   *
+   * @param worker the worker whose request was sent
+   * @param bytes the number of bytes sent
+   */
+  public void recordRequestBytes(final Worker worker, final long bytes) {
+    final Call call = calls.get(worker);
+    if (call != null) {
+      call.requestBytes.addAndGet(bytes);
+    }
+  }
+  
+  /**
+   * Adds the encoded size of a response received for the given worker to its profile. Workers
+   * which are not being profiled are ignored.
+   *
+   * @param worker the worker whose response was received
+   * @param bytes the number of bytes received
+   */
+  public void recordResponseBytes(final Worker worker, final long bytes) {
+    final Call call = calls.get(worker);
+    if (call != null) {
+      call.responseBytes.addAndGet(bytes);
+    }
+  }
+  
+  /**
+   * Returns a snapshot of every operator profiled so far, in order of operator name.
+   *
+   * @return the operator snapshots
+   */
+  @Override
+  public List<OperatorSnapshot> getOperatorSnapshots() {
+    final List<OperatorSnapshot> snapshots = new ArrayList<OperatorSnapshot>(operators.size());
+    for (final OperatorStats stats : operators.values()) {
+      snapshots.add(stats.getSnapshot());
+    }
+    Collections.sort(snapshots);
+    return snapshots;
+  }
+  
+  /**
+   * Returns a snapshot of the given operator, or null if it has not been profiled.
+   *
+   * @param operator the head operator of the commands, e.g. <code>new-cyc-query</code>
+   * @return the operator snapshot, or null
+   */
+  public OperatorSnapshot getOperatorSnapshot(final String operator) {
+    final OperatorStats stats = operators.get(operator.toLowerCase(Locale.ENGLISH));
+    return (stats == null) ? null : stats.getSnapshot();
+  }
+  
+  @Override
+  public String[] getOperators() {
+    final List<String> names = new ArrayList<String>(operators.keySet());
+    Collections.sort(names);
+    return names.toArray(new String[names.size()]);
+  }
+  
+  @Override
+  public double getLatencyMillis(final String operator, final double percentile) {
+    final OperatorSnapshot snapshot = getOperatorSnapshot(operator);
+    return (snapshot == null) ? 0.0 : snapshot.getLatencyMillis(percentile);
+  }
+  
+  @Override
+  public long getCallCount() {
+    long count = 0;
+    for (final OperatorStats stats : operators.values()) {
+      count += stats.latencies.getCount();
+    }
+    return count;
+  }
+  
+  @Override
+  public int getInFlightCount() {
+    return calls.size();
+  }
+  
+  @Override
+  public long getRequestBytes() {
+    long bytes = 0;
+    for (final OperatorStats stats : operators.values()) {
+      bytes += stats.requestBytes.get();
+    }
+    return bytes;
+  }
+  
+  @Override
+  public long getResponseBytes() {
+    long bytes = 0;
+    for (final OperatorStats stats : operators.values()) {
+      bytes += stats.responseBytes.get();
+    }
+    return bytes;
+  }
+  
+  /**
+   * Forgets the profiles of every operator and the ranked list of slowest commands. Commands in
+   * flight are still counted when they end.
+   */
+  @Override
+  public void reset() {
+    for (final OperatorStats stats : operators.values()) {
+      stats.reset();
+    }
+    synchronized (mostTimeConsumingSubLCommandInfos_lock) {
+      mostTimeConsumingSubLCommandInfos.clear();
+      rankThresholdNanos = 0;
+    }
+  }
+  
+  /**
+   * Adds a sink to which operator snapshots are published.
+   *
+   * @param sink the sink
+   */
+  public void addSink(final SublCommandMetricsSink sink) {
+    sinks.addIfAbsent(sink);
+  }
+  
+  /**
+   * Removes a sink to which operator snapshots were published.
+   *
+   * @param sink the sink
+   */
+  public void removeSink(final SublCommandMetricsSink sink) {
+    sinks.remove(sink);
+  }
+  
+  /** Publishes a snapshot of every operator to each sink. */
+  public void publish() {
+    if (sinks.isEmpty()) {
+      return;
+    }
+    final List<OperatorSnapshot> snapshots = Collections.unmodifiableList(getOperatorSnapshots());
+    for (final SublCommandMetricsSink sink : sinks) {
+      try {
+        sink.publish(snapshots);
+      } catch (RuntimeException e) {
+        logger.log(Level.WARNING, "SubL command metrics sink " + sink + " failed.", e);
+      }
+    }
+  }
+  
+  /**
+   * Starts publishing to the sinks periodically, on a daemon thread, replacing any earlier
+   * schedule.
+   *
+   * @param periodMillis the publishing period in milliseconds
+   */
+  public synchronized void startPublishing(final long periodMillis) {
+    if (periodMillis <= 0) {
+      throw new IllegalArgumentException("periodMillis must be positive " + periodMillis);
+    }
+    stopPublishing();
+    publisher = new PublisherThread(periodMillis);
+    publisher.start();
+  }
+  
+  /** Stops publishing to the sinks periodically. */
+  public synchronized void stopPublishing() {
+    if (publisher != null) {
+      publisher.interrupt();
+      publisher = null;
+    }
+  }
+  
+  /**
+   * Registers this profiler with the platform MBean server under {@link #MBEAN_NAME}, replacing
+   * any profiler registered earlier.
+   *
+   * @return true if this profiler was registered
+   */
+  public boolean registerMBean() {
+    try {
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      final ObjectName name = new ObjectName(MBEAN_NAME);
+      synchronized (SublCommandProfiler.class) {
+        if (server.isRegistered(name)) {
+          server.unregisterMBean(name);
+        }
+        server.registerMBean(this, name);
+      }
+      return true;
+    } catch (JMException e) {
+      logger.log(Level.WARNING, "Unable to register the SubL command profiler with JMX.", e);
+      return false;
+    }
+  }
+  
+  /** Unregisters the profiler registered under {@link #MBEAN_NAME}, if there is one. */
+  public void unregisterMBean() {
+    try {
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      final ObjectName name = new ObjectName(MBEAN_NAME);
+      synchronized (SublCommandProfiler.class) {
+        if (server.isRegistered(name)) {
+          server.unregisterMBean(name);
+        }
+      }
+    } catch (JMException e) {
+      logger.log(Level.WARNING, "Unable to unregister the SubL command profiler from JMX.", e);
+    }
+  }
+  
+  /**
+   * Returns the operator under which the given command is profiled: the name of its head symbol,
+   * in lower case, after looking through wrapping forms.
+   *
+   * @param subLCommand the SubL command
+   * @return the head operator of the command
+   */
+  public static String getHeadOperator(final CycList subLCommand) {
+    Object form = subLCommand;
+    for (int depth = 0; depth < MAX_WRAPPER_DEPTH; depth++) {
+      if (!(form instanceof CycList) || ((CycList) form).isEmpty()) {
+        break;
+      }
+      final CycList list = (CycList) form;
+      final Object head = list.get(0);
+      if (!(head instanceof CycSymbol)) {
+        break;
+      }
+      final String name = ((CycSymbol) head).getSymbolName();
+      if (list.size() < 2) {
+        return name.toLowerCase(Locale.ENGLISH);
+      } else if (name.equalsIgnoreCase(TASK_PROCESSOR_REQUEST)) {
+        form = list.get(1);
+      } else if (isWrapper(name)) {
+        form = list.get(list.size() - 1);
+      } else {
+        return name.toLowerCase(Locale.ENGLISH);
+      }
+    }
+    return UNKNOWN_OPERATOR;
+  }
+  
+  /** An immutable view of the profile of one head operator. */
+  public static final class OperatorSnapshot implements Comparable<OperatorSnapshot> {
+    
+    OperatorSnapshot(final String operator, final LatencyHistogram.Snapshot latencies,
+            final long failureCount, final int inFlightCount,
+            final long requestBytes, final long responseBytes) {
+      this.operator = operator;
+      this.latencies = latencies;
+      this.failureCount = failureCount;
+      this.inFlightCount = inFlightCount;
+      this.requestBytes = requestBytes;
+      this.responseBytes = responseBytes;
+    }
+    
+    /** @return the head operator, e.g. <code>new-cyc-query</code> */
+    public String getOperator() {
+      return operator;
+    }
+    
+    /** @return the number of calls which have ended, successfully or not */
+    public long getCallCount() {
+      return latencies.getCount();
+    }
+    
+    /** @return the number of calls which ended without finishing normally */
+    public long getFailureCount() {
+      return failureCount;
+    }
+    
+    /** @return the number of calls now in flight */
+    public int getInFlightCount() {
+      return inFlightCount;
+    }
+    
+    /** @return the total encoded size of the requests of ended calls */
+    public long getRequestBytes() {
+      return requestBytes;
+    }
+    
+    /** @return the total encoded size of the responses of ended calls */
+    public long getResponseBytes() {
+      return responseBytes;
+    }
+    
+    /** @return the mean latency in milliseconds */
+    public double getMeanMillis() {
+      return latencies.getMean() / NANOS_PER_MILLI;
+    }
+    
+    /** @return the median latency in milliseconds */
+    public double getP50Millis() {
+      return getLatencyMillis(50);
+    }
+    
+    /** @return the 90th percentile latency in milliseconds */
+    public double getP90Millis() {
+      return getLatencyMillis(90);
+    }
+    
+    /** @return the 99th percentile latency in milliseconds */
+    public double getP99Millis() {
+      return getLatencyMillis(99);
+    }
+    
+    /** @return the 99.9th percentile latency in milliseconds */
+    public double getP999Millis() {
+      return getLatencyMillis(99.9);
+    }
+    
+    /** @return the largest latency in milliseconds */
+    public double getMaxMillis() {
+      return latencies.getMax() / NANOS_PER_MILLI;
+    }
+    
+    /**
+     * Returns the latency at the given percentile.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the latency at the percentile, in milliseconds
+     */
+    public double getLatencyMillis(final double percentile) {
+      return latencies.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+    
+    @Override
+    public int compareTo(final OperatorSnapshot that) {
+      return operator.compareTo(that.operator);
+    }
+    
+    @Override
+    public String toString() {
+      return String.format(Locale.ENGLISH,
+              "%s calls: %d failures: %d in flight: %d p50: %.3f ms p90: %.3f ms p99: %.3f ms max: %.3f ms request bytes: %d response bytes: %d",
+              operator, getCallCount(), failureCount, inFlightCount, getP50Millis(), getP90Millis(),
+              getP99Millis(), getMaxMillis(), requestBytes, responseBytes);
+    }
+    
+    private final String operator;
+    private final LatencyHistogram.Snapshot latencies;
+    private final long failureCount;
+    private final int inFlightCount;
+    private final long requestBytes;
+    private final long responseBytes;
   }
   
   //// Protected Area
   
   //// Private Area
   
+  private OperatorStats getOperatorStats(final String operator) {
+    OperatorStats stats = operators.get(operator);
+    if (stats == null) {
+      final OperatorStats newStats = new OperatorStats(operator);
+      stats = operators.putIfAbsent(operator, newStats);
+      if (stats == null) {
+        stats = newStats;
+      }
+    }
+    return stats;
+  }
+  
+  private static boolean isWrapper(final String name) {
+    return name.regionMatches(true, 0, "with-", 0, 5)
+            || name.equalsIgnoreCase("clet")
+            || name.equalsIgnoreCase("progn")
+            || name.equalsIgnoreCase("return-whole-task-processor-response");
+  }
+  
   /** Inserts the given SubLCommandInfo into the ranked list.
    *
    * @param SubLCommandInfo the info object containing the SubL command and its duration
@@ -150,8 +566,78 @@ public class SublCommandProfiler implements WorkerListener {
       final int searchIndex = Collections.binarySearch(mostTimeConsumingSubLCommandInfos, subLCommandInfo);
       final int insertIndex = (searchIndex >= 0) ? searchIndex : - searchIndex - 1;
       mostTimeConsumingSubLCommandInfos.add(insertIndex, subLCommandInfo);
-      if (mostTimeConsumingSubLCommandInfos.size() > MOST_TIME_CONSUMING_API_REQUEST_INFOS_LIST_MAX_SIZE)
+      if (mostTimeConsumingSubLCommandInfos.size() > MOST_TIME_CONSUMING_API_REQUEST_INFOS_LIST_MAX_SIZE) {
         mostTimeConsumingSubLCommandInfos.removeFirst();
+      }
+      if (mostTimeConsumingSubLCommandInfos.size() == MOST_TIME_CONSUMING_API_REQUEST_INFOS_LIST_MAX_SIZE) {
+        // shorter commands can now be turned away without taking the lock
+        rankThresholdNanos = ((SubLCommandInfo) mostTimeConsumingSubLCommandInfos.getFirst()).durationNanos;
+      }
+    }
+  }
+  
+  /** The profile of a command in flight. */
+  private static final class Call {
+    
+    final OperatorStats stats;
+    final long startNanos;
+    final AtomicLong requestBytes = new AtomicLong();
+    final AtomicLong responseBytes = new AtomicLong();
+    
+    Call(final OperatorStats stats, final long startNanos) {
+      this.stats = stats;
+      this.startNanos = startNanos;
+    }
+  }
+  
+  /** The profile of one head operator. */
+  private static final class OperatorStats {
+    
+    final String operator;
+    final LatencyHistogram latencies = new LatencyHistogram();
+    final AtomicLong failureCount = new AtomicLong();
+    final AtomicInteger inFlightCount = new AtomicInteger();
+    final AtomicLong requestBytes = new AtomicLong();
+    final AtomicLong responseBytes = new AtomicLong();
+    
+    OperatorStats(final String operator) {
+      this.operator = operator;
+    }
+    
+    OperatorSnapshot getSnapshot() {
+      return new OperatorSnapshot(operator, latencies.getSnapshot(), failureCount.get(),
+              Math.max(0, inFlightCount.get()), requestBytes.get(), responseBytes.get());
+    }
+    
+    void reset() {
+      latencies.reset();
+      failureCount.set(0);
+      requestBytes.set(0);
+      responseBytes.set(0);
+    }
+  }
+  
+  /** Publishes to the sinks until interrupted. */
+  private class PublisherThread extends Thread {
+    
+    private final long periodMillis;
+    
+    PublisherThread(final long periodMillis) {
+      this.periodMillis = periodMillis;
+      setName("SublCommandProfiler publisher");
+      setDaemon(true);
+    }
+    
+    @Override
+    public void run() {
+      while (!isInterrupted()) {
+        try {
+          Thread.sleep(periodMillis);
+        } catch (InterruptedException ie) {
+          return;
+        }
+        publish();
+      }
     }
   }
   
@@ -163,15 +649,15 @@ public class SublCommandProfiler implements WorkerListener {
     private final CycList subLCommand;
     
     /** the processing duration of the API request */
-    private final long durationMillis;
+    private final long durationNanos;
     
-    SubLCommandInfo(final CycList subLCommand, final long durationMillis) {
+    SubLCommandInfo(final CycList subLCommand, final long durationNanos) {
       //// Preconditions
       assert subLCommand != null : "subLCommand must not be null";
-      assert durationMillis >= 0 : "durationMillis must not be negative " + durationMillis;
+      assert durationNanos >= 0 : "durationNanos must not be negative " + durationNanos;
       
       this.subLCommand = subLCommand;
-      this.durationMillis = durationMillis;
+      this.durationNanos = durationNanos;
     }
     
     /** Compares this object with the specified object for order. Returns a negative integer, zero, 
@@ -182,9 +668,9 @@ public class SublCommandProfiler implements WorkerListener {
      */
     public int compareTo(Object obj) {
       final SubLCommandInfo that = (SubLCommandInfo) obj;
-      if (this.durationMillis < that.durationMillis)
+      if (this.durationNanos < that.durationNanos)
         return -1;
-      else if (this.durationMillis == that.durationMillis)
+      else if (this.durationNanos == that.durationNanos)
         return 0;
       else
         return 1;
@@ -218,7 +704,7 @@ public class SublCommandProfiler implements WorkerListener {
     public String durationMillisToString() {
       final StringBuffer stringBuffer = new StringBuffer(50);
       stringBuffer.append("milliseconds duration: ");
-      stringBuffer.append(durationMillis);
+      stringBuffer.append(TimeUnit.NANOSECONDS.toMillis(durationNanos));
       return stringBuffer.toString();
     }
   }
@@ -229,12 +715,32 @@ public class SublCommandProfiler implements WorkerListener {
   /** the logger */
   private final Logger logger;
   
-  /** the thread-safe dictionary of Worker --> start time millis */
-  private final Hashtable subLWorkerStartTimeDictionary = new Hashtable();
+  /** the number of nanoseconds in a millisecond, for reporting latencies */
+  private static final double NANOS_PER_MILLI = 1000000.0;
+  
+  /** how deeply wrapping forms are looked through for the head operator */
+  private static final int MAX_WRAPPER_DEPTH = 8;
+  
+  private static final String TASK_PROCESSOR_REQUEST = "task-processor-request";
+  
+  /** the profiles of the commands in flight, by worker */
+  private final ConcurrentMap<Worker, Call> calls = new ConcurrentHashMap<Worker, Call>();
+  
+  /** the profiles of the head operators, by operator */
+  private final ConcurrentMap<String, OperatorStats> operators = new ConcurrentHashMap<String, OperatorStats>();
+  
+  /** the sinks to which operator snapshots are published */
+  private final CopyOnWriteArrayList<SublCommandMetricsSink> sinks = new CopyOnWriteArrayList<SublCommandMetricsSink>();
+  
+  /** the thread publishing to the sinks periodically, or null */
+  private PublisherThread publisher = null;
 
   /** the maximum length of API request info objects list */
   private int MOST_TIME_CONSUMING_API_REQUEST_INFOS_LIST_MAX_SIZE = 1000;
   
+  /** the shortest duration in the ranked list, once the list is full */
+  private volatile long rankThresholdNanos = 0;
+  
   /** the lock for the linked list of most time consuming API request info objects */
   final Object mostTimeConsumingSubLCommandInfos_lock = new Object();
   
@@ -0,0 +1,86 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: SublCommandProfilerMXBean.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+
+/**
+ * The JMX management interface of {@link SublCommandProfiler}. Latencies are in milliseconds and
+ * sizes in bytes.
+ */
+public interface SublCommandProfilerMXBean {
+
+  /**
+   * Returns the head operators profiled so far, in order.
+   *
+   * @return the profiled operators
+   */
+  String[] getOperators();
+
+  /**
+   * Returns a snapshot of every operator profiled so far, in order of operator name.
+   *
+   * @return the operator snapshots
+   */
+  List<SublCommandProfiler.OperatorSnapshot> getOperatorSnapshots();
+
+  /**
+   * Returns the latency of the given operator at the given percentile.
+   *
+   * @param operator the head operator, e.g. <code>new-cyc-query</code>
+   * @param percentile the percentile, from 0 to 100
+   * @return the latency in milliseconds, or 0 if the operator has not been profiled
+   */
+  double getLatencyMillis(String operator, double percentile);
+
+  /**
+   * Returns the number of profiled calls which have ended.
+   *
+   * @return the number of ended calls
+   */
+  long getCallCount();
+
+  /**
+   * Returns the number of profiled calls now in flight.
+   *
+   * @return the number of calls in flight
+   */
+  int getInFlightCount();
+
+  /**
+   * Returns the total encoded size of the requests of ended calls.
+   *
+   * @return the number of request bytes
+   */
+  long getRequestBytes();
+
+  /**
+   * Returns the total encoded size of the responses of ended calls.
+   *
+   * @return the number of response bytes
+   */
+  long getResponseBytes();
+
+  /** Forgets the profiles gathered so far. */
+  void reset();
+
+}
@@ -0,0 +1,506 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: SublFuture.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.CycAccess;
+import com.cyc.base.conn.WorkerEvent;
+import com.cyc.base.conn.WorkerListener;
+import com.cyc.base.conn.WorkerStatus;
+import com.cyc.base.cycobject.CycList;
+import com.cyc.base.exception.BaseClientRuntimeException;
+import com.cyc.base.exception.CycApiException;
+import com.cyc.base.exception.CycConnectionException;
+import com.cyc.baseclient.DefaultSublWorker;
+import com.cyc.baseclient.exception.CycApiServerSideException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <P>SublFuture is the pending result of a SubL command which was sent without blocking the
+ * calling thread. It is backed by a {@link DefaultSublWorker}, so the request is routed by its
+ * task-processor id like any other worker and no thread is held while Cyc processes it. Any number
+ * of futures may be outstanding at once.
+ *
+ * <P>The result is available through the usual {@link Future} methods, through {@link #join()},
+ * which throws the same exceptions as the corresponding blocking call, or through callbacks. Unless
+ * an executor is given, callbacks run in the connection's communications thread, so they must not
+ * block or do any significant work there.
+ *
+ * <P>Example usage: <code>
+ * final List&lt;SublFuture&lt;String&gt;&gt; comments = new ArrayList&lt;SublFuture&lt;String&gt;&gt;();
+ * for (final CycObject term : terms) {
+ *   comments.add(cyc.getLookupTool().getCommentAsync(term));
+ * }
+ * for (final SublFuture&lt;String&gt; comment : comments) {
+ *   System.out.println(comment.join());
+ * }
+ * </code>
+ *
+ * @param <V> the type of the result
+ */
+public class SublFuture<V> implements Future<V>, WorkerListener {
+  
+  /**
+   * Converts the response of a SubL command into the result of a future.
+   *
+   * @param <V> the type of the result
+   */
+  public interface Converter<V> {
+    
+    /**
+     * Converts the given response, which has the form returned by
+     * {@link CycConnectionImpl#converse(Object)}: a Boolean status, then the result or error.
+     *
+     * @param response the response
+     * @return the result
+     * @throws CycApiException if the response is an error, or is not of the expected type
+     */
+    V convert(Object[] response) throws CycApiException;
+  }
+  
+  /**
+   * Transforms the result of one future into the result of another.
+   *
+   * @param <V> the type of the original result
+   * @param <W> the type of the transformed result
+   */
+  public interface Transformer<V, W> {
+    
+    /**
+     * Transforms the given result.
+     *
+     * @param result the original result
+     * @return the transformed result
+     * @throws CycApiException if the result cannot be transformed
+     */
+    W transform(V result) throws CycApiException;
+  }
+  
+  /**
+   * Receives the outcome of a future.
+   *
+   * @param <V> the type of the result
+   */
+  public interface Callback<V> {
+    
+    /**
+     * Called with the result of a future which completed normally.
+     *
+     * @param result the result
+     */
+    void onSuccess(V result);
+    
+    /**
+     * Called with the exception of a future which failed, or with a CancellationException if the
+     * future was cancelled.
+     *
+     * @param exception the exception
+     */
+    void onFailure(Exception exception);
+  }
+  
+  //// Constructors
+  
+  /** Creates a new instance of SublFuture.
+   * @param converter the converter for the response
+   */
+  protected SublFuture(final Converter<V> converter) {
+    this.converter = converter;
+  }
+  
+  //// Public Area
+  
+  /**
+   * Sends the given SubL command to Cyc and returns its pending result. A failure to send the
+   * command fails the future rather than being thrown.
+   *
+   * @param <V> the type of the result
+   * @param command the SubL command
+   * @param access the Cyc server that should process the command
+   * @param converter the converter for the response
+   * @return the pending result
+   */
+  public static <V> SublFuture<V> start(final CycList command, final CycAccess access,
+          final Converter<V> converter) {
+    final SublFuture<V> future = new SublFuture<V>(converter);
+    final DefaultSublWorker worker = new DefaultSublWorker(command, access);
+    worker.addListener(future);
+    future.worker = worker;
+    try {
+      worker.start();
+    } catch (CycConnectionException e) {
+      future.fail(e);
+    } catch (RuntimeException e) {
+      future.fail(e);
+    }
+    return future;
+  }
+  
+  /**
+   * Returns a future which has already completed with the given result, for results which are
+   * known without asking Cyc.
+   *
+   * @param <V> the type of the result
+   * @param result the result
+   * @return the completed future
+   */
+  public static <V> SublFuture<V> completed(final V result) {
+    final SublFuture<V> future = new SublFuture<V>(null);
+    future.complete(SUCCEEDED, result, null);
+    return future;
+  }
+  
+  /**
+   * Returns a future which has already failed with the given exception.
+   *
+   * @param <V> the type of the result
+   * @param exception the exception
+   * @return the failed future
+   */
+  public static <V> SublFuture<V> failed(final Exception exception) {
+    final SublFuture<V> future = new SublFuture<V>(null);
+    future.fail(exception);
+    return future;
+  }
+  
+  /**
+   * Cancels this future and asks Cyc to stop processing its command.
+   *
+   * @param mayInterruptIfRunning ignored; the command is always cancelled on the server
+   * @return true if this future was cancelled, false if it had already completed
+   */
+  @Override
+  public boolean cancel(final boolean mayInterruptIfRunning) {
+    if (!complete(CANCELLED, null, null)) {
+      return false;
+    }
+    final SublFuture<?> currentSource = source;
+    if (currentSource != null) {
+      currentSource.cancel(mayInterruptIfRunning);
+    }
+    final DefaultSublWorker currentWorker = worker;
+    if (currentWorker != null) {
+      try {
+        currentWorker.cancel();
+      } catch (CycConnectionException e) {
+        LOGGER.log(Level.WARNING, "Unable to cancel " + currentWorker.getSubLCommand(), e);
+      }
+    }
+    return true;
+  }
+  
+  @Override
+  public synchronized boolean isCancelled() {
+    return state == CANCELLED;
+  }
+  
+  @Override
+  public synchronized boolean isDone() {
+    return state != PENDING;
+  }
+  
+  @Override
+  public V get() throws InterruptedException, ExecutionException {
+    synchronized (this) {
+      while (state == PENDING) {
+        wait();
+      }
+    }
+    return getOutcome();
+  }
+  
+  @Override
+  public V get(final long timeout, final TimeUnit unit)
+          throws InterruptedException, ExecutionException, TimeoutException {
+    final long deadline = System.nanoTime() + unit.toNanos(timeout);
+    synchronized (this) {
+      while (state == PENDING) {
+        final long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          throw new TimeoutException();
+        }
+        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+      }
+    }
+    return getOutcome();
+  }
+  
+  /**
+   * Waits for this future to complete and returns its result, throwing the exception of the
+   * equivalent blocking call if it failed.
+   *
+   * @return the result
+   * @throws CycConnectionException if a data communication error occurs
+   * @throws CycApiException if the api request results in a cyc server error
+   * @throws CancellationException if this future was cancelled
+   */
+  public V join() throws CycConnectionException, CycApiException {
+    try {
+      return get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CycConnectionException(e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof CycConnectionException) {
+        throw (CycConnectionException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new BaseClientRuntimeException(cause);
+    }
+  }
+  
+  /**
+   * Registers a callback for the outcome of this future. If the future has already completed, the
+   * callback runs at once.
+   *
+   * @param callback the callback
+   * @param executor the executor in which the callback runs
+   */
+  public void addCallback(final Callback<? super V> callback, final Executor executor) {
+    synchronized (this) {
+      if (state == PENDING) {
+        callbacks.add(new PendingCallback<V>(callback, executor));
+        return;
+      }
+    }
+    notifyCallback(callback, executor);
+  }
+  
+  /**
+   * Registers a callback for the outcome of this future, to run in the thread which completes the
+   * future; usually this is the connection's communications thread.
+   *
+   * @param callback the callback
+   */
+  public void addCallback(final Callback<? super V> callback) {
+    addCallback(callback, DIRECT_EXECUTOR);
+  }
+  
+  /**
+   * Returns a future whose result is the result of this future, transformed by the given
+   * transformer in the thread which completes this future. If this future fails, or the
+   * transformer throws an exception, the returned future fails with that exception. Cancelling
+   * the returned future cancels this future.
+   *
+   * @param <W> the type of the transformed result
+   * @param transformer the transformer
+   * @return the transformed future
+   */
+  public <W> SublFuture<W> transform(final Transformer<? super V, W> transformer) {
+    final SublFuture<W> transformed = new SublFuture<W>(null);
+    transformed.source = this;
+    addCallback(new Callback<V>() {
+      @Override
+      public void onSuccess(V result) {
+        final W transformedResult;
+        try {
+          transformedResult = transformer.transform(result);
+        } catch (RuntimeException e) {
+          transformed.fail(e);
+          return;
+        }
+        transformed.complete(SUCCEEDED, transformedResult, null);
+      }
+      
+      @Override
+      public void onFailure(Exception exception) {
+        if (exception instanceof CancellationException) {
+          transformed.complete(CANCELLED, null, null);
+        } else {
+          transformed.fail(exception);
+        }
+      }
+    });
+    return transformed;
+  }
+  
+  /** Ignore.
+   * @param event the event object with details about this event
+   */
+  @Override
+  public void notifySubLWorkerStarted(final WorkerEvent event) {}
+  
+  /** Saves the available work.
+   * @param event the event object with details about this event
+   */
+  @Override
+  public void notifySubLWorkerDataAvailable(final WorkerEvent event) {
+    work = event.getWork();
+  }
+  
+  /** Completes this future from the outcome of its worker.
+   * @param event the event object with details about this event
+   */
+  @Override
+  public void notifySubLWorkerTerminated(final WorkerEvent event) {
+    final Exception exception = event.getException();
+    if (event.getStatus() == WorkerStatus.FINISHED_STATUS) {
+      convert(new Object[]{Boolean.TRUE, work});
+    } else if (exception instanceof CycApiServerSideException) {
+      // as in CycConnectionImpl#converseBinary, a server-side error is a failed response
+      convert(new Object[]{Boolean.FALSE, exception});
+    } else if (exception != null) {
+      fail(exception);
+    } else {
+      complete(CANCELLED, null, null);
+    }
+  }
+  
+  @Override
+  public synchronized String toString() {
+    final String stateName = (state == PENDING) ? "pending"
+            : (state == SUCCEEDED) ? "succeeded" : (state == FAILED) ? "failed" : "cancelled";
+    final DefaultSublWorker currentWorker = worker;
+    return "SublFuture[" + stateName
+            + ((currentWorker == null) ? "" : ", id " + currentWorker.getId()) + "]";
+  }
+  
+  //// Protected Area
+  
+  /** Fails this future, unless it has already completed.
+   * @param exception the exception
+   */
+  protected void fail(final Exception exception) {
+    complete(FAILED, null, exception);
+  }
+  
+  //// Private Area
+  
+  private void convert(final Object[] response) {
+    final V result;
+    try {
+      result = converter.convert(response);
+    } catch (RuntimeException e) {
+      fail(e);
+      return;
+    }
+    complete(SUCCEEDED, result, null);
+  }
+  
+  private boolean complete(final int newState, final V result, final Exception exception) {
+    final List<PendingCallback<V>> toNotify;
+    synchronized (this) {
+      if (state != PENDING) {
+        return false;
+      }
+      this.result = result;
+      this.exception = exception;
+      state = newState;
+      notifyAll();
+      toNotify = callbacks;
+      callbacks = null;
+    }
+    for (final PendingCallback<V> pending : toNotify) {
+      notifyCallback(pending.callback, pending.executor);
+    }
+    return true;
+  }
+  
+  private synchronized V getOutcome() throws ExecutionException {
+    if (state == SUCCEEDED) {
+      return result;
+    } else if (state == CANCELLED) {
+      throw new CancellationException();
+    }
+    throw new ExecutionException(exception);
+  }
+  
+  private void notifyCallback(final Callback<? super V> callback, final Executor executor) {
+    final int currentState;
+    final V currentResult;
+    final Exception currentException;
+    synchronized (this) {
+      currentState = state;
+      currentResult = result;
+      currentException = exception;
+    }
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          if (currentState == SUCCEEDED) {
+            callback.onSuccess(currentResult);
+          } else if (currentState == CANCELLED) {
+            callback.onFailure(new CancellationException());
+          } else {
+            callback.onFailure(currentException);
+          }
+        } catch (RuntimeException e) {
+          LOGGER.log(Level.WARNING, e.getMessage(), e);
+        }
+      }
+    });
+  }
+  
+  //// Internal Rep
+  
+  private static class PendingCallback<V> {
+    
+    private PendingCallback(final Callback<? super V> callback, final Executor executor) {
+      this.callback = callback;
+      this.executor = executor;
+    }
+    
+    private final Callback<? super V> callback;
+    private final Executor executor;
+  }
+  
+  private static final int PENDING = 0;
+  private static final int SUCCEEDED = 1;
+  private static final int FAILED = 2;
+  private static final int CANCELLED = 3;
+  
+  private static final Executor DIRECT_EXECUTOR = new Executor() {
+    @Override
+    public void execute(final Runnable command) {
+      command.run();
+    }
+  };
+  
+  private static final Logger LOGGER = Logger.getLogger(SublFuture.class.getName());
+  
+  private final Converter<V> converter;
+  
+  private volatile DefaultSublWorker worker = null;
+  
+  private volatile SublFuture<?> source = null;
+  
+  private volatile Object work = null;
+  
+  private int state = PENDING;
+  
+  private V result = null;
+  
+  private Exception exception = null;
+  
+  private List<PendingCallback<V>> callbacks = new ArrayList<PendingCallback<V>>();
+}
@@ -23,14 +23,11 @@ package com.cyc.baseclient.connection;
 
 import com.cyc.baseclient.exception.CfaslInputStreamClosedException;
 import com.cyc.base.exception.BaseClientException;
-import com.cyc.baseclient.CycObjectFactory;
 import com.cyc.base.exception.CycApiException;
-import com.cyc.base.conn.Worker;
 import java.io.InputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.Date;
-import java.util.concurrent.RejectedExecutionException;
+import java.util.UUID;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -72,11 +69,6 @@ class TaskProcessorBinaryResponseHandler extends Thread {
    * initialized.
    */
   protected Thread parentThread;
-  /**
-   * The (ignore) message from the Cyc server to test if the connection is
-   * alive.
-   */
-  protected CycArrayList ignoreMessage;
   /**
    * the parent CycConnection
    */
@@ -99,6 +91,11 @@ class TaskProcessorBinaryResponseHandler extends Thread {
 
   private String hostName;
   private int port;
+  /**
+   * the UUID which identifies this handler's passive socket to the Cyc server, or null to use
+   * the UUID of the parent CycConnection
+   */
+  private final UUID uuid;
   /**
    * Constructs a TaskProcessorBinaryResponseHandler object.
    *
@@ -112,22 +109,32 @@ class TaskProcessorBinaryResponseHandler extends Thread {
    * @param cycConnection the parent CycConnection
    */
   public TaskProcessorBinaryResponseHandler(Thread parentThread, final CycConnectionImpl cycConnection, String hostName, int port) {
+    this(parentThread, cycConnection, hostName, port, null);
+  }
+
+  /**
+   * Constructs a TaskProcessorBinaryResponseHandler object for one channel of a pooled
+   * connection.
+   *
+   * @param parentThread the parent thread of this thread
+   * @param cycConnection the parent CycConnection
+   * @param hostName the Cyc server host name
+   * @param port the Cyc server CFASL port
+   * @param uuid the UUID which identifies the passive socket to the Cyc server
+   */
+  public TaskProcessorBinaryResponseHandler(Thread parentThread, final CycConnectionImpl cycConnection, String hostName, int port, UUID uuid) {
+    this.uuid = uuid;
     this.cycConnection = cycConnection;
     this.parentThread = parentThread;
-    ignoreMessage = new CycArrayList();
-    ignoreMessage.add(new CycSymbolImpl("IGNORE"));
-    
     this.hostName = hostName;
     this.port = port;
     initializeSynchronization();
   }
   
   public TaskProcessorBinaryResponseHandler(Thread parentThread, final CycConnectionImpl cycConnection, InputStream is) {
+    this.uuid = null;
     this.cycConnection = cycConnection;
     this.parentThread = parentThread;
-    ignoreMessage = new CycArrayList();
-    ignoreMessage.add(new CycSymbolImpl("IGNORE"));
-    
     this.hostName = hostName;
     this.port = port;
     initializeSynchronization();
@@ -149,7 +156,7 @@ class TaskProcessorBinaryResponseHandler extends Thread {
           if (cycConnection.comm == null) {
             CycArrayList request = new CycArrayList();
             request.add(new CycSymbolImpl("INITIALIZE-JAVA-API-PASSIVE-SOCKET"));
-            request.add(cycConnection.uuid.toString());
+            request.add(getUuid().toString());
             // Open a second api socket connection and use it for asychronous api responses.
             inboundSocket = new Socket(cycConnection.hostName, cycConnection.cfaslPort);
             int val = inboundSocket.getReceiveBufferSize();
@@ -188,10 +195,12 @@ class TaskProcessorBinaryResponseHandler extends Thread {
         Object status = null;
         CycArrayList taskProcessorResponse = null;
         boolean isInvalidObject = false;
+        long responseBytes = -1;
         if (isClosed || isClosing) {
           break;
         }
         try {
+          final long start = inboundStream.getBytesRead();
           // read status
           inboundStream.resetIsInvalidObject();
           status = inboundStream.readObject();
@@ -206,6 +215,7 @@ class TaskProcessorBinaryResponseHandler extends Thread {
             cycConnection.logger.fine("API response: " + taskProcessorResponse.stringApiValue());
           }
           isInvalidObject = inboundStream.isInvalidObject();
+          responseBytes = inboundStream.getBytesRead() - start;
         } catch (Exception e) {
           if (cycConnection.taskProcessingEnded) {
             if (cycConnection.trace > CycConnectionImpl.API_TRACE_NONE) {
@@ -229,45 +239,8 @@ class TaskProcessorBinaryResponseHandler extends Thread {
           }
           return;
         }
-        final boolean objectIsInvalid = isInvalidObject;
-        cycConnection.logger.finest("API status: " + status);
-        if (cycConnection.trace >= CycConnectionImpl.API_TRACE_DETAILED) {
-          Log.current.println("cyc --> (" + status + ") " + taskProcessorResponse.toString());
-        }
-        if (taskProcessorResponse.equals(ignoreMessage)) {
-          continue;
-        }
         try {
-          if (cycConnection.trace >= CycConnectionImpl.API_TRACE_MESSAGES) {
-            Log.current.println(CycConnectionImpl.df.format(new Date()) + "\n    Got response: (" + taskProcessorResponse + ")");
-          }
-          if (!(taskProcessorResponse.get(TASK_PROCESSOR_RESPONSE_ID) instanceof Integer)) {
-            Log.current.println(CycConnectionImpl.df.format(new Date()) + "\n    Got invalid response id: (" + taskProcessorResponse + ")");
-          }
-          final Integer id = (Integer) taskProcessorResponse.get(TASK_PROCESSOR_RESPONSE_ID);
-          final Object taskStatus = taskProcessorResponse.get(TASK_PROCESSOR_RESPONSE_STATUS);
-          // handle Cyc images that either support or do not support (legacy) the finished flag
-          final Object finishedFlag = (taskProcessorResponse.size() > TASK_PROCESSOR_RESPONSE_FINISHED_FLAG) ? taskProcessorResponse.get(TASK_PROCESSOR_RESPONSE_FINISHED_FLAG) : CycObjectFactory.t;
-          final boolean finished = !(finishedFlag == CycObjectFactory.nil);
-          final CycConnectionImpl.WaitingWorkerInfo waitingWorkerInfo = (CycConnectionImpl.WaitingWorkerInfo) cycConnection.getWaitingReplyThreads().get(id);
-          if (waitingWorkerInfo == null) {
-            if (cycConnection.trace >= CycConnectionImpl.API_TRACE_MESSAGES) {
-              Log.current.println(CycConnectionImpl.df.format(new Date()) + "\n    Got response with no waiting working: (" + taskProcessorResponse + ")");
-            }
-            continue;
-          }
-          final Worker worker = waitingWorkerInfo.getWorker();
-          // used for example in the XML soap service where there is an upstream SOAPBinaryCycConnection object that
-          // needs the whole task processor response.
-          final Object response = StringUtils.cyclStringsToJavaStrings(
-                  waitingWorkerInfo.isReturnWholeTaskProcessorResponse ? taskProcessorResponse : taskProcessorResponse.get(TASK_PROCESSOR_RESPONSE_RESPONSE));
-          final Runnable notificationTask = new NotificationTask(taskStatus, objectIsInvalid, worker, response, finished, id, cycConnection);
-          try {
-            cycConnection.apiPool.execute(notificationTask);
-          } catch (RejectedExecutionException e) {
-            e.printStackTrace();
-            System.err.println("Rejected notification from " + worker);
-          }
+          cycConnection.handleTaskProcessorResponse(status, taskProcessorResponse, isInvalidObject, responseBytes);
         } catch (Exception xcpt) {
           if ((!isClosed) && (!isClosing)) {
             Log.current.errorPrintln(xcpt.getMessage());
@@ -340,10 +313,14 @@ class TaskProcessorBinaryResponseHandler extends Thread {
       }
     }
     if (cycConnection.trace > CycConnectionImpl.API_TRACE_NONE) {
-      Log.current.println("closed inbound socket associated with " + cycConnection.uuid);
+      Log.current.println("closed inbound socket associated with " + getUuid());
     }
   }
 
+  private UUID getUuid() {
+    return (uuid == null) ? cycConnection.uuid : uuid;
+  }
+
   public void waitOnSetupToComplete() {
     // avoid blocking on this ptr, which would stop the
     // notifySetupCompleted method from working correctly
@@ -44,6 +44,7 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.cyc.base.exception.CycApiException;
 import com.cyc.baseclient.cycobject.CycConstantImpl;
@@ -57,6 +58,7 @@ import com.cyc.base.cycobject.Naut;
 import com.cyc.base.inference.InferenceResultSet;
 import com.cyc.baseclient.CommonConstants;
 import com.cyc.baseclient.datatype.DateConverter;
+import com.cyc.baseclient.util.AppendOnlyList;
 import java.util.Collections;
 
 /**
@@ -319,6 +321,10 @@ public abstract class AbstractResultSet implements ResultSet, InferenceResultSet
   @Override
   public boolean relative(int row) {
     ensureOpen("relative");
+    if ((row > 0) && (curRow == null) && (cursor >= 0)) {
+      // after the last row, which is just before the first row to arrive since
+      return absolute(cursor + row);
+    }
     return absolute(getRow() + row);
   }
 
@@ -440,7 +446,8 @@ public abstract class AbstractResultSet implements ResultSet, InferenceResultSet
     } else if (curRow == null) {
       throw new ArrayIndexOutOfBoundsException(getRow() + " is not a valid row");
     }
-    return curRow.get(colIndex - 1);
+    // a row added before a column was is shorter, and has no binding for it
+    return (colIndex <= curRow.size()) ? curRow.get(colIndex - 1) : null;
   }
 
   /**
@@ -1180,7 +1187,8 @@ public abstract class AbstractResultSet implements ResultSet, InferenceResultSet
     StringBuffer buf = new StringBuffer("(");
     int count = 0;
     if (rs != null) {
-      for (List<Object> row : rs) {
+      for (int i = 0, size = rs.size(); i < size; i++) {
+        final List<Object> row = rs.get(i);
         if (count++ > 15) {
           buf.append("...");
           break;
@@ -2053,16 +2061,29 @@ public abstract class AbstractResultSet implements ResultSet, InferenceResultSet
    * Creates a new row.
    *
    * @return Returns the new empty row.
+   * @deprecated the row is visible to cursors before it is filled; build the row and
+   * use {@link #addRow(List)} instead.
    */
+  @Deprecated
   protected List<Object> addEmptyRow() {
     List<Object> row = new ArrayList<Object>();
-    rs.add(row);
     for (int i = 0, size = columnNames.size(); i < size; i++) {
       row.add(null);
     }
+    rs.add(row);
     return row;
   }
 
+  /**
+   * Appends a complete row. Cursors read rows without locking, so the row must not be changed
+   * once it is added; a row may be shorter than the columns added after it.
+   *
+   * @param row the values of the row, by column index
+   */
+  protected void addRow(List<Object> row) {
+    rs.add(Collections.unmodifiableList(row));
+  }
+
   //// Private Area
   /**
    * Throws an error if this <code>AbstractResultSet</code> object is not open.
@@ -2107,14 +2128,16 @@ public abstract class AbstractResultSet implements ResultSet, InferenceResultSet
   private static final long MSECS_TO_WAIT_FOR_CLOSE = 10000;
   /**
    * The rows accumulated so far in this result set. For synchronous queries
-   * this will always be set to all the results.
+   * this will always be set to all the results. Rows are only ever appended,
+   * so a growing result set may be read while its rows arrive.
    */
-  private final List<List<Object>> rs = new ArrayList<List<Object>>(128);
+  private final List<List<Object>> rs = new AppendOnlyList<List<Object>>();
   /**
    * The possible column names for this query. It is currently based on results
-   * retreived so far.
+   * retreived so far. It is copied on write, so that cursors may read it while
+   * columns are added.
    */
-  private final List<String> columnNames = new ArrayList<String>(8);
+  private final List<String> columnNames = new CopyOnWriteArrayList<String>();
   /**
    * The current cursor location (zero-based). If the cursor is at 0, the
    * current row is row 1, etc.
@@ -34,7 +34,10 @@ import com.cyc.base.cycobject.CycVariable;
 import com.cyc.query.InferenceIdentifier;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import com.cyc.baseclient.CommonConstants;
 import com.cyc.baseclient.CycClientManager;
@@ -117,6 +120,19 @@ public final class DefaultResultSet extends AbstractResultSet {
     this.inferenceWorker = null;
   }
 
+  /**
+   * Creates a new <code>InferenceResultSet</code> to which further results may be added as they
+   * arrive, with {@link #addResults(List)}.
+   *
+   * @param results The inference results as returned by "new-cyc-query" so far.
+   * @param isGrowing whether more results may be added
+   */
+  public DefaultResultSet(List<Object> results, boolean isGrowing) {
+    calcRows(results);
+    this.inferenceWorker = null;
+    this.isGrowing = isGrowing;
+  }
+
   //// Public Area
 
   /**
@@ -133,7 +149,101 @@ public final class DefaultResultSet extends AbstractResultSet {
     if (inferenceWorker != null) {
       return inferenceWorker.isDone();
     }
-    return true;
+    return !isGrowing;
+  }
+
+  /**
+   * Appends results which have arrived since this <code>DefaultResultSet</code> was created. The
+   * rows are added in place, so each costs O(1) and cursors stay where they are; a cursor after
+   * the last row moves onto the first new row with {@link #next()}.
+   *
+   * @param newResults further results, in the form returned by "new-cyc-query"
+   */
+  public void addResults(List<Object> newResults) {
+    if (newResults.isEmpty()) {
+      return;
+    }
+    final List<Runnable> callbacks;
+    synchronized (this) {
+      if ((getCurrentRowCount() == 0) && hasTruthValue() && !getTruthValue()) {
+        // no longer a query without answers
+        setTruthValue(null);
+      }
+      calcRows(newResults);
+      callbacks = takeSatisfiedCallbacks();
+      notifyAll();
+    }
+    runCallbacks(callbacks);
+  }
+
+  /**
+   * Returns whether more results may be added to this <code>DefaultResultSet</code>.
+   *
+   * @return <code>true</code> if more results may be added
+   */
+  public synchronized boolean isGrowing() {
+    return isGrowing;
+  }
+
+  /**
+   * Sets whether more results may be added to this <code>DefaultResultSet</code>, as when an
+   * inference is suspended and then continued. Callers waiting for rows are released when it
+   * stops growing.
+   *
+   * @param isGrowing whether more results may be added
+   */
+  public void setGrowing(boolean isGrowing) {
+    final List<Runnable> callbacks;
+    synchronized (this) {
+      this.isGrowing = isGrowing;
+      callbacks = takeSatisfiedCallbacks();
+      notifyAll();
+    }
+    runCallbacks(callbacks);
+  }
+
+  /**
+   * Waits until this <code>DefaultResultSet</code> has at least <code>rowCount</code> rows, until
+   * it stops growing, or until the timeout elapses.
+   *
+   * @param rowCount the number of rows to wait for
+   * @param timeoutMillis the maximum time to wait, or zero to wait without limit
+   * @return <code>true</code> if this result set has at least <code>rowCount</code> rows
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public synchronized boolean awaitRows(int rowCount, long timeoutMillis)
+          throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + timeoutMillis;
+    while ((getCurrentRowCount() < rowCount) && isGrowing) {
+      if (timeoutMillis == 0) {
+        wait();
+      } else {
+        final long remainingMillis = deadline - System.currentTimeMillis();
+        if (remainingMillis <= 0) {
+          break;
+        }
+        wait(remainingMillis);
+      }
+    }
+    return getCurrentRowCount() >= rowCount;
+  }
+
+  /**
+   * Runs a callback once this <code>DefaultResultSet</code> has at least <code>rowCount</code>
+   * rows, or once it stops growing. The callback runs at once if that is already so, and
+   * otherwise on the thread which adds the rows, so it should be quick.
+   *
+   * @param rowCount the number of rows to wait for
+   * @param callback the callback
+   */
+  public void notifyWhenRows(int rowCount, Runnable callback) {
+    synchronized (this) {
+      if ((getCurrentRowCount() < rowCount) && isGrowing) {
+        pendingCallbacks.add(new RowCallback(rowCount, callback));
+        return;
+      }
+    }
+    callback.run();
   }
 
   public InferenceIdentifier getInferenceIdentifier() {
@@ -615,21 +725,27 @@ public final class DefaultResultSet extends AbstractResultSet {
       }
     }
     for (List<CycArrayList> bindingSet : (List<List>)results) {
-      List<Object> row = addEmptyRow();
+      // the row is complete before cursors can see it
+      final List<Object> row = new ArrayList<Object>(getColumnNamesUnsafe().size());
       for (CycArrayList binding : bindingSet) {
         CycVariableImpl colVar = (CycVariableImpl)binding.get(0);
         int colIndex = possiblyAddColVar(colVar);
-        String col = colVar.toString();
-        Object val = binding.rest();
-        row.set(colIndex, val);
+        while (row.size() <= colIndex) {
+          row.add(null);
+        }
+        row.set(colIndex, binding.rest());
       }
+      while (row.size() < getColumnNamesUnsafe().size()) {
+        row.add(null);
+      }
+      addRow(row);
     }
   }
 
   /**
-   * If the given column name isn't known, add it and make sure
- current results have an extra column added. Return the new
- (or existing) column index for the <code>colVar</code>.
+   * If the given column name isn't known, add it. Return the new
+   * (or existing) column index for the <code>colVar</code>. Rows added
+   * before the column are not changed; they have no binding for it.
    *
    * @return the column index of <code>colVar</code>
    * @param colVar the CycVariableImpl which represents the column to add
@@ -640,9 +756,6 @@ public final class DefaultResultSet extends AbstractResultSet {
     List<String> columnNames = getColumnNamesUnsafe();
     if ((colIndex = columnNames.indexOf(col)) < 0) {
       columnNames.add(col);
-      for (List<Object> row : getRS()) {
-        row.add(null);
-      }
       return columnNames.size() - 1;
     }
     return colIndex;
@@ -676,6 +789,38 @@ public final class DefaultResultSet extends AbstractResultSet {
 
   //// Private Area
 
+  private List<Runnable> takeSatisfiedCallbacks() {
+    if (pendingCallbacks.isEmpty()) {
+      return Collections.emptyList();
+    }
+    final List<Runnable> callbacks = new ArrayList<Runnable>();
+    for (final Iterator<RowCallback> i = pendingCallbacks.iterator(); i.hasNext();) {
+      final RowCallback pending = i.next();
+      if ((getCurrentRowCount() >= pending.rowCount) || !isGrowing) {
+        callbacks.add(pending.callback);
+        i.remove();
+      }
+    }
+    return callbacks;
+  }
+
+  private static void runCallbacks(final List<Runnable> callbacks) {
+    for (final Runnable callback : callbacks) {
+      callback.run();
+    }
+  }
+
+  private static final class RowCallback {
+
+    RowCallback(final int rowCount, final Runnable callback) {
+      this.rowCount = rowCount;
+      this.callback = callback;
+    }
+
+    private final int rowCount;
+    private final Runnable callback;
+  }
+
   //// Internal Rep
 
   /** 
@@ -697,6 +842,12 @@ public final class DefaultResultSet extends AbstractResultSet {
    */
   private final InferenceWorker inferenceWorker;
 
+  /** Whether more results may be added with addResults. Written under the lock, read without it. */
+  private volatile boolean isGrowing = false;
+
+  /** The callbacks registered with notifyWhenRows which are still waiting. */
+  private final List<RowCallback> pendingCallbacks = new ArrayList<RowCallback>();
+
   //// Main
   
   /**
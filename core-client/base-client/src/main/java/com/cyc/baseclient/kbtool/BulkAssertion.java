@@ -0,0 +1,580 @@
+package com.cyc.baseclient.kbtool;
+
+/*
+ * #%L
+ * File: BulkAssertion.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.CommandTool;
+import com.cyc.base.CycAccess;
+import com.cyc.base.cycobject.CycObject;
+import com.cyc.base.cycobject.ElMt;
+import com.cyc.base.cycobject.Fort;
+import com.cyc.base.exception.CycApiException;
+import com.cyc.base.exception.CycConnectionException;
+import com.cyc.baseclient.CycObjectFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asserts a stream of sentences in batches. Each batch is one api request, which asserts its
+ * items one after another under a single set of dynamic bindings (bookkeeping, cyclist and
+ * purpose, forward inference rule templates and WFF checking), and reports the success or the
+ * failure of each item with the server's reason. Batches are bounded by item count and by the
+ * length of their api text, and a configurable number of them may be in flight at once.
+ *
+ * <p>A failed item does not fail its batch. If a whole batch is rejected, for example because a
+ * sentence string does not parse, its items are retried one per request so that only the bad
+ * ones fail. Connection errors abort the run.
+ *
+ * <p>Obtain instances from {@link CycAssertTool#newBulkAssertion()}. Within a
+ * {@link com.cyc.baseclient.KbTransaction} the items are noted for the transaction one at a time,
+ * as {@link CycAssertTool#assertSentence} does.
+ */
+public class BulkAssertion {
+
+  // Fields
+  
+  /** The default maximum number of items in one batch. */
+  public static final int DEFAULT_MAX_BATCH_SIZE = 500;
+
+  /** The default maximum length of the api text of the items of one batch. */
+  public static final int DEFAULT_MAX_BATCH_CHARS = 256 * 1024;
+
+  /** The default maximum number of batches in flight. */
+  public static final int DEFAULT_MAX_BATCHES_IN_FLIGHT = 2;
+  
+  // Constructors
+  
+  BulkAssertion(CycAssertTool assertTool, CycAccess cyc) {
+    this.assertTool = assertTool;
+    this.cyc = cyc;
+  }
+  
+  // Public
+  
+  /**
+   * One sentence to assert, with its microtheory, strength and direction.
+   */
+  public static class Item {
+
+    /**
+     * Creates an item with the default strength and direction.
+     *
+     * @param sentence the sentence, as a CycObject or as its api string
+     * @param mt the microtheory in which to assert it
+     */
+    public Item(Object sentence, CycObject mt) {
+      this(sentence, mt, null, null);
+    }
+
+    /**
+     * Creates an item.
+     *
+     * @param sentence the sentence, as a CycObject or as its api string, such as
+     * <code>'(#$isa #$Fido #$Dog)</code>
+     * @param mt the microtheory in which to assert it
+     * @param strength the strength keyword, such as <code>:monotonic</code>, or null for
+     * <code>:default</code>
+     * @param direction the direction keyword, such as <code>:forward</code>, or null for the
+     * server's default
+     */
+    public Item(Object sentence, CycObject mt, String strength, String direction) {
+      if (!(sentence instanceof CycObject) && !(sentence instanceof String)) {
+        throw new IllegalArgumentException("Sentence must be a CycObject or a String: " + sentence);
+      }
+      if (mt == null) {
+        throw new NullPointerException("mt must not be null");
+      }
+      this.sentence = sentence;
+      this.mt = mt;
+      this.strength = (strength == null) ? ":default" : strength;
+      this.direction = direction;
+    }
+
+    public Object getSentence() {
+      return sentence;
+    }
+
+    public CycObject getMt() {
+      return mt;
+    }
+
+    public String getStrength() {
+      return strength;
+    }
+
+    public String getDirection() {
+      return direction;
+    }
+
+    @Override
+    public String toString() {
+      return getSentenceApiValue() + " in " + mt.cyclify();
+    }
+
+    String getSentenceApiValue() {
+      return (sentence instanceof CycObject)
+              ? ((CycObject) sentence).stringApiValue() : (String) sentence;
+    }
+
+    private final Object sentence;
+    private final CycObject mt;
+    private final String strength;
+    private final String direction;
+  }
+
+  /**
+   * The outcome of asserting one item.
+   */
+  public static class ItemResult {
+
+    ItemResult(long index, Item item, boolean successful, String reason) {
+      this.index = index;
+      this.item = item;
+      this.successful = successful;
+      this.reason = reason;
+    }
+
+    /**
+     * Returns the position of the item in the stream, counting from zero.
+     *
+     * @return the index
+     */
+    public long getIndex() {
+      return index;
+    }
+
+    public Item getItem() {
+      return item;
+    }
+
+    public boolean isSuccessful() {
+      return successful;
+    }
+
+    /**
+     * Returns why the item was not asserted.
+     *
+     * @return the server's reason, or null if the item was asserted or if no reason was given
+     */
+    public String getReason() {
+      return reason;
+    }
+
+    @Override
+    public String toString() {
+      return (successful ? "Asserted " : "Failed to assert ") + item
+              + ((reason == null) ? "" : " because: " + reason);
+    }
+
+    private final long index;
+    private final Item item;
+    private final boolean successful;
+    private final String reason;
+  }
+
+  /**
+   * Receives the results of a bulk assertion, one batch at a time and in the order of the items.
+   */
+  public interface Listener {
+
+    /**
+     * Called on the thread which called {@link BulkAssertion#assertAll(Iterator, Listener)}
+     * when the results of a batch are in.
+     *
+     * @param results the results of the batch
+     */
+    void batchCompleted(List<ItemResult> results);
+  }
+
+  /**
+   * Asserts the given items and returns the result of each.
+   *
+   * @param items the items
+   * @return the results, in the order of the items
+   * @throws CycConnectionException if a communications error occurs
+   * @throws CycApiException if the api request results in a cyc server error
+   */
+  public List<ItemResult> assertAll(Iterable<? extends Item> items)
+          throws CycConnectionException, CycApiException {
+    final List<ItemResult> allResults = new ArrayList<ItemResult>();
+    assertAll(items.iterator(), new Listener() {
+      @Override
+      public void batchCompleted(List<ItemResult> results) {
+        allResults.addAll(results);
+      }
+    });
+    return allResults;
+  }
+
+  /**
+   * Asserts the items of a stream, which is read only as fast as batches can be sent, and passes
+   * the results to a listener.
+   *
+   * @param items the items
+   * @param listener the listener
+   * @return the number of items which failed
+   * @throws CycConnectionException if a communications error occurs
+   * @throws CycApiException if the api request results in a cyc server error
+   */
+  public long assertAll(Iterator<? extends Item> items, Listener listener)
+          throws CycConnectionException, CycApiException {
+    if (assertTool.isInTransaction()) {
+      return assertInTransaction(items, listener);
+    }
+    final int inFlight = maxBatchesInFlight;
+    final ExecutorService executor = (inFlight > 1)
+            ? Executors.newFixedThreadPool(inFlight, THREAD_FACTORY) : null;
+    final LinkedList<Future<List<ItemResult>>> pending = new LinkedList<Future<List<ItemResult>>>();
+    final Map<CycObject, ElMt> elMts = new HashMap<CycObject, ElMt>();
+    long failures = 0;
+    long index = 0;
+    try {
+      while (items.hasNext()) {
+        final List<Item> batch = new ArrayList<Item>();
+        int chars = 0;
+        while (items.hasNext() && (batch.size() < maxBatchSize)
+                && (batch.isEmpty() || (chars < maxBatchChars))) {
+          final Item item = items.next();
+          chars += item.getSentenceApiValue().length();
+          batch.add(item);
+        }
+        final Callable<List<ItemResult>> task = newBatchTask(index, batch, elMts);
+        index += batch.size();
+        if (executor == null) {
+          failures += deliver(call(task), listener);
+          continue;
+        }
+        if (pending.size() >= inFlight) {
+          failures += deliver(await(pending.removeFirst()), listener);
+        }
+        pending.add(executor.submit(task));
+      }
+      while (!pending.isEmpty()) {
+        failures += deliver(await(pending.removeFirst()), listener);
+      }
+    } finally {
+      if (executor != null) {
+        for (final Future<List<ItemResult>> future : pending) {
+          future.cancel(true);
+        }
+        executor.shutdownNow();
+      }
+    }
+    return failures;
+  }
+
+  /**
+   * Returns the maximum number of items in one batch.
+   *
+   * @return the maximum batch size
+   */
+  public int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
+  public void setMaxBatchSize(int maxBatchSize) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("Invalid batch size: " + maxBatchSize);
+    }
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  /**
+   * Returns the length of api text after which no more items are added to a batch.
+   *
+   * @return the maximum batch length in characters
+   */
+  public int getMaxBatchChars() {
+    return maxBatchChars;
+  }
+
+  public void setMaxBatchChars(int maxBatchChars) {
+    if (maxBatchChars < 1) {
+      throw new IllegalArgumentException("Invalid batch length: " + maxBatchChars);
+    }
+    this.maxBatchChars = maxBatchChars;
+  }
+
+  /**
+   * Returns the maximum number of batches sent and not yet answered.
+   *
+   * @return the maximum number of batches in flight
+   */
+  public int getMaxBatchesInFlight() {
+    return maxBatchesInFlight;
+  }
+
+  public void setMaxBatchesInFlight(int maxBatchesInFlight) {
+    if (maxBatchesInFlight < 1) {
+      throw new IllegalArgumentException("Invalid number of batches in flight: "
+              + maxBatchesInFlight);
+    }
+    this.maxBatchesInFlight = maxBatchesInFlight;
+  }
+
+  public boolean isBookkeeping() {
+    return bookkeeping;
+  }
+
+  public void setBookkeeping(boolean bookkeeping) {
+    this.bookkeeping = bookkeeping;
+  }
+
+  /**
+   * Returns true if the assertions are placed on the transcript queue, using
+   * <code>ke-assert-now</code> rather than <code>cyc-assert</code>.
+   *
+   * @return true if the assertions are transcripted
+   */
+  public boolean isTranscript() {
+    return transcript;
+  }
+
+  public void setTranscript(boolean transcript) {
+    this.transcript = transcript;
+  }
+
+  public boolean isDisableWffChecking() {
+    return disableWffChecking;
+  }
+
+  public void setDisableWffChecking(boolean disableWffChecking) {
+    this.disableWffChecking = disableWffChecking;
+  }
+
+  /**
+   * Returns the creation templates whose forward rules are allowed to fire.
+   *
+   * @return the templates
+   */
+  public List<Fort> getTemplates() {
+    return templates;
+  }
+
+  public void setTemplates(List<Fort> templates) {
+    this.templates = (templates == null)
+            ? Collections.<Fort>emptyList() : new ArrayList<Fort>(templates);
+  }
+
+  // Private
+
+  private long assertInTransaction(final Iterator<? extends Item> items, final Listener listener)
+          throws CycConnectionException, CycApiException {
+    long index = 0;
+    final List<ItemResult> results = new ArrayList<ItemResult>();
+    while (items.hasNext()) {
+      final Item item = items.next();
+      assertTool.assertSentence(item.getSentenceApiValue(), makeElMt(item.getMt()),
+              item.getStrength(), item.getDirection(), bookkeeping, transcript,
+              disableWffChecking, templates);
+      results.add(new ItemResult(index++, item, true, null));
+      if (results.size() >= maxBatchSize) {
+        listener.batchCompleted(new ArrayList<ItemResult>(results));
+        results.clear();
+      }
+    }
+    if (!results.isEmpty()) {
+      listener.batchCompleted(results);
+    }
+    return 0;
+  }
+
+  private Callable<List<ItemResult>> newBatchTask(final long firstIndex, final List<Item> batch,
+          final Map<CycObject, ElMt> elMts) throws CycConnectionException, CycApiException {
+    final List<String> mts = new ArrayList<String>(batch.size());
+    for (final Item item : batch) {
+      ElMt elMt = elMts.get(item.getMt());
+      if (elMt == null) {
+        elMt = makeElMt(item.getMt());
+        elMts.put(item.getMt(), elMt);
+      }
+      mts.add(elMt.stringApiValue());
+    }
+    return new Callable<List<ItemResult>>() {
+      @Override
+      public List<ItemResult> call() throws CycConnectionException, CycApiException {
+        return assertBatch(firstIndex, batch, mts);
+      }
+    };
+  }
+
+  private List<ItemResult> assertBatch(final long firstIndex, final List<Item> batch,
+          final List<String> mts) throws CycConnectionException, CycApiException {
+    final List<Object> rows;
+    try {
+      rows = getConverse().converseList(makeBatchCommand(batch, mts));
+    } catch (CycApiException e) {
+      if (batch.size() == 1) {
+        return Collections.singletonList(new ItemResult(firstIndex, batch.get(0), false,
+                e.getMessage()));
+      }
+      // find the items which spoil the batch by sending them on their own
+      final List<ItemResult> results = new ArrayList<ItemResult>(batch.size());
+      for (int i = 0; i < batch.size(); i++) {
+        results.addAll(assertBatch(firstIndex + i, batch.subList(i, i + 1), mts.subList(i, i + 1)));
+      }
+      return results;
+    }
+    if (rows.size() != batch.size()) {
+      throw new CycApiException("Expected " + batch.size() + " results but got " + rows.size());
+    }
+    final List<ItemResult> results = new ArrayList<ItemResult>(batch.size());
+    for (int i = 0; i < batch.size(); i++) {
+      final List row = (List) rows.get(i);
+      final boolean successful = !CycObjectFactory.nil.equals(row.get(0));
+      final Object reason = row.get(1);
+      results.add(new ItemResult(firstIndex + i, batch.get(i), successful,
+              CycObjectFactory.nil.equals(reason) ? null : reason.toString()));
+    }
+    return results;
+  }
+
+  private String makeBatchCommand(final List<Item> batch, final List<String> mts) {
+    final StringBuilder command = new StringBuilder();
+    command.append("(clet ((results nil))\n")
+            .append("  (cdolist (item (list");
+    for (int i = 0; i < batch.size(); i++) {
+      final Item item = batch.get(i);
+      command.append("\n    (list ").append(item.getSentenceApiValue())
+              .append(" ").append(mts.get(i))
+              .append(" ").append(item.getStrength())
+              .append(" ").append((item.getDirection() == null) ? "nil" : item.getDirection())
+              .append(")");
+    }
+    command.append("))\n")
+            .append("    (clet ((result nil)\n")
+            .append("           (message nil)\n")
+            .append("           (sentence (first item))\n")
+            .append("           (mt (second item))\n")
+            .append("           (strength (third item))\n")
+            .append("           (direction (fourth item)))\n")
+            .append("      (catch-error-message (message)\n")
+            .append("        (csetq result (multiple-value-list\n");
+    if (transcript) {
+      command.append("          (fif direction\n")
+              .append("               (ke-assert-now sentence mt strength direction)\n")
+              .append("               (ke-assert-now sentence mt strength))))))\n");
+    } else {
+      command.append("          (cyc-assert sentence mt (fif direction\n")
+              .append("                                       (list :strength strength :direction direction)\n")
+              .append("                                       (list :strength strength)))))))\n");
+    }
+    command.append("      (cpush (list (cand (null message) (first result))\n")
+            .append("                   (fif message message (second result)))\n")
+            .append("             results)))\n")
+            .append("  (nreverse results))");
+    final CommandTool converse = getConverse();
+    String wrapped = bookkeeping
+            ? converse.wrapBookkeeping(command.toString())
+            : converse.wrapCyclistAndPurpose(command.toString());
+    wrapped = converse.wrapForwardInferenceRulesTemplates(wrapped, templates);
+    if (disableWffChecking) {
+      wrapped = converse.wrapDisableWffChecking(wrapped);
+    }
+    return wrapped;
+  }
+
+  private static long deliver(final List<ItemResult> results, final Listener listener) {
+    long failures = 0;
+    for (final ItemResult result : results) {
+      if (!result.isSuccessful()) {
+        failures++;
+      }
+    }
+    listener.batchCompleted(results);
+    return failures;
+  }
+
+  private static List<ItemResult> call(final Callable<List<ItemResult>> task)
+          throws CycConnectionException, CycApiException {
+    try {
+      return task.call();
+    } catch (CycConnectionException e) {
+      throw e;
+    } catch (CycApiException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new CycApiException("Bulk assertion failed", e);
+    }
+  }
+
+  private static List<ItemResult> await(final Future<List<ItemResult>> future)
+          throws CycConnectionException, CycApiException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CycApiException("Interrupted while asserting", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof CycConnectionException) {
+        throw (CycConnectionException) e.getCause();
+      } else if (e.getCause() instanceof CycApiException) {
+        throw (CycApiException) e.getCause();
+      }
+      throw new CycApiException("Bulk assertion failed", e.getCause());
+    }
+  }
+
+  private ElMt makeElMt(final CycObject mt) throws CycConnectionException, CycApiException {
+    return (mt instanceof ElMt) ? (ElMt) mt : getCyc().getObjectTool().makeElMt(mt);
+  }
+
+  private CycAccess getCyc() {
+    return cyc;
+  }
+
+  private CommandTool getConverse() {
+    return getCyc().converse();
+  }
+
+  // Internal
+
+  private static final ThreadFactory THREAD_FACTORY = new ThreadFactory() {
+    @Override
+    public Thread newThread(Runnable runnable) {
+      final Thread thread = new Thread(runnable, "BulkAssertion-" + THREAD_COUNT.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  };
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+  private final CycAssertTool assertTool;
+  private final CycAccess cyc;
+  private volatile int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+  private volatile int maxBatchChars = DEFAULT_MAX_BATCH_CHARS;
+  private volatile int maxBatchesInFlight = DEFAULT_MAX_BATCHES_IN_FLIGHT;
+  private volatile boolean bookkeeping = true;
+  private volatile boolean transcript = true;
+  private volatile boolean disableWffChecking = false;
+  private volatile List<Fort> templates = Collections.<Fort>emptyList();
+}
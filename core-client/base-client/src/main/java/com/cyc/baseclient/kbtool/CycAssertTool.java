@@ -38,6 +38,7 @@ import com.cyc.baseclient.AbstractKbTool;
 import com.cyc.baseclient.CommonConstants;
 import com.cyc.base.exception.CycApiException;
 import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.connection.PreparedSublCommand;
 import com.cyc.baseclient.cycobject.CycArrayList;
 import com.cyc.baseclient.cycobject.CycFormulaSentence;
 
@@ -377,14 +378,17 @@ public class CycAssertTool extends AbstractKbTool implements AssertTool {
       command = getConverse().wrapDisableWffChecking(command);
     }
     CycList<Object> results = getConverse().converseList(command);
-    boolean statusOk = !results.get(0).equals(CycObjectFactory.nil);
-    if (!statusOk) {
-      String message = "Assertion sentence: " + sentence + " failed in mt: " + mt.cyclify();
-      if (results.size() > 1) {
-        message += "\n" + sentence + "\nbecause: \n" + results.get(1);
-      }
-      throw new CycApiException(message);
-    }
+    verifyAssertionResults(results, sentence, mt);
+  }
+  
+  /**
+   * Returns a new bulk assertion, which asserts many sentences in a few api requests. Its
+   * defaults match {@link #assertWithTranscriptAndBookkeeping(CycList, CycObject)}.
+   *
+   * @return the BulkAssertion
+   */
+  public BulkAssertion newBulkAssertion() {
+    return new BulkAssertion(this, getCyc());
   }
   
   /** Asserts that the given term is dependent upon the given independent term. If the latter is
@@ -2285,7 +2289,7 @@ public class CycAssertTool extends AbstractKbTool implements AssertTool {
   @Override
   public synchronized boolean merge(Fort killFort, Fort keepFort)
           throws CycConnectionException, CycApiException {
-    String command = "(ke-merge-now " + killFort.stringApiValue() + " " + keepFort.stringApiValue() + ")";
+    final CycList command = KE_MERGE_NOW.bind(killFort, keepFort);
     Object[] response = {null, null};
     response = converse_inner(command);
     if (response[0].equals(Boolean.TRUE)) {
@@ -2314,6 +2318,45 @@ public class CycAssertTool extends AbstractKbTool implements AssertTool {
   private void assertWithTranscriptAndBookkeepingInternal(CycObject sentence,
           CycObject mt)
           throws CycConnectionException, CycApiException {
-    assertSentence(sentence.stringApiValue(), makeElMt_inner(mt), null, null, true, true);
+    final ElMt elMt = makeElMt_inner(mt);
+    if (getCurrentTransaction() != null) {
+      assertSentence(sentence.stringApiValue(), elMt, null, null, true, true);
+      return;
+    }
+    // the same command which assertSentence builds, without making and parsing a string
+    final CycList<Object> results = getConverse().converseList(
+            ASSERT_WITH_TRANSCRIPT_AND_BOOKKEEPING.bind(getCyc().getOptions().getCyclist(),
+                    getCyc().getOptions().getKePurpose(), sentence, elMt));
+    if (results.get(0).equals(CycObjectFactory.nil)) {
+      verifyAssertionResults(results, sentence.stringApiValue(), elMt);
+    }
+  }
+  
+  boolean isInTransaction() {
+    return getCurrentTransaction() != null;
+  }
+  
+  private static void verifyAssertionResults(CycList<Object> results, String sentence, ElMt mt)
+          throws CycApiException {
+    boolean statusOk = !results.get(0).equals(CycObjectFactory.nil);
+    if (!statusOk) {
+      String message = "Assertion sentence: " + sentence + " failed in mt: " + mt.cyclify();
+      if (results.size() > 1) {
+        message += "\n" + sentence + "\nbecause: \n" + results.get(1);
+      }
+      throw new CycApiException(message);
+    }
   }
+  
+  
+  // Internal
+  
+  private static final PreparedSublCommand ASSERT_WITH_TRANSCRIPT_AND_BOOKKEEPING =
+          PreparedSublCommand.prepare(
+                  "(with-bookkeeping-info (new-bookkeeping-info $cyclist (the-date) $purpose (the-second)) "
+                  + "  (clet ((*the-cyclist* $cyclist) "
+                  + "         (*ke-purpose* $purpose)) "
+                  + "    (multiple-value-list (ke-assert-now $sentence/term $mt/term :default))))");
+  private static final PreparedSublCommand KE_MERGE_NOW =
+          PreparedSublCommand.prepare("(ke-merge-now $kill/fort $keep/fort)");
 }
@@ -38,6 +38,8 @@ import java.util.Map;
 import com.cyc.baseclient.AbstractKbTool;
 import com.cyc.baseclient.CommonConstants;
 import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.connection.PreparedSublCommand;
+import com.cyc.baseclient.connection.SublFuture;
 import static com.cyc.baseclient.CycObjectFactory.makeCycSymbol;
 import static com.cyc.baseclient.connection.SublApiHelper.makeNestedSubLStmt;
 import static com.cyc.baseclient.connection.SublApiHelper.makeSubLStmt;
@@ -47,6 +49,7 @@ import com.cyc.baseclient.cycobject.DefaultCycObject;
 import com.cyc.baseclient.cycobject.ElMtConstant;
 import com.cyc.baseclient.datatype.Pair;
 import static com.cyc.baseclient.subl.functions.SublFunctions.CATEGORIZE_TERM_WRT_API;
+import com.cyc.baseclient.taxonomy.TaxonomyIndex;
 import com.cyc.baseclient.util.LruCache;
 
 /**
@@ -80,8 +83,25 @@ public class CycInspectorTool extends AbstractKbTool implements InspectorTool {
   public int countAllInstances(Fort collection,
           CycObject mt)
           throws CycConnectionException, CycApiException {
-    return getConverse().converseInt("(count-all-instances " + collection.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseInt(COUNT_ALL_INSTANCES.bind(collection, makeElMt_inner(mt)));
+  }
+
+  /**
+   * Returns the count of the instances of the given COLLECTION, without waiting for Cyc to respond.
+   *
+   * @param collection the COLLECTION whose instances are counted
+   * @param mt microtheory (including its genlMts) in which the count is determined
+   *
+   * @return the pending count of the instances of the given COLLECTION
+   * @see #countAllInstances(com.cyc.base.cycobject.Fort, com.cyc.base.cycobject.CycObject)
+   *
+   * @throws CycConnectionException if a data communication error occurs while making the mt
+   */
+  public SublFuture<Integer> countAllInstancesAsync(Fort collection,
+          CycObject mt)
+          throws CycConnectionException {
+    return getAsyncConverse().converseIntAsync(
+            COUNT_ALL_INSTANCES.bind(collection, makeElMt_inner(mt)));
   }
 
   /**
@@ -170,8 +190,11 @@ public class CycInspectorTool extends AbstractKbTool implements InspectorTool {
   public boolean isa(CycObject term,
           Fort collection)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseBoolean("(isa-in-any-mt? " + term.stringApiValue() + " "
-            + collection.stringApiValue() + ")");
+    final Boolean indexed = isaFromIndex(term, collection, null);
+    if (indexed != null) {
+      return indexed;
+    }
+    return getConverse().converseBoolean(ISA_IN_ANY_MT.bind(term, collection));
   }
 
   /**
@@ -193,10 +216,57 @@ public class CycInspectorTool extends AbstractKbTool implements InspectorTool {
           CycObject collection,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    final String command = "(isa? " + term.stringApiValue() + " "
-            + collection.stringApiValue() + " " + makeElMt_inner(mt).stringApiValue() + ")";
+    final Boolean indexed = isaFromIndex(term, collection, mt);
+    if (indexed != null) {
+      return indexed;
+    }
+    return getConverse().converseBoolean(ISA_IN_MT.bind(term, collection, makeElMt_inner(mt)));
+  }
 
-    return getConverse().converseBoolean(command);
+  /**
+   * Returns true if CycFort TERM is a instance of CycFort COLLECTION, defaulting to all
+   * microtheories, without waiting for Cyc to respond. An answer from the taxonomy index is
+   * returned as a completed future.
+   *
+   * @param term the term
+   * @param collection the COLLECTION
+   *
+   * @return the pending <tt>true</tt> if CycFort TERM is a instance of CycFort COLLECTION
+   * @see #isa(com.cyc.base.cycobject.CycObject, com.cyc.base.cycobject.Fort)
+   */
+  public SublFuture<Boolean> isaAsync(CycObject term,
+          Fort collection) {
+    final Boolean indexed = isaFromIndex(term, collection, null);
+    if (indexed != null) {
+      return SublFuture.completed(indexed);
+    }
+    return getAsyncConverse().converseBooleanAsync(ISA_IN_ANY_MT.bind(term, collection));
+  }
+
+  /**
+   * Returns true if CycFort TERM is a instance of CycFort COLLECTION, using the given microtheory,
+   * without waiting for Cyc to respond. An answer from the taxonomy index is returned as a
+   * completed future.
+   *
+   * @param term the term
+   * @param collection the COLLECTION
+   * @param mt the microtheory in which the ask is performed
+   *
+   * @return the pending <tt>true</tt> if CycFort TERM is a instance of CycFort COLLECTION
+   * @see #isa(com.cyc.base.cycobject.CycObject, com.cyc.base.cycobject.CycObject, com.cyc.base.cycobject.CycObject)
+   *
+   * @throws CycConnectionException if a data communication error occurs while making the mt
+   */
+  public SublFuture<Boolean> isaAsync(CycObject term,
+          CycObject collection,
+          CycObject mt)
+          throws CycConnectionException {
+    final Boolean indexed = isaFromIndex(term, collection, mt);
+    if (indexed != null) {
+      return SublFuture.completed(indexed);
+    }
+    return getAsyncConverse().converseBooleanAsync(
+            ISA_IN_MT.bind(term, collection, makeElMt_inner(mt)));
   }
   
   @Override
@@ -781,8 +851,8 @@ public class CycInspectorTool extends AbstractKbTool implements InspectorTool {
   @Override
   public boolean isFunction(CycObject cycObj)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseBoolean("(isa-in-any-mt? " + cycObj.stringApiValue()
-            + " " + FUNCTION_DENOTATIONAL + ")");
+    return getConverse().converseBoolean(
+            ISA_IN_ANY_MT.bind(cycObj, CommonConstants.FUNCTION_DENOTATIONAL));
   }
   
   /**
@@ -799,8 +869,8 @@ public class CycInspectorTool extends AbstractKbTool implements InspectorTool {
   @Override
   public boolean isReifiableFunction(CycObject cycObj)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseBoolean("(isa-in-any-mt? " + cycObj.stringApiValue()
-            + " " + REIFIABLE_FUNCTION + ")");
+    return getConverse().converseBoolean(
+            ISA_IN_ANY_MT.bind(cycObj, CommonConstants.REIFIABLE_FUNCTION));
   }
   
   /**
@@ -876,8 +946,8 @@ public class CycInspectorTool extends AbstractKbTool implements InspectorTool {
       throw new NullPointerException("cycObject must not be null");
     }
     verifyPossibleDenotationalTerm(cycObject);
-    return getConverse().converseBoolean("(isa-in-any-mt? " + cycObject.stringApiValue()
-            + " " + UNARY_PREDICATE + ")");
+    return getConverse().converseBoolean(
+            ISA_IN_ANY_MT.bind(cycObject, CommonConstants.UNARY_PREDICATE));
   }
           
   /**
@@ -1069,8 +1139,30 @@ public class CycInspectorTool extends AbstractKbTool implements InspectorTool {
   public boolean isGenlOf(CycObject genl,
           CycObject spec)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseBoolean("(genl-in-any-mt? " + spec.stringApiValue() + " "
-            + genl.stringApiValue() + ")");
+    final Boolean indexed = isGenlOfFromIndex(genl, spec, null);
+    if (indexed != null) {
+      return indexed;
+    }
+    return getConverse().converseBoolean(GENL_IN_ANY_MT.bind(spec, genl));
+  }
+
+  /**
+   * Returns true if CycFort GENL is a genl of CycFort SPEC, without waiting for Cyc to respond. An
+   * answer from the taxonomy index is returned as a completed future.
+   *
+   * @param genl the COLLECTION for genl determination
+   * @param spec the COLLECTION for spec determination
+   *
+   * @return the pending <tt>true</tt> if CycFort GENL is a genl of CycFort SPEC
+   * @see #isGenlOf(com.cyc.base.cycobject.CycObject, com.cyc.base.cycobject.CycObject)
+   */
+  public SublFuture<Boolean> isGenlOfAsync(CycObject genl,
+          CycObject spec) {
+    final Boolean indexed = isGenlOfFromIndex(genl, spec, null);
+    if (indexed != null) {
+      return SublFuture.completed(indexed);
+    }
+    return getAsyncConverse().converseBooleanAsync(GENL_IN_ANY_MT.bind(spec, genl));
   }
 
   /**
@@ -1118,8 +1210,36 @@ public class CycInspectorTool extends AbstractKbTool implements InspectorTool {
           CycObject spec,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseBoolean("(genl? " + spec.stringApiValue() + " " + genl.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    final Boolean indexed = isGenlOfFromIndex(genl, spec, mt);
+    if (indexed != null) {
+      return indexed;
+    }
+    return getConverse().converseBoolean(GENL_IN_MT.bind(spec, genl, makeElMt_inner(mt)));
+  }
+
+  /**
+   * Returns true if CycFort GENL is a genl of CycFort SPEC in MT, without waiting for Cyc to
+   * respond. An answer from the taxonomy index is returned as a completed future.
+   *
+   * @param genl the COLLECTION for genl determination
+   * @param spec the COLLECTION for spec determination
+   * @param mt the microtheory for spec determination
+   *
+   * @return the pending <tt>true</tt> if CycFort GENL is a genl of CycFort SPEC in MT
+   * @see #isGenlOf(com.cyc.base.cycobject.CycObject, com.cyc.base.cycobject.CycObject, com.cyc.base.cycobject.CycObject)
+   *
+   * @throws CycConnectionException if a data communication error occurs while making the mt
+   */
+  public SublFuture<Boolean> isGenlOfAsync(CycObject genl,
+          CycObject spec,
+          CycObject mt)
+          throws CycConnectionException {
+    final Boolean indexed = isGenlOfFromIndex(genl, spec, mt);
+    if (indexed != null) {
+      return SublFuture.completed(indexed);
+    }
+    return getAsyncConverse().converseBooleanAsync(
+            GENL_IN_MT.bind(spec, genl, makeElMt_inner(mt)));
   }
 
   /**
@@ -1226,6 +1346,11 @@ public class CycInspectorTool extends AbstractKbTool implements InspectorTool {
   public boolean isGenlMtOf(CycObject genlMt,
           CycObject specMt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
+    final TaxonomyIndex index = getTaxonomyIndex_inner(null);
+    final Boolean indexed = (index == null) ? null : index.isGenlMtOf(genlMt, specMt);
+    if (indexed != null) {
+      return indexed;
+    }
     return getConverse().converseBoolean("(genl-mt? " + makeElMt_inner(specMt).stringApiValue() + " "
             + makeElMt_inner(genlMt).stringApiValue() + ")");
   }
@@ -1233,6 +1358,16 @@ public class CycInspectorTool extends AbstractKbTool implements InspectorTool {
   
   // Private
   
+  private Boolean isaFromIndex(CycObject term, CycObject collection, CycObject mt) {
+    final TaxonomyIndex index = getTaxonomyIndex_inner(mt);
+    return (index == null) ? null : index.isa(term, collection);
+  }
+  
+  private Boolean isGenlOfFromIndex(CycObject genl, CycObject spec, CycObject mt) {
+    final TaxonomyIndex index = getTaxonomyIndex_inner(mt);
+    return (index == null) ? null : index.isGenlOf(genl, spec);
+  }
+  
   private boolean isWellFormedFormulaInternal(CycObject cycList)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
     return getConverse().converseBoolean(makeSubLStmt(WITH_ALL_MTS, makeNestedSubLStmt(EL_WFF,
@@ -1254,6 +1389,17 @@ public class CycInspectorTool extends AbstractKbTool implements InspectorTool {
   // Internal
   
   private static final CycSymbolImpl EL_WFF = makeCycSymbol("el-wff?");
+  
+  private static final PreparedSublCommand COUNT_ALL_INSTANCES =
+          PreparedSublCommand.prepare("(count-all-instances $col/term $mt/term)");
+  private static final PreparedSublCommand ISA_IN_ANY_MT =
+          PreparedSublCommand.prepare("(isa-in-any-mt? $term/term $col/term)");
+  private static final PreparedSublCommand ISA_IN_MT =
+          PreparedSublCommand.prepare("(isa? $term/term $col/term $mt/term)");
+  private static final PreparedSublCommand GENL_IN_ANY_MT =
+          PreparedSublCommand.prepare("(genl-in-any-mt? $spec/term $genl/term)");
+  private static final PreparedSublCommand GENL_IN_MT =
+          PreparedSublCommand.prepare("(genl? $spec/term $genl/term $mt/term)");
 
   /** 
    * Least Recently Used Cache of isCollection results.
@@ -1278,8 +1424,5 @@ public class CycInspectorTool extends AbstractKbTool implements InspectorTool {
   //  private static final String PUBLIC_CONSTANT = CommonConstants.PUBLIC_CONSTANT.cyclify();
   private static final String COLLECTION = CommonConstants.COLLECTION.cyclify();
   private static final String INDIVIDUAL = CommonConstants.INDIVIDUAL.cyclify();
-  private static final String FUNCTION_DENOTATIONAL = CommonConstants.FUNCTION_DENOTATIONAL.cyclify();
-  private static final String REIFIABLE_FUNCTION = CommonConstants.REIFIABLE_FUNCTION.cyclify();
   private static final String PREDICATE = CommonConstants.PREDICATE.cyclify();
-  private static final String UNARY_PREDICATE = CommonConstants.UNARY_PREDICATE.cyclify();
 }
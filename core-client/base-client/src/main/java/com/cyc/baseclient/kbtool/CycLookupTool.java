@@ -47,6 +47,8 @@ import com.cyc.baseclient.CycObjectFactory;
 import static com.cyc.baseclient.CycObjectFactory.makeCycSymbol;
 import com.cyc.baseclient.connection.SublApiHelper;
 import static com.cyc.baseclient.connection.SublApiHelper.makeNestedSubLStmt;
+import com.cyc.baseclient.connection.PreparedSublCommand;
+import com.cyc.baseclient.connection.SublFuture;
 import static com.cyc.baseclient.connection.SublApiHelper.makeSubLStmt;
 import com.cyc.baseclient.cycobject.CycArrayList;
 import com.cyc.baseclient.cycobject.CycAssertionImpl;
@@ -61,6 +63,7 @@ import com.cyc.baseclient.cycobject.NautImpl;
 import com.cyc.baseclient.datatype.StringUtils;
 import com.cyc.baseclient.inference.params.DefaultInferenceParameters;
 import com.cyc.baseclient.nl.ParaphraserFactory;
+import com.cyc.baseclient.taxonomy.TaxonomyIndex;
 import com.cyc.baseclient.util.Log;
 import com.cyc.nl.Paraphraser;
 import com.cyc.session.exception.OpenCycUnsupportedFeatureException;
@@ -273,8 +276,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
     if (answer != null) { //@todo sometimes the cache is stale, and we ought to be able to force a look in the KB.
       return answer;
     }
-    final String command = makeSubLStmt("find-constant", name);
-    final Object answerObject = getConverse().converseObject(command);
+    final Object answerObject = getConverse().converseObject(FIND_CONSTANT.bind(name));
     if (answerObject instanceof CycConstantImpl) {
       answer = (CycConstantImpl) answerObject;
       CycObjectFactory.addCycConstantCache(answer);
@@ -283,6 +285,36 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
     return null;
   }
 
+  /**
+   * Gets a CycConstantImpl by using its constant name, without waiting for Cyc to respond.
+   *
+   * @param constantName the name of the constant to be instantiated
+   *
+   * @return the pending <tt>CycConstantImpl</tt>, whose result is null if it was not found
+   * @see #getConstantByName(java.lang.String)
+   */
+  public SublFuture<CycConstantImpl> getConstantByNameAsync(final String constantName) {
+    String name = constantName;
+    if (constantName.startsWith(HD)) {
+      name = name.substring(2);
+    }
+    final CycConstantImpl answer = CycObjectFactory.getCycConstantCacheByName(name);
+    if (answer != null) {
+      return SublFuture.completed(answer);
+    }
+    return getAsyncConverse().converseObjectAsync(FIND_CONSTANT.bind(name)).transform(
+            new SublFuture.Transformer<Object, CycConstantImpl>() {
+      @Override
+      public CycConstantImpl transform(Object answerObject) {
+        if (answerObject instanceof CycConstantImpl) {
+          CycObjectFactory.addCycConstantCache((CycConstantImpl) answerObject);
+          return (CycConstantImpl) answerObject;
+        }
+        return null;
+      }
+    });
+  }
+
   /**
    * Gets the GuidImpl for the given constant name, raising an exception if the constant does not
  exist.
@@ -861,12 +893,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
     if (cycObject instanceof CycArrayList) {
       return null;
     }
-    String script = "(clet ((comment-string \n" + "         (with-all-mts (comment "
-            + cycObject.stringApiValue() + ")))) \n" + "  (fif comment-string \n"
-            + "       (string-substitute \" \" \"\\\"\" comment-string) \n"
-            + "       \"\"))";
-
-    return getConverse().converseString(script);
+    return getConverse().converseString(ALL_MTS_COMMENT.bind(cycObject));
   }
 
   /**
@@ -891,15 +918,51 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
     if (mt == null) {
       throw new NullPointerException("mt must not be null");
     }
-    String script =
-            "(clet ((comment-string \n"
-            + "         (comment " + cycObject.stringApiValue() + " " +  makeElMt_inner(
-            mt).stringApiValue() + "))) \n"
-            + "  (fif comment-string \n"
-            + "       (string-substitute \" \" \"\\\"\" comment-string) \n"
-            + "       \"\"))";
+    return getConverse().converseString(COMMENT_IN_MT.bind(cycObject, makeElMt_inner(mt)));
+  }
+
+  /**
+   * Gets the comment for a Fort, without waiting for Cyc to respond.
+   *
+   * @param cycObject the term for which the comment is sought
+   *
+   * @return the pending comment for the given Fort
+   * @see #getComment(com.cyc.base.cycobject.CycObject)
+   */
+  public SublFuture<String> getCommentAsync(CycObject cycObject) {
+    //// Preconditions
+    if (cycObject == null) {
+      throw new NullPointerException("cycObject must not be null");
+    }
+    verifyPossibleDenotationalTerm(cycObject);
+    if (cycObject instanceof CycArrayList) {
+      return SublFuture.completed(null);
+    }
+    return getAsyncConverse().converseStringAsync(ALL_MTS_COMMENT.bind(cycObject));
+  }
 
-    return getConverse().converseString(script);
+  /**
+   * Gets the comment for a Fort in the relevant mt, without waiting for Cyc to respond.
+   *
+   * @param cycObject the term for which the comment is sought
+   * @param mt the relevant mt from which the comment is visible
+   *
+   * @return the pending comment for the given Fort
+   * @see #getComment(com.cyc.base.cycobject.CycObject, com.cyc.base.cycobject.CycObject)
+   *
+   * @throws CycConnectionException if a data communication error occurs while making the mt
+   */
+  public SublFuture<String> getCommentAsync(final CycObject cycObject,
+          final CycObject mt)
+          throws CycConnectionException {
+    //// Preconditions
+    if (cycObject == null) {
+      throw new NullPointerException("cycObject must not be null");
+    }
+    if (mt == null) {
+      throw new NullPointerException("mt must not be null");
+    }
+    return getAsyncConverse().converseStringAsync(COMMENT_IN_MT.bind(cycObject, makeElMt_inner(mt)));
   }
 
   /**
@@ -920,8 +983,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
       throw new NullPointerException("cycObject must not be null");
     }
     verifyPossibleDenotationalTerm(cycObject);
-    return getConverse().converseList("(remove-duplicates (with-all-mts (isa " + cycObject.stringApiValue()
-            + ")))");
+    return getConverse().converseList(ALL_MTS_ISA.bind(cycObject));
   }
 
   /**
@@ -947,9 +1009,50 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
     if (mt == null) {
       throw new NullPointerException("mt must not be null");
     }
-    return getConverse().converseList("(isa " + cycObject.stringApiValue()
-            + " " +  makeElMt_inner(mt).stringApiValue()
-            + ")");
+    return getConverse().converseList(ISA_IN_MT.bind(cycObject, makeElMt_inner(mt)));
+  }
+
+  /**
+   * Gets the list of the isas for the given Fort, without waiting for Cyc to respond.
+   *
+   * @param cycObject the term for which its isas are sought
+   *
+   * @return the pending list of the isas for the given Fort
+   * @see #getIsas(com.cyc.base.cycobject.CycObject)
+   */
+  public SublFuture<CycArrayList> getIsasAsync(CycObject cycObject) {
+    //// Preconditions
+    if (cycObject == null) {
+      throw new NullPointerException("cycObject must not be null");
+    }
+    verifyPossibleDenotationalTerm(cycObject);
+    return getAsyncConverse().converseListAsync(ALL_MTS_ISA.bind(cycObject));
+  }
+
+  /**
+   * Gets the list of the isas for the given Fort in the relevant mt, without waiting for Cyc to
+   * respond.
+   *
+   * @param cycObject the term for which its isas are sought
+   * @param mt the relevant mt
+   *
+   * @return the pending list of the isas for the given Fort
+   * @see #getIsas(com.cyc.base.cycobject.CycObject, com.cyc.base.cycobject.CycObject)
+   *
+   * @throws CycConnectionException if a data communication error occurs while making the mt
+   */
+  public SublFuture<CycArrayList> getIsasAsync(final CycObject cycObject,
+          CycObject mt)
+          throws CycConnectionException {
+    //// Preconditions
+    if (cycObject == null) {
+      throw new NullPointerException("cycObject must not be null");
+    }
+    verifyPossibleDenotationalTerm(cycObject);
+    if (mt == null) {
+      throw new NullPointerException("mt must not be null");
+    }
+    return getAsyncConverse().converseListAsync(ISA_IN_MT.bind(cycObject, makeElMt_inner(mt)));
   }
 
   /**
@@ -970,8 +1073,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
       throw new NullPointerException("cycObject must not be null");
     }
     verifyPossibleDenotationalTerm(cycObject);
-    return getConverse().converseList("(remove-duplicates (with-all-mts (genls " + cycObject.stringApiValue()
-            + ")))");
+    return getConverse().converseList(ALL_MTS_GENLS.bind(cycObject));
   }
 
   /**
@@ -997,8 +1099,51 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
     if (mt == null) {
       throw new NullPointerException("mt must not be null");
     }
-    return getConverse().converseList("(genls " + cycObject.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(GENLS_IN_MT.bind(cycObject, makeElMt_inner(mt)));
+  }
+
+  /**
+   * Gets the list of the directly asserted true genls for the given Fort COLLECTION, without
+   * waiting for Cyc to respond.
+   *
+   * @param cycObject the given term
+   *
+   * @return the pending list of the directly asserted true genls for the given Fort COLLECTION
+   * @see #getGenls(com.cyc.base.cycobject.CycObject)
+   */
+  public SublFuture<CycArrayList> getGenlsAsync(CycObject cycObject) {
+    //// Preconditions
+    if (cycObject == null) {
+      throw new NullPointerException("cycObject must not be null");
+    }
+    verifyPossibleDenotationalTerm(cycObject);
+    return getAsyncConverse().converseListAsync(ALL_MTS_GENLS.bind(cycObject));
+  }
+
+  /**
+   * Gets the list of the directly asserted true genls for the given Fort COLLECTION in the relevant
+   * mt, without waiting for Cyc to respond.
+   *
+   * @param cycObject the given term
+   * @param mt the relevant mt
+   *
+   * @return the pending list of the directly asserted true genls for the given Fort COLLECTION
+   * @see #getGenls(com.cyc.base.cycobject.CycObject, com.cyc.base.cycobject.CycObject)
+   *
+   * @throws CycConnectionException if a data communication error occurs while making the mt
+   */
+  public SublFuture<CycArrayList> getGenlsAsync(final CycObject cycObject,
+          final CycObject mt)
+          throws CycConnectionException {
+    //// Preconditions
+    if (cycObject == null) {
+      throw new NullPointerException("cycObject must not be null");
+    }
+    verifyPossibleDenotationalTerm(cycObject);
+    if (mt == null) {
+      throw new NullPointerException("mt must not be null");
+    }
+    return getAsyncConverse().converseListAsync(GENLS_IN_MT.bind(cycObject, makeElMt_inner(mt)));
   }
 
   /**
@@ -1014,8 +1159,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   @Override
   public CycList getMinGenls(Fort cycFort)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(remove-duplicates (with-all-mts (min-genls "
-            + cycFort.stringApiValue() + ")))");
+    return getConverse().converseList(ALL_MTS_MIN_GENLS.bind(cycFort));
   }
 
   /**
@@ -1033,8 +1177,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getMinGenls(Fort cycFort,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(min-genls " + cycFort.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(MIN_GENLS_IN_MT.bind(cycFort, makeElMt_inner(mt)));
   }
 
   /**
@@ -1050,8 +1193,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   @Override
   public CycList getSpecs(Fort cycFort)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(remove-duplicates (with-all-mts (specs " + cycFort.stringApiValue()
-            + ")))");
+    return getConverse().converseList(ALL_MTS_SPECS.bind(cycFort));
   }
 
   /**
@@ -1069,8 +1211,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getSpecs(Fort cycFort,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(specs " + cycFort.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(SPECS_IN_MT.bind(cycFort, makeElMt_inner(mt)));
   }
 
   /**
@@ -1086,8 +1227,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   @Override
   public CycList getMaxSpecs(Fort cycFort)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(remove-duplicates (with-all-mts (max-specs "
-            + cycFort.stringApiValue() + ")))");
+    return getConverse().converseList(ALL_MTS_MAX_SPECS.bind(cycFort));
   }
 
   /**
@@ -1105,8 +1245,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getMaxSpecs(Fort cycFort,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(max-specs " + cycFort.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(MAX_SPECS_IN_MT.bind(cycFort, makeElMt_inner(mt)));
   }
 
   /**
@@ -1121,8 +1260,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   @Override
   public CycList getGenlSiblings(Fort cycFort)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(remove-duplicates (with-all-mts (genl-siblings "
-            + cycFort.stringApiValue() + ")))");
+    return getConverse().converseList(ALL_MTS_GENL_SIBLINGS.bind(cycFort));
   }
 
   /**
@@ -1139,8 +1277,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getGenlSiblings(Fort cycFort,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(genl-siblings " + cycFort.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(GENL_SIBLINGS_IN_MT.bind(cycFort, makeElMt_inner(mt)));
   }
 
   /**
@@ -1194,8 +1331,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   @Override
   public CycList getSpecSiblings(Fort cycFort)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(remove-duplicates (with-all-mts (spec-siblings "
-            + cycFort.stringApiValue() + ")))");
+    return getConverse().converseList(ALL_MTS_SPEC_SIBLINGS.bind(cycFort));
   }
 
   /**
@@ -1214,8 +1350,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getSpecSiblings(Fort cycFort,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(spec-siblings " + cycFort.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(SPEC_SIBLINGS_IN_MT.bind(cycFort, makeElMt_inner(mt)));
   }
 
   /**
@@ -1230,7 +1365,12 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   @Override
   public CycList getAllGenls(Fort cycFort)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(all-genls-in-any-mt " + cycFort.stringApiValue() + ")");
+    final TaxonomyIndex index = getTaxonomyIndex_inner(null);
+    final CycList indexed = (index == null) ? null : index.getAllGenls(cycFort);
+    if (indexed != null) {
+      return indexed;
+    }
+    return getConverse().converseList(ALL_GENLS_IN_ANY_MT.bind(cycFort));
   }
 
   /**
@@ -1257,8 +1397,12 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
     if (mt == null) {
       throw new NullPointerException("mt must not be null");
     }
-    return getConverse().converseList("(all-genls " + cycObject.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    final TaxonomyIndex index = getTaxonomyIndex_inner(mt);
+    final CycList indexed = (index == null) ? null : index.getAllGenls(cycObject);
+    if (indexed != null) {
+      return indexed;
+    }
+    return getConverse().converseList(ALL_GENLS_IN_MT.bind(cycObject, makeElMt_inner(mt)));
   }
 
   /**
@@ -1273,8 +1417,12 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   @Override
   public CycList getAllSpecs(Fort cycFort)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(remove-duplicates (with-all-mts (all-specs "
-            + cycFort.stringApiValue() + ")))");
+    final TaxonomyIndex index = getTaxonomyIndex_inner(null);
+    final CycList indexed = (index == null) ? null : index.getAllSpecs(cycFort);
+    if (indexed != null) {
+      return indexed;
+    }
+    return getConverse().converseList(ALL_MTS_ALL_SPECS.bind(cycFort));
   }
 
   /**
@@ -1292,8 +1440,12 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getAllSpecs(Fort cycFort,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(all-specs " + cycFort.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    final TaxonomyIndex index = getTaxonomyIndex_inner(mt);
+    final CycList indexed = (index == null) ? null : index.getAllSpecs(cycFort);
+    if (indexed != null) {
+      return indexed;
+    }
+    return getConverse().converseList(ALL_SPECS_IN_MT.bind(cycFort, makeElMt_inner(mt)));
   }
 
   /**
@@ -1353,8 +1505,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   @Override
   public CycList getAllDependentSpecs(Fort cycFort)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(remove-duplicates (with-all-mts (all-dependent-specs "
-            + cycFort.stringApiValue() + ")))");
+    return getConverse().converseList(ALL_MTS_ALL_DEPENDENT_SPECS.bind(cycFort));
   }
 
   /**
@@ -1374,8 +1525,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getAllDependentSpecs(Fort cycFort,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(all-dependent-specs " + cycFort.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(ALL_DEPENDENT_SPECS_IN_MT.bind(cycFort, makeElMt_inner(mt)));
   }
 
   /**
@@ -1879,8 +2029,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getCollectionLeaves(Fort cycFort,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(collection-leaves " + cycFort.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(COLLECTION_LEAVES_IN_MT.bind(cycFort, makeElMt_inner(mt)));
   }
 
   /**
@@ -1917,8 +2066,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getLocalDisjointWith(CycObject cycFort,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(local-disjoint-with " + cycFort.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(LOCAL_DISJOINT_WITH_IN_MT.bind(cycFort, makeElMt_inner(mt)));
   }
 
   /**
@@ -1959,8 +2107,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getMinIsas(CycObject cycFort,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(min-isa " + cycFort.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(MIN_ISA_IN_MT.bind(cycFort, makeElMt_inner(mt)));
   }
 
   /**
@@ -1998,8 +2145,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getInstances(CycObject cycFort,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(instances " + cycFort.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(INSTANCES_IN_MT.bind(cycFort, makeElMt_inner(mt)));
   }
 
   /**
@@ -2040,8 +2186,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getInstanceSiblings(CycObject cycFort,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(instance-siblings " + cycFort.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(INSTANCE_SIBLINGS_IN_MT.bind(cycFort, makeElMt_inner(mt)));
   }
 
   /**
@@ -2059,6 +2204,11 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   @Override
   public CycList getAllIsa(CycObject cycFort)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
+    final TaxonomyIndex index = getTaxonomyIndex_inner(null);
+    final CycList indexed = (index == null) ? null : index.getAllIsa(cycFort);
+    if (indexed != null) {
+      return indexed;
+    }
     String command = "(all-isa-in-any-mt " + cycFort.stringApiValue() + ")";
     CycList result = getConverse().converseList(command);
     return result;
@@ -2081,8 +2231,12 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getAllIsa(CycObject cycFort,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(all-isa " + cycFort.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    final TaxonomyIndex index = getTaxonomyIndex_inner(mt);
+    final CycList indexed = (index == null) ? null : index.getAllIsa(cycFort);
+    if (indexed != null) {
+      return indexed;
+    }
+    return getConverse().converseList(ALL_ISA_IN_MT.bind(cycFort, makeElMt_inner(mt)));
   }
 
   /**
@@ -2101,8 +2255,13 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   @Override
   public CycList getAllInstances(CycObject cycFort)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
+    final TaxonomyIndex index = getTaxonomyIndex_inner(null);
+    final CycList indexed = (index == null) ? null : index.getAllInstances(cycFort);
+    if (indexed != null) {
+      return indexed;
+    }
     return getConverse().converseList(
-            "(all-instances-in-all-mts " + cycFort.stringApiValue() + ")");
+            ALL_INSTANCES_IN_ALL_MTS.bind(cycFort));
   }
 
   /**
@@ -2122,8 +2281,12 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getAllInstances(CycObject cycFort,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(all-instances " + cycFort.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    final TaxonomyIndex index = getTaxonomyIndex_inner(mt);
+    final CycList indexed = (index == null) ? null : index.getAllInstances(cycFort);
+    if (indexed != null) {
+      return indexed;
+    }
+    return getConverse().converseList(ALL_INSTANCES_IN_MT.bind(cycFort, makeElMt_inner(mt)));
   }
 
   /**
@@ -2321,8 +2484,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
               + "    nil))";
       return getConverse().converseList(script);
     } else {
-      return getConverse().converseList("(remove-duplicates (with-all-mts (genl-predicates "
-              + predicate.stringApiValue() + ")))");
+      return getConverse().converseList(ALL_MTS_GENL_PREDICATES.bind(predicate));
     }
   }
 
@@ -2370,8 +2532,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   @Override
   public CycList getAllGenlPreds(CycConstant predicate)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(remove-duplicates (with-all-mts (all-genl-predicates "
-            + predicate.stringApiValue() + ")))");
+    return getConverse().converseList(ALL_MTS_ALL_GENL_PREDICATES.bind(predicate));
   }
 
   /**
@@ -2390,8 +2551,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getAllGenlPreds(CycConstant predicate,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(all-genl-predicates " + predicate.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(ALL_GENL_PREDICATES_IN_MT.bind(predicate, makeElMt_inner(mt)));
   }
 
   /**
@@ -2410,8 +2570,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   @Override
   public CycList getAllSpecPreds(Fort cycFort)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(remove-duplicates (with-all-mts (all-spec-predicates "
-            + cycFort.stringApiValue() + ")))");
+    return getConverse().converseList(ALL_MTS_ALL_SPEC_PREDICATES.bind(cycFort));
   }
 
   /**
@@ -2431,8 +2590,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getAllSpecPreds(Fort cycFort,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(all-spec-predicates " + cycFort.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(ALL_SPEC_PREDICATES_IN_MT.bind(cycFort, makeElMt_inner(mt)));
   }
 
   /**
@@ -2451,8 +2609,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   @Override
   public CycList getAllSpecInverses(Fort cycFort)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(remove-duplicates (with-all-mts (all-spec-inverses "
-            + cycFort.stringApiValue() + ")))");
+    return getConverse().converseList(ALL_MTS_ALL_SPEC_INVERSES.bind(cycFort));
   }
 
   /**
@@ -2472,8 +2629,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getAllSpecInverses(Fort cycFort,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(all-spec-inverses " + cycFort.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(ALL_SPEC_INVERSES_IN_MT.bind(cycFort, makeElMt_inner(mt)));
   }
 
   /**
@@ -2514,8 +2670,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
       throw new NullPointerException("cycObject must not be null");
     }
     verifyPossibleDenotationalTerm(cycObject);
-    return getConverse().converseList("(remove-duplicates (with-all-mts (arg1-isa "
-            + cycObject.stringApiValue() + ")))");
+    return getConverse().converseList(ALL_MTS_ARG1_ISA.bind(cycObject));
   }
 
   /**
@@ -2541,8 +2696,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
     if (mt == null) {
       throw new NullPointerException("mt must not be null");
     }
-    return getConverse().converseList("(arg1-isa " + predicate.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(ARG1_ISA_IN_MT.bind(predicate, makeElMt_inner(mt)));
   }
 
   /**
@@ -2564,8 +2718,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
       throw new NullPointerException("cycObject must not be null");
     }
     verifyPossibleDenotationalTerm(cycObject);
-    return getConverse().converseList("(remove-duplicates (with-all-mts (arg2-isa "
-            + cycObject.stringApiValue() + ")))");
+    return getConverse().converseList(ALL_MTS_ARG2_ISA.bind(cycObject));
   }
 
   /**
@@ -2592,8 +2745,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
     if (mt == null) {
       throw new NullPointerException("mt must not be null");
     }
-    return getConverse().converseList("(arg2-isa " + cycObject.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(ARG2_ISA_IN_MT.bind(cycObject, makeElMt_inner(mt)));
   }
 
   /**
@@ -2610,8 +2762,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   @Override
   public CycList getArg3Isas(Fort predicate)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(remove-duplicates (with-all-mts (arg3-isa "
-            + predicate.stringApiValue() + ")))");
+    return getConverse().converseList(ALL_MTS_ARG3_ISA.bind(predicate));
   }
 
   /**
@@ -2630,8 +2781,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getArg3Isas(Fort predicate,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(arg3-isa " + predicate.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(ARG3_ISA_IN_MT.bind(predicate, makeElMt_inner(mt)));
   }
 
   /**
@@ -2648,8 +2798,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   @Override
   public CycList getArg4Isas(Fort predicate)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(remove-duplicates (with-all-mts (arg4-isa "
-            + predicate.stringApiValue() + ")))");
+    return getConverse().converseList(ALL_MTS_ARG4_ISA.bind(predicate));
   }
 
   /**
@@ -2668,8 +2817,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getArg4Isas(Fort predicate,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(arg4-isa " + predicate.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(ARG4_ISA_IN_MT.bind(predicate, makeElMt_inner(mt)));
   }
 
   /**
@@ -2848,8 +2996,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   @Override
   public CycList getResultIsas(Fort function)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(remove-duplicates (with-all-mts (result-isa "
-            + function.stringApiValue() + ")))");
+    return getConverse().converseList(ALL_MTS_RESULT_ISA.bind(function));
   }
 
   /**
@@ -2868,8 +3015,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getResultIsas(Fort function,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(result-isa " + function.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(RESULT_ISA_IN_MT.bind(function, makeElMt_inner(mt)));
   }
 
   /**
@@ -2963,8 +3109,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
     if (cycObject == null) {
       throw new NullPointerException("cycObject must not be null");
     }
-    return getConverse().converseList("(arg1-format " + cycObject.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(ARG1_FORMAT_IN_MT.bind(cycObject, makeElMt_inner(mt)));
   }
 
   /**
@@ -3014,8 +3159,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
     if (cycObject == null) {
       throw new NullPointerException("cycObject must not be null");
     }
-    return getConverse().converseList("(arg2-format " + cycObject.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(ARG2_FORMAT_IN_MT.bind(cycObject, makeElMt_inner(mt)));
   }
 
   /**
@@ -3037,8 +3181,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
       throw new NullPointerException("cycObject must not be null");
     }
     verifyPossibleDenotationalTerm(cycObject);
-    return getConverse().converseList("(remove-duplicates (with-all-mts (local-disjoint-with "
-            + cycObject.stringApiValue() + ")))");
+    return getConverse().converseList(ALL_MTS_LOCAL_DISJOINT_WITH.bind(cycObject));
   }
 
   /**
@@ -3057,8 +3200,7 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   public CycList getDisjointWiths(Fort cycFort,
           CycObject mt)
           throws CycConnectionException, com.cyc.base.exception.CycApiException {
-    return getConverse().converseList("(local-disjoint-with " + cycFort.stringApiValue() + " "
-            + makeElMt_inner(mt).stringApiValue() + ")");
+    return getConverse().converseList(LOCAL_DISJOINT_WITH_IN_MT.bind(cycFort, makeElMt_inner(mt)));
   }
 
   /**
@@ -4046,6 +4188,111 @@ public class CycLookupTool extends AbstractKbTool implements LookupTool {
   
   private static final CycSymbolImpl FPRED_VALUE_IN_MT = makeCycSymbol("fpred-value-in-mt");
   
+  private static final PreparedSublCommand FIND_CONSTANT =
+          PreparedSublCommand.prepare("(find-constant $name/string)");
+  private static final PreparedSublCommand ALL_MTS_COMMENT = PreparedSublCommand.prepare(
+          "(clet ((comment-string (with-all-mts (comment $term/term)))) "
+          + "  (fif comment-string (string-substitute \" \" \"\\\"\" comment-string) \"\"))");
+  private static final PreparedSublCommand COMMENT_IN_MT = PreparedSublCommand.prepare(
+          "(clet ((comment-string (comment $term/term $mt/term))) "
+          + "  (fif comment-string (string-substitute \" \" \"\\\"\" comment-string) \"\"))");
+  private static final PreparedSublCommand ALL_MTS_ISA =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (isa $term/term)))");
+  private static final PreparedSublCommand ISA_IN_MT =
+          PreparedSublCommand.prepare("(isa $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_MTS_GENLS =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (genls $term/term)))");
+  private static final PreparedSublCommand GENLS_IN_MT =
+          PreparedSublCommand.prepare("(genls $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_MTS_MIN_GENLS =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (min-genls $term/term)))");
+  private static final PreparedSublCommand MIN_GENLS_IN_MT =
+          PreparedSublCommand.prepare("(min-genls $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_MTS_SPECS =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (specs $term/term)))");
+  private static final PreparedSublCommand SPECS_IN_MT =
+          PreparedSublCommand.prepare("(specs $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_MTS_MAX_SPECS =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (max-specs $term/term)))");
+  private static final PreparedSublCommand MAX_SPECS_IN_MT =
+          PreparedSublCommand.prepare("(max-specs $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_MTS_GENL_SIBLINGS =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (genl-siblings $term/term)))");
+  private static final PreparedSublCommand GENL_SIBLINGS_IN_MT =
+          PreparedSublCommand.prepare("(genl-siblings $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_MTS_SPEC_SIBLINGS =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (spec-siblings $term/term)))");
+  private static final PreparedSublCommand SPEC_SIBLINGS_IN_MT =
+          PreparedSublCommand.prepare("(spec-siblings $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_GENLS_IN_ANY_MT =
+          PreparedSublCommand.prepare("(all-genls-in-any-mt $term/term)");
+  private static final PreparedSublCommand ALL_GENLS_IN_MT =
+          PreparedSublCommand.prepare("(all-genls $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_MTS_ALL_SPECS =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (all-specs $term/term)))");
+  private static final PreparedSublCommand ALL_SPECS_IN_MT =
+          PreparedSublCommand.prepare("(all-specs $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_MTS_ALL_DEPENDENT_SPECS =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (all-dependent-specs $term/term)))");
+  private static final PreparedSublCommand ALL_DEPENDENT_SPECS_IN_MT =
+          PreparedSublCommand.prepare("(all-dependent-specs $term/term $mt/term)");
+  private static final PreparedSublCommand COLLECTION_LEAVES_IN_MT =
+          PreparedSublCommand.prepare("(collection-leaves $term/term $mt/term)");
+  private static final PreparedSublCommand LOCAL_DISJOINT_WITH_IN_MT =
+          PreparedSublCommand.prepare("(local-disjoint-with $term/term $mt/term)");
+  private static final PreparedSublCommand MIN_ISA_IN_MT =
+          PreparedSublCommand.prepare("(min-isa $term/term $mt/term)");
+  private static final PreparedSublCommand INSTANCES_IN_MT =
+          PreparedSublCommand.prepare("(instances $term/term $mt/term)");
+  private static final PreparedSublCommand INSTANCE_SIBLINGS_IN_MT =
+          PreparedSublCommand.prepare("(instance-siblings $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_ISA_IN_MT =
+          PreparedSublCommand.prepare("(all-isa $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_INSTANCES_IN_ALL_MTS =
+          PreparedSublCommand.prepare("(all-instances-in-all-mts $term/term)");
+  private static final PreparedSublCommand ALL_INSTANCES_IN_MT =
+          PreparedSublCommand.prepare("(all-instances $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_MTS_GENL_PREDICATES =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (genl-predicates $term/term)))");
+  private static final PreparedSublCommand ALL_MTS_ALL_GENL_PREDICATES =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (all-genl-predicates $term/term)))");
+  private static final PreparedSublCommand ALL_GENL_PREDICATES_IN_MT =
+          PreparedSublCommand.prepare("(all-genl-predicates $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_MTS_ALL_SPEC_PREDICATES =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (all-spec-predicates $term/term)))");
+  private static final PreparedSublCommand ALL_SPEC_PREDICATES_IN_MT =
+          PreparedSublCommand.prepare("(all-spec-predicates $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_MTS_ALL_SPEC_INVERSES =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (all-spec-inverses $term/term)))");
+  private static final PreparedSublCommand ALL_SPEC_INVERSES_IN_MT =
+          PreparedSublCommand.prepare("(all-spec-inverses $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_MTS_ARG1_ISA =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (arg1-isa $term/term)))");
+  private static final PreparedSublCommand ARG1_ISA_IN_MT =
+          PreparedSublCommand.prepare("(arg1-isa $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_MTS_ARG2_ISA =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (arg2-isa $term/term)))");
+  private static final PreparedSublCommand ARG2_ISA_IN_MT =
+          PreparedSublCommand.prepare("(arg2-isa $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_MTS_ARG3_ISA =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (arg3-isa $term/term)))");
+  private static final PreparedSublCommand ARG3_ISA_IN_MT =
+          PreparedSublCommand.prepare("(arg3-isa $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_MTS_ARG4_ISA =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (arg4-isa $term/term)))");
+  private static final PreparedSublCommand ARG4_ISA_IN_MT =
+          PreparedSublCommand.prepare("(arg4-isa $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_MTS_RESULT_ISA =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (result-isa $term/term)))");
+  private static final PreparedSublCommand RESULT_ISA_IN_MT =
+          PreparedSublCommand.prepare("(result-isa $term/term $mt/term)");
+  private static final PreparedSublCommand ARG1_FORMAT_IN_MT =
+          PreparedSublCommand.prepare("(arg1-format $term/term $mt/term)");
+  private static final PreparedSublCommand ARG2_FORMAT_IN_MT =
+          PreparedSublCommand.prepare("(arg2-format $term/term $mt/term)");
+  private static final PreparedSublCommand ALL_MTS_LOCAL_DISJOINT_WITH =
+          PreparedSublCommand.prepare("(remove-duplicates (with-all-mts (local-disjoint-with $term/term)))");
+  
   private static final String ISA = CommonConstants.ISA.cyclify();
   private static final String IMPLIES = CommonConstants.IMPLIES.cyclify();
   private static final String AND = CommonConstants.AND.cyclify();
@@ -39,11 +39,22 @@ import com.cyc.session.CycServer;
 import com.cyc.base.cycobject.CycObject;
 import com.cyc.base.cycobject.Fort;
 import com.cyc.base.cycobject.Nart;
+import com.cyc.baseclient.datatype.StringUtils;
 import com.cyc.baseclient.kbtool.CycObjectTool;
 
 //// External Imports
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <P>CycLParserUtil is designed to be the main entry point into parsing
@@ -257,6 +268,69 @@ public class CyclParserUtil {
     return (Object)completeConstants(parser.nonAtomicDenotationalTerm(testForEOF), access);
   }
 
+  /**
+   * Parses many CycL sentences at once. The sentences are parsed in parallel, and the constants
+   * they reference which are not in the local constant caches are completed together, in a single
+   * round trip for all of them.
+   *
+   * @param toParse the sentences to parse
+   * @param testForEOF whether each string must hold nothing but its sentence
+   * @param access the Cyc server against which to complete constants
+   * @return the parsed sentences, in the iteration order of <code>toParse</code>
+   * @throws InvalidConstantNameException naming every unknown constant in any of the sentences
+   * @throws ParseException for the first sentence, in order, which cannot be parsed
+   */
+  public static List<CycFormulaSentence> parseCycLSentences(Collection<String> toParse,
+          final boolean testForEOF, final CycAccess access)
+  throws ParseException, CycConnectionException, CycApiException, CycApiServerSideException, 
+  InvalidConstantNameException, InvalidConstantGuidException, 
+  UnsupportedVocabularyException, TokenMgrError, IOException {
+    final List<Callable<CycArrayList>> tasks = new ArrayList<Callable<CycArrayList>>(toParse.size());
+    for (final String sentence : toParse) {
+      tasks.add(new Callable<CycArrayList>() {
+        @Override
+        public CycArrayList call() throws Exception {
+          return (CycArrayList) new CyclParser(new StringReader(sentence), access).sentence(testForEOF);
+        }
+      });
+    }
+    final List<CycArrayList> parsed = new ArrayList<CycArrayList>(tasks.size());
+    final int threads = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+    if (threads <= 1) {
+      for (final Callable<CycArrayList> task : tasks) {
+        parsed.add(callParse(task));
+      }
+    } else {
+      final ExecutorService executor = getParserExecutor();
+      final List<Future<CycArrayList>> futures = new ArrayList<Future<CycArrayList>>(tasks.size());
+      try {
+        for (final Callable<CycArrayList> task : tasks) {
+          futures.add(executor.submit(task));
+        }
+        for (final Future<CycArrayList> future : futures) {
+          parsed.add(getParse(future));
+        }
+      } finally {
+        for (final Future<CycArrayList> future : futures) {
+          future.cancel(true);
+        }
+      }
+    }
+    completeConstants(new CycArrayList(parsed), access);
+    final List<CycFormulaSentence> sentences = new ArrayList<CycFormulaSentence>(parsed.size());
+    for (final CycArrayList formula : parsed) {
+      sentences.add(new CycFormulaSentence(formula));
+    }
+    return sentences;
+  }
+
+  /**
+   * Completes the names and GUIDs of the constants referenced by <code>obj</code>. Constants
+   * which are in the local constant caches are completed from them. The rest are looked up on the
+   * server in a single round trip, each distinct name or GUID once. Names and GUIDs which were not
+   * found are remembered for {@link #getNegativeTtlMillis()} milliseconds, during which they are
+   * rejected without asking the server again.
+   */
   public static Object completeConstants(Object obj, CycAccess access) 
     throws CycConnectionException, 
            CycApiException, 
@@ -266,59 +340,80 @@ public class CyclParserUtil {
            UnsupportedVocabularyException {
     List allConstants = DefaultCycObject.getReferencedConstants(obj);
     if ((allConstants == null) || (allConstants.size() == 0)) { return obj; }
-    CycArrayList incompleteConstantsWithNames = null;
-    CycArrayList incompleteConstantsWithGuids = null;
-    //Find incomplete constants
+    final Map<String, List<CycConstantImpl>> incompleteConstantsByName =
+            new LinkedHashMap<String, List<CycConstantImpl>>();
+    final Map<String, List<CycConstantImpl>> incompleteConstantsByGuid =
+            new LinkedHashMap<String, List<CycConstantImpl>>();
+    InvalidConstantNameException icne = null;
+    InvalidConstantGuidException icge = null;
+    //Find incomplete constants, completing those which are cached
     for ( Iterator iter = allConstants.iterator(); iter.hasNext(); ) {
       CycConstantImpl curConst = (CycConstantImpl)iter.next();
       if ((curConst.name == null) && (curConst.guid == null)) {
         throw new IllegalArgumentException("Can't deal with completely bare constants.");
       }
       if (curConst.name == null) {
-        if (incompleteConstantsWithGuids == null) { incompleteConstantsWithGuids = new CycArrayList(); }
-        incompleteConstantsWithGuids.add(curConst);
+        final CycConstantImpl cached = CycObjectFactory.getCycConstantCacheByGuid(curConst.guid);
+        if ((cached != null) && (cached.name != null)) {
+          curConst.setName(cached.getName());
+        } else if (isKnownInvalid(curConst.guid.getGuidString(), access)) {
+          if (icge == null) { icge = new InvalidConstantGuidException(); }
+          icge.addInvalidConstantGuid(curConst.getGuid());
+        } else {
+          addIncomplete(incompleteConstantsByGuid, curConst.guid.getGuidString(), curConst);
+        }
       }
       if (curConst.guid == null) {
-        if (incompleteConstantsWithNames == null) { incompleteConstantsWithNames = new CycArrayList(); }
-        incompleteConstantsWithNames.add(curConst);
+        final CycConstantImpl cached = CycObjectFactory.getCycConstantCacheByName(curConst.name);
+        if ((cached != null) && (cached.guid != null)) {
+          curConst.setGuid(cached.getGuid());
+        } else if (isKnownInvalid(curConst.name, access)) {
+          if (icne == null) { icne = new InvalidConstantNameException(); }
+          icne.addInvalidConstantName(curConst.getName());
+        } else {
+          addIncomplete(incompleteConstantsByName, curConst.name, curConst);
+        }
       }
     }
+    //Look the remaining names and GUIDs up in one round trip
+    final List[] found = findConstants(incompleteConstantsByName.keySet(),
+            incompleteConstantsByGuid.keySet(), access);
     //Find invalid constant names from the list of incomplete constants
-    List cycConstants = access.getLookupTool().findConstantsForNames(incompleteConstantsWithNames);
-    if ((cycConstants != null) && (incompleteConstantsWithNames != null)) {
-      InvalidConstantNameException icne = null;
-      for (Iterator iter = cycConstants.iterator(), 
-          oldIter = incompleteConstantsWithNames.iterator(); iter.hasNext(); ) {
-        Object curConstant = iter.next();
-        CycConstantImpl oldConstant = (CycConstantImpl)oldIter.next();
+    if (found[0] != null) {
+      final Iterator iter = found[0].iterator();
+      for (Map.Entry<String, List<CycConstantImpl>> entry : incompleteConstantsByName.entrySet()) {
+        final Object curConstant = iter.hasNext() ? iter.next() : null;
         if (!(curConstant instanceof CycConstantImpl)) {
+          rememberInvalid(entry.getKey(), access);
           if (icne == null) { icne = new InvalidConstantNameException(); }
-          icne.addInvalidConstantName(oldConstant.getName());
+          icne.addInvalidConstantName(entry.getKey());
         } else {
-          oldConstant.setGuid(((CycConstantImpl)curConstant).getGuid());
-          CycObjectFactory.addCycConstantCache(oldConstant);
+          for (final CycConstantImpl oldConstant : entry.getValue()) {
+            oldConstant.setGuid(((CycConstantImpl)curConstant).getGuid());
+            CycObjectFactory.addCycConstantCache(oldConstant);
+          }
         }
       }
-      if (icne != null) { throw icne; }
     }
-    //Find invlaid GUIDs from the list of incomplete constants
-    cycConstants = access.getLookupTool().findConstantsForGuids(incompleteConstantsWithGuids);
-    if ((cycConstants != null) && (incompleteConstantsWithGuids != null)) {
-      InvalidConstantGuidException icge = null;
-      for (Iterator iter = cycConstants.iterator(), 
-          oldIter = incompleteConstantsWithGuids.iterator(); iter.hasNext(); ) {
-        Object curConstant = iter.next();
-        CycConstantImpl oldConstant = (CycConstantImpl)oldIter.next();
+    if (icne != null) { throw icne; }
+    //Find invalid GUIDs from the list of incomplete constants
+    if (found[1] != null) {
+      final Iterator iter = found[1].iterator();
+      for (Map.Entry<String, List<CycConstantImpl>> entry : incompleteConstantsByGuid.entrySet()) {
+        final Object curConstant = iter.hasNext() ? iter.next() : null;
         if (!(curConstant instanceof CycConstantImpl)) {
+          rememberInvalid(entry.getKey(), access);
           if (icge == null) { icge = new InvalidConstantGuidException(); }
-          icge.addInvalidConstantGuid(oldConstant.getGuid());
+          icge.addInvalidConstantGuid(entry.getValue().get(0).getGuid());
         } else {
-          oldConstant.setName(((CycConstantImpl)curConstant).getName());
-          CycObjectFactory.addCycConstantCache(oldConstant);
+          for (final CycConstantImpl oldConstant : entry.getValue()) {
+            oldConstant.setName(((CycConstantImpl)curConstant).getName());
+            CycObjectFactory.addCycConstantCache(oldConstant);
+          }
         }
       }
-      if (icge != null) { throw icge; }
     }
+    if (icge != null) { throw icge; }
     //Find unsupported constants
     for ( Iterator iter = allConstants.iterator(); iter.hasNext(); ){
       CycConstantImpl curConst = (CycConstantImpl)iter.next();
@@ -331,6 +426,35 @@ public class CyclParserUtil {
     }
     return obj;
   }
+
+  /**
+   * Returns the time, in milliseconds, for which a constant name or GUID which was not found is
+   * remembered as invalid.
+   *
+   * @return the time invalid names are remembered for, or 0 if they are not remembered
+   */
+  public static long getNegativeTtlMillis() {
+    return negativeTtlMillis;
+  }
+
+  /**
+   * Sets the time, in milliseconds, for which a constant name or GUID which was not found is
+   * remembered as invalid. It defaults to {@value #DEFAULT_NEGATIVE_TTL_MILLIS}, or the value of
+   * {@value #NEGATIVE_TTL_PROPERTY}. Names which are already remembered are forgotten.
+   *
+   * @param ttlMillis the time invalid names are remembered for, or 0 to not remember them
+   */
+  public static void setNegativeTtlMillis(long ttlMillis) {
+    negativeTtlMillis = Math.max(0, ttlMillis);
+    invalidConstants.clear();
+  }
+
+  /**
+   * Forgets every constant name and GUID remembered as invalid, e.g. after creating constants.
+   */
+  public static void forgetInvalidConstants() {
+    invalidConstants.clear();
+  }
   
   //// Protected Area
   
@@ -374,6 +498,203 @@ public class CyclParserUtil {
   
   //// Private Area
   
+  /**
+   * Looks up constants by name and by GUID in a single round trip.
+   *
+   * @return the results for the names and for the GUIDs, in order; either is null if there was
+   * nothing to look up
+   */
+  private static List[] findConstants(Collection<String> names, Collection<String> guids,
+          CycAccess access) throws CycConnectionException, CycApiException {
+    final List[] found = new List[2];
+    if (names.isEmpty() && guids.isEmpty()) {
+      return found;
+    }
+    final String namesForm = names.isEmpty() ? null
+            : "(MAPCAR (QUOTE FIND-CONSTANT) " + makeStringListForm(names) + ")";
+    final String guidsForm = guids.isEmpty() ? null
+            : "(MAPCAR (QUOTE FIND-CONSTANT-BY-EXTERNAL-ID) (MAPCAR (QUOTE STRING-TO-GUID) "
+            + makeStringListForm(guids) + "))";
+    if (guidsForm == null) {
+      found[0] = asList(access.converse().converseObject(namesForm));
+    } else if (namesForm == null) {
+      found[1] = asList(access.converse().converseObject(guidsForm));
+    } else {
+      final List both = asList(access.converse().converseObject(
+              "(LIST " + namesForm + " " + guidsForm + ")"));
+      found[0] = asList(both.size() > 0 ? both.get(0) : null);
+      found[1] = asList(both.size() > 1 ? both.get(1) : null);
+    }
+    return found;
+  }
+  
+  private static String makeStringListForm(Collection<String> strings) {
+    final StringBuilder form = new StringBuilder("(LIST");
+    for (final String string : strings) {
+      form.append(" \"").append(StringUtils.escapeDoubleQuotes(string)).append("\"");
+    }
+    return form.append(")").toString();
+  }
+  
+  private static List asList(Object result) {
+    return (result instanceof List) ? (List) result : Collections.EMPTY_LIST;
+  }
+  
+  private static void addIncomplete(Map<String, List<CycConstantImpl>> incomplete, String key,
+          CycConstantImpl constant) {
+    List<CycConstantImpl> constants = incomplete.get(key);
+    if (constants == null) {
+      constants = new ArrayList<CycConstantImpl>(1);
+      incomplete.put(key, constants);
+    }
+    constants.add(constant);
+  }
+  
+  private static boolean isKnownInvalid(String nameOrGuid, CycAccess access) {
+    final Map<String, Long> invalid = invalidConstants.get(serverKey(access));
+    final Long expiry = (invalid == null) ? null : invalid.get(nameOrGuid);
+    if (expiry == null) {
+      return false;
+    }
+    if (System.nanoTime() - expiry < 0) {
+      return true;
+    }
+    invalid.remove(nameOrGuid);
+    return false;
+  }
+  
+  private static void rememberInvalid(String nameOrGuid, CycAccess access) {
+    final long ttlMillis = negativeTtlMillis;
+    if (ttlMillis <= 0) {
+      return;
+    }
+    final Object server = serverKey(access);
+    Map<String, Long> invalid = invalidConstants.get(server);
+    if (invalid == null) {
+      final Map<String, Long> created = new ConcurrentHashMap<String, Long>();
+      invalid = invalidConstants.putIfAbsent(server, created);
+      if (invalid == null) {
+        invalid = created;
+      }
+    }
+    final long now = System.nanoTime();
+    if (invalid.size() >= NEGATIVE_CACHE_SWEEP_SIZE) {
+      for (final Iterator<Long> iter = invalid.values().iterator(); iter.hasNext(); ) {
+        if (now - iter.next() >= 0) {
+          iter.remove();
+        }
+      }
+    }
+    invalid.put(nameOrGuid, now + TimeUnit.MILLISECONDS.toNanos(ttlMillis));
+  }
+  
+  /**
+   * The server whose constants <code>access</code> completes: its CycServer if it has one, else
+   * the access itself.
+   */
+  private static Object serverKey(CycAccess access) {
+    final Object server = (access == null) ? null : access.getCycServer();
+    return (server != null) ? server : ((access != null) ? access : NO_SERVER);
+  }
+  
+  /**
+   * The executor shared by every call of {@link #parseCycLSentences}. It is made on first use,
+   * and its daemon threads, at most one per processor, end once they have been idle for a while.
+   */
+  private static ExecutorService getParserExecutor() {
+    ExecutorService executor = parserExecutor;
+    if (executor == null) {
+      synchronized (CyclParserUtil.class) {
+        executor = parserExecutor;
+        if (executor == null) {
+          final int threads = Runtime.getRuntime().availableProcessors();
+          final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                  PARSER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                  new LinkedBlockingQueue<Runnable>(), PARSER_THREAD_FACTORY);
+          pool.allowCoreThreadTimeOut(true);
+          executor = pool;
+          parserExecutor = executor;
+        }
+      }
+    }
+    return executor;
+  }
+  
+  private static CycArrayList callParse(Callable<CycArrayList> task)
+  throws ParseException, UnsupportedVocabularyException, IOException {
+    try {
+      return task.call();
+    } catch (Exception e) {
+      throw rethrowParseFailure(e);
+    }
+  }
+  
+  private static CycArrayList getParse(Future<CycArrayList> future)
+  throws ParseException, UnsupportedVocabularyException, IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BaseClientRuntimeException(e);
+    } catch (ExecutionException e) {
+      throw rethrowParseFailure(e.getCause());
+    }
+  }
+  
+  private static RuntimeException rethrowParseFailure(Throwable t)
+  throws ParseException, UnsupportedVocabularyException, IOException {
+    if (t instanceof ParseException) {
+      throw (ParseException) t;
+    } else if (t instanceof UnsupportedVocabularyException) {
+      throw (UnsupportedVocabularyException) t;
+    } else if (t instanceof IOException) {
+      throw (IOException) t;
+    } else if (t instanceof RuntimeException) {
+      throw (RuntimeException) t;
+    } else if (t instanceof Error) {
+      throw (Error) t;
+    }
+    throw new BaseClientRuntimeException(t);
+  }
+  
+  //// Internal Rep
+  
+  /** The system property from which the time in milliseconds that invalid constants are remembered is read. */
+  public static final String NEGATIVE_TTL_PROPERTY = "com.cyc.baseclient.parser.negativeTtlMillis";
+  
+  /** The time invalid constants are remembered for when {@value #NEGATIVE_TTL_PROPERTY} is not set. */
+  public static final long DEFAULT_NEGATIVE_TTL_MILLIS = 2000;
+  
+  //the size past which expired entries are swept from the invalid constants
+  private static final int NEGATIVE_CACHE_SWEEP_SIZE = 10000;
+  
+  //per server, the constant names and GUID strings recently not found there, to the
+  //System.nanoTime() at which they are forgotten
+  private static final ConcurrentHashMap<Object, Map<String, Long>> invalidConstants =
+          new ConcurrentHashMap<Object, Map<String, Long>>();
+  
+  //the server key of constants completed without a CycAccess
+  private static final Object NO_SERVER = new Object();
+  
+  private static volatile long negativeTtlMillis =
+          Long.getLong(NEGATIVE_TTL_PROPERTY, DEFAULT_NEGATIVE_TTL_MILLIS);
+  
+  private static final ThreadFactory PARSER_THREAD_FACTORY = new ThreadFactory() {
+    @Override
+    public Thread newThread(Runnable runnable) {
+      final Thread thread = new Thread(runnable, "CyclParserUtil-" + THREAD_COUNT.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  };
+  
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+  
+  //the time after which idle parser threads end
+  private static final long PARSER_KEEP_ALIVE_SECONDS = 30;
+  
+  private static volatile ExecutorService parserExecutor = null;
+  
   //// Internal Reader
   
   //// Main
@@ -0,0 +1,62 @@
+package com.cyc.baseclient.subl.functions;
+
+/*
+ * #%L
+ * File: CategorizeTermsWrtApiFunctionResource.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.CycAccess;
+import com.cyc.base.cycobject.CycList;
+import com.cyc.base.cycobject.CycObject;
+import com.cyc.base.exception.CycApiException;
+import com.cyc.base.exception.CycConnectionException;
+import com.cyc.baseclient.subl.SublSourceFile;
+import com.cyc.baseclient.subl.subtypes.SublCycListSingleArgFunction;
+
+
+/**
+ * Represents CATEGORIZE-TERMS-WRT-API, which supports KbObjectFactory.getAllFor(Collection, Class)
+ * by categorizing a list of terms, as CATEGORIZE-TERM-WRT-API does, in a single round trip.
+ * 
+ * <p>The function is not required: callers should fall back to categorizing terms one at a time
+ * on servers which lack it.
+ */
+public class CategorizeTermsWrtApiFunctionResource extends SublCycListSingleArgFunction<CycList<CycObject>> implements SublSourceFile {
+
+  // Fields
+  
+  public static final String FUNCTION_NAME = "categorize-terms-wrt-api";
+  
+  // Constructor
+  
+  /**
+   * To access this function, call {@link SublFunctions#CATEGORIZE_TERMS_WRT_API }.
+   */
+  protected CategorizeTermsWrtApiFunctionResource() {
+    super(FUNCTION_NAME);
+  }
+  
+  // Public
+  
+  @Override
+  public boolean isRequired(CycAccess access) throws CycApiException, CycConnectionException {
+    return false;
+  }
+  
+}
@@ -0,0 +1,90 @@
+package com.cyc.baseclient.subl.functions;
+
+/*
+ * #%L
+ * File: GafArgValuesWrtApiFunctionResource.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.CycAccess;
+import com.cyc.base.cycobject.CycObject;
+import com.cyc.base.exception.CycApiException;
+import com.cyc.base.exception.CycConnectionException;
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.connection.SublApiHelper;
+import com.cyc.baseclient.subl.SublSourceFile;
+import com.cyc.baseclient.subl.subtypes.SublCycListSingleArgFunction;
+
+
+/**
+ * Represents GAF-ARG-VALUES-WRT-API, which supports com.cyc.kb.client.KbObjectImpl#iterateValues
+ * by gathering the distinct values of the gafs about a term once, and returning them a page at a
+ * time under a server-side cursor.
+ * 
+ * <p>The function is not required: on a server which lacks it, each page is gathered separately.
+ */
+public class GafArgValuesWrtApiFunctionResource extends SublCycListSingleArgFunction<Long> implements SublSourceFile {
+
+  // Fields
+  
+  public static final String FUNCTION_NAME = "gaf-arg-values-wrt-api";
+  
+  /** The value returned in place of a page when the cursor is no longer kept by the server. */
+  public static final Object EXPIRED = CycObjectFactory.makeCycSymbol(":EXPIRED");
+  
+  // Constructor
+  
+  /**
+   * To access this function, call {@link SublFunctions#GAF_ARG_VALUES_WRT_API }.
+   */
+  protected GafArgValuesWrtApiFunctionResource() {
+    super(FUNCTION_NAME);
+  }
+  
+  // Public
+  
+  /**
+   * Evaluates the function.
+   * 
+   * @param access the Cyc server against which to evaluate the function.
+   * @param cursor the cursor returned with the previous page, or null for the first page
+   * @param term the term of the gafs
+   * @param argnum the argument position of <code>term</code> in the gafs
+   * @param pred the predicate of the gafs
+   * @param valueArgnum the argument position of the values in the gafs
+   * @param mt the microtheory from which the gafs are visible
+   * @param pageSize the most values to return
+   * @return a list of the cursor for the next page, or NIL after the last page, and of the values;
+   * or {@link #EXPIRED}
+   * @throws CycConnectionException
+   * @throws CycApiException 
+   */
+  public Object eval(CycAccess access, Long cursor, CycObject term, int argnum, CycObject pred,
+          int valueArgnum, CycObject mt, int pageSize)
+          throws CycConnectionException, CycApiException {
+    return access.converse().converseObject(SublApiHelper.makeSubLStmt(getSymbol(),
+            (cursor == null) ? CycObjectFactory.nil : cursor, term, argnum, pred, valueArgnum, mt,
+            pageSize));
+  }
+  
+  @Override
+  public boolean isRequired(CycAccess access) throws CycApiException, CycConnectionException {
+    return false;
+  }
+  
+}
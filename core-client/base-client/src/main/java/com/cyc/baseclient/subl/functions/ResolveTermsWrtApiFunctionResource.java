@@ -0,0 +1,79 @@
+package com.cyc.baseclient.subl.functions;
+
+/*
+ * #%L
+ * File: ResolveTermsWrtApiFunctionResource.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.CycAccess;
+import com.cyc.base.cycobject.CycList;
+import com.cyc.base.cycobject.CycObject;
+import com.cyc.base.exception.CycApiException;
+import com.cyc.base.exception.CycConnectionException;
+import com.cyc.baseclient.connection.SublApiHelper;
+import com.cyc.baseclient.subl.SublSourceFile;
+import com.cyc.baseclient.subl.subtypes.SublCycListSingleArgFunction;
+
+
+/**
+ * Represents RESOLVE-TERMS-WRT-API, which supports KbObjectFactory.getAll(Collection, Class) by
+ * resolving, categorizing and type-checking a list of names and HLIDs in a single round trip.
+ * 
+ * <p>The function is not required: callers should fall back to resolving terms one at a time on
+ * servers which lack it.
+ */
+public class ResolveTermsWrtApiFunctionResource extends SublCycListSingleArgFunction<CycList<String>> implements SublSourceFile {
+
+  // Fields
+  
+  public static final String FUNCTION_NAME = "resolve-terms-wrt-api";
+  
+  // Constructor
+  
+  /**
+   * To access this function, call {@link SublFunctions#RESOLVE_TERMS_WRT_API }.
+   */
+  protected ResolveTermsWrtApiFunctionResource() {
+    super(FUNCTION_NAME);
+  }
+  
+  // Public
+  
+  /**
+   * Evaluates the function, checking each term against <code>type</code>.
+   * 
+   * @param access the Cyc server against which to evaluate the function.
+   * @param names the names or HLIDs of the terms
+   * @param type the collection which each term is checked against
+   * @return a list with one element per name: NIL, or a list of the term, its most specific API
+   * collection and whether it is an instance of <code>type</code>
+   * @throws CycConnectionException
+   * @throws CycApiException 
+   */
+  public CycList eval(CycAccess access, CycList<String> names, CycObject type)
+          throws CycConnectionException, CycApiException {
+    return access.converse().converseList(SublApiHelper.makeSubLStmt(getSymbol(), names, type));
+  }
+  
+  @Override
+  public boolean isRequired(CycAccess access) throws CycApiException, CycConnectionException {
+    return false;
+  }
+  
+}
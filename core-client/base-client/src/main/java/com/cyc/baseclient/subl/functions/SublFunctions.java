@@ -74,6 +74,30 @@ public class SublFunctions {
    */
   public static final CategorizeTermWrtApiFunctionResource CATEGORIZE_TERM_WRT_API = new CategorizeTermWrtApiFunctionResource();
   
+  /**
+   * CATEGORIZE-TERMS-WRT-API, which supports KbObjectFactory.getAllFor(Collection, Class) by
+   * categorizing many terms in one round trip. Unlike CATEGORIZE-TERM-WRT-API, it is optional.
+   */
+  public static final CategorizeTermsWrtApiFunctionResource CATEGORIZE_TERMS_WRT_API = new CategorizeTermsWrtApiFunctionResource();
+  
+  /**
+   * RESOLVE-TERMS-WRT-API, which supports KbObjectFactory.getAll(Collection, Class) by resolving
+   * many names or HLIDs in one round trip. Unlike CATEGORIZE-TERM-WRT-API, it is optional.
+   */
+  public static final ResolveTermsWrtApiFunctionResource RESOLVE_TERMS_WRT_API = new ResolveTermsWrtApiFunctionResource();
+  
+  /**
+   * TRANSCRIPT-OPERATIONS-SINCE-WRT-API, which supports TaxonomyIndex by reading the KB operations
+   * in the local transcript. It is optional.
+   */
+  public static final TranscriptOperationsSinceFunctionResource TRANSCRIPT_OPERATIONS_SINCE_WRT_API = new TranscriptOperationsSinceFunctionResource();
+  
+  /**
+   * GAF-ARG-VALUES-WRT-API, which supports KbObjectImpl.iterateValues by keeping the values of a
+   * term's gafs under a server-side cursor between pages. It is optional.
+   */
+  public static final GafArgValuesWrtApiFunctionResource GAF_ARG_VALUES_WRT_API = new GafArgValuesWrtApiFunctionResource();
+  
   public static final SublStringNoArgFunction CYC_SYSTEM_CODE_STRING = new SublStringNoArgFunction("cyc-system-code-string");
   
   public static final SublCycListNoArgFunction CYC_REVISION_NUMBERS = new SublCycListNoArgFunction("cyc-revision-numbers");
@@ -92,7 +116,11 @@ public class SublFunctions {
    * SubL function wrappers with corresponding source files.
    */
   public static List<SublSourceFile> SOURCES = Arrays.<SublSourceFile>asList(
-          CATEGORIZE_TERM_WRT_API
+          CATEGORIZE_TERM_WRT_API,
+          CATEGORIZE_TERMS_WRT_API,
+          RESOLVE_TERMS_WRT_API,
+          TRANSCRIPT_OPERATIONS_SINCE_WRT_API,
+          GAF_ARG_VALUES_WRT_API
   );
 
 }
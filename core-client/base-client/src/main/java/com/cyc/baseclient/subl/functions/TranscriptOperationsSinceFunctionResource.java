@@ -0,0 +1,81 @@
+package com.cyc.baseclient.subl.functions;
+
+/*
+ * #%L
+ * File: TranscriptOperationsSinceFunctionResource.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.CycAccess;
+import com.cyc.base.cycobject.CycList;
+import com.cyc.base.exception.CycApiException;
+import com.cyc.base.exception.CycConnectionException;
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.connection.SublApiHelper;
+import com.cyc.baseclient.subl.SublSourceFile;
+import com.cyc.baseclient.subl.subtypes.SublCycListSingleArgFunction;
+
+
+/**
+ * Represents TRANSCRIPT-OPERATIONS-SINCE-WRT-API, which supports
+ * com.cyc.baseclient.taxonomy.TranscriptOperationLog by reading the KB operations recorded in the
+ * server's local transcript after a given position.
+ * 
+ * <p>The function is not required: a TaxonomyIndex on a server which lacks it simply cannot follow
+ * the KB's changes, and must be reloaded instead.
+ */
+public class TranscriptOperationsSinceFunctionResource extends SublCycListSingleArgFunction<Long> implements SublSourceFile {
+
+  // Fields
+  
+  public static final String FUNCTION_NAME = "transcript-operations-since-wrt-api";
+  
+  // Constructor
+  
+  /**
+   * To access this function, call {@link SublFunctions#TRANSCRIPT_OPERATIONS_SINCE_WRT_API }.
+   */
+  protected TranscriptOperationsSinceFunctionResource() {
+    super(FUNCTION_NAME);
+  }
+  
+  // Public
+  
+  /**
+   * Evaluates the function.
+   * 
+   * @param access the Cyc server against which to evaluate the function.
+   * @param position the position after which to read operations, or null for the end of the
+   * transcript
+   * @param maxOperations the maximum number of operations to return
+   * @return a list of the new position and of the operations which were read
+   * @throws CycConnectionException
+   * @throws CycApiException 
+   */
+  public CycList eval(CycAccess access, Long position, int maxOperations)
+          throws CycConnectionException, CycApiException {
+    return access.converse().converseList(SublApiHelper.makeSubLStmt(getSymbol(),
+            (position == null) ? CycObjectFactory.nil : position, maxOperations));
+  }
+  
+  @Override
+  public boolean isRequired(CycAccess access) throws CycApiException, CycConnectionException {
+    return false;
+  }
+  
+}
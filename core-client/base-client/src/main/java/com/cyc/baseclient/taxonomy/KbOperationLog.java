@@ -0,0 +1,63 @@
+package com.cyc.baseclient.taxonomy;
+
+/*
+ * #%L
+ * File: KbOperationLog.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.cycobject.CycList;
+import com.cyc.base.exception.CycApiException;
+import com.cyc.base.exception.CycConnectionException;
+import java.util.List;
+
+/**
+ * <P>KbOperationLog is a source of the KB operations which a Cyc server has performed, in the
+ * form in which Cyc transcripts record them, e.g. <code>(fi-assert '(#$genls #$Dog #$Animal)
+ * #$BiologyMt)</code>. A {@link TaxonomyIndex} follows a KbOperationLog to keep itself
+ * up to date.
+ *
+ * <P>Positions are opaque to the reader of the log, except that a later position never precedes
+ * an earlier one.
+ *
+ * @see TranscriptOperationLog
+ */
+public interface KbOperationLog {
+
+  /**
+   * Returns the position just after the latest operation in the log.
+   *
+   * @return the current position
+   * @throws CycConnectionException if a communications error occurs
+   * @throws CycApiException if the api request results in a cyc server error
+   */
+  long getPosition() throws CycConnectionException, CycApiException;
+
+  /**
+   * Reads operations which follow the given position.
+   *
+   * @param position the position from which to read
+   * @param operations the list to which the operations are added, oldest first
+   * @return the position just after the last operation read
+   * @throws CycConnectionException if a communications error occurs
+   * @throws CycApiException if the api request results in a cyc server error
+   */
+  long readOperations(long position, List<CycList> operations)
+          throws CycConnectionException, CycApiException;
+
+}
@@ -0,0 +1,388 @@
+package com.cyc.baseclient.taxonomy;
+
+/*
+ * #%L
+ * File: ReachabilityLabels.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+//// Internal Imports
+
+//// External Imports
+import java.util.Arrays;
+
+/**
+ * <P>ReachabilityLabels is an immutable snapshot of the transitive closure of a
+ * {@link TaxonomyGraph}, encoded as interval labels. Cycles, such as those between
+ * coextensional collections, are first collapsed into their strongly connected components. The
+ * components of the resulting DAG are numbered in the postorder of a depth-first spanning forest
+ * which descends from parents to children, and each component is labelled with the intervals of
+ * postorder numbers which cover all of its descendants: the interval of its own spanning subtree,
+ * merged with the labels of its children.
+ *
+ * <P>A term is then an ancestor of another exactly when the postorder number of the other falls
+ * within one of its intervals, which a binary search decides. For tree-like taxonomies most
+ * components need only one or two intervals, so the labels stay close to linear in size.
+ */
+final class ReachabilityLabels {
+
+  //// Constructors
+
+  private ReachabilityLabels(final int[] component, final int[] memberStart, final int[] members,
+          final int[] post, final int[] componentByPost, final int[][] intervals,
+          final int[][] componentParents) {
+    this.component = component;
+    this.memberStart = memberStart;
+    this.members = members;
+    this.post = post;
+    this.componentByPost = componentByPost;
+    this.intervals = intervals;
+    this.componentParents = componentParents;
+  }
+
+  //// Public Area
+
+  /**
+   * Computes the labels of a graph given by adjacency arrays, which are only read.
+   *
+   * @param nodeCount the number of nodes to label
+   * @param children the children of each node
+   * @param childCount the number of children of each node
+   * @param parents the parents of each node
+   * @param parentCount the number of parents of each node
+   * @return the labels
+   */
+  static ReachabilityLabels compute(final int nodeCount, final int[][] children,
+          final int[] childCount, final int[][] parents, final int[] parentCount) {
+    final int[] component = new int[nodeCount];
+    final int componentCount = findComponents(nodeCount, children, childCount, component);
+
+    // group the nodes of each component
+    final int[] memberStart = new int[componentCount + 1];
+    for (int node = 0; node < nodeCount; node++) {
+      memberStart[component[node] + 1]++;
+    }
+    for (int c = 0; c < componentCount; c++) {
+      memberStart[c + 1] += memberStart[c];
+    }
+    final int[] members = new int[nodeCount];
+    final int[] fill = Arrays.copyOf(memberStart, componentCount);
+    for (int node = 0; node < nodeCount; node++) {
+      members[fill[component[node]]++] = node;
+    }
+
+    // the edges of the condensed DAG
+    final int[][] componentChildren = condense(componentCount, memberStart, members, component,
+            children, childCount);
+    final int[][] componentParents = condense(componentCount, memberStart, members, component,
+            parents, parentCount);
+
+    // postorder numbers and spanning subtree intervals
+    final int[] post = new int[componentCount];
+    final int[] subtreeStart = new int[componentCount];
+    Arrays.fill(post, -1);
+    final boolean[] isVisited = new boolean[componentCount];
+    final int[] stack = new int[componentCount];
+    final int[] edgePosition = new int[componentCount];
+    int counter = 0;
+    for (int pass = 0; pass < 2; pass++) {
+      for (int root = 0; root < componentCount; root++) {
+        // roots first, so that spanning subtrees are as large as possible
+        if (isVisited[root] || ((pass == 0) && (componentParents[root].length > 0))) {
+          continue;
+        }
+        int top = 0;
+        stack[0] = root;
+        isVisited[root] = true;
+        subtreeStart[root] = counter;
+        while (top >= 0) {
+          final int c = stack[top];
+          if (edgePosition[c] < componentChildren[c].length) {
+            final int child = componentChildren[c][edgePosition[c]++];
+            if (!isVisited[child]) {
+              isVisited[child] = true;
+              subtreeStart[child] = counter;
+              stack[++top] = child;
+            }
+          } else {
+            post[c] = counter++;
+            top--;
+          }
+        }
+      }
+    }
+    final int[] componentByPost = new int[componentCount];
+    for (int c = 0; c < componentCount; c++) {
+      componentByPost[post[c]] = c;
+    }
+
+    // every child is numbered before its parent, so labels are built bottom up
+    final int[][] intervals = new int[componentCount][];
+    for (int p = 0; p < componentCount; p++) {
+      final int c = componentByPost[p];
+      int pairCount = 1;
+      for (final int child : componentChildren[c]) {
+        pairCount += intervals[child].length / 2;
+      }
+      final long[] pairs = new long[pairCount];
+      pairs[0] = pack(subtreeStart[c], p);
+      int i = 1;
+      for (final int child : componentChildren[c]) {
+        final int[] childIntervals = intervals[child];
+        for (int j = 0; j < childIntervals.length; j += 2) {
+          pairs[i++] = pack(childIntervals[j], childIntervals[j + 1]);
+        }
+      }
+      intervals[c] = merge(pairs);
+    }
+    return new ReachabilityLabels(component, memberStart, members, post, componentByPost,
+            intervals, componentParents);
+  }
+
+  /**
+   * Returns true if descendant can be reached from ancestor by following zero or more edges
+   * from parent to child.
+   */
+  boolean reaches(final int ancestor, final int descendant) {
+    if ((ancestor >= component.length) || (descendant >= component.length)) {
+      return false;
+    }
+    final int[] label = intervals[component[ancestor]];
+    final int p = post[component[descendant]];
+    // find the last interval which starts at or before p
+    int lo = 0;
+    int hi = (label.length / 2) - 1;
+    while (lo <= hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (label[2 * mid] <= p) {
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return (hi >= 0) && (p <= label[(2 * hi) + 1]);
+  }
+
+  /** Returns the given node and every node which it reaches. */
+  int[] getDescendants(final int node) {
+    if (node >= component.length) {
+      return new int[]{node};
+    }
+    final int[] label = intervals[component[node]];
+    int count = 0;
+    for (int i = 0; i < label.length; i += 2) {
+      for (int p = label[i]; p <= label[i + 1]; p++) {
+        final int c = componentByPost[p];
+        count += memberStart[c + 1] - memberStart[c];
+      }
+    }
+    final int[] descendants = new int[count];
+    int n = 0;
+    for (int i = 0; i < label.length; i += 2) {
+      for (int p = label[i]; p <= label[i + 1]; p++) {
+        final int c = componentByPost[p];
+        for (int m = memberStart[c]; m < memberStart[c + 1]; m++) {
+          descendants[n++] = members[m];
+        }
+      }
+    }
+    return descendants;
+  }
+
+  /** Returns the given node and every node which reaches it. */
+  int[] getAncestors(final int node) {
+    if (node >= component.length) {
+      return new int[]{node};
+    }
+    final boolean[] isFound = new boolean[componentParents.length];
+    int[] queue = new int[16];
+    int size = 0;
+    int count = 0;
+    queue[size++] = component[node];
+    isFound[component[node]] = true;
+    for (int head = 0; head < size; head++) {
+      final int c = queue[head];
+      count += memberStart[c + 1] - memberStart[c];
+      for (final int parent : componentParents[c]) {
+        if (!isFound[parent]) {
+          isFound[parent] = true;
+          if (size == queue.length) {
+            queue = Arrays.copyOf(queue, size * 2);
+          }
+          queue[size++] = parent;
+        }
+      }
+    }
+    final int[] ancestors = new int[count];
+    int n = 0;
+    for (int i = 0; i < size; i++) {
+      final int c = queue[i];
+      for (int m = memberStart[c]; m < memberStart[c + 1]; m++) {
+        ancestors[n++] = members[m];
+      }
+    }
+    return ancestors;
+  }
+
+  /** Returns the number of nodes covered by these labels. */
+  int getNodeCount() {
+    return component.length;
+  }
+
+  /** Returns the total number of intervals in the labels, a measure of their size. */
+  int getIntervalCount() {
+    int count = 0;
+    for (final int[] label : intervals) {
+      count += label.length / 2;
+    }
+    return count;
+  }
+
+  //// Private Area
+
+  /**
+   * Finds the strongly connected components with an iterative form of Tarjan's algorithm.
+   *
+   * @return the number of components
+   */
+  private static int findComponents(final int nodeCount, final int[][] children,
+          final int[] childCount, final int[] component) {
+    final int[] index = new int[nodeCount];
+    final int[] low = new int[nodeCount];
+    final boolean[] isOnStack = new boolean[nodeCount];
+    final int[] componentStack = new int[nodeCount];
+    final int[] callStack = new int[nodeCount];
+    final int[] edgePosition = new int[nodeCount];
+    Arrays.fill(index, -1);
+    int counter = 0;
+    int componentTop = -1;
+    int componentCount = 0;
+    for (int start = 0; start < nodeCount; start++) {
+      if (index[start] >= 0) {
+        continue;
+      }
+      int callTop = 0;
+      callStack[0] = start;
+      index[start] = low[start] = counter++;
+      componentStack[++componentTop] = start;
+      isOnStack[start] = true;
+      while (callTop >= 0) {
+        final int v = callStack[callTop];
+        if (edgePosition[v] < childCount[v]) {
+          final int w = children[v][edgePosition[v]++];
+          if (w >= nodeCount) {
+            continue;
+          }
+          if (index[w] < 0) {
+            index[w] = low[w] = counter++;
+            componentStack[++componentTop] = w;
+            isOnStack[w] = true;
+            callStack[++callTop] = w;
+          } else if (isOnStack[w]) {
+            low[v] = Math.min(low[v], index[w]);
+          }
+        } else {
+          callTop--;
+          if (callTop >= 0) {
+            final int u = callStack[callTop];
+            low[u] = Math.min(low[u], low[v]);
+          }
+          if (low[v] == index[v]) {
+            int w;
+            do {
+              w = componentStack[componentTop--];
+              isOnStack[w] = false;
+              component[w] = componentCount;
+            } while (w != v);
+            componentCount++;
+          }
+        }
+      }
+    }
+    return componentCount;
+  }
+
+  /** Returns the distinct edges between components induced by the given node adjacency. */
+  private static int[][] condense(final int componentCount, final int[] memberStart,
+          final int[] members, final int[] component, final int[][] adjacency,
+          final int[] adjacencyCount) {
+    final int[][] condensed = new int[componentCount][];
+    final int[] lastSeen = new int[componentCount];
+    Arrays.fill(lastSeen, -1);
+    int[] buffer = new int[16];
+    for (int c = 0; c < componentCount; c++) {
+      int size = 0;
+      for (int m = memberStart[c]; m < memberStart[c + 1]; m++) {
+        final int node = members[m];
+        for (int i = 0; i < adjacencyCount[node]; i++) {
+          final int neighbor = adjacency[node][i];
+          if (neighbor >= component.length) {
+            continue;
+          }
+          final int other = component[neighbor];
+          if ((other != c) && (lastSeen[other] != c)) {
+            lastSeen[other] = c;
+            if (size == buffer.length) {
+              buffer = Arrays.copyOf(buffer, size * 2);
+            }
+            buffer[size++] = other;
+          }
+        }
+      }
+      condensed[c] = Arrays.copyOf(buffer, size);
+    }
+    return condensed;
+  }
+
+  private static long pack(final int start, final int end) {
+    return (((long) start) << 32) | (end & 0xFFFFFFFFL);
+  }
+
+  /** Sorts and merges packed intervals, joining those which overlap or touch. */
+  private static int[] merge(final long[] pairs) {
+    Arrays.sort(pairs);
+    final int[] merged = new int[pairs.length * 2];
+    int size = 0;
+    for (final long pair : pairs) {
+      final int start = (int) (pair >>> 32);
+      final int end = (int) pair;
+      if ((size > 0) && (start <= merged[size - 1] + 1)) {
+        merged[size - 1] = Math.max(merged[size - 1], end);
+      } else {
+        merged[size++] = start;
+        merged[size++] = end;
+      }
+    }
+    return Arrays.copyOf(merged, size);
+  }
+
+  //// Internal Rep
+
+  /** the strongly connected component of each node */
+  private final int[] component;
+  /** the members of component c are members[memberStart[c]] to members[memberStart[c + 1] - 1] */
+  private final int[] memberStart;
+  private final int[] members;
+  /** the postorder number of each component */
+  private final int[] post;
+  private final int[] componentByPost;
+  /** for each component, sorted disjoint [start, end] pairs of postorder numbers */
+  private final int[][] intervals;
+  private final int[][] componentParents;
+
+}
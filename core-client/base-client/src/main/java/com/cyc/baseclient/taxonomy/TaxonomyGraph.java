@@ -0,0 +1,245 @@
+package com.cyc.baseclient.taxonomy;
+
+/*
+ * #%L
+ * File: TaxonomyGraph.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+//// Internal Imports
+
+//// External Imports
+import java.util.Arrays;
+
+/**
+ * <P>TaxonomyGraph holds the edges of one taxonomic relation between the terms of a
+ * {@link TaxonomyIndex}, which are identified by small integers. An edge runs from a term to its
+ * parent: from a spec to its genl, or from an instance to its collection. Each edge holds the set
+ * of supports, identified by small integers, which assert it; a support is the microtheory of one
+ * gaf. Adding a support twice, as a redundant assert does, changes nothing, and the edge
+ * disappears only when its last support is removed.
+ *
+ * <P>Adjacency is kept in growable int arrays, one pair per term. TaxonomyGraph is not
+ * thread-safe; its TaxonomyIndex serializes access to it.
+ */
+final class TaxonomyGraph {
+
+  //// Constructors
+
+  TaxonomyGraph() {
+    clear();
+  }
+
+  //// Public Area
+
+  /**
+   * Adds a support to the edge from child to parent.
+   *
+   * @return true if the edge did not exist before
+   */
+  boolean addEdge(final int child, final int parent, final int support) {
+    ensureCapacity(Math.max(child, parent) + 1);
+    final int index = indexOf(parents[child], parentCount[child], parent);
+    if (index >= 0) {
+      final int[] edgeSupports = supports[child][index];
+      if (indexOf(edgeSupports, edgeSupports.length, support) < 0) {
+        supports[child][index] = append(edgeSupports, support);
+      }
+      return false;
+    }
+    parents[child] = append(parents[child], parentCount[child], parent);
+    if (parentCount[child] == supports[child].length) {
+      supports[child] = Arrays.copyOf(supports[child], Math.max(2, parentCount[child] * 2));
+    }
+    supports[child][parentCount[child]] = new int[]{support};
+    parentCount[child]++;
+    children[parent] = append(children[parent], childCount[parent], child);
+    childCount[parent]++;
+    edgeCount++;
+    return true;
+  }
+
+  /**
+   * Removes a support from the edge from child to parent.
+   *
+   * @return true if the edge existed and no longer does
+   */
+  boolean removeEdge(final int child, final int parent, final int support) {
+    if ((child >= capacity) || (parent >= capacity)) {
+      return false;
+    }
+    final int index = indexOf(parents[child], parentCount[child], parent);
+    if (index < 0) {
+      return false;
+    }
+    final int[] edgeSupports = supports[child][index];
+    final int supportIndex = indexOf(edgeSupports, edgeSupports.length, support);
+    if (supportIndex < 0) {
+      return false;
+    }
+    if (edgeSupports.length > 1) {
+      final int[] remaining = Arrays.copyOf(edgeSupports, edgeSupports.length - 1);
+      if (supportIndex < remaining.length) {
+        remaining[supportIndex] = edgeSupports[edgeSupports.length - 1];
+      }
+      supports[child][index] = remaining;
+      return false;
+    }
+    unlink(child, parent);
+    return true;
+  }
+
+  /**
+   * Removes every edge to or from the given term.
+   *
+   * @return true if any edge was removed
+   */
+  boolean removeNode(final int node) {
+    if (node >= capacity) {
+      return false;
+    }
+    final boolean hadEdges = (parentCount[node] > 0) || (childCount[node] > 0);
+    while (parentCount[node] > 0) {
+      unlink(node, parents[node][parentCount[node] - 1]);
+    }
+    while (childCount[node] > 0) {
+      unlink(children[node][childCount[node] - 1], node);
+    }
+    return hadEdges;
+  }
+
+  boolean contains(final int node) {
+    return (node < capacity) && ((parentCount[node] > 0) || (childCount[node] > 0));
+  }
+
+  int[] getParents(final int node) {
+    return (node < capacity) ? Arrays.copyOf(parents[node], parentCount[node]) : EMPTY;
+  }
+
+  int[] getChildren(final int node) {
+    return (node < capacity) ? Arrays.copyOf(children[node], childCount[node]) : EMPTY;
+  }
+
+  int getParentCount(final int node) {
+    return (node < capacity) ? parentCount[node] : 0;
+  }
+
+  int getChildCount(final int node) {
+    return (node < capacity) ? childCount[node] : 0;
+  }
+
+  int getEdgeCount() {
+    return edgeCount;
+  }
+
+  int getCapacity() {
+    return capacity;
+  }
+
+  void clear() {
+    capacity = 0;
+    edgeCount = 0;
+    parents = new int[0][];
+    supports = new int[0][][];
+    parentCount = new int[0];
+    children = new int[0][];
+    childCount = new int[0];
+  }
+
+  /**
+   * Computes reachability labels for the current edges, covering the first nodeCount terms.
+   */
+  ReachabilityLabels computeLabels(final int nodeCount) {
+    ensureCapacity(nodeCount);
+    return ReachabilityLabels.compute(nodeCount, children, childCount, parents, parentCount);
+  }
+
+  //// Private Area
+
+  private void unlink(final int child, final int parent) {
+    final int parentIndex = indexOf(parents[child], parentCount[child], parent);
+    removeAt(parents[child], parentCount[child], parentIndex);
+    supports[child][parentIndex] = supports[child][parentCount[child] - 1];
+    supports[child][parentCount[child] - 1] = null;
+    parentCount[child]--;
+    removeAt(children[parent], childCount[parent],
+            indexOf(children[parent], childCount[parent], child));
+    childCount[parent]--;
+    edgeCount--;
+  }
+
+  private void ensureCapacity(final int minCapacity) {
+    if (minCapacity <= capacity) {
+      return;
+    }
+    final int newCapacity = Math.max(minCapacity, (capacity * 3) / 2 + 16);
+    parents = Arrays.copyOf(parents, newCapacity);
+    supports = Arrays.copyOf(supports, newCapacity);
+    parentCount = Arrays.copyOf(parentCount, newCapacity);
+    children = Arrays.copyOf(children, newCapacity);
+    childCount = Arrays.copyOf(childCount, newCapacity);
+    for (int i = capacity; i < newCapacity; i++) {
+      parents[i] = EMPTY;
+      supports[i] = NO_SUPPORTS;
+      children[i] = EMPTY;
+    }
+    capacity = newCapacity;
+  }
+
+  private static int indexOf(final int[] values, final int size, final int value) {
+    for (int i = 0; i < size; i++) {
+      if (values[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int[] append(int[] values, final int size, final int value) {
+    if (size == values.length) {
+      values = Arrays.copyOf(values, Math.max(2, size * 2));
+    }
+    values[size] = value;
+    return values;
+  }
+
+  private static int[] append(final int[] values, final int value) {
+    final int[] result = Arrays.copyOf(values, values.length + 1);
+    result[values.length] = value;
+    return result;
+  }
+
+  /** Moves the last value into the removed slot; the order of adjacency does not matter. */
+  private static void removeAt(final int[] values, final int size, final int index) {
+    values[index] = values[size - 1];
+  }
+
+  //// Internal Rep
+
+  private static final int[] EMPTY = new int[0];
+  private static final int[][] NO_SUPPORTS = new int[0][];
+  private int capacity;
+  private int edgeCount;
+  private int[][] parents;
+  /** the distinct supports of each edge, parallel to parents */
+  private int[][][] supports;
+  private int[] parentCount;
+  private int[][] children;
+  private int[] childCount;
+
+}
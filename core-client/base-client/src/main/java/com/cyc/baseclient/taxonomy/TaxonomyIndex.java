@@ -0,0 +1,971 @@
+package com.cyc.baseclient.taxonomy;
+
+/*
+ * #%L
+ * File: TaxonomyIndex.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+//// Internal Imports
+import com.cyc.base.CycAccess;
+import com.cyc.base.cycobject.CycList;
+import com.cyc.base.cycobject.CycObject;
+import com.cyc.base.cycobject.CycSymbol;
+import com.cyc.base.cycobject.Formula;
+import com.cyc.base.cycobject.Fort;
+import com.cyc.base.exception.CycApiException;
+import com.cyc.base.exception.CycConnectionException;
+import com.cyc.baseclient.CommonConstants;
+import com.cyc.baseclient.CycClient;
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.connection.PreparedSublCommand;
+import com.cyc.baseclient.cycobject.CycArrayList;
+
+//// External Imports
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <P>TaxonomyIndex is a client-side copy of the asserted <code>#$genls</code>,
+ * <code>#$isa</code> and <code>#$genlMt</code> edges which are visible from one microtheory, or
+ * from any microtheory. It is loaded in bulk, one request per relation, and then answers
+ * subsumption and closure queries in-process from reachability labels (see
+ * {@link ReachabilityLabels}).
+ *
+ * <P>An index only answers when it knows the answer. Each query returns null rather than a
+ * guess when its relation is not indexed, when the index is stale, or when a term of the query is
+ * not a node of the relevant graph; callers then ask Cyc as before. Answers reflect asserted
+ * edges, which is what the SBHL closure functions of Cyc compute from.
+ *
+ * <P>An index is kept current by applying the operations of a {@link KbOperationLog}, either
+ * one at a time with {@link #apply(CycList)} or from a background thread started with
+ * {@link #startFollowing(CycAccess, KbOperationLog, long)}. Each edge remembers the microtheories
+ * of the gafs which support it, so applying an operation twice has the same effect as applying it
+ * once. Operations which cannot be interpreted mark the index stale, so that it answers nothing
+ * until it is reloaded.
+ *
+ * <P>An index is used by the KB tools once it is registered with
+ * {@link CycClient#setTaxonomyIndex(TaxonomyIndex)}. Queries are lock-free; updates are
+ * serialized, and the labels are rebuilt lazily by the first query after an update.
+ */
+public class TaxonomyIndex {
+
+  //// Constructors
+
+  /**
+   * Creates a new, empty instance of TaxonomyIndex.
+   *
+   * @param mt the microtheory whose visible edges are indexed, or null for any microtheory
+   * @param relations the relations to index; all of them if none are given
+   */
+  public TaxonomyIndex(CycObject mt, Relation... relations) {
+    this.mt = mt;
+    this.relations = (relations.length == 0)
+            ? EnumSet.allOf(Relation.class) : EnumSet.of(relations[0], relations);
+    clear();
+  }
+
+  //// Public Area
+
+  /** The taxonomic relations which a TaxonomyIndex can hold. */
+  public enum Relation {
+
+    /** <code>(#$genls SPEC GENL)</code> */
+    GENLS(CommonConstants.GENLS),
+    /** <code>(#$isa INSTANCE COLLECTION)</code> */
+    ISA(CommonConstants.ISA),
+    /** <code>(#$genlMt SPEC-MT GENL-MT)</code> */
+    GENL_MT(CommonConstants.GENL_MT);
+
+    private Relation(Fort predicate) {
+      this.predicate = predicate;
+    }
+
+    /**
+     * Returns the predicate of this relation.
+     *
+     * @return the predicate
+     */
+    public Fort getPredicate() {
+      return predicate;
+    }
+
+    /**
+     * Returns the relation whose predicate is the given object.
+     *
+     * @param object the object
+     * @return the relation, or null if object is not a taxonomic predicate
+     */
+    public static Relation fromPredicate(Object object) {
+      for (final Relation relation : values()) {
+        if (relation.predicate.equals(object)) {
+          return relation;
+        }
+      }
+      return null;
+    }
+
+    private final Fort predicate;
+  }
+
+  /**
+   * Returns the index which is registered for the given microtheory with the CycClient behind
+   * the given CycAccess.
+   *
+   * @param cyc the CycAccess
+   * @param mt the microtheory, or null for any microtheory
+   * @return the index, or null if none is registered
+   */
+  public static TaxonomyIndex forAccess(CycAccess cyc, CycObject mt) {
+    return (cyc instanceof CycClient) ? ((CycClient) cyc).getTaxonomyIndex(mt) : null;
+  }
+
+  /**
+   * Returns the microtheory whose visible edges are indexed.
+   *
+   * @return the microtheory, or null for any microtheory
+   */
+  public CycObject getMt() {
+    return mt;
+  }
+
+  /**
+   * Returns the relations which this index holds.
+   *
+   * @return the relations
+   */
+  public Set<Relation> getRelations() {
+    return Collections.unmodifiableSet(relations);
+  }
+
+  /**
+   * Returns true if this index holds the given relation.
+   *
+   * @param relation the relation
+   * @return true if the relation is indexed
+   */
+  public boolean covers(Relation relation) {
+    return relations.contains(relation);
+  }
+
+  /**
+   * Replaces the contents of this index with the edges which Cyc currently holds. The edges are
+   * fetched before the index is locked, so queries are answered from the previous contents
+   * until the new ones are in place.
+   *
+   * @param cyc the Cyc server
+   * @throws CycConnectionException if a communications error occurs
+   * @throws CycApiException if the api request results in a cyc server error
+   */
+  public void load(CycAccess cyc) throws CycConnectionException, CycApiException {
+    final Map<Relation, CycList> extents = new EnumMap<Relation, CycList>(Relation.class);
+    for (final Relation relation : relations) {
+      final CycArrayList command = (mt == null)
+              ? ANY_MT_EXTENT.bind(relation.getPredicate())
+              : MT_EXTENT.bind(mt, relation.getPredicate());
+      extents.put(relation, cyc.converse().converseList(command));
+    }
+    final CycList genlMts = (mt == null) ? null : cyc.converse().converseList(GENL_MTS.bind(mt));
+    synchronized (this) {
+      clear();
+      for (final Map.Entry<Relation, CycList> extent : extents.entrySet()) {
+        for (final Object row : extent.getValue()) {
+          if ((row instanceof List) && (((List) row).size() == 3)) {
+            final List args = (List) row;
+            addOrRemove(extent.getKey(), args.get(0), args.get(1), unquote(args.get(2)), true);
+          }
+        }
+      }
+      if (genlMts != null) {
+        visibleMts = new HashSet<Object>();
+        visibleMts.add(unquote(mt));
+        for (final Object genlMt : genlMts) {
+          visibleMts.add(unquote(genlMt));
+        }
+      }
+      stale = false;
+    }
+    LOGGER.log(Level.FINE, "Loaded {0} edges between {1} terms into {2}",
+            new Object[]{getEdgeCount(), getTermCount(), this});
+  }
+
+  /**
+   * Replaces the contents of this index as {@link #load(CycAccess)} does, and returns a position
+   * of the given log with which the loaded contents are consistent. The load is repeated while
+   * operations appear in the log during it. If they keep appearing, the position from before the
+   * last load is returned; the operations which follow it may already be reflected in the index,
+   * which is harmless, since applying an operation again does not change the index.
+   *
+   * @param cyc the Cyc server
+   * @param log the operation log of the same Cyc server
+   * @return the position from which to apply the operations of the log
+   * @throws CycConnectionException if a communications error occurs
+   * @throws CycApiException if the api request results in a cyc server error
+   */
+  public long load(CycAccess cyc, KbOperationLog log) throws CycConnectionException, CycApiException {
+    long position = log.getPosition();
+    for (int attempt = 1;; attempt++) {
+      load(cyc);
+      final long loadedPosition = log.getPosition();
+      if ((loadedPosition == position) || (attempt >= MAX_LOAD_ATTEMPTS)) {
+        return position;
+      }
+      position = loadedPosition;
+    }
+  }
+
+  /**
+   * Returns true if this index has missed changes to the KB, and answers nothing until it is
+   * reloaded.
+   *
+   * @return true if this index is stale
+   */
+  public boolean isStale() {
+    return stale;
+  }
+
+  /** Marks this index as having missed changes to the KB. */
+  public void markStale() {
+    stale = true;
+    snapshot = null;
+  }
+
+  /**
+   * Returns whether genl is a genl of spec, including spec itself.
+   *
+   * @param genl the more general collection
+   * @param spec the more specific collection
+   * @return the answer, or null if this index cannot answer
+   */
+  public Boolean isGenlOf(CycObject genl, CycObject spec) {
+    return isReachable(Relation.GENLS, genl, spec);
+  }
+
+  /**
+   * Returns whether genlMt is a genlMt of specMt, including specMt itself.
+   *
+   * @param genlMt the more general microtheory
+   * @param specMt the more specific microtheory
+   * @return the answer, or null if this index cannot answer
+   */
+  public Boolean isGenlMtOf(CycObject genlMt, CycObject specMt) {
+    return isReachable(Relation.GENL_MT, genlMt, specMt);
+  }
+
+  /**
+   * Returns whether term is an instance of collection, directly or through the genls of its
+   * collections.
+   *
+   * @param term the term
+   * @param collection the collection
+   * @return the answer, or null if this index cannot answer
+   */
+  public Boolean isa(CycObject term, CycObject collection) {
+    final Snapshot snapshot = getSnapshot();
+    if ((snapshot == null) || !snapshot.covers(Relation.ISA) || !snapshot.covers(Relation.GENLS)) {
+      return null;
+    }
+    final int termId = snapshot.getId(term);
+    if ((termId < 0) || (snapshot.isaParents[termId].length == 0)
+            || snapshot.isIncomplete(Relation.ISA, termId)) {
+      return null;
+    }
+    final int collectionId = snapshot.getId(collection);
+    if (collectionId < 0) {
+      return Boolean.FALSE;
+    }
+    final ReachabilityLabels genls = snapshot.labels.get(Relation.GENLS);
+    for (final int direct : snapshot.isaParents[termId]) {
+      if ((direct == collectionId) || genls.reaches(collectionId, direct)) {
+        return Boolean.TRUE;
+      }
+    }
+    return Boolean.FALSE;
+  }
+
+  /**
+   * Returns the direct and indirect genls of a collection, including the collection itself.
+   *
+   * @param collection the collection
+   * @return the genls, or null if this index cannot answer
+   */
+  public CycList getAllGenls(CycObject collection) {
+    final Snapshot snapshot = getSnapshot();
+    final int id = snapshot == null ? -1 : snapshot.getNodeId(Relation.GENLS, collection);
+    return (id < 0) ? null
+            : snapshot.toList(Relation.GENLS, snapshot.labels.get(Relation.GENLS).getAncestors(id));
+  }
+
+  /**
+   * Returns the direct and indirect specs of a collection, including the collection itself.
+   *
+   * @param collection the collection
+   * @return the specs, or null if this index cannot answer
+   */
+  public CycList getAllSpecs(CycObject collection) {
+    final Snapshot snapshot = getSnapshot();
+    final int id = snapshot == null ? -1 : snapshot.getNodeId(Relation.GENLS, collection);
+    return (id < 0) ? null
+            : snapshot.toList(Relation.GENLS, snapshot.labels.get(Relation.GENLS).getDescendants(id));
+  }
+
+  /**
+   * Returns the collections of which a term is directly or indirectly an instance.
+   *
+   * @param term the term
+   * @return the collections, or null if this index cannot answer
+   */
+  public CycList getAllIsa(CycObject term) {
+    final Snapshot snapshot = getSnapshot();
+    if ((snapshot == null) || !snapshot.covers(Relation.GENLS)) {
+      return null;
+    }
+    final int id = snapshot.getNodeId(Relation.ISA, term);
+    if ((id < 0) || (snapshot.isaParents[id].length == 0)) {
+      return null;
+    }
+    final ReachabilityLabels genls = snapshot.labels.get(Relation.GENLS);
+    final BitSet collections = new BitSet();
+    for (final int direct : snapshot.isaParents[id]) {
+      for (final int genl : genls.getAncestors(direct)) {
+        collections.set(genl);
+      }
+    }
+    return snapshot.toList(Relation.GENLS, collections);
+  }
+
+  /**
+   * Returns the direct and indirect instances of a collection.
+   *
+   * @param collection the collection
+   * @return the instances, or null if this index cannot answer
+   */
+  public CycList getAllInstances(CycObject collection) {
+    final Snapshot snapshot = getSnapshot();
+    if ((snapshot == null) || !snapshot.covers(Relation.ISA) || !snapshot.covers(Relation.GENLS)) {
+      return null;
+    }
+    final int id = snapshot.getId(collection);
+    if ((id < 0) || !(snapshot.isNode(Relation.GENLS, id) || snapshot.isNode(Relation.ISA, id))
+            || snapshot.isIncomplete(Relation.GENLS, id)) {
+      return null;
+    }
+    final BitSet instances = new BitSet();
+    for (final int spec : snapshot.labels.get(Relation.GENLS).getDescendants(id)) {
+      if (snapshot.isIncomplete(Relation.ISA, spec)) {
+        return null;
+      }
+      for (final int instance : snapshot.isaChildren[spec]) {
+        instances.set(instance);
+      }
+    }
+    return snapshot.toList(Relation.ISA, instances);
+  }
+
+  /**
+   * Adds the edge of relation between child and parent, as supported by a gaf in the indexed
+   * microtheory.
+   *
+   * @param relation the relation
+   * @param child the spec, instance or spec microtheory
+   * @param parent the genl, collection or genl microtheory
+   * @return true if the index changed
+   */
+  public synchronized boolean addEdge(Relation relation, CycObject child, CycObject parent) {
+    return addOrRemove(relation, child, parent, unquote(mt), true);
+  }
+
+  /**
+   * Adds the edge of relation between child and parent, as supported by a gaf in the given
+   * microtheory. Adding the same support again does not change the index.
+   *
+   * @param relation the relation
+   * @param child the spec, instance or spec microtheory
+   * @param parent the genl, collection or genl microtheory
+   * @param supportMt the microtheory of the supporting gaf
+   * @return true if the index changed
+   */
+  public synchronized boolean addEdge(Relation relation, CycObject child, CycObject parent,
+          CycObject supportMt) {
+    return addOrRemove(relation, child, parent, unquote(supportMt), true);
+  }
+
+  /**
+   * Removes the support of a gaf in the indexed microtheory from the edge of relation between
+   * child and parent.
+   *
+   * @param relation the relation
+   * @param child the spec, instance or spec microtheory
+   * @param parent the genl, collection or genl microtheory
+   * @return true if the index changed
+   */
+  public synchronized boolean removeEdge(Relation relation, CycObject child, CycObject parent) {
+    return addOrRemove(relation, child, parent, unquote(mt), false);
+  }
+
+  /**
+   * Removes the support of a gaf in the given microtheory from the edge of relation between
+   * child and parent. The edge is removed with its last support.
+   *
+   * @param relation the relation
+   * @param child the spec, instance or spec microtheory
+   * @param parent the genl, collection or genl microtheory
+   * @param supportMt the microtheory of the supporting gaf
+   * @return true if the index changed
+   */
+  public synchronized boolean removeEdge(Relation relation, CycObject child, CycObject parent,
+          CycObject supportMt) {
+    return addOrRemove(relation, child, parent, unquote(supportMt), false);
+  }
+
+  /**
+   * Removes every edge to or from the given term, as when it is killed.
+   *
+   * @param term the term
+   * @return true if the index changed
+   */
+  public synchronized boolean removeTerm(CycObject term) {
+    final Integer id = ids.get(term);
+    if (id == null) {
+      return false;
+    }
+    boolean changed = false;
+    for (final Map.Entry<Relation, TaxonomyGraph> entry : graphs.entrySet()) {
+      if (entry.getValue().removeNode(id)) {
+        changed = true;
+        changed(entry.getKey());
+      }
+      incomplete.get(entry.getKey()).clear(id);
+    }
+    return changed;
+  }
+
+  /** Removes every edge and term from this index. */
+  public synchronized void clear() {
+    ids.clear();
+    terms.clear();
+    supportIds.clear();
+    visibleMts = null;
+    graphs.clear();
+    incomplete.clear();
+    for (final Relation relation : relations) {
+      graphs.put(relation, new TaxonomyGraph());
+      incomplete.put(relation, new BitSet());
+    }
+    genlMtLabels = null;
+    snapshot = null;
+  }
+
+  /**
+   * Returns the number of terms which this index has seen.
+   *
+   * @return the number of terms
+   */
+  public synchronized int getTermCount() {
+    return terms.size();
+  }
+
+  /**
+   * Returns the number of distinct edges in this index.
+   *
+   * @return the number of edges
+   */
+  public synchronized int getEdgeCount() {
+    int count = 0;
+    for (final TaxonomyGraph graph : graphs.values()) {
+      count += graph.getEdgeCount();
+    }
+    return count;
+  }
+
+  /**
+   * Applies one operation of a {@link KbOperationLog} to this index. Assertions, unassertions
+   * and edits of taxonomic gafs in relevant microtheories change the edges; kills remove terms.
+   * Operations which do not mention an indexed predicate are ignored, and those which do but
+   * cannot be interpreted mark the index stale.
+   *
+   * @param operation the operation, an api form such as <code>(fi-assert '(#$genls A B) MT)</code>
+   * @return true if the index changed
+   */
+  public synchronized boolean apply(CycList operation) {
+    if (operation.isEmpty() || !(operation.get(0) instanceof CycSymbol)) {
+      return false;
+    }
+    final String name = ((CycSymbol) operation.get(0)).getSymbolName().toUpperCase();
+    if (WRAPPERS.contains(name) || name.startsWith("WITH-")) {
+      boolean changed = false;
+      for (int i = 1; i < operation.size(); i++) {
+        if (operation.get(i) instanceof CycList) {
+          changed |= apply((CycList) operation.get(i));
+        }
+      }
+      return changed;
+    }
+    if (name.contains("UNASSERT")) {
+      return applyToSentence(operation, argAt(operation, 1), argAt(operation, 2), false);
+    } else if (name.contains("ASSERT")) {
+      return applyToSentence(operation, argAt(operation, 1), argAt(operation, 2), true);
+    } else if (name.contains("EDIT")) {
+      final Object oldMt = argAt(operation, 3);
+      final Object newMt = (argAt(operation, 4) == null) ? oldMt : argAt(operation, 4);
+      final boolean removed = applyToSentence(operation, argAt(operation, 1), oldMt, false);
+      return applyToSentence(operation, argAt(operation, 2), newMt, true) || removed;
+    } else if (name.contains("KILL") || name.contains("BLAST")) {
+      final Object term = unquote(argAt(operation, 1));
+      return (term instanceof CycObject) && removeTerm((CycObject) term);
+    } else if (mentionsIndexedPredicate(operation)) {
+      // merges, renames of NATs and the like move edges in ways which cannot be followed here
+      markStale();
+    }
+    return false;
+  }
+
+  /**
+   * Starts a daemon thread which keeps this index current by applying the operations of the given
+   * log, and which reloads the index whenever it becomes stale. The index is loaded first.
+   *
+   * @param cyc the Cyc server from which to reload
+   * @param log the operation log of the same Cyc server
+   * @param intervalMillis the time to wait after the log runs dry
+   */
+  public synchronized void startFollowing(CycAccess cyc, KbOperationLog log, long intervalMillis) {
+    stopFollowing();
+    follower = new Follower(cyc, log, intervalMillis);
+    follower.start();
+  }
+
+  /** Stops the thread started by {@link #startFollowing}, if any. */
+  public synchronized void stopFollowing() {
+    if (follower != null) {
+      follower.halt();
+      follower = null;
+    }
+  }
+
+  /**
+   * Returns true if a thread started by {@link #startFollowing} is keeping this index current.
+   *
+   * @return true if this index is following an operation log
+   */
+  public synchronized boolean isFollowing() {
+    return (follower != null) && follower.isAlive();
+  }
+
+  @Override
+  public String toString() {
+    return "TaxonomyIndex for " + ((mt == null) ? "any mt" : mt.toString()) + " of " + relations;
+  }
+
+  //// Private Area
+
+  private Boolean isReachable(final Relation relation, final CycObject ancestor,
+          final CycObject descendant) {
+    final Snapshot snapshot = getSnapshot();
+    final int descendantId = (snapshot == null) ? -1 : snapshot.getNodeId(relation, descendant);
+    if (descendantId < 0) {
+      return null;
+    }
+    if (descendant.equals(ancestor)) {
+      return Boolean.TRUE;
+    }
+    final int ancestorId = snapshot.getId(ancestor);
+    if ((ancestorId >= 0) && snapshot.isIncomplete(relation, ancestorId)) {
+      return null;
+    }
+    return (ancestorId >= 0) && snapshot.labels.get(relation).reaches(ancestorId, descendantId);
+  }
+
+  private Snapshot getSnapshot() {
+    Snapshot current = snapshot;
+    if (current == null) {
+      synchronized (this) {
+        if (snapshot == null) {
+          snapshot = new Snapshot();
+        }
+        current = snapshot;
+      }
+    }
+    return current.isStale ? null : current;
+  }
+
+  /**
+   * Adds or removes the support of a gaf in supportMt to an edge of objects which may not be
+   * FORTs; returns true if the edge changed.
+   */
+  private boolean addOrRemove(final Relation relation, final Object child, final Object parent,
+          final Object supportMt, final boolean isAdd) {
+    final TaxonomyGraph graph = graphs.get(relation);
+    if (graph == null) {
+      return false;
+    }
+    if (!(child instanceof Fort) || !(parent instanceof Fort)) {
+      // NAUTs and literals have no stable identity here, so the closures through them are unknown
+      boolean changed = false;
+      for (final Object arg : new Object[]{child, parent}) {
+        if (arg instanceof Fort) {
+          incomplete.get(relation).set(idOf((Fort) arg));
+          changed = true;
+        }
+      }
+      if (changed) {
+        changed(relation);
+      }
+      return changed;
+    }
+    final int childId = idOf((CycObject) child);
+    final int parentId = idOf((CycObject) parent);
+    final int supportId = supportIdOf(supportMt);
+    final boolean changed = isAdd
+            ? graph.addEdge(childId, parentId, supportId)
+            : graph.removeEdge(childId, parentId, supportId);
+    if (changed) {
+      changed(relation);
+    }
+    return changed;
+  }
+
+  private boolean applyToSentence(final CycList operation, final Object sentenceObject,
+          final Object mtObject, final boolean isAdd) {
+    final Object sentence = unquote(sentenceObject);
+    final Relation relation = (sentence instanceof List) && (((List) sentence).size() == 3)
+            ? Relation.fromPredicate(((List) sentence).get(0)) : null;
+    final Object operationMt = unquote(mtObject);
+    if ((relation == Relation.GENL_MT) && (mt != null)) {
+      noteGenlMtChange((List) sentence, operationMt, isAdd);
+    }
+    if ((relation == null) || !covers(relation)) {
+      if (mentionsIndexedPredicate(operation)) {
+        // rules and negations about taxonomic predicates can change the edges by inference
+        markStale();
+      }
+      return false;
+    }
+    if (!isRelevantMt(operationMt)) {
+      return false;
+    }
+    final List args = (List) sentence;
+    return addOrRemove(relation, args.get(1), args.get(2), operationMt, isAdd);
+  }
+
+  /**
+   * Returns true if an operation in the given microtheory can change the edges visible from the
+   * indexed microtheory. Operations in microtheories which are not genlMts of it are not; when
+   * its genlMts are not known, the index is marked stale.
+   */
+  private boolean isRelevantMt(final Object operationMt) {
+    if ((mt == null) || mt.equals(operationMt)) {
+      return true;
+    }
+    final Boolean isVisible = isVisibleMt(operationMt);
+    if (isVisible == null) {
+      markStale();
+      return false;
+    }
+    return isVisible;
+  }
+
+  /** Returns whether candidate is a genlMt of the indexed microtheory, or null if not known. */
+  private Boolean isVisibleMt(final Object candidate) {
+    if (mt.equals(candidate)) {
+      return Boolean.TRUE;
+    }
+    final TaxonomyGraph genlMts = graphs.get(Relation.GENL_MT);
+    final Integer mtId = ids.get(mt);
+    if ((genlMts != null) && (mtId != null) && genlMts.contains(mtId)) {
+      final Integer candidateId = ids.get(candidate);
+      if ((candidateId == null) || !genlMts.contains(candidateId)) {
+        return Boolean.FALSE;
+      }
+      if (genlMtLabels == null) {
+        genlMtLabels = genlMts.computeLabels(terms.size());
+      }
+      return genlMtLabels.reaches(candidateId, mtId);
+    }
+    return (visibleMts == null) ? null : visibleMts.contains(candidate);
+  }
+
+  /**
+   * Notes a genlMt gaf which is asserted or unasserted. If it may change which microtheories
+   * are visible from the indexed one, the genlMts loaded with the index no longer hold; they are
+   * still followed in the GENL_MT graph if it is indexed, and otherwise the index is stale.
+   */
+  private void noteGenlMtChange(final List sentence, final Object operationMt, final boolean isAdd) {
+    if ((visibleMts == null) || !visibleMts.contains(operationMt)) {
+      return;
+    }
+    final Object specMt = unquote(sentence.get(1));
+    final Object genlMt = unquote(sentence.get(2));
+    if (visibleMts.contains(specMt) && !(isAdd && visibleMts.contains(genlMt))) {
+      visibleMts = null;
+      if (!covers(Relation.GENL_MT)) {
+        markStale();
+      }
+    }
+  }
+
+  private boolean mentionsIndexedPredicate(final Object object) {
+    if (object instanceof Formula) {
+      return mentionsIndexedPredicate(((Formula) object).toCycList());
+    }
+    if (object instanceof List) {
+      for (final Object element : (List) object) {
+        if (mentionsIndexedPredicate(element)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    final Relation relation = Relation.fromPredicate(object);
+    return (relation != null) && covers(relation);
+  }
+
+  private static Object argAt(final CycList operation, final int index) {
+    return (index < operation.size()) ? operation.get(index) : null;
+  }
+
+  private static Object unquote(final Object object) {
+    if ((object instanceof List) && (((List) object).size() == 2)
+            && QUOTE.equals(((List) object).get(0))) {
+      return unquote(((List) object).get(1));
+    }
+    if (object instanceof Formula) {
+      return ((Formula) object).toCycList();
+    }
+    return object;
+  }
+
+  private int idOf(final CycObject term) {
+    Integer id = ids.get(term);
+    if (id == null) {
+      id = terms.size();
+      ids.put(term, id);
+      terms.add(term);
+    }
+    return id;
+  }
+
+  private int supportIdOf(final Object supportMt) {
+    Integer id = supportIds.get(supportMt);
+    if (id == null) {
+      id = supportIds.size();
+      supportIds.put(supportMt, id);
+    }
+    return id;
+  }
+
+  private void changed(final Relation relation) {
+    if (relation == Relation.GENL_MT) {
+      genlMtLabels = null;
+    }
+    snapshot = null;
+  }
+
+  /**
+   * An immutable view of the index, with labels, which queries use without locking. It is
+   * built by the first query after an update.
+   */
+  private final class Snapshot {
+
+    Snapshot() {
+      isStale = stale;
+      nodeCount = terms.size();
+      termArray = terms.toArray(new CycObject[nodeCount]);
+      termIds = new HashMap<CycObject, Integer>(ids);
+      for (final Map.Entry<Relation, TaxonomyGraph> entry : graphs.entrySet()) {
+        final TaxonomyGraph graph = entry.getValue();
+        final BitSet nodes = new BitSet(nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+          if (graph.contains(node)) {
+            nodes.set(node);
+          }
+        }
+        this.nodes.put(entry.getKey(), nodes);
+        this.incompleteNodes.put(entry.getKey(), (BitSet) incomplete.get(entry.getKey()).clone());
+        if (entry.getKey() != Relation.ISA) {
+          labels.put(entry.getKey(), graph.computeLabels(nodeCount));
+        }
+      }
+      final TaxonomyGraph isaGraph = graphs.get(Relation.ISA);
+      isaParents = new int[(isaGraph == null) ? 0 : nodeCount][];
+      isaChildren = new int[isaParents.length][];
+      for (int node = 0; node < isaParents.length; node++) {
+        isaParents[node] = isaGraph.getParents(node);
+        isaChildren[node] = isaGraph.getChildren(node);
+      }
+    }
+
+    boolean covers(final Relation relation) {
+      return nodes.containsKey(relation);
+    }
+
+    int getId(final Object term) {
+      final Integer id = termIds.get(term);
+      return (id == null) ? -1 : id;
+    }
+
+    boolean isNode(final Relation relation, final int id) {
+      return nodes.get(relation).get(id);
+    }
+
+    boolean isIncomplete(final Relation relation, final int id) {
+      return incompleteNodes.get(relation).get(id);
+    }
+
+    /** Returns the id of a complete node of the given relation, or -1. */
+    int getNodeId(final Relation relation, final Object term) {
+      final int id = getId(term);
+      return (!covers(relation) || (id < 0) || !isNode(relation, id)
+              || isIncomplete(relation, id)) ? -1 : id;
+    }
+
+    /** Returns the terms with the given ids, or null if the closure of any of them is unknown. */
+    CycList toList(final Relation relation, final int[] idArray) {
+      final CycList result = new CycArrayList(idArray.length);
+      for (final int id : idArray) {
+        if (isIncomplete(relation, id)) {
+          return null;
+        }
+        result.add(termArray[id]);
+      }
+      return result;
+    }
+
+    CycList toList(final Relation relation, final BitSet idSet) {
+      final CycList result = new CycArrayList(idSet.cardinality());
+      for (int id = idSet.nextSetBit(0); id >= 0; id = idSet.nextSetBit(id + 1)) {
+        if (isIncomplete(relation, id)) {
+          return null;
+        }
+        result.add(termArray[id]);
+      }
+      return result;
+    }
+
+    final boolean isStale;
+    final int nodeCount;
+    final CycObject[] termArray;
+    final Map<CycObject, Integer> termIds;
+    final Map<Relation, BitSet> nodes = new EnumMap<Relation, BitSet>(Relation.class);
+    final Map<Relation, BitSet> incompleteNodes = new EnumMap<Relation, BitSet>(Relation.class);
+    final Map<Relation, ReachabilityLabels> labels =
+            new EnumMap<Relation, ReachabilityLabels>(Relation.class);
+    final int[][] isaParents;
+    final int[][] isaChildren;
+  }
+
+  /** Applies the operations of a KbOperationLog to this index as they appear. */
+  private final class Follower extends Thread {
+
+    Follower(final CycAccess cyc, final KbOperationLog log, final long intervalMillis) {
+      super("TaxonomyIndex follower for " + ((mt == null) ? "any mt" : mt.toString()));
+      setDaemon(true);
+      this.cyc = cyc;
+      this.log = log;
+      this.intervalMillis = intervalMillis;
+    }
+
+    void halt() {
+      isHalted = true;
+      interrupt();
+    }
+
+    @Override
+    public void run() {
+      long position = -1;
+      final List<CycList> operations = new ArrayList<CycList>();
+      while (!isHalted) {
+        try {
+          if ((position < 0) || isStale()) {
+            position = load(cyc, log);
+          }
+          operations.clear();
+          final long newPosition = log.readOperations(position, operations);
+          for (final CycList operation : operations) {
+            apply(operation);
+          }
+          position = newPosition;
+          if (operations.isEmpty()) {
+            Thread.sleep(intervalMillis);
+          }
+        } catch (InterruptedException e) {
+          break;
+        } catch (Exception e) {
+          LOGGER.log(Level.WARNING, "Could not follow " + log + "; will reload " + TaxonomyIndex.this, e);
+          markStale();
+          try {
+            Thread.sleep(intervalMillis);
+          } catch (InterruptedException ie) {
+            break;
+          }
+        }
+      }
+    }
+
+    private final CycAccess cyc;
+    private final KbOperationLog log;
+    private final long intervalMillis;
+    private volatile boolean isHalted = false;
+  }
+
+  //// Internal Rep
+
+  private static final Logger LOGGER = Logger.getLogger(TaxonomyIndex.class.getName());
+  /** the number of times a load is repeated while operations appear in the log during it */
+  private static final int MAX_LOAD_ATTEMPTS = 3;
+  private static final String GAF_ARGS_AND_MTS = "(clet (rows) "
+          + "(cdolist (gaf (gather-predicate-extent-index $predicate/fort nil :true)) "
+          + "(cpush (list (gaf-arg1 gaf) (gaf-arg2 gaf) (assertion-mt gaf)) rows)) "
+          + "(nreverse rows))";
+  private static final PreparedSublCommand ANY_MT_EXTENT = PreparedSublCommand.prepare(
+          "(with-all-mts " + GAF_ARGS_AND_MTS + ")");
+  private static final PreparedSublCommand MT_EXTENT = PreparedSublCommand.prepare(
+          "(with-inference-mt-relevance $mt/term " + GAF_ARGS_AND_MTS + ")");
+  private static final PreparedSublCommand GENL_MTS = PreparedSublCommand.prepare(
+          "(all-genl-mts $mt/term)");
+  private static final Set<String> WRAPPERS = new HashSet<String>(
+          Arrays.asList("CLET", "CLET*", "PROGN", "CPROGV", "CATCH-ERROR-MESSAGE"));
+  private static final Object QUOTE = CycObjectFactory.quote;
+  private final CycObject mt;
+  private final Set<Relation> relations;
+  private final Map<CycObject, Integer> ids = new HashMap<CycObject, Integer>();
+  private final List<CycObject> terms = new ArrayList<CycObject>();
+  /** the microtheories of the gafs which support edges, identified as in TaxonomyGraph */
+  private final Map<Object, Integer> supportIds = new HashMap<Object, Integer>();
+  private final Map<Relation, TaxonomyGraph> graphs =
+          new EnumMap<Relation, TaxonomyGraph>(Relation.class);
+  /** the terms with an edge to a NAUT or literal, whose closures are not known */
+  private final Map<Relation, BitSet> incomplete = new EnumMap<Relation, BitSet>(Relation.class);
+  private ReachabilityLabels genlMtLabels;
+  /** the genlMts of the indexed microtheory when it was loaded, or null if they do not hold */
+  private Set<Object> visibleMts;
+  private volatile Snapshot snapshot;
+  private volatile boolean stale = false;
+  private Follower follower;
+
+}
@@ -0,0 +1,123 @@
+package com.cyc.baseclient.taxonomy;
+
+/*
+ * #%L
+ * File: TranscriptOperationLog.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+//// Internal Imports
+import com.cyc.base.CycAccess;
+import com.cyc.base.cycobject.CycList;
+import com.cyc.base.exception.CycApiException;
+import com.cyc.base.exception.CycConnectionException;
+import static com.cyc.baseclient.subl.functions.SublFunctions.TRANSCRIPT_OPERATIONS_SINCE_WRT_API;
+
+//// External Imports
+import java.util.List;
+
+/**
+ * <P>TranscriptOperationLog is a {@link KbOperationLog} which reads the operations that a Cyc
+ * image records in its local transcript, using the optional TRANSCRIPT-OPERATIONS-SINCE-WRT-API
+ * function. Positions count the operations in the transcript, so only operations which Cyc
+ * transcripts are seen.
+ */
+public class TranscriptOperationLog implements KbOperationLog {
+
+  //// Constructors
+
+  /**
+   * Creates a new instance of TranscriptOperationLog.
+   *
+   * @param cyc the Cyc server whose transcript is read
+   */
+  public TranscriptOperationLog(CycAccess cyc) {
+    this(cyc, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Creates a new instance of TranscriptOperationLog.
+   *
+   * @param cyc the Cyc server whose transcript is read
+   * @param batchSize the maximum number of operations read in one request
+   */
+  public TranscriptOperationLog(CycAccess cyc, int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+    }
+    this.cyc = cyc;
+    this.batchSize = batchSize;
+  }
+
+  //// Public Area
+
+  /**
+   * Returns true if the Cyc server can provide its transcript operations.
+   *
+   * @param cyc the Cyc server
+   * @return true if TRANSCRIPT-OPERATIONS-SINCE-WRT-API is defined
+   * @throws CycConnectionException if a communications error occurs
+   * @throws CycApiException if the api request results in a cyc server error
+   */
+  public static boolean isSupported(CycAccess cyc) throws CycConnectionException, CycApiException {
+    return TRANSCRIPT_OPERATIONS_SINCE_WRT_API.isBound(cyc);
+  }
+
+  @Override
+  public long getPosition() throws CycConnectionException, CycApiException {
+    return toPosition(TRANSCRIPT_OPERATIONS_SINCE_WRT_API.eval(cyc, null, 0).get(0));
+  }
+
+  @Override
+  public long readOperations(long position, List<CycList> operations)
+          throws CycConnectionException, CycApiException {
+    final CycList result = TRANSCRIPT_OPERATIONS_SINCE_WRT_API.eval(cyc, position, batchSize);
+    final long newPosition = toPosition(result.get(0));
+    final Object read = result.get(1);
+    if (read instanceof List) {
+      for (final Object operation : (List) read) {
+        if (operation instanceof CycList) {
+          operations.add((CycList) operation);
+        }
+      }
+    }
+    return newPosition;
+  }
+
+  @Override
+  public String toString() {
+    return "TranscriptOperationLog of " + cyc;
+  }
+
+  //// Private Area
+
+  private static long toPosition(final Object object) throws CycApiException {
+    if (!(object instanceof Number)) {
+      throw new CycApiException("Invalid transcript position: " + object);
+    }
+    return ((Number) object).longValue();
+  }
+
+  //// Internal Rep
+
+  /** the default maximum number of operations read in one request */
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+  private final CycAccess cyc;
+  private final int batchSize;
+
+}
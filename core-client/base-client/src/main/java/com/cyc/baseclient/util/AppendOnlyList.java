@@ -0,0 +1,98 @@
+package com.cyc.baseclient.util;
+
+/*
+ * #%L
+ * File: AppendOnlyList.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+//// Internal Imports
+
+//// External Imports
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * <P>AppendOnlyList is a list which one thread may grow while others read it without locking.
+ * Elements are stored in chunks which double in size and are never copied, so an append costs
+ * O(1) and an element, once published by the size, stays where readers found it. Appends are
+ * serialized; elements cannot be removed or replaced.
+ *
+ * @param <E> the type of elements
+ */
+public class AppendOnlyList<E> extends AbstractList<E> implements RandomAccess {
+
+  //// Constructors
+
+  /** Creates a new, empty instance of AppendOnlyList. */
+  public AppendOnlyList() {
+  }
+
+  //// Public Area
+
+  @Override
+  public synchronized boolean add(E element) {
+    final int index = size;
+    final int chunk = chunkOf(index);
+    Object[][] current = chunks;
+    if (chunk == current.length) {
+      current = Arrays.copyOf(current, chunk + 1);
+      current[chunk] = new Object[FIRST_CHUNK_SIZE << chunk];
+      chunks = current;
+    }
+    current[chunk][offsetOf(index, chunk)] = element;
+    // publishes the element to readers, which read the size first
+    size = index + 1;
+    modCount++;
+    return true;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E get(int index) {
+    if ((index < 0) || (index >= size)) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    final int chunk = chunkOf(index);
+    return (E) chunks[chunk][offsetOf(index, chunk)];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  //// Private Area
+
+  /** Returns the chunk which holds index, where chunk k starts at FIRST_CHUNK_SIZE * (2^k - 1). */
+  private static int chunkOf(final int index) {
+    return 31 - Integer.numberOfLeadingZeros((index / FIRST_CHUNK_SIZE) + 1);
+  }
+
+  private static int offsetOf(final int index, final int chunk) {
+    return index - (FIRST_CHUNK_SIZE * ((1 << chunk) - 1));
+  }
+
+  //// Internal Rep
+
+  private static final int FIRST_CHUNK_SIZE = 16;
+  private volatile Object[][] chunks = new Object[0][];
+  private volatile int size = 0;
+
+}
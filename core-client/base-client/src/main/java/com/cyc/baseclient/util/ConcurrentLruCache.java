@@ -0,0 +1,451 @@
+package com.cyc.baseclient.util;
+
+/*
+ * #%L
+ * File: ConcurrentLruCache.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+//// Internal Imports
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+//// External Imports
+
+/**
+ * <P>ConcurrentLruCache is a size-bounded cache with approximately least-recently-used eviction,
+ * for caches which are read far more often than they are written. Reads never lock: an entry
+ * lives in a ConcurrentHashMap and a read merely marks it as referenced. When a put takes the
+ * cache over its maximum size, the putting thread sweeps a clock hand across the entries,
+ * clearing reference marks and evicting the first entry which has not been read since the hand
+ * last passed it (the CLOCK, or second-chance, approximation of LRU).
+ *
+ * <P>Each cache counts its hits, misses and evictions; hits and misses are counted in striped
+ * counters, so that the counting does not make concurrent reads contend. Following the LruCache idiom used
+ * throughout the Base Client, putting a null value removes the key.
+ *
+ * <P>Subclasses may give entries a weight other than 1 with {@link #weigh}, in which case the
+ * maximum size bounds the total weight; expire entries with {@link #isExpired}; and track the
+ * entries leaving the cache with {@link #entryRemoved}.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public class ConcurrentLruCache<K, V> extends AbstractMap<K, V> {
+
+  //// Constructors
+
+  /**
+   * Creates a new instance of ConcurrentLruCache.
+   *
+   * @param maxSize the maximum number of entries
+   */
+  public ConcurrentLruCache(int maxSize) {
+    this(maxSize, maxSize);
+  }
+
+  /**
+   * Creates a new instance of ConcurrentLruCache.
+   *
+   * @param defaultSize the initial capacity
+   * @param maxSize the maximum number of entries
+   */
+  public ConcurrentLruCache(int defaultSize, int maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Invalid maximum cache size: " + maxSize);
+    }
+    this.maxSize = maxSize;
+    this.cache = new ConcurrentHashMap<K, Node<V>>(Math.max(16, defaultSize));
+  }
+
+  //// Public Area
+
+  /** Why an entry left the cache, as reported to {@link #entryRemoved}. */
+  public enum RemovalCause {
+    /** The entry was removed, or cleared. */
+    REMOVED,
+    /** The entry was evicted to respect the maximum size. */
+    EVICTED,
+    /** The entry was found to have expired. */
+    EXPIRED
+  }
+
+  @Override
+  public V get(Object key) {
+    final Node<V> node = cache.get(key);
+    if ((node == null) || isExpired(node.value)) {
+      if (node != null) {
+        removeNode(key, node, RemovalCause.EXPIRED);
+      }
+      missCount.increment();
+      return null;
+    }
+    hitCount.increment();
+    if (!node.referenced) {
+      node.referenced = true;
+    }
+    return node.value;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return cache.containsKey(key);
+  }
+
+  /**
+   * Returns the value cached for the given key, without counting a read or marking the entry as
+   * referenced.
+   *
+   * @param key the key
+   *
+   * @return the value, or null if none is cached or it has expired
+   */
+  public V peek(Object key) {
+    final Node<V> node = cache.get(key);
+    return ((node == null) || isExpired(node.value)) ? null : node.value;
+  }
+
+  @Override
+  public V put(K key, V value) {
+    if (value == null) {
+      return remove(key);
+    }
+    final Node<V> node = new Node<V>(value, weigh(key, value));
+    final Node<V> previous = cache.put(key, node);
+    added(node, previous);
+    return (previous == null) ? null : previous.value;
+  }
+
+  /**
+   * Caches the given value for the given key, unless a live value is already cached for it.
+   *
+   * @param key the key
+   * @param value the value
+   *
+   * @return the value already cached, or null if the given value was cached
+   */
+  public V putIfAbsent(K key, V value) {
+    final Node<V> node = new Node<V>(value, weigh(key, value));
+    while (true) {
+      final Node<V> previous = cache.putIfAbsent(key, node);
+      if (previous == null) {
+        added(node, null);
+        return null;
+      }
+      if (!isExpired(previous.value)) {
+        return previous.value;
+      }
+      removeNode(key, previous, RemovalCause.EXPIRED);
+    }
+  }
+
+  /**
+   * Replaces the value cached for the given key, if it is still equal to the given old value.
+   *
+   * @param key the key
+   * @param oldValue the value expected to be cached
+   * @param newValue the new value
+   *
+   * @return true if the value was replaced
+   */
+  public boolean replace(K key, V oldValue, V newValue) {
+    final Node<V> previous = cache.get(key);
+    if ((previous == null) || !isSameValue(previous.value, oldValue)) {
+      return false;
+    }
+    final Node<V> node = new Node<V>(newValue, weigh(key, newValue));
+    if (!cache.replace(key, previous, node)) {
+      return false;
+    }
+    added(node, previous);
+    return true;
+  }
+
+  @Override
+  public V remove(Object key) {
+    final Node<V> previous = cache.get(key);
+    return ((previous != null) && removeNode(key, previous, RemovalCause.REMOVED))
+            ? previous.value : null;
+  }
+
+  /**
+   * Removes the given key if a value equal to the given one is still cached for it.
+   *
+   * @param key the key
+   * @param value the value expected to be cached
+   *
+   * @return true if the key was removed
+   */
+  public boolean remove(Object key, Object value) {
+    final Node<V> previous = cache.get(key);
+    return (previous != null) && isSameValue(previous.value, value)
+            && removeNode(key, previous, RemovalCause.REMOVED);
+  }
+
+  @Override
+  public void clear() {
+    final Iterator<K> keys = cache.keySet().iterator();
+    while (keys.hasNext()) {
+      remove(keys.next());
+    }
+  }
+
+  @Override
+  public int size() {
+    return cache.size();
+  }
+
+  /**
+   * Returns the total weight of the entries, which is their number unless {@link #weigh} is
+   * overridden.
+   *
+   * @return the total weight
+   */
+  public long getWeight() {
+    return Math.max(0, weight.get());
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return cache.isEmpty();
+  }
+
+  /**
+   * Returns a snapshot of the entries of this cache. Reading the snapshot does not mark the
+   * entries as referenced.
+   *
+   * @return a snapshot of the entries of this cache
+   */
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    final Map<K, V> snapshot = new HashMap<K, V>(cache.size());
+    for (final Map.Entry<K, Node<V>> entry : cache.entrySet()) {
+      snapshot.put(entry.getKey(), entry.getValue().value);
+    }
+    return snapshot.entrySet();
+  }
+
+  /**
+   * Returns the maximum number, or total weight, of entries held by this cache.
+   *
+   * @return the maximum number of entries
+   */
+  public int getMaximumSize() {
+    return maxSize;
+  }
+
+  /**
+   * Sets the maximum number, or total weight, of entries held by this cache, evicting entries if
+   * it now holds too many.
+   *
+   * @param maxSize the maximum number of entries
+   */
+  public void setMaximumSize(int maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Invalid maximum cache size: " + maxSize);
+    }
+    this.maxSize = maxSize;
+    evictWhileOverweight();
+  }
+
+  /**
+   * Returns the number of reads which found their key.
+   *
+   * @return the number of hits
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * Returns the number of reads which did not find their key.
+   *
+   * @return the number of misses
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * Returns the number of entries evicted to respect the maximum size.
+   *
+   * @return the number of evictions
+   */
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  /**
+   * Returns the fraction of reads which found their key, or 0 if there have been no reads.
+   *
+   * @return the hit ratio
+   */
+  public double getHitRatio() {
+    final long hits = hitCount.get();
+    final long reads = hits + missCount.get();
+    return (reads == 0) ? 0.0 : (hits / (double) reads);
+  }
+
+  /** Resets the hit, miss and eviction counters. */
+  public void resetStatistics() {
+    hitCount.reset();
+    missCount.reset();
+    evictionCount.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return "ConcurrentLruCache size: " + getWeight() + "/" + maxSize + " hits: " + hitCount.get()
+            + " misses: " + missCount.get() + " evictions: " + evictionCount.get();
+  }
+
+  //// Protected Area
+
+  /**
+   * Returns the weight of the given entry. The weight of an entry is fixed when it is cached.
+   *
+   * @param key the key
+   * @param value the value
+   *
+   * @return the weight, 1 unless overridden
+   */
+  protected int weigh(K key, V value) {
+    return 1;
+  }
+
+  /**
+   * Returns true if the given value has expired. Expired entries are removed when next read.
+   *
+   * @param value the value
+   *
+   * @return true if the value has expired, which it never does unless overridden
+   */
+  protected boolean isExpired(V value) {
+    return false;
+  }
+
+  /**
+   * Called after an entry has left the cache, other than by being replaced. The default does
+   * nothing.
+   *
+   * @param key the key
+   * @param value the value
+   * @param cause why the entry left the cache
+   */
+  protected void entryRemoved(K key, V value, RemovalCause cause) {
+  }
+
+  //// Private Area
+
+  private void added(final Node<V> node, final Node<V> previous) {
+    final int delta = (previous == null) ? node.weight : (node.weight - previous.weight);
+    if ((weight.addAndGet(delta) > maxSize) && (delta > 0)) {
+      evictWhileOverweight();
+    }
+  }
+
+  private boolean removeNode(final Object key, final Node<V> node, final RemovalCause cause) {
+    if (!cache.remove(key, node)) {
+      return false;
+    }
+    weight.addAndGet(-node.weight);
+    entryRemoved((K) key, node.value, cause);
+    return true;
+  }
+
+  private static boolean isSameValue(final Object value, final Object otherValue) {
+    return (value == otherValue) || ((value != null) && value.equals(otherValue));
+  }
+
+  private void evictWhileOverweight() {
+    while (weight.get() > maxSize) {
+      if (!evict()) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Advances the clock hand until it evicts an entry.
+   *
+   * @return true if an entry was evicted
+   */
+  private boolean evict() {
+    evictionLock.lock();
+    try {
+      // every entry is passed at most twice: once to clear its mark, once to evict it
+      final int limit = 2 * (cache.size() + 1);
+      for (int i = 0; i < limit; i++) {
+        if ((clockHand == null) || !clockHand.hasNext()) {
+          clockHand = cache.entrySet().iterator();
+          if (!clockHand.hasNext()) {
+            return false;
+          }
+        }
+        final Map.Entry<K, Node<V>> entry = clockHand.next();
+        final Node<V> node = entry.getValue();
+        final boolean isExpired = isExpired(node.value);
+        if (node.referenced && !isExpired) {
+          node.referenced = false;
+        } else if (removeNode(entry.getKey(), node,
+                isExpired ? RemovalCause.EXPIRED : RemovalCause.EVICTED)) {
+          if (!isExpired) {
+            evictionCount.incrementAndGet();
+          }
+          return true;
+        }
+      }
+      return false;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  private static final class Node<V> {
+
+    final V value;
+    final int weight;
+    volatile boolean referenced = false;
+
+    Node(final V value, final int weight) {
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  //// Internal Rep
+
+  private volatile int maxSize;
+  private final ConcurrentHashMap<K, Node<V>> cache;
+  private final AtomicLong weight = new AtomicLong();
+  /** striped, as every read updates one of them */
+  private final StripedCounter hitCount = new StripedCounter();
+  private final StripedCounter missCount = new StripedCounter();
+  private final AtomicLong evictionCount = new AtomicLong();
+  /** guards the clock hand; taken only by puts which overflow the cache */
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private Iterator<Map.Entry<K, Node<V>>> clockHand = null;
+
+}
@@ -0,0 +1,232 @@
+package com.cyc.baseclient.util;
+
+/*
+ * #%L
+ * File: LatencyHistogram.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+//// Internal Imports
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//// External Imports
+
+/**
+ * <P>LatencyHistogram counts recorded latencies in log-linear buckets, in the manner of
+ * HdrHistogram: each power of two is split into {@value #SUB_BUCKET_COUNT} equal buckets, so any
+ * percentile is reported within about 3% of the true value while the whole range of a long fits
+ * in fewer than two thousand counters. Recording is lock-free and allocation-free, so a histogram
+ * can stay on in production; reading takes a {@link Snapshot}, which is consistent enough for
+ * monitoring although concurrent recordings may be partly included.
+ */
+public class LatencyHistogram {
+
+  //// Constructors
+
+  /** Creates a new, empty instance of LatencyHistogram. */
+  public LatencyHistogram() {
+  }
+
+  //// Public Area
+
+  /** The number of buckets into which each power of two is split. */
+  public static final int SUB_BUCKET_COUNT = 32;
+
+  /**
+   * Records a latency.
+   *
+   * @param value the latency, typically in nanoseconds; negative values are recorded as zero
+   */
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    counts.incrementAndGet(getBucketIndex(value));
+    totalCount.incrementAndGet();
+    totalValue.addAndGet(value);
+    long max = maxValue.get();
+    while ((value > max) && !maxValue.compareAndSet(max, value)) {
+      max = maxValue.get();
+    }
+    long min = minValue.get();
+    while ((value < min) && !minValue.compareAndSet(min, value)) {
+      min = minValue.get();
+    }
+  }
+
+  /**
+   * Returns the number of recorded latencies.
+   *
+   * @return the number of recorded latencies
+   */
+  public long getCount() {
+    return totalCount.get();
+  }
+
+  /**
+   * Returns a snapshot of the recorded latencies.
+   *
+   * @return a snapshot of the recorded latencies
+   */
+  public Snapshot getSnapshot() {
+    final long[] bucketCounts = new long[BUCKET_COUNT];
+    long count = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      bucketCounts[i] = counts.get(i);
+      count += bucketCounts[i];
+    }
+    return new Snapshot(bucketCounts, count, totalValue.get(),
+            (count == 0) ? 0 : minValue.get(), (count == 0) ? 0 : maxValue.get());
+  }
+
+  /** Forgets every recorded latency. */
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts.set(i, 0);
+    }
+    totalCount.set(0);
+    totalValue.set(0);
+    maxValue.set(0);
+    minValue.set(Long.MAX_VALUE);
+  }
+
+  /** An immutable view of the latencies recorded by a LatencyHistogram. */
+  public static final class Snapshot {
+
+    private Snapshot(final long[] bucketCounts, final long count, final long totalValue,
+            final long minValue, final long maxValue) {
+      this.bucketCounts = bucketCounts;
+      this.count = count;
+      this.totalValue = totalValue;
+      this.minValue = minValue;
+      this.maxValue = maxValue;
+    }
+
+    /**
+     * Returns the number of latencies in this snapshot.
+     *
+     * @return the number of latencies
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Returns the smallest latency, or 0 if there are none.
+     *
+     * @return the smallest latency
+     */
+    public long getMin() {
+      return minValue;
+    }
+
+    /**
+     * Returns the largest latency, or 0 if there are none.
+     *
+     * @return the largest latency
+     */
+    public long getMax() {
+      return maxValue;
+    }
+
+    /**
+     * Returns the mean latency, or 0 if there are none.
+     *
+     * @return the mean latency
+     */
+    public double getMean() {
+      return (count == 0) ? 0.0 : (totalValue / (double) count);
+    }
+
+    /**
+     * Returns the latency at or below which the given percentage of latencies fall, to within
+     * the precision of the buckets.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the latency at the percentile, or 0 if there are none
+     */
+    public long getValueAtPercentile(final double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      final double clamped = Math.min(100.0, Math.max(0.0, percentile));
+      final long rank = Math.max(1, (long) Math.ceil((clamped / 100.0) * count));
+      long seen = 0;
+      for (int i = 0; i < bucketCounts.length; i++) {
+        seen += bucketCounts[i];
+        if (seen >= rank) {
+          return Math.max(minValue, Math.min(maxValue, getBucketUpperBound(i)));
+        }
+      }
+      return maxValue;
+    }
+
+    @Override
+    public String toString() {
+      return "count: " + count + " min: " + minValue + " mean: " + (long) getMean()
+              + " p50: " + getValueAtPercentile(50) + " p99: " + getValueAtPercentile(99)
+              + " max: " + maxValue;
+    }
+
+    private final long[] bucketCounts;
+    private final long count;
+    private final long totalValue;
+    private final long minValue;
+    private final long maxValue;
+  }
+
+  //// Private Area
+
+  /**
+   * Returns the bucket of the given value. Values below SUB_BUCKET_COUNT have a bucket each;
+   * above that, each power of two has SUB_BUCKET_COUNT buckets.
+   */
+  static int getBucketIndex(final long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    final int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+    final int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+    return ((shift + 1) * SUB_BUCKET_COUNT) + subBucket;
+  }
+
+  /** Returns the largest value which falls in the given bucket. */
+  static long getBucketUpperBound(final int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    final int shift = (index / SUB_BUCKET_COUNT) - 1;
+    final long subBucket = index % SUB_BUCKET_COUNT;
+    final long upper = ((SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+    // the last bucket ends at the largest long
+    return (upper < 0) ? Long.MAX_VALUE : upper;
+  }
+
+  //// Internal Rep
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong totalCount = new AtomicLong();
+  private final AtomicLong totalValue = new AtomicLong();
+  private final AtomicLong maxValue = new AtomicLong();
+  private final AtomicLong minValue = new AtomicLong(Long.MAX_VALUE);
+
+}
@@ -76,6 +76,16 @@ public class LruCache<K, V> implements Map<K, V> {
 		}
 	}
 
+	/**
+	 * Creates a new instance of LRUCache backed by the given ConcurrentLruCache,
+	 * whose reads take no lock. Expired CachedValues are not evicted early by
+	 * such a cache.
+	 */
+	public LruCache(ConcurrentLruCache<K, V> cache) {
+		this.maxSize = cache.getMaximumSize();
+		this.cache = cache;
+	}
+
 	// // Public Area
 	public void clear() {
 		cache.clear();
@@ -125,6 +135,15 @@ public class LruCache<K, V> implements Map<K, V> {
 		return cache.values();
 	}
 
+	/**
+	 * Returns the ConcurrentLruCache backing this cache, or null if it is backed
+	 * by a LinkedHashMap.
+	 */
+	public ConcurrentLruCache<K, V> getConcurrentCache() {
+		return (cache instanceof ConcurrentLruCache) ? (ConcurrentLruCache<K, V>) cache
+				: null;
+	}
+
 	// // Protected Area
 
 	// // Private Area
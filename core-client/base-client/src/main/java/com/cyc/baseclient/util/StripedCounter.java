@@ -0,0 +1,84 @@
+package com.cyc.baseclient.util;
+
+/*
+ * #%L
+ * File: StripedCounter.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+//// Internal Imports
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//// External Imports
+
+/**
+ * <P>StripedCounter is a counter for hot paths which many threads update at once. Each thread
+ * increments one of several cells, chosen by its id, so that concurrent increments seldom contend
+ * for the same cache line; reading the count sums the cells. It serves the same purpose as
+ * Java 8's LongAdder, which is not available to the Base Client.
+ */
+class StripedCounter {
+
+  //// Constructors
+
+  /** Creates a new instance of StripedCounter, with a cell for each of twice the processors. */
+  StripedCounter() {
+    int cellCount = 1;
+    while (cellCount < 2 * Runtime.getRuntime().availableProcessors()) {
+      cellCount <<= 1;
+    }
+    mask = cellCount - 1;
+    cells = new AtomicLongArray(cellCount * CELL_STRIDE);
+  }
+
+  //// Public Area
+
+  /** Adds one to the count. */
+  void increment() {
+    cells.incrementAndGet(((int) Thread.currentThread().getId() & mask) * CELL_STRIDE);
+  }
+
+  /**
+   * Returns the count. Increments made while the cells are summed may or may not be included.
+   *
+   * @return the count
+   */
+  long get() {
+    long sum = 0;
+    for (int i = 0; i <= mask; i++) {
+      sum += cells.get(i * CELL_STRIDE);
+    }
+    return sum;
+  }
+
+  /** Sets the count to zero. */
+  void reset() {
+    for (int i = 0; i <= mask; i++) {
+      cells.set(i * CELL_STRIDE, 0);
+    }
+  }
+
+  //// Internal Rep
+
+  /** the distance between used cells, so that each sits on its own 64-byte cache line */
+  private static final int CELL_STRIDE = 8;
+  private final AtomicLongArray cells;
+  private final int mask;
+
+}
@@ -28,7 +28,6 @@ import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Pattern;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.PropertyException;
@@ -69,7 +68,7 @@ public abstract class CycJaxbMarshaller<T> {
   protected final Map<String, String> preferredPrefixes = new HashMap<String, String>();
 
   public CycJaxbMarshaller(final Class clazz) throws JAXBException {
-    marshaller = JAXBContext.newInstance(clazz).createMarshaller();
+    marshaller = JaxbCache.getContext(clazz).createMarshaller();
     marshaller.setProperty(
             "com.sun.xml.bind.namespacePrefixMapper",
             new NamespacePrefixMapper() {
@@ -0,0 +1,252 @@
+package com.cyc.baseclient.xml;
+
+/*
+ * #%L
+ * File: JaxbCache.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+/**
+ * Process-wide cache of JAXB contexts, compiled schemas and unmarshaller pools.
+ *
+ * <p>Creating a JAXBContext and compiling a schema are both expensive, and the
+ * results are thread-safe, so they are built once per context path (or schema
+ * URI) and shared by every decoder and unmarshaller in the client. A schema
+ * that cannot be loaded is remembered as missing for
+ * {@link #getSchemaRetryMillis()} milliseconds, so its URI is not fetched again
+ * on every construction, and is then fetched again, so that a transient failure
+ * does not turn validation off for the life of the process.
+ */
+public class JaxbCache {
+
+  private JaxbCache() {
+  }
+
+  /**
+   * Get the shared JAXBContext for a colon-separated list of packages.
+   *
+   * @param contextPath
+   * @return the JAXBContext
+   * @throws JAXBException if the context cannot be created
+   */
+  public static JAXBContext getContext(final String contextPath) throws JAXBException {
+    JAXBContext context = CONTEXTS.get(contextPath);
+    if (context == null) {
+      context = JAXBContext.newInstance(contextPath);
+      final JAXBContext existing = CONTEXTS.putIfAbsent(contextPath, context);
+      if (existing != null) {
+        context = existing;
+      }
+    }
+    return context;
+  }
+
+  /**
+   * Get the shared JAXBContext for a class.
+   *
+   * @param clazz
+   * @return the JAXBContext
+   * @throws JAXBException if the context cannot be created
+   */
+  public static JAXBContext getContext(final Class<?> clazz) throws JAXBException {
+    JAXBContext context = CLASS_CONTEXTS.get(clazz);
+    if (context == null) {
+      context = JAXBContext.newInstance(clazz);
+      final JAXBContext existing = CLASS_CONTEXTS.putIfAbsent(clazz, context);
+      if (existing != null) {
+        context = existing;
+      }
+    }
+    return context;
+  }
+
+  /**
+   * Get the compiled schema at a URI.
+   *
+   * @param xsdUri
+   * @return the schema, or null if it could not be loaded
+   */
+  public static Schema getSchema(final String xsdUri) {
+    final SchemaHolder holder = SCHEMAS.get(xsdUri);
+    if ((holder != null) && !holder.isRetryDue()) {
+      return holder.schema;
+    }
+    final SchemaHolder loaded = new SchemaHolder(loadSchema(xsdUri));
+    if (holder == null) {
+      final SchemaHolder existing = SCHEMAS.putIfAbsent(xsdUri, loaded);
+      if ((existing != null) && (loaded.schema == null)) {
+        return existing.schema;
+      } else if (existing != null) {
+        SCHEMAS.replace(xsdUri, existing, loaded);
+      }
+    } else {
+      SCHEMAS.replace(xsdUri, holder, loaded);
+    }
+    return loaded.schema;
+  }
+
+  /**
+   * Get the time for which a schema that could not be loaded is remembered as
+   * missing before it is fetched again.
+   *
+   * @return the time in milliseconds
+   */
+  public static long getSchemaRetryMillis() {
+    return schemaRetryMillis;
+  }
+
+  /**
+   * Set the time for which a schema that could not be loaded is remembered as
+   * missing before it is fetched again. It defaults to
+   * {@value #DEFAULT_SCHEMA_RETRY_MILLIS}, or the value of
+   * {@value #SCHEMA_RETRY_PROPERTY}.
+   *
+   * @param retryMillis the time in milliseconds, or 0 to fetch it every time
+   */
+  public static void setSchemaRetryMillis(final long retryMillis) {
+    schemaRetryMillis = Math.max(0, retryMillis);
+  }
+
+  /**
+   * Get the shared pool of unmarshallers for a context path, validating
+   * against the schema at xsdUri when it is available. A pool made while the
+   * schema was missing is replaced once the schema can be loaded.
+   *
+   * @param contextPath a colon-separated list of packages
+   * @param xsdUri the schema to validate against, or null for none
+   * @return the pool
+   * @throws JAXBException if the context cannot be created
+   */
+  public static UnmarshallerPool getUnmarshallerPool(final String contextPath,
+          final String xsdUri) throws JAXBException {
+    final String key = (xsdUri == null) ? contextPath : contextPath + " " + xsdUri;
+    UnmarshallerPool pool = POOLS.get(key);
+    if (pool == null) {
+      final Schema schema = (xsdUri == null) ? null : getSchema(xsdUri);
+      pool = new UnmarshallerPool(getContext(contextPath), schema);
+      final UnmarshallerPool existing = POOLS.putIfAbsent(key, pool);
+      if (existing != null) {
+        pool = existing;
+      }
+    } else if ((xsdUri != null) && (pool.getSchema() == null)) {
+      final Schema schema = getSchema(xsdUri);
+      if (schema != null) {
+        final UnmarshallerPool validating = new UnmarshallerPool(pool.getContext(), schema);
+        pool = POOLS.replace(key, pool, validating) ? validating : POOLS.get(key);
+      }
+    }
+    return pool;
+  }
+
+  /**
+   * Create a StAX reader over a stream, with DTDs and external entities disabled.
+   *
+   * @param stream
+   * @return the reader
+   * @throws XMLStreamException
+   */
+  public static XMLStreamReader createXmlStreamReader(final InputStream stream)
+          throws XMLStreamException {
+    return INPUT_FACTORY.createXMLStreamReader(stream);
+  }
+
+  /**
+   * Forget all cached contexts, schemas and pools. Mainly for tests, or after a
+   * schema that was unavailable has become reachable.
+   */
+  public static void clear() {
+    POOLS.clear();
+    SCHEMAS.clear();
+    CONTEXTS.clear();
+    CLASS_CONTEXTS.clear();
+  }
+
+  //// Private Area
+
+  private static Schema loadSchema(final String xsdUri) {
+    try {
+      return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+              .newSchema(new URL(xsdUri));
+    } catch (Exception e) {
+      LOGGER.log(Level.FINE, "Could not load schema " + xsdUri + "; not validating against it.", e);
+      return null;
+    }
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    final XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    return factory;
+  }
+
+  /** A loaded schema, or null for one that could not be loaded. */
+  private static class SchemaHolder {
+
+    private SchemaHolder(final Schema schema) {
+      this.schema = schema;
+    }
+
+    /** Whether the schema is missing and long enough ago to try loading it again. */
+    private boolean isRetryDue() {
+      return (schema == null)
+              && (System.nanoTime() - loadedNanos >= TimeUnit.MILLISECONDS.toNanos(schemaRetryMillis));
+    }
+    private final Schema schema;
+    private final long loadedNanos = System.nanoTime();
+  }
+
+  //// Internal Rep
+
+  private static final Logger LOGGER = Logger.getLogger(JaxbCache.class.getName());
+
+  /** The system property from which the time in milliseconds that missing schemas are remembered is read. */
+  public static final String SCHEMA_RETRY_PROPERTY = "com.cyc.baseclient.xml.schemaRetryMillis";
+
+  /** The time missing schemas are remembered for when {@value #SCHEMA_RETRY_PROPERTY} is not set. */
+  public static final long DEFAULT_SCHEMA_RETRY_MILLIS = 60000;
+
+  private static volatile long schemaRetryMillis =
+          Long.getLong(SCHEMA_RETRY_PROPERTY, DEFAULT_SCHEMA_RETRY_MILLIS);
+
+  private static final ConcurrentMap<String, JAXBContext> CONTEXTS = new ConcurrentHashMap<String, JAXBContext>();
+
+  private static final ConcurrentMap<Class<?>, JAXBContext> CLASS_CONTEXTS = new ConcurrentHashMap<Class<?>, JAXBContext>();
+
+  private static final ConcurrentMap<String, SchemaHolder> SCHEMAS = new ConcurrentHashMap<String, SchemaHolder>();
+
+  private static final ConcurrentMap<String, UnmarshallerPool> POOLS = new ConcurrentHashMap<String, UnmarshallerPool>();
+
+  private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+}
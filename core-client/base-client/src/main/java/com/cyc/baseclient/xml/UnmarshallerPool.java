@@ -0,0 +1,139 @@
+package com.cyc.baseclient.xml;
+
+/*
+ * #%L
+ * File: UnmarshallerPool.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.InputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.validation.Schema;
+
+/**
+ * A thread-safe pool of unmarshallers sharing one JAXBContext and schema.
+ *
+ * <p>Unmarshallers are not thread-safe, but are cheap to reuse. Callers either
+ * use the unmarshal methods here, or borrow an unmarshaller for several calls
+ * and release it when done. Idle unmarshallers beyond a small bound are
+ * dropped rather than kept.
+ *
+ * @see JaxbCache#getUnmarshallerPool(String, String)
+ */
+public class UnmarshallerPool {
+
+  //// Constructors
+
+  UnmarshallerPool(final JAXBContext context, final Schema schema) {
+    this.context = context;
+    this.schema = schema;
+  }
+
+  //// Public Area
+
+  /**
+   * Unmarshal a document from a stream.
+   *
+   * @param stream
+   * @return the content tree
+   * @throws JAXBException
+   */
+  public Object unmarshal(final InputStream stream) throws JAXBException {
+    final Unmarshaller unmarshaller = borrow();
+    try {
+      return unmarshaller.unmarshal(stream);
+    } finally {
+      release(unmarshaller);
+    }
+  }
+
+  /**
+   * Unmarshal the element at the reader's cursor, leaving the cursor just
+   * after its end tag.
+   *
+   * @param reader
+   * @return the content tree
+   * @throws JAXBException
+   */
+  public Object unmarshal(final XMLStreamReader reader) throws JAXBException {
+    final Unmarshaller unmarshaller = borrow();
+    try {
+      return unmarshaller.unmarshal(reader);
+    } finally {
+      release(unmarshaller);
+    }
+  }
+
+  /**
+   * Take an unmarshaller for exclusive use. Pass it to {@link #release} when done.
+   *
+   * @return an unmarshaller
+   * @throws JAXBException
+   */
+  public Unmarshaller borrow() throws JAXBException {
+    final Unmarshaller pooled = idle.poll();
+    if (pooled != null) {
+      idleCount.decrementAndGet();
+      return pooled;
+    }
+    final Unmarshaller unmarshaller = context.createUnmarshaller();
+    if (schema != null) {
+      unmarshaller.setSchema(schema);
+    }
+    return unmarshaller;
+  }
+
+  /**
+   * Return a borrowed unmarshaller to the pool.
+   *
+   * @param unmarshaller
+   */
+  public void release(final Unmarshaller unmarshaller) {
+    if (idleCount.incrementAndGet() <= MAX_IDLE) {
+      idle.offer(unmarshaller);
+    } else {
+      idleCount.decrementAndGet();
+    }
+  }
+
+  public JAXBContext getContext() {
+    return context;
+  }
+
+  /**
+   * @return the schema unmarshallers validate against, or null if none.
+   */
+  public Schema getSchema() {
+    return schema;
+  }
+
+  //// Internal Rep
+
+  private static final int MAX_IDLE = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+  private final JAXBContext context;
+  private final Schema schema;
+  private final Queue<Unmarshaller> idle = new ConcurrentLinkedQueue<Unmarshaller>();
+  private final AtomicInteger idleCount = new AtomicInteger(0);
+}
@@ -27,22 +27,21 @@ import com.cyc.baseclient.cycobject.CycConstantImpl;
 import com.cyc.baseclient.cycobject.CycFormulaSentence;
 import com.cyc.baseclient.cycobject.NartImpl;
 import com.cyc.baseclient.cycobject.NautImpl;
+import com.cyc.baseclient.xml.JaxbCache;
+import com.cyc.baseclient.xml.UnmarshallerPool;
 import static com.cyc.baseclient.xml.cycml.Constants.CYCML_NAMESPACE;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
-import java.net.URL;
 import java.text.NumberFormat;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import javax.xml.XMLConstants;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.namespace.QName;
-import javax.xml.validation.SchemaFactory;
+import javax.xml.stream.XMLStreamReader;
 
 /**
  * Support for decoding CycML-encoded objects.
@@ -51,22 +50,20 @@ import javax.xml.validation.SchemaFactory;
  */
 public class CycmlDecoder {
 
-  private final javax.xml.bind.Unmarshaller unmarshaller;
+  private final UnmarshallerPool unmarshallers;
   public static final String XSD_URI = com.cyc.baseclient.xml.Constants.XSD_HOME + "/cycml.xsd";
   final private boolean shouldValidate = true;
 
+  /**
+   * Create a decoder. The JAXB context, schema and unmarshallers are shared by
+   * all decoders, so this is cheap, and a decoder may be used from several
+   * threads at once.
+   *
+   * @throws JAXBException
+   */
   public CycmlDecoder() throws JAXBException {
-    this.unmarshaller = JAXBContext.newInstance(
-            this.getClass().getPackage().getName()).createUnmarshaller();
-    if (shouldValidate) {
-      try {
-        unmarshaller.setSchema(SchemaFactory.newInstance(
-                XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(
-                new URL(XSD_URI)));
-      } catch (Exception e) {
-        e.printStackTrace();
-      }
-    }
+    this.unmarshallers = JaxbCache.getUnmarshallerPool(
+            this.getClass().getPackage().getName(), shouldValidate ? XSD_URI : null);
   }
 
   /**
@@ -88,7 +85,21 @@ public class CycmlDecoder {
    * @throws JAXBException
    */
   public Object decode(final InputStream stream) throws JAXBException {
-    return translateObject(unmarshaller.unmarshal(stream));
+    return translateObject(unmarshallers.unmarshal(stream));
+  }
+
+  /**
+   * Decode the CycML element at the reader's cursor, leaving the cursor just
+   * after its end tag. Only that element is unmarshalled, so CycML terms
+   * embedded in a larger document can be decoded one at a time as the
+   * document is streamed.
+   *
+   * @param reader positioned at the start tag of a CycML element
+   * @return decoded CycML object
+   * @throws JAXBException
+   */
+  public Object decode(final XMLStreamReader reader) throws JAXBException {
+    return translateObject(unmarshallers.unmarshal(reader));
   }
 
   /**
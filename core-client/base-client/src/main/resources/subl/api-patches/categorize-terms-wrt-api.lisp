@@ -0,0 +1,13 @@
+;; Supports com.cyc.kb.client.KbObjectFactory#getAllFor, which categorizes the terms returned by
+;; one call, e.g. to all-specs, in one round trip instead of one per term.
+;;
+;; Requires categorize-term-wrt-api.lisp.
+
+
+(define-external categorize-terms-wrt-api (terms)
+  "Return a list with one element per term in <code>terms</code>: the most specific API
+   collection that the term is an instance of, as returned by categorize-term-wrt-api, or NIL."
+  (clet ((results nil))
+    (cdolist (term terms)
+      (cpush (categorize-term-wrt-api term) results))
+    (ret (nreverse results))))
@@ -0,0 +1,59 @@
+;; Supports com.cyc.kb.client.KbObjectImpl#iterateValues, which streams the distinct values of
+;; the gafs about a term a page at a time. The values are gathered once, for the first page, and
+;; the rest are kept here under a cursor until the client asks for them, so that streaming N
+;; values walks the gaf arg index only once.
+
+
+(defglobal *gaf-arg-values-cursors* (make-hash-table 16)
+  "The values which gaf-arg-values-wrt-api has yet to return, by cursor.")
+
+(defglobal *gaf-arg-values-cursor-order* nil
+  "The cursors in *gaf-arg-values-cursors*, newest first.")
+
+(defglobal *gaf-arg-values-last-cursor* 0
+  "The most recently issued cursor.")
+
+(deflexical *gaf-arg-values-max-cursors* 64
+  "The most cursors which are kept; beyond it, the oldest are dropped, as abandoned.")
+
+(deflexical *gaf-arg-values-lock* (make-lock "gaf-arg-values-wrt-api"))
+
+(define-external gaf-arg-values-wrt-api (cursor term argnum pred value-argnum mt
+                                          &optional (page-size 100))
+  "Return a list of a cursor and a page of at most PAGE-SIZE values. When CURSOR is NIL, the
+   values are the distinct arguments at VALUE-ARGNUM of the gafs visible in MT which have PRED as
+   their predicate and TERM at ARGNUM, in the order of the gaf arg index. Otherwise they are those
+   which follow the page that returned CURSOR. The cursor returned is NIL after the last page.
+   :EXPIRED is returned instead when CURSOR is no longer kept."
+  (clet ((values nil))
+    (pif cursor
+         (with-lock-held (*gaf-arg-values-lock*)
+           (csetq values (gethash cursor *gaf-arg-values-cursors* :expired))
+           (remhash cursor *gaf-arg-values-cursors*)
+           (csetq *gaf-arg-values-cursor-order* (delete cursor *gaf-arg-values-cursor-order*)))
+         (clet ((seen (make-hash-table 64 #'equal)))
+           (with-inference-mt-relevance mt
+             (do-gaf-arg-index (gaf term :index argnum :predicate pred)
+               (clet ((value (gaf-arg gaf value-argnum)))
+                 (punless (gethash value seen)
+                   (sethash value seen t)
+                   (cpush value values)))))
+           (csetq values (nreverse values))))
+    (pwhen (eq values :expired)
+      (ret :expired))
+    (clet ((page nil)
+           (count 0)
+           (next-cursor nil))
+      (while (cand values (< count page-size))
+        (cpush (first values) page)
+        (csetq values (rest values))
+        (cincf count))
+      (pwhen values
+        (with-lock-held (*gaf-arg-values-lock*)
+          (csetq next-cursor (cincf *gaf-arg-values-last-cursor*))
+          (sethash next-cursor *gaf-arg-values-cursors* values)
+          (cpush next-cursor *gaf-arg-values-cursor-order*)
+          (pwhen (> (length *gaf-arg-values-cursor-order*) *gaf-arg-values-max-cursors*)
+            (remhash (first (last *gaf-arg-values-cursor-order*)) *gaf-arg-values-cursors*)
+            (csetq *gaf-arg-values-cursor-order* (butlast *gaf-arg-values-cursor-order*)))))
+      (ret (list next-cursor (nreverse page))))))
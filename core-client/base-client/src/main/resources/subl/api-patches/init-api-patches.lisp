@@ -11,6 +11,18 @@
 (punless (fboundp 'categorize-term-wrt-api)
   (load "init/api-patches/categorize-term-wrt-api.lisp"))
 
+(punless (fboundp 'categorize-terms-wrt-api)
+  (load "init/api-patches/categorize-terms-wrt-api.lisp"))
+
+(punless (fboundp 'resolve-terms-wrt-api)
+  (load "init/api-patches/resolve-terms-wrt-api.lisp"))
+
+(punless (fboundp 'transcript-operations-since-wrt-api)
+  (load "init/api-patches/transcript-operations-since-wrt-api.lisp"))
+
+(punless (fboundp 'gaf-arg-values-wrt-api)
+  (load "init/api-patches/gaf-arg-values-wrt-api.lisp"))
+
 (format t "Loaded compatibility patches for Cyc Core API Suite v1.0.0-rc3.")
 
 
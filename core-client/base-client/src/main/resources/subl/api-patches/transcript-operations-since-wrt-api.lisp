@@ -0,0 +1,47 @@
+;; Supports com.cyc.baseclient.taxonomy.TranscriptOperationLog, which lets a client-side
+;; TaxonomyIndex follow the KB operations recorded in this image's local transcript.
+
+
+(defglobal *transcript-operations-cursor* nil
+  "NIL, or a list of the path of the local transcript, a position in it, and the file position at
+   which the operations that follow that position begin. Polls resume reading from it instead of
+   re-reading the transcript from its start.")
+
+(deflexical *transcript-operations-lock* (make-lock "transcript-operations-since-wrt-api"))
+
+(define-external transcript-operations-since-wrt-api (position &optional (max-operations 1000))
+  "Return a list of a position in the local transcript and the operations which precede it.
+   Positions count the operations in the transcript. When POSITION is NIL, the position is the end
+   of the transcript and no operations are returned. Otherwise the operations are those which
+   follow POSITION, oldest first, and there are at most MAX-OPERATIONS of them."
+  (clet ((path (local-transcript))
+         (count 0)
+         (operation-count 0)
+         (operations nil))
+    (pwhen (cand path (probe-file path))
+      (with-lock-held (*transcript-operations-lock*)
+        (with-text-file (stream path :input)
+          (clet ((cursor *transcript-operations-cursor*)
+                 (offset 0)
+                 (done? nil))
+            (pwhen (cand cursor
+                         (equal path (first cursor))
+                         (cor (null position) (>= position (second cursor)))
+                         (<= (third cursor) (file-length stream)))
+              (set-file-position stream (third cursor))
+              (csetq count (second cursor))
+              (csetq offset (third cursor)))
+            (while (cnot done?)
+              (pif (cand position (>= operation-count max-operations))
+                   (csetq done? t)
+                   (clet ((form (read stream nil :eof)))
+                     (pif (eq form :eof)
+                          (csetq done? t)
+                          (progn
+                            (pwhen (cand position (>= count position))
+                              (cpush form operations)
+                              (cincf operation-count))
+                            (cincf count)
+                            (csetq offset (file-position stream)))))))
+            (csetq *transcript-operations-cursor* (list path count offset))))))
+    (ret (list count (nreverse operations)))))
@@ -95,6 +95,8 @@ import com.cyc.baseclient.datatype.NonAsciiStrings;
 import com.cyc.baseclient.inference.params.DefaultInferenceParameters;
 import com.cyc.baseclient.parser.CyclParserUtil;
 import com.cyc.baseclient.datatype.StringUtils;
+import com.cyc.baseclient.kbtool.BulkAssertion;
+import com.cyc.baseclient.kbtool.CycAssertTool;
 import com.cyc.baseclient.kbtool.CycObjectTool;
 import com.cyc.baseclient.nl.ParaphraserFactory;
 import com.cyc.baseclient.testing.TestConstants;
@@ -3547,6 +3549,31 @@ public class GeneralUnitTest implements CycLeaseManager.CycLeaseManagerListener
     System.out.println("**** testAssertWithTranscriptAndBookkeeping OK ****");
   }
 
+  /**
+   * Tests BulkAssertion.
+   */
+  @Test
+  public void testBulkAssertion() throws CycConnectionException {
+    System.out.println("\n**** testBulkAssertion ****");
+    final BulkAssertion bulkAssertion = ((CycAssertTool) cycAccess.getAssertTool()).newBulkAssertion();
+    bulkAssertion.setMaxBatchSize(2);
+    final List<BulkAssertion.Item> items = new ArrayList<BulkAssertion.Item>();
+    items.add(new BulkAssertion.Item(ISA_CYC_ADMIN_PERSON, UNIVERSAL_VOCABULARY_MT));
+    items.add(new BulkAssertion.Item("'(" + ISA.cyclify() + ")", UNIVERSAL_VOCABULARY_MT));
+    items.add(new BulkAssertion.Item(ISA_CYC_ADMIN_PERSON.cyclify(), UNIVERSAL_VOCABULARY_MT,
+            ":default", ":forward"));
+    final List<BulkAssertion.ItemResult> results = bulkAssertion.assertAll(items);
+    assertEquals(3, results.size());
+    for (int i = 0; i < results.size(); i++) {
+      assertEquals(i, results.get(i).getIndex());
+      assertSame(items.get(i), results.get(i).getItem());
+    }
+    assertTrue(results.get(0).toString(), results.get(0).isSuccessful());
+    assertFalse(results.get(1).isSuccessful());
+    assertTrue(results.get(2).toString(), results.get(2).isSuccessful());
+    System.out.println("**** testBulkAssertion OK ****");
+  }
+
   /**
    * Tests the getArg2 method.
    */
@@ -0,0 +1,99 @@
+package com.cyc.baseclient.comm;
+
+/*
+ * #%L
+ * File: CfaslSelectorDispatcherTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests that CfaslSelectorDispatcher hands the bytes of registered channels to their listeners.
+ */
+public class CfaslSelectorDispatcherTest {
+
+  @Test
+  public void testListenerIsCalledOnRegistration() throws Exception {
+    final CfaslSelectorDispatcher dispatcher = new CfaslSelectorDispatcher(1);
+    final ServerSocketChannel server = ServerSocketChannel.open();
+    try {
+      server.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+      final SocketChannel client = SocketChannel.open(server.socket().getLocalSocketAddress());
+      final SocketChannel peer = server.accept();
+      final RecordingListener listener = new RecordingListener(3);
+      dispatcher.register(client, listener);
+      // nothing has been sent, so only the registration call can have arrived
+      assertTrue(listener.registered.await(10, TimeUnit.SECONDS));
+      assertEquals(0, listener.bytes.size());
+      peer.write(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+      assertTrue(listener.received.await(10, TimeUnit.SECONDS));
+      assertArrayEquals(new byte[]{1, 2, 3}, listener.getBytes());
+      peer.close();
+      assertTrue(listener.closed.await(10, TimeUnit.SECONDS));
+      assertEquals(1, listener.closeCount.get());
+    } finally {
+      server.close();
+    }
+  }
+
+  private static class RecordingListener implements CfaslSelectorDispatcher.ChannelListener {
+
+    final CountDownLatch registered = new CountDownLatch(1);
+    final CountDownLatch received;
+    final CountDownLatch closed = new CountDownLatch(1);
+    final AtomicInteger closeCount = new AtomicInteger();
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    RecordingListener(final int expectedByteCount) {
+      received = new CountDownLatch(expectedByteCount);
+    }
+
+    @Override
+    public void bytesReceived(final ByteBuffer buffer) {
+      synchronized (bytes) {
+        while (buffer.hasRemaining()) {
+          bytes.write(buffer.get());
+          received.countDown();
+        }
+      }
+      registered.countDown();
+    }
+
+    @Override
+    public void channelClosed(final Exception e) {
+      closeCount.incrementAndGet();
+      closed.countDown();
+    }
+
+    byte[] getBytes() {
+      synchronized (bytes) {
+        return bytes.toByteArray();
+      }
+    }
+  }
+}
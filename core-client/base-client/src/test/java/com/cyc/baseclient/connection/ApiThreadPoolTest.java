@@ -0,0 +1,192 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: ApiThreadPoolTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests the strategies, backpressure and saturation counters of ApiThreadPool.
+ */
+public class ApiThreadPoolTest {
+
+  @Test
+  public void testSaturatedPoolThrottlesSubmitters() throws InterruptedException {
+    final ApiThreadPool pool = new ApiThreadPool(ApiThreadPool.Strategy.BOUNDED, 2);
+    try {
+      pool.setSubmitTimeoutMillis(10000);
+      final CountDownLatch release = new CountDownLatch(1);
+      final CountDownLatch finished = new CountDownLatch(3);
+      for (int i = 0; i < 2; i++) {
+        pool.execute(new BlockingTask(release, finished));
+      }
+      final Thread releaser = new Thread() {
+        @Override
+        public void run() {
+          try {
+            Thread.sleep(200);
+          } catch (InterruptedException ie) {
+            // release early
+          }
+          release.countDown();
+        }
+      };
+      releaser.start();
+      // blocks until one of the two running tasks finishes
+      pool.execute(new BlockingTask(release, finished));
+      assertTrue(finished.await(10, TimeUnit.SECONDS));
+      assertEquals(3, pool.getSubmittedTaskCount());
+      assertEquals(1, pool.getThrottledTaskCount());
+      assertEquals(0, pool.getRejectedTaskCount());
+      assertEquals(2, pool.getPeakRunningTaskCount());
+      assertTrue(pool.getThrottledMillis() > 0);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSaturatedPoolRejectsAfterTimeout() {
+    final ApiThreadPool pool = new ApiThreadPool(ApiThreadPool.Strategy.QUEUED, 1);
+    final CountDownLatch release = new CountDownLatch(1);
+    try {
+      pool.setSubmitTimeoutMillis(50);
+      final CountDownLatch finished = new CountDownLatch(2);
+      pool.execute(new BlockingTask(release, finished));
+      int queued = 0;
+      try {
+        while (queued < 100000) {
+          pool.execute(new BlockingTask(release, finished));
+          queued++;
+        }
+        fail("A saturated pool accepted every task.");
+      } catch (RejectedExecutionException ree) {
+        // expected once the queue is full
+      }
+      assertEquals(pool.getQueue().size(), queued);
+      assertEquals(1, pool.getRejectedTaskCount());
+      assertEquals(1.0, pool.getSaturation(), 0.0);
+    } finally {
+      release.countDown();
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSaturatedBoundedPoolRejectsByDefault() {
+    final ApiThreadPool pool = new ApiThreadPool(ApiThreadPool.Strategy.BOUNDED, 1);
+    final CountDownLatch release = new CountDownLatch(1);
+    try {
+      assertEquals(0, pool.getSubmitTimeoutMillis());
+      final CountDownLatch finished = new CountDownLatch(2);
+      pool.execute(new BlockingTask(release, finished));
+      final long start = System.currentTimeMillis();
+      try {
+        pool.execute(new BlockingTask(release, finished));
+        fail("A saturated pool with no submit timeout accepted a task.");
+      } catch (RejectedExecutionException ree) {
+        // expected
+      }
+      assertTrue(System.currentTimeMillis() - start < 1000);
+      assertEquals(1, pool.getRejectedTaskCount());
+      assertEquals(0, pool.getThrottledTaskCount());
+    } finally {
+      release.countDown();
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testExecuteWithoutWaitingDefersOnSaturation() throws InterruptedException {
+    final ApiThreadPool pool = new ApiThreadPool(ApiThreadPool.Strategy.BOUNDED, 1);
+    final CountDownLatch release = new CountDownLatch(1);
+    try {
+      pool.setSubmitTimeoutMillis(10000);
+      final CountDownLatch finished = new CountDownLatch(3);
+      pool.execute(new BlockingTask(release, finished));
+      final long start = System.currentTimeMillis();
+      pool.executeWithoutWaiting(new BlockingTask(release, finished));
+      pool.executeWithoutWaiting(new BlockingTask(release, finished));
+      assertTrue(System.currentTimeMillis() - start < 1000);
+      assertEquals(2, pool.getDeferredTaskCount());
+      assertEquals(0, pool.getRejectedTaskCount());
+      release.countDown();
+      assertTrue(finished.await(10, TimeUnit.SECONDS));
+    } finally {
+      release.countDown();
+      pool.shutdownNow();
+    }
+    try {
+      pool.executeWithoutWaiting(new BlockingTask(release, new CountDownLatch(1)));
+      fail("A shut down pool accepted a task.");
+    } catch (RejectedExecutionException ree) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testVirtualStrategyFallsBack() throws InterruptedException {
+    final ApiThreadPool pool = new ApiThreadPool(ApiThreadPool.Strategy.VIRTUAL);
+    try {
+      if (ApiThreadPool.isVirtualThreadSupported()) {
+        assertEquals(ApiThreadPool.Strategy.VIRTUAL, pool.getStrategy());
+        assertEquals(Integer.MAX_VALUE, pool.getMaximumPoolSize());
+      } else {
+        assertEquals(ApiThreadPool.Strategy.BOUNDED, pool.getStrategy());
+        assertTrue(pool.getMaximumPoolSize() < Integer.MAX_VALUE);
+      }
+      final CountDownLatch finished = new CountDownLatch(200);
+      final CountDownLatch release = new CountDownLatch(0);
+      for (int i = 0; i < 200; i++) {
+        pool.executeWithoutWaiting(new BlockingTask(release, finished));
+      }
+      assertTrue(finished.await(10, TimeUnit.SECONDS));
+      assertEquals(0, pool.getRejectedTaskCount());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static class BlockingTask implements Runnable {
+
+    private final CountDownLatch release;
+    private final CountDownLatch finished;
+
+    BlockingTask(final CountDownLatch release, final CountDownLatch finished) {
+      this.release = release;
+      this.finished = finished;
+    }
+
+    @Override
+    public void run() {
+      try {
+        release.await();
+      } catch (InterruptedException ie) {
+        return;
+      }
+      finished.countDown();
+    }
+  }
+}
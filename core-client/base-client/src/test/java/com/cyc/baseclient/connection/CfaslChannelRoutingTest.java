@@ -0,0 +1,129 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: CfaslChannelRoutingTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.CycAccess;
+import com.cyc.base.conn.Worker;
+import com.cyc.base.exception.CycConnectionException;
+import com.cyc.baseclient.DefaultSublWorker;
+import com.cyc.baseclient.comm.Comm;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests how a connection routes requests over its pool of CFASL channels.
+ */
+public class CfaslChannelRoutingTest {
+
+  private CycConnectionImpl connection;
+
+  @Before
+  public void setUp() throws Exception {
+    connection = new CycConnectionImpl((Comm) null, openAccess());
+    connection.connectionTimer.isCycConnectionEstablished = true;
+  }
+
+  @After
+  public void tearDown() {
+    connection.channels.clear();
+    connection.close();
+  }
+
+  @Test
+  public void testSelectChannelPrefersLeastLoaded() {
+    final CfaslChannel first = addChannel(new NullOutputStream());
+    final CfaslChannel second = addChannel(new NullOutputStream());
+    final CfaslChannel incremental = addChannel(new NullOutputStream());
+    final Worker worker = new DefaultSublWorker(CycArrayList.makeCycList("+", 1, 1), null);
+    assertSame(first, connection.selectChannel(worker));
+    first.requestStarted();
+    assertSame(second, connection.selectChannel(worker));
+    second.requestStarted();
+    second.requestStarted();
+    assertSame(first, connection.selectChannel(worker));
+    final Worker streaming = new DefaultSublWorker(CycArrayList.makeCycList("+", 1, 1), null, true);
+    assertSame(incremental, connection.selectChannel(streaming));
+  }
+
+  @Test
+  public void testFailedSendReleasesChannel() throws Exception {
+    final CfaslChannel channel = addChannel(new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        throw new IOException("Broken pipe");
+      }
+    });
+    final Worker worker = new DefaultSublWorker(CycArrayList.makeCycList("+", 1, 1), null);
+    try {
+      connection.converseBinary(worker);
+      fail("The send should have failed.");
+    } catch (CycConnectionException e) {
+      // expected
+    }
+    assertEquals(0, channel.getOutstandingRequestCount());
+    assertTrue(connection.getWaitingReplyThreads().isEmpty());
+  }
+
+  private CfaslChannel addChannel(final OutputStream out) {
+    final CfaslChannel channel = new CfaslChannel(connection, UUID.randomUUID(), null,
+            new CfaslOutputStream(out), null, null);
+    connection.channels.add(channel);
+    return channel;
+  }
+
+  /** A CycAccess which is open and answers every other question with a default value. */
+  private static CycAccess openAccess() {
+    return (CycAccess) Proxy.newProxyInstance(CycAccess.class.getClassLoader(),
+            new Class<?>[]{CycAccess.class}, new InvocationHandler() {
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args) {
+                final Class<?> type = method.getReturnType();
+                if (type == boolean.class) {
+                  return false;
+                } else if (type == int.class) {
+                  return 0;
+                } else if (type == long.class) {
+                  return 0L;
+                } else if ("toString".equals(method.getName())) {
+                  return "CycAccess stub";
+                }
+                return null;
+              }
+            });
+  }
+
+  private static class NullOutputStream extends OutputStream {
+
+    @Override
+    public void write(int b) {
+    }
+  }
+}
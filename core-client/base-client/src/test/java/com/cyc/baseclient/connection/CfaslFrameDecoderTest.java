@@ -0,0 +1,124 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: CfaslFrameDecoderTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests the incremental decoding of task-processor response frames.
+ */
+public class CfaslFrameDecoderTest {
+
+  @Test
+  public void testWholeFrames() throws IOException {
+    final byte[] bytes = encodeFrames(3);
+    final CfaslFrameDecoder decoder = new CfaslFrameDecoder();
+    decoder.append(ByteBuffer.wrap(bytes));
+    assertDecodesFrames(decoder, 3);
+    assertFalse(decoder.decodeNext());
+    assertEquals(0, decoder.getBufferedByteCount());
+  }
+
+  @Test
+  public void testByteAtATime() throws IOException {
+    final byte[] bytes = encodeFrames(2);
+    final CfaslFrameDecoder decoder = new CfaslFrameDecoder();
+    final List<Object> responses = new ArrayList<Object>();
+    for (int i = 0; i < bytes.length; i++) {
+      decoder.append(bytes, i, 1);
+      while (decoder.decodeNext()) {
+        assertEquals(CycObjectFactory.t, decoder.getStatus());
+        responses.add(decoder.getResponse());
+      }
+    }
+    assertEquals(2, responses.size());
+    assertEquals(makeResponse(0), responses.get(0));
+    assertEquals(makeResponse(1), responses.get(1));
+  }
+
+  @Test
+  public void testUnevenChunks() throws IOException {
+    final byte[] bytes = encodeFrames(50);
+    final CfaslFrameDecoder decoder = new CfaslFrameDecoder();
+    int frames = 0;
+    int offset = 0;
+    int chunk = 1;
+    while (offset < bytes.length) {
+      final int length = Math.min(chunk, bytes.length - offset);
+      decoder.append(bytes, offset, length);
+      offset += length;
+      chunk = (chunk * 7 + 3) % 997 + 1;
+      while (decoder.decodeNext()) {
+        assertEquals(makeResponse(frames), decoder.getResponse());
+        frames++;
+      }
+    }
+    assertEquals(50, frames);
+  }
+
+  private void assertDecodesFrames(final CfaslFrameDecoder decoder, final int count)
+          throws IOException {
+    for (int i = 0; i < count; i++) {
+      assertTrue(decoder.decodeNext());
+      assertEquals(CycObjectFactory.t, decoder.getStatus());
+      assertEquals(makeResponse(i), decoder.getResponse());
+      assertFalse(decoder.isInvalidObject());
+    }
+  }
+
+  private byte[] encodeFrames(final int count) throws IOException {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final CfaslOutputStream out = new CfaslOutputStream(baos);
+    for (int i = 0; i < count; i++) {
+      out.writeObject(CycObjectFactory.t);
+      out.writeObject(makeResponse(i));
+    }
+    out.flush();
+    return baos.toByteArray();
+  }
+
+  private CycArrayList makeResponse(final int i) {
+    final CycArrayList nested = new CycArrayList();
+    nested.add("nested " + i);
+    nested.add(CycObjectFactory.makeCycSymbol(":KEYWORD"));
+    nested.add(CycObjectFactory.nil);
+    final CycArrayList response = new CycArrayList();
+    response.add(CycObjectFactory.makeCycSymbol("TASK-PROCESSOR-RESPONSE"));
+    response.add(i);
+    response.add(i * 100000);
+    response.add(-i);
+    response.add(1.5 * i);
+    response.add(BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.valueOf(i + 2)));
+    response.add("réponse " + i);
+    response.add(nested);
+    return response;
+  }
+}
@@ -0,0 +1,110 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: CfaslInputStreamTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests that the buffer-reusing decoding mode of CfaslInputStream reads the same objects as the
+ * default mode.
+ */
+public class CfaslInputStreamTest {
+
+  @Test
+  public void testReusingBuffersMatchesDefaultMode() throws IOException {
+    final byte[] bytes = encode(makeList());
+    final CfaslInputStream defaultStream = new CfaslInputStream(new ByteArrayInputStream(bytes));
+    final CfaslInputStream reusingStream = new CfaslInputStream(new ByteArrayInputStream(bytes));
+    reusingStream.setReusingBuffers(true);
+    final Object expected = defaultStream.readObject();
+    final Object actual = reusingStream.readObject();
+    assertEquals(makeList(), expected);
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  public void testReusingBuffersInternsSymbols() throws IOException {
+    final CycArrayList list = new CycArrayList();
+    list.add(CycObjectFactory.makeCycSymbol("SYMBOL-ONE"));
+    list.add(CycObjectFactory.makeCycSymbol(":KEYWORD-ONE"));
+    list.add(CycObjectFactory.makeCycVariable("?VAR"));
+    final byte[] bytes = encode(list);
+    final CfaslInputStream first = new CfaslInputStream(new ByteArrayInputStream(bytes));
+    first.setReusingBuffers(true);
+    final CfaslInputStream second = new CfaslInputStream(new ByteArrayInputStream(bytes));
+    second.setReusingBuffers(true);
+    final CycArrayList firstList = (CycArrayList) first.readObject();
+    final CycArrayList secondList = (CycArrayList) second.readObject();
+    assertEquals(list, firstList);
+    for (int i = 0; i < list.size(); i++) {
+      assertSame(firstList.get(i), secondList.get(i));
+    }
+  }
+
+  @Test
+  public void testReusingBuffersReadsStringsLargerThanScratch() throws IOException {
+    final StringBuilder hugeString = new StringBuilder();
+    while (hugeString.length() < 200000) {
+      hugeString.append("très long ");
+    }
+    final CycArrayList list = new CycArrayList();
+    list.add("before");
+    list.add(hugeString.toString());
+    list.add("after " + hugeString.substring(0, 5000));
+    list.add(hugeString.toString());
+    final CfaslInputStream stream = new CfaslInputStream(new ByteArrayInputStream(encode(list)));
+    stream.setReusingBuffers(true);
+    assertEquals(list, stream.readObject());
+  }
+
+  private CycArrayList makeList() {
+    final StringBuilder longString = new StringBuilder();
+    for (int i = 0; i < 3000; i++) {
+      longString.append("été ").append(i);
+    }
+    final CycArrayList list = new CycArrayList();
+    for (int i = 0; i < 100; i++) {
+      list.add("string " + i);
+      list.add(CycObjectFactory.makeCycSymbol("SYMBOL-" + (i % 7)));
+      list.add(CycObjectFactory.makeCycSymbol(":KEYWORD-" + (i % 5)));
+      list.add(i * 1000);
+      list.add(CycObjectFactory.nil);
+    }
+    list.add(longString.toString());
+    list.add("après");
+    return list;
+  }
+
+  private byte[] encode(final Object object) throws IOException {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final CfaslOutputStream out = new CfaslOutputStream(baos);
+    out.writeObject(object);
+    out.flush();
+    return baos.toByteArray();
+  }
+}
@@ -0,0 +1,160 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: CfaslRequestWriterTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.conn.Worker;
+import com.cyc.base.conn.WorkerEvent;
+import com.cyc.base.conn.WorkerListener;
+import com.cyc.base.conn.WorkerStatus;
+import com.cyc.baseclient.DefaultSublWorker;
+import com.cyc.baseclient.comm.Comm;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import com.cyc.baseclient.exception.CycApiClosedConnectionException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the pipelined request writer accounts for every request it accepts, across close
+ * and write failures.
+ */
+public class CfaslRequestWriterTest {
+
+  private CycConnectionImpl connection;
+
+  @Before
+  public void setUp() throws Exception {
+    connection = new CycConnectionImpl((Comm) null, null);
+    connection.connectionTimer.isCycConnectionEstablished = true;
+  }
+
+  @After
+  public void tearDown() {
+    connection.close();
+  }
+
+  @Test
+  public void testNoRequestIsOrphanedByClose() throws Exception {
+    for (int round = 0; round < 20; round++) {
+      final CfaslRequestWriter writer = new CfaslRequestWriter(connection,
+              new CfaslOutputStream(new ByteArrayOutputStream()), new Object());
+      writer.start();
+      final AtomicInteger accepted = new AtomicInteger();
+      final AtomicInteger terminated = new AtomicInteger();
+      final CountDownLatch started = new CountDownLatch(4);
+      final List<Thread> senders = new ArrayList<Thread>();
+      for (int t = 0; t < 4; t++) {
+        final Thread sender = new Thread() {
+          @Override
+          public void run() {
+            started.countDown();
+            for (int i = 0; i < 200; i++) {
+              final Worker worker = newWorker(terminated);
+              try {
+                writer.enqueue(null, worker, CycArrayList.makeCycList("+", 1, i));
+                accepted.incrementAndGet();
+              } catch (CycApiClosedConnectionException e) {
+                return;
+              } catch (Exception e) {
+                throw new RuntimeException(e);
+              }
+            }
+          }
+        };
+        senders.add(sender);
+        sender.start();
+      }
+      started.await();
+      writer.close();
+      for (final Thread sender : senders) {
+        sender.join();
+      }
+      writer.join(10000);
+      assertFalse(writer.isAlive());
+      assertEquals(accepted.get(), writer.getWrittenRequestCount() + terminated.get());
+    }
+  }
+
+  @Test(expected = CycApiClosedConnectionException.class)
+  public void testEnqueueAfterClose() throws Exception {
+    final CfaslRequestWriter writer = new CfaslRequestWriter(connection,
+            new CfaslOutputStream(new ByteArrayOutputStream()), new Object());
+    writer.start();
+    writer.close();
+    writer.enqueue(null, null, CycArrayList.makeCycList("+", 1, 1));
+  }
+
+  @Test
+  public void testWriteFailureClosesConnection() throws Exception {
+    final OutputStream broken = new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        throw new IOException("Broken pipe");
+      }
+    };
+    final CfaslRequestWriter writer = new CfaslRequestWriter(connection,
+            new CfaslOutputStream(broken), new Object());
+    writer.start();
+    final AtomicInteger terminated = new AtomicInteger();
+    final Worker worker = newWorker(terminated);
+    writer.enqueue(null, worker, CycArrayList.makeCycList("+", 1, 1));
+    writer.join(10000);
+    assertFalse(writer.isAlive());
+    assertEquals(1, terminated.get());
+    assertEquals(WorkerStatus.EXCEPTION_STATUS, worker.getStatus());
+    assertTrue(writer.isClosed());
+    assertTrue(connection.isClosed());
+    try {
+      writer.enqueue(null, null, CycArrayList.makeCycList("+", 1, 1));
+      fail("A failed writer accepted a request.");
+    } catch (CycApiClosedConnectionException e) {
+      // expected
+    }
+  }
+
+  private static Worker newWorker(final AtomicInteger terminated) {
+    final Worker worker = new DefaultSublWorker(CycArrayList.makeCycList("+", 1, 1), null);
+    worker.addListener(new WorkerListener() {
+      @Override
+      public void notifySubLWorkerStarted(WorkerEvent event) {
+      }
+
+      @Override
+      public void notifySubLWorkerDataAvailable(WorkerEvent event) {
+      }
+
+      @Override
+      public void notifySubLWorkerTerminated(WorkerEvent event) {
+        terminated.incrementAndGet();
+      }
+    });
+    return worker;
+  }
+}
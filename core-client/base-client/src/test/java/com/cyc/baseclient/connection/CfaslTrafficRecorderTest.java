@@ -0,0 +1,141 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: CfaslTrafficRecorderTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.cycobject.CycList;
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.UUID;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests writing and reading back CFASL traffic logs.
+ */
+public class CfaslTrafficRecorderTest {
+
+  private static final UUID FIRST = UUID.randomUUID();
+
+  private static final UUID SECOND = UUID.randomUUID();
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    final ByteArrayOutputStream log = new ByteArrayOutputStream();
+    final CfaslTrafficRecorder recorder = new CfaslTrafficRecorder(log);
+    recorder.recordRequest(FIRST, 7, request(7, "+", 1, 2));
+    recorder.recordRequest(SECOND, 7, request(7, "cyc-image-id"));
+    recorder.recordResponse(FIRST, 7, response(7, 3, CycObjectFactory.nil));
+    recorder.recordResponse(SECOND, 7, response(7, CycObjectFactory.nil, "Unbound function"));
+    assertEquals(4, recorder.getRecordCount());
+    recorder.close();
+    assertTrue(recorder.isStopped());
+
+    final CfaslTrafficReader reader = new CfaslTrafficReader(new ByteArrayInputStream(log.toByteArray()));
+    assertTrue(reader.getStartMillis() > 0);
+    final CfaslTrafficReader.Record first = reader.read();
+    assertTrue(first.isRequest());
+    assertEquals(0, first.getConnection());
+    assertEquals(7, first.getId());
+    assertEquals(CycArrayList.makeCycList(CycObjectFactory.makeCycSymbol("+"), 1, 2), first.getCommand());
+    final CfaslTrafficReader.Record second = reader.read();
+    assertEquals(1, second.getConnection());
+    assertTrue(second.getNanos() >= first.getNanos());
+    final CfaslTrafficReader.Record third = reader.read();
+    assertTrue(third.isResponse());
+    assertEquals(0, third.getConnection());
+    assertEquals(3, third.getResponse());
+    assertEquals(CycObjectFactory.nil, third.getError());
+    assertTrue(third.isFinished());
+    final CfaslTrafficReader.Record fourth = reader.read();
+    assertEquals(1, fourth.getConnection());
+    assertEquals("Unbound function", fourth.getError());
+    assertNull(reader.read());
+    reader.close();
+  }
+
+  @Test
+  public void testTruncatedLog() throws IOException {
+    final ByteArrayOutputStream log = new ByteArrayOutputStream();
+    final CfaslTrafficRecorder recorder = new CfaslTrafficRecorder(log);
+    recorder.recordRequest(FIRST, 1, request(1, "+", 1, 2));
+    recorder.recordRequest(FIRST, 2, request(2, "+", 3, 4));
+    recorder.close();
+    final byte[] bytes = log.toByteArray();
+    final CfaslTrafficReader reader = new CfaslTrafficReader(
+            new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 3)));
+    assertEquals(1, reader.read().getId());
+    // the second record was cut short
+    assertNull(reader.read());
+  }
+
+  @Test(expected = IOException.class)
+  public void testNotALog() throws IOException {
+    new CfaslTrafficReader(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+  }
+
+  @Test
+  public void testStopsWhenTheLogFails() throws IOException {
+    final CfaslTrafficRecorder recorder = new CfaslTrafficRecorder(new ByteArrayOutputStream() {
+      @Override
+      public void flush() throws IOException {
+        throw new IOException("disk full");
+      }
+    });
+    recorder.recordRequest(FIRST, 1, request(1, "+", 1, 2));
+    recorder.flush();
+    assertTrue(recorder.isStopped());
+    recorder.recordRequest(FIRST, 2, request(2, "+", 3, 4));
+    assertEquals(1, recorder.getRecordCount());
+  }
+
+  private static CycList request(final int id, final String operator, final Object... args) {
+    final CycArrayList command = new CycArrayList();
+    command.add(CycObjectFactory.makeCycSymbol(operator));
+    command.addAll(Arrays.asList(args));
+    final CycArrayList request = new CycArrayList();
+    request.add(CycObjectFactory.makeCycSymbol("task-processor-request"));
+    request.add(command);
+    request.add(id);
+    request.add(5000);
+    request.add("client");
+    request.add(CycObjectFactory.nil);
+    request.add(UUID.randomUUID().toString());
+    return request;
+  }
+
+  private static CycList response(final int id, final Object response, final Object error) {
+    final CycArrayList form = new CycArrayList();
+    form.add(CycObjectFactory.makeCycSymbol("task-processor-response"));
+    form.add(CycObjectFactory.nil);
+    form.add(id);
+    form.add(5000);
+    form.add("client");
+    form.add(response);
+    form.add(error);
+    form.add(CycObjectFactory.t);
+    return form;
+  }
+}
@@ -0,0 +1,70 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: DirectBufferOutputStreamTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests that requests encoded into pooled direct buffers match those encoded into byte arrays.
+ */
+public class DirectBufferOutputStreamTest {
+
+  @Test
+  public void testEncodingMatchesByteArray() throws IOException {
+    final CycArrayList message = new CycArrayList();
+    message.add(CycObjectFactory.makeCycSymbol("FI-ASSERT"));
+    for (int i = 0; i < 5000; i++) {
+      message.add("assertion " + i);
+    }
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final CfaslOutputStream arrayEncoder = new CfaslOutputStream(baos);
+    arrayEncoder.writeObject(message);
+    arrayEncoder.flush();
+    final byte[] expected = baos.toByteArray();
+
+    final DirectBufferOutputStream buffers = new DirectBufferOutputStream();
+    final CfaslOutputStream bufferEncoder = new CfaslOutputStream(buffers, DirectBufferOutputStream.BUFFER_SIZE);
+    for (int round = 0; round < 2; round++) {
+      bufferEncoder.writeObject(message);
+      bufferEncoder.flush();
+      assertEquals(expected.length, buffers.size());
+      final ByteBuffer[] chain = buffers.toBuffers();
+      assertTrue(chain.length > 1);
+      final byte[] actual = new byte[expected.length];
+      int offset = 0;
+      for (final ByteBuffer buffer : chain) {
+        final int length = buffer.remaining();
+        buffer.get(actual, offset, length);
+        offset += length;
+      }
+      assertArrayEquals(expected, actual);
+      buffers.release();
+      assertEquals(0, buffers.size());
+    }
+  }
+}
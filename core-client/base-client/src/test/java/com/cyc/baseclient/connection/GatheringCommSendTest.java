@@ -0,0 +1,126 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: GatheringCommSendTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.CycAccess;
+import com.cyc.base.exception.BaseClientRuntimeException;
+import com.cyc.baseclient.comm.GatheringComm;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the encoding of requests sent through a GatheringComm.
+ */
+public class GatheringCommSendTest {
+
+  private final List<byte[]> requests = new ArrayList<byte[]>();
+  private CycConnectionImpl connection;
+
+  @Before
+  public void setUp() throws Exception {
+    connection = new CycConnectionImpl(recordingComm(), openAccess());
+  }
+
+  @After
+  public void tearDown() {
+    connection.close();
+  }
+
+  @Test
+  public void testUnencodableRequestDoesNotCorruptTheNextOne() throws Exception {
+    try {
+      connection.sendBinary(CycArrayList.makeCycList("+", 1, Double.NaN));
+      fail("A NaN float should not have been encoded.");
+    } catch (BaseClientRuntimeException e) {
+      // expected
+    }
+    assertTrue(requests.isEmpty());
+    final Object good = CycArrayList.makeCycList("+", 1, 2);
+    connection.sendBinary(good);
+    assertEquals(1, requests.size());
+    assertArrayEquals(encode(good), requests.get(0));
+  }
+
+  private static byte[] encode(final Object object) throws IOException {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final CfaslOutputStream out = new CfaslOutputStream(baos);
+    out.writeObject(object);
+    out.flush();
+    return baos.toByteArray();
+  }
+
+  /** A GatheringComm which records the bytes of each request it is asked to send. */
+  private GatheringComm recordingComm() {
+    return (GatheringComm) Proxy.newProxyInstance(GatheringComm.class.getClassLoader(),
+            new Class<?>[]{GatheringComm.class}, new InvocationHandler() {
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("sendRequest".equals(method.getName()) && (args[0] instanceof ByteBuffer[])) {
+                  final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                  for (final ByteBuffer buffer : (ByteBuffer[]) args[0]) {
+                    while (buffer.hasRemaining()) {
+                      baos.write(buffer.get());
+                    }
+                  }
+                  requests.add(baos.toByteArray());
+                } else if ("toString".equals(method.getName())) {
+                  return "GatheringComm stub";
+                } else if (method.getReturnType() == boolean.class) {
+                  return false;
+                }
+                return null;
+              }
+            });
+  }
+
+  /** A CycAccess which is open and answers every other question with a default value. */
+  private static CycAccess openAccess() {
+    return (CycAccess) Proxy.newProxyInstance(CycAccess.class.getClassLoader(),
+            new Class<?>[]{CycAccess.class}, new InvocationHandler() {
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args) {
+                final Class<?> type = method.getReturnType();
+                if (type == boolean.class) {
+                  return false;
+                } else if (type == int.class) {
+                  return 0;
+                } else if (type == long.class) {
+                  return 0L;
+                } else if ("toString".equals(method.getName())) {
+                  return "CycAccess stub";
+                }
+                return null;
+              }
+            });
+  }
+}
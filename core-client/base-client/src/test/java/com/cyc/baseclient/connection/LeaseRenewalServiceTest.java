@@ -0,0 +1,297 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: LeaseRenewalServiceTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.CycAccess;
+import com.cyc.base.conn.LeaseManager;
+import com.cyc.base.conn.LeaseManager.LeaseEventObject;
+import com.cyc.base.conn.Worker;
+import com.cyc.base.conn.WorkerStatus;
+import com.cyc.baseclient.DefaultSublWorker;
+import com.cyc.baseclient.comm.Comm;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the scheduling of lease batches by LeaseRenewalService against a stand-in server, which
+ * records each batch and grants every lease in it at once.
+ */
+public class LeaseRenewalServiceTest {
+
+  private static final long PERIOD_MILLIS = 2000;
+
+  private final StandInServer server = new StandInServer();
+  private final List<CycConnectionImpl> connections = new ArrayList<CycConnectionImpl>();
+  private LeaseRenewalService service;
+
+  @Before
+  public void setUp() {
+    service = new LeaseRenewalService(server);
+  }
+
+  @After
+  public void tearDown() {
+    service.shutdown();
+    for (final CycConnectionImpl connection : connections) {
+      connection.close();
+    }
+  }
+
+  @Test
+  public void testOneBatchPerPeriod() throws Exception {
+    final CycLeaseManager first = register("cyc-a");
+    final CycLeaseManager second = register("cyc-a");
+    final int settled = awaitBatchWith(0, first, second);
+    Thread.sleep(2 * PERIOD_MILLIS + PERIOD_MILLIS / 2);
+    final List<Batch> batches = server.batchesSince(settled);
+    assertFalse("The timer renewed no leases", batches.isEmpty());
+    long previous = server.batches.get(settled - 1).sentNanos;
+    for (final Batch batch : batches) {
+      assertTrue(batch.has(first) && batch.has(second));
+      assertTrue("Leases were renewed more than once per period",
+              batch.sentNanos - previous >= TimeUnit.MILLISECONDS.toNanos(PERIOD_MILLIS));
+      previous = batch.sentNanos;
+    }
+    assertEquals(1, service.getServerCount());
+    assertEquals(0, service.getPiggybackedRenewalCount());
+    assertTrue(first.hasValidLease());
+    assertEquals("IMAGE-1", second.getCycImageId());
+  }
+
+  @Test
+  public void testPiggybackedRenewal() throws Exception {
+    final CycLeaseManager lease = register("cyc-a");
+    final int settled = awaitBatchWith(0, lease);
+    final long lastNanos = server.batches.get(settled - 1).sentNanos;
+    // traffic early in the period renews nothing
+    service.noteTraffic(lease.getCycConnection());
+    Thread.sleep(100);
+    assertEquals(settled, server.batches.size());
+    // traffic after three quarters of the period renews at once, over the busy connection
+    sleepUntil(lastNanos + TimeUnit.MILLISECONDS.toNanos(PERIOD_MILLIS * 3 / 4 + 100));
+    service.noteTraffic(lease.getCycConnection());
+    final int piggybacked = awaitBatchWith(settled, lease);
+    final Batch batch = server.batches.get(piggybacked - 1);
+    assertSame(lease.getCycConnection(), batch.carrier);
+    assertTrue(batch.sentNanos - lastNanos < TimeUnit.MILLISECONDS.toNanos(PERIOD_MILLIS));
+    assertEquals(1, service.getPiggybackedRenewalCount());
+  }
+
+  @Test
+  public void testCleanupAfterClose() throws Exception {
+    final CycLeaseManager first = register("cyc-a");
+    final CycLeaseManager second = register("cyc-b");
+    awaitBatchWith(0, first);
+    awaitBatchWith(0, second);
+    assertEquals(2, service.getServerCount());
+    // closed connections are dropped by the next tick of their server's timer
+    first.getCycConnection().close();
+    service.unregister(second);
+    assertEquals(1, service.getServerCount());
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PERIOD_MILLIS);
+    while ((service.getServerCount() > 0) && (System.nanoTime() < deadline)) {
+      Thread.sleep(20);
+    }
+    assertEquals(0, service.getServerCount());
+    final int closed = server.batches.size();
+    service.noteTraffic(first.getCycConnection());
+    service.renewNow(second);
+    Thread.sleep(PERIOD_MILLIS + PERIOD_MILLIS / 2);
+    assertEquals("Leases were renewed after they were closed", closed, server.batches.size());
+  }
+
+  @Test
+  public void testBlockedListenerDoesNotStopRenewal() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final CycLeaseManager blocked = register("cyc-a");
+    blocked.addListener(new CycLeaseManager.CycLeaseManagerListener() {
+      @Override
+      public void notifyCycLeaseEvent(LeaseEventObject evt) {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    try {
+      awaitBatchWith(0, blocked);
+      final CountDownLatch renewed = new CountDownLatch(1);
+      final CycLeaseManager other = register("cyc-b");
+      other.addListener(new CycLeaseManager.CycLeaseManagerListener() {
+        @Override
+        public void notifyCycLeaseEvent(LeaseEventObject evt) {
+          if (evt.getReason() == LeaseManager.LEASE_SUCCESSFULLY_RENEWED) {
+            renewed.countDown();
+          }
+        }
+      });
+      service.renewNow(other);
+      assertTrue("A blocked listener held up the leases of another server",
+              renewed.await(PERIOD_MILLIS, TimeUnit.MILLISECONDS));
+    } finally {
+      release.countDown();
+    }
+  }
+
+  /** Registers a lease, with the shortest allowed period, for a new connection to the given host. */
+  private CycLeaseManager register(final String host) throws Exception {
+    final CycConnectionImpl connection = new CycConnectionImpl((Comm) null, openAccess()) {
+      @Override
+      public String getHostName() {
+        return host;
+      }
+
+      @Override
+      public int getCfaslPort() {
+        return 3614;
+      }
+    };
+    connections.add(connection);
+    final CycLeaseManager lease = new CycLeaseManager(connection);
+    lease.setLeaseDurationMilliseconds(PERIOD_MILLIS);
+    service.register(lease);
+    return lease;
+  }
+
+  /**
+   * Waits for a batch after the first <code>from</code> batches which leases every one of
+   * <code>leases</code>, and for the batches to stop.
+   *
+   * @return the number of batches sent
+   */
+  private int awaitBatchWith(final int from, final CycLeaseManager... leases) throws InterruptedException {
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PERIOD_MILLIS);
+    while (System.nanoTime() < deadline) {
+      for (final Batch batch : server.batchesSince(from)) {
+        boolean hasAll = true;
+        for (final CycLeaseManager lease : leases) {
+          hasAll &= batch.has(lease);
+        }
+        if (hasAll) {
+          Thread.sleep(100);
+          return server.batches.size();
+        }
+      }
+      Thread.sleep(10);
+    }
+    fail("No batch renewed every lease");
+    return -1;
+  }
+
+  private static void sleepUntil(final long nanos) throws InterruptedException {
+    final long remaining = nanos - System.nanoTime();
+    if (remaining > 0) {
+      TimeUnit.NANOSECONDS.sleep(remaining);
+    }
+  }
+
+  private static CycAccess openAccess() {
+    return (CycAccess) Proxy.newProxyInstance(CycAccess.class.getClassLoader(),
+            new Class<?>[]{CycAccess.class}, new InvocationHandler() {
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args) {
+                final Class<?> type = method.getReturnType();
+                if (type == boolean.class) {
+                  return false;
+                } else if (type == int.class) {
+                  return 0;
+                } else if (type == long.class) {
+                  return 0L;
+                } else if ("toString".equals(method.getName())) {
+                  return "CycAccess stub";
+                }
+                return null;
+              }
+            });
+  }
+
+  /** A lease batch received by the stand-in server. */
+  private static class Batch {
+
+    Batch(final CycConnectionImpl carrier, final List<String> uuids) {
+      this.carrier = carrier;
+      this.uuids = uuids;
+    }
+
+    boolean has(final CycLeaseManager lease) {
+      return uuids.contains(lease.getCycConnection().getUuid().toString());
+    }
+
+    final long sentNanos = System.nanoTime();
+    final CycConnectionImpl carrier;
+    final List<String> uuids;
+  }
+
+  /** Records each lease batch and grants every lease in it. */
+  private static class StandInServer implements LeaseRenewalService.LeaseRequester {
+
+    @Override
+    public SublFuture<Object> request(final CycConnectionImpl carrier, final String script) {
+      final List<String> uuids = new ArrayList<String>();
+      final List<Object> descriptions = new ArrayList<Object>();
+      final Matcher matcher = LEASE_REQUEST.matcher(script);
+      while (matcher.find()) {
+        uuids.add(matcher.group(1));
+        descriptions.add("api services lease granted by IMAGE-1 for " + matcher.group(1));
+      }
+      batches.add(new Batch(carrier, uuids));
+      final SublFuture<Object> future = new SublFuture<Object>(CONVERTER);
+      future.notifySubLWorkerDataAvailable(new SublWorkerEvent(WORKER, descriptions, 100));
+      future.notifySubLWorkerTerminated(new SublWorkerEvent(WORKER, WorkerStatus.FINISHED_STATUS, null));
+      return future;
+    }
+
+    List<Batch> batchesSince(final int from) {
+      final List<Batch> all = new ArrayList<Batch>(batches);
+      return all.subList(Math.min(from, all.size()), all.size());
+    }
+
+    private static final Pattern LEASE_REQUEST =
+            Pattern.compile("\\(acquire-api-services-lease \\d+ \"([^\"]+)\"\\)");
+
+    private static final Worker WORKER = new DefaultSublWorker(CycArrayList.makeCycList("+", 1, 1), null);
+
+    private static final SublFuture.Converter<Object> CONVERTER = new SublFuture.Converter<Object>() {
+      @Override
+      public Object convert(Object[] response) {
+        return response[1];
+      }
+    };
+
+    final List<Batch> batches = new CopyOnWriteArrayList<Batch>();
+  }
+
+}
@@ -0,0 +1,138 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: PreparedSublCommandTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.cycobject.CycList;
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import com.cyc.baseclient.cycobject.CycConstantImpl;
+import com.cyc.baseclient.cycobject.ElMtConstant;
+import com.cyc.baseclient.cycobject.GuidImpl;
+import com.cyc.baseclient.cycobject.NartImpl;
+import com.cyc.baseclient.cycobject.NautImpl;
+import java.util.Arrays;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests that prepared commands bind their arguments as the equivalent command strings would.
+ */
+public class PreparedSublCommandTest {
+
+  private static final CycConstantImpl DOG = new CycConstantImpl("Dog",
+          new GuidImpl("bd58daa0-9c29-11b1-9dad-c379636f7270"));
+  private static final CycConstantImpl FRUIT_FN = new CycConstantImpl("FruitFn",
+          new GuidImpl("bd58a976-9c29-11b1-9dad-c379636f7270"));
+  private static final ElMtConstant BASE_KB = ElMtConstant.makeElMtConstant(
+          new CycConstantImpl("BaseKB", new GuidImpl("bd588111-9c29-11b1-9dad-c379636f7270")));
+
+  @Test
+  public void testBind() {
+    final PreparedSublCommand command = PreparedSublCommand.prepare("(genls $col/term $mt/term)");
+    assertEquals(2, command.getParameterCount());
+    assertEquals(Arrays.asList("COL", "MT"), command.getParameterNames());
+    assertEquals(Arrays.asList(PreparedSublCommand.ParameterType.TERM,
+            PreparedSublCommand.ParameterType.TERM), command.getParameterTypes());
+    final CycArrayList bound = command.bind(DOG, BASE_KB);
+    assertEquals(CycArrayList.makeCycList(CycObjectFactory.makeCycSymbol("genls"), DOG, BASE_KB),
+            bound);
+    bound.set(1, FRUIT_FN);
+    assertEquals(DOG, command.bind(DOG, BASE_KB).get(1));
+  }
+
+  @Test
+  public void testApiValues() {
+    final PreparedSublCommand command = PreparedSublCommand.prepare(
+            "(remove-duplicates (with-all-mts (foo $a $b $c $d $e $f)))");
+    final NartImpl nart = new NartImpl(FRUIT_FN, DOG);
+    final NautImpl naut = new NautImpl(FRUIT_FN, DOG);
+    final CycList list = CycArrayList.makeCycList(DOG, "two");
+    final CycArrayList bound = command.bind(nart, naut, list,
+            CycObjectFactory.makeCycSymbol("bar"), CycObjectFactory.makeCycSymbol(":baz"), null);
+    final CycArrayList args = (CycArrayList) ((CycArrayList) bound.get(1)).get(1);
+    assertEquals(nart.cycListApiValue(), args.get(1));
+    assertEquals(CycArrayList.makeCycList(CycObjectFactory.quote, naut.getArgs()), args.get(2));
+    assertEquals(CycArrayList.makeCycList(CycObjectFactory.quote, list), args.get(3));
+    assertEquals(CycArrayList.makeCycList(CycObjectFactory.quote,
+            CycObjectFactory.makeCycSymbol("bar")), args.get(4));
+    assertEquals(CycObjectFactory.makeCycSymbol(":baz"), args.get(5));
+    assertEquals(CycObjectFactory.nil, args.get(6));
+  }
+
+  @Test
+  public void testQuotedAndRepeatedPlaceholders() {
+    final PreparedSublCommand command = PreparedSublCommand.prepare(
+            "(ask-template '?X '(isa ?X $col) $mt/term $col $flag/boolean $n/int)");
+    assertEquals(4, command.getParameterCount());
+    final CycList term = CycArrayList.makeCycList(DOG, "two");
+    final CycArrayList bound = command.bind(term, BASE_KB, true, 5);
+    final CycArrayList quoted = (CycArrayList) bound.get(2);
+    assertEquals(CycObjectFactory.quote, quoted.get(0));
+    assertSame(term, ((CycArrayList) quoted.get(1)).get(2));
+    assertEquals(CycArrayList.makeCycList(CycObjectFactory.quote, term), bound.get(4));
+    assertEquals(CycObjectFactory.t, bound.get(5));
+    assertEquals(5, bound.get(6));
+  }
+
+  @Test
+  public void testForm() {
+    final PreparedSublCommand command = PreparedSublCommand.prepare("(fif $test/form 1 2)");
+    final CycList test = CycArrayList.makeCycList(CycObjectFactory.makeCycSymbol("null"),
+            CycObjectFactory.nil);
+    assertSame(test, command.bind(test).get(1));
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    final PreparedSublCommand command = PreparedSublCommand.prepare("(foo $a/fort $b/string)");
+    assertInvalid(command, DOG);
+    assertInvalid(command, DOG, 5);
+    assertInvalid(command, "Dog", "Dog");
+    assertInvalid(command, null, "Dog");
+    command.bind(DOG, "Dog");
+  }
+
+  @Test
+  public void testInvalidTemplates() {
+    assertInvalidTemplate("(foo $a/nonsense)");
+    assertInvalidTemplate("(foo $a/fort $a/string)");
+    assertInvalidTemplate("(isa $a #$Dog)");
+  }
+
+  private static void assertInvalid(PreparedSublCommand command, Object... args) {
+    try {
+      command.bind(args);
+      fail("Expected " + Arrays.asList(args) + " to be rejected by " + command);
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  private static void assertInvalidTemplate(String template) {
+    try {
+      PreparedSublCommand.prepare(template);
+      fail("Expected " + template + " to be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
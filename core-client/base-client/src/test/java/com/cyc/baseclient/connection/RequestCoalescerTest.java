@@ -0,0 +1,284 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: RequestCoalescerTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.exception.CycApiException;
+import com.cyc.base.exception.CycConnectionException;
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests that identical concurrent side-effect-free requests share one call.
+ */
+public class RequestCoalescerTest {
+
+  private static final String COMMENT = "(comment #$Dog #$BaseKB)";
+
+  @Test
+  public void testIsCoalescable() {
+    final RequestCoalescer coalescer = new RequestCoalescer();
+    assertTrue(coalescer.isCoalescable(COMMENT));
+    assertTrue(coalescer.isCoalescable("  (isa? #$Dog #$Collection #$BaseKB)"));
+    assertTrue(coalescer.isCoalescable(
+            "(remove-duplicates (with-all-mts (all-specs #$Dog)))"));
+    assertTrue(coalescer.isCoalescable(
+            "(with-inference-mt-relevance #$BaseKB (all-isa \"(\" #$Dog))"));
+    assertFalse(coalescer.isCoalescable("(with-all-mts '(all-specs #$Dog))"));
+    assertFalse(coalescer.isCoalescable("(fi-assert '(#$isa #$Fido #$Dog) #$BaseKB)"));
+    assertFalse(coalescer.isCoalescable("(with-all-mts (fi-kill #$Dog))"));
+    assertFalse(coalescer.isCoalescable("(clet ((x (fi-kill #$Dog))) (comment x))"));
+    assertFalse(coalescer.isCoalescable(new Object()));
+    assertTrue(coalescer.isCoalescable(CycArrayList.makeCycList(
+            CycObjectFactory.makeCycSymbol("with-all-mts"),
+            CycArrayList.makeCycList(CycObjectFactory.makeCycSymbol("ALL-SPECS"), "x"))));
+    coalescer.removeSideEffectFreeOperator("COMMENT");
+    assertFalse(coalescer.isCoalescable(COMMENT));
+    coalescer.addSideEffectFreeOperator("fi-kill");
+    assertTrue(coalescer.isCoalescable("(with-all-mts (fi-kill #$Dog))"));
+  }
+
+  @Test
+  public void testCoalesce() throws Exception {
+    final RequestCoalescer coalescer = new RequestCoalescer();
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger calls = new AtomicInteger();
+    final RequestCoalescer.Conversation conversation = new RequestCoalescer.Conversation() {
+      @Override
+      public Object[] converse(Object command) throws CycConnectionException, CycApiException {
+        calls.incrementAndGet();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new CycConnectionException(e);
+        }
+        return new Object[]{Boolean.TRUE, CycArrayList.makeCycList("a", CycArrayList.makeCycList("b"))};
+      }
+    };
+    final int threadCount = 8;
+    final List<Object[]> responses = new ArrayList<Object[]>();
+    final List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < threadCount; i++) {
+      final Thread thread = new Thread() {
+        @Override
+        public void run() {
+          try {
+            final Object[] response = coalescer.converse(COMMENT, conversation);
+            synchronized (responses) {
+              responses.add(response);
+            }
+          } catch (Exception e) {
+            fail(e.toString());
+          }
+        }
+      };
+      threads.add(thread);
+      thread.start();
+    }
+    final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+    while ((coalescer.getRequestCount() < threadCount) && (System.currentTimeMillis() < deadline)) {
+      Thread.sleep(5);
+    }
+    assertEquals(1, coalescer.getInFlightCount());
+    release.countDown();
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(1, calls.get());
+    assertEquals(threadCount, responses.size());
+    assertEquals(threadCount, coalescer.getRequestCount());
+    assertEquals(1, coalescer.getServerCallCount());
+    assertEquals(threadCount - 1, coalescer.getCoalescedCount());
+    assertEquals(0, coalescer.getInFlightCount());
+    for (final Object[] response : responses) {
+      assertEquals(responses.get(0)[1], response[1]);
+      if (response != responses.get(0)) {
+        assertNotSame(responses.get(0)[1], response[1]);
+      }
+    }
+    // once the call has ended, the next request is sent again
+    coalescer.converse(COMMENT, conversation);
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  public void testLeaderMayChangeItsResponse() throws Exception {
+    final RequestCoalescer coalescer = new RequestCoalescer();
+    final CountDownLatch release = new CountDownLatch(1);
+    final int size = 10000;
+    final RequestCoalescer.Conversation conversation = new RequestCoalescer.Conversation() {
+      @Override
+      public Object[] converse(Object command) throws CycConnectionException, CycApiException {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new CycConnectionException(e);
+        }
+        final CycArrayList<Object> list = new CycArrayList<Object>();
+        for (int i = 0; i < size; i++) {
+          list.add(CycArrayList.makeCycList("a", i));
+        }
+        return new Object[]{Boolean.TRUE, list};
+      }
+    };
+    final int waiterCount = 4;
+    final List<Object> copies = new ArrayList<Object>();
+    final List<Throwable> failures = new ArrayList<Throwable>();
+    final List<Thread> waiters = new ArrayList<Thread>();
+    final Object[][] leaderResponse = new Object[1][];
+    final Thread leader = new Thread() {
+      @Override
+      public void run() {
+        try {
+          leaderResponse[0] = coalescer.converse(COMMENT, conversation);
+          // the caller changes its response while the waiters are copying theirs
+          final List<?> list = (List<?>) leaderResponse[0][1];
+          while (!list.isEmpty()) {
+            list.remove(list.size() - 1);
+          }
+        } catch (Throwable t) {
+          synchronized (failures) {
+            failures.add(t);
+          }
+        }
+      }
+    };
+    leader.start();
+    final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+    while ((coalescer.getInFlightCount() < 1) && (System.currentTimeMillis() < deadline)) {
+      Thread.sleep(5);
+    }
+    for (int i = 0; i < waiterCount; i++) {
+      final Thread waiter = new Thread() {
+        @Override
+        public void run() {
+          try {
+            final Object[] response = coalescer.converse(COMMENT, conversation);
+            synchronized (copies) {
+              copies.add(response[1]);
+            }
+          } catch (Throwable t) {
+            synchronized (failures) {
+              failures.add(t);
+            }
+          }
+        }
+      };
+      waiters.add(waiter);
+      waiter.start();
+    }
+    while ((coalescer.getCoalescedCount() < waiterCount) && (System.currentTimeMillis() < deadline)) {
+      Thread.sleep(5);
+    }
+    release.countDown();
+    leader.join();
+    for (final Thread waiter : waiters) {
+      waiter.join();
+    }
+    assertTrue(failures.toString(), failures.isEmpty());
+    assertEquals(1, coalescer.getServerCallCount());
+    assertTrue(((List<?>) leaderResponse[0][1]).isEmpty());
+    assertEquals(waiterCount, copies.size());
+    for (final Object copy : copies) {
+      final List<?> list = (List<?>) copy;
+      assertEquals(size, list.size());
+      assertEquals(CycArrayList.makeCycList("a", size - 1), list.get(size - 1));
+    }
+  }
+
+  @Test
+  public void testFailureIsShared() throws Exception {
+    final RequestCoalescer coalescer = new RequestCoalescer();
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final RequestCoalescer.Conversation conversation = new RequestCoalescer.Conversation() {
+      @Override
+      public Object[] converse(Object command) throws CycConnectionException, CycApiException {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new CycConnectionException(e);
+        }
+        throw new CycApiException("no such term");
+      }
+    };
+    final Thread leader = new Thread() {
+      @Override
+      public void run() {
+        try {
+          coalescer.converse(COMMENT, conversation);
+        } catch (Exception e) {
+          // expected
+        }
+      }
+    };
+    leader.start();
+    started.await();
+    final AtomicInteger failures = new AtomicInteger();
+    final Thread waiter = new Thread() {
+      @Override
+      public void run() {
+        try {
+          coalescer.converse(COMMENT, conversation);
+        } catch (CycApiException e) {
+          failures.incrementAndGet();
+        } catch (CycConnectionException e) {
+          fail(e.toString());
+        }
+      }
+    };
+    waiter.start();
+    while (coalescer.getRequestCount() < 2) {
+      Thread.sleep(5);
+    }
+    release.countDown();
+    leader.join();
+    waiter.join();
+    assertEquals(1, failures.get());
+    assertEquals(1, coalescer.getServerCallCount());
+  }
+
+  @Test
+  public void testSideEffectsAreNotCoalesced() throws Exception {
+    final RequestCoalescer coalescer = new RequestCoalescer();
+    final AtomicInteger calls = new AtomicInteger();
+    final RequestCoalescer.Conversation conversation = new RequestCoalescer.Conversation() {
+      @Override
+      public Object[] converse(Object command) {
+        calls.incrementAndGet();
+        return new Object[]{Boolean.TRUE, CycObjectFactory.t};
+      }
+    };
+    coalescer.converse("(fi-kill #$Dog)", conversation);
+    coalescer.converse("(fi-kill #$Dog)", conversation);
+    assertEquals(2, calls.get());
+    assertEquals(0, coalescer.getRequestCount());
+  }
+
+}
@@ -0,0 +1,125 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: SublCommandProfilerTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.conn.WorkerStatus;
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.DefaultSublWorker;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests the per-operator profiles of SublCommandProfiler, and the byte counts of the CFASL streams
+ * which feed them.
+ */
+public class SublCommandProfilerTest {
+
+  @Test
+  public void testHeadOperatorLooksThroughWrappers() {
+    final CycArrayList query = makeCommand("new-cyc-query", "sentence");
+    final CycArrayList wrapped = makeCommand("with-bookkeeping-info", "info");
+    wrapped.add(makeCommand("clet", "bindings", query));
+    assertEquals("new-cyc-query", SublCommandProfiler.getHeadOperator(wrapped));
+    assertEquals("fi-assert", SublCommandProfiler.getHeadOperator(makeCommand("FI-ASSERT", "sentence")));
+    final CycArrayList notASymbol = new CycArrayList();
+    notASymbol.add("string");
+    assertEquals(SublCommandProfiler.UNKNOWN_OPERATOR, SublCommandProfiler.getHeadOperator(notASymbol));
+  }
+
+  @Test
+  public void testOperatorProfiles() {
+    final SublCommandProfiler profiler = new SublCommandProfiler();
+    final List<List<SublCommandProfiler.OperatorSnapshot>> published
+            = new ArrayList<List<SublCommandProfiler.OperatorSnapshot>>();
+    profiler.addSink(new SublCommandMetricsSink() {
+      @Override
+      public void publish(final List<SublCommandProfiler.OperatorSnapshot> snapshots) {
+        published.add(snapshots);
+      }
+    });
+    final DefaultSublWorker first = new DefaultSublWorker(makeCommand("fi-assert", "a"), null);
+    final DefaultSublWorker second = new DefaultSublWorker(makeCommand("fi-assert", "b"), null);
+    final DefaultSublWorker third = new DefaultSublWorker(makeCommand("new-cyc-query", "c"), null);
+    profiler.notifySubLWorkerStarted(new SublWorkerEvent(first, 1));
+    profiler.notifySubLWorkerStarted(new SublWorkerEvent(second, 2));
+    profiler.notifySubLWorkerStarted(new SublWorkerEvent(third, 3));
+    assertEquals(3, profiler.getInFlightCount());
+    assertEquals(2, profiler.getOperatorSnapshot("fi-assert").getInFlightCount());
+    profiler.recordRequestBytes(first, 100);
+    profiler.recordResponseBytes(first, 40);
+    profiler.recordRequestBytes(second, 50);
+    profiler.notifySubLWorkerTerminated(new SublWorkerEvent(first, WorkerStatus.FINISHED_STATUS, null));
+    profiler.notifySubLWorkerTerminated(new SublWorkerEvent(second, WorkerStatus.EXCEPTION_STATUS, null));
+    final SublCommandProfiler.OperatorSnapshot asserts = profiler.getOperatorSnapshot("FI-ASSERT");
+    assertEquals(2, asserts.getCallCount());
+    assertEquals(1, asserts.getFailureCount());
+    assertEquals(0, asserts.getInFlightCount());
+    assertEquals(150, asserts.getRequestBytes());
+    assertEquals(40, asserts.getResponseBytes());
+    assertTrue(asserts.getP99Millis() >= asserts.getP50Millis());
+    assertArrayEquals(new String[]{"fi-assert", "new-cyc-query"}, profiler.getOperators());
+    assertEquals(2, profiler.getCallCount());
+    assertEquals(1, profiler.getInFlightCount());
+    profiler.publish();
+    assertEquals(1, published.size());
+    assertEquals(2, published.get(0).size());
+    assertEquals("fi-assert", published.get(0).get(0).getOperator());
+    assertEquals(1, published.get(0).get(1).getInFlightCount());
+    assertTrue(profiler.registerMBean());
+    profiler.unregisterMBean();
+    profiler.reset();
+    assertEquals(0, profiler.getCallCount());
+  }
+
+  @Test
+  public void testStreamsCountEncodedBytes() throws IOException {
+    final CycArrayList message = makeCommand("fi-assert", "assertion");
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final CfaslOutputStream out = new CfaslOutputStream(baos);
+    out.writeObject(message);
+    final long firstSize = out.getBytesWritten();
+    out.writeObject(message);
+    assertEquals(2 * firstSize, out.getBytesWritten());
+    out.flush();
+    assertEquals(baos.size(), out.getBytesWritten());
+    final CfaslInputStream in = new CfaslInputStream(new ByteArrayInputStream(baos.toByteArray()));
+    in.readObject();
+    assertEquals(firstSize, in.getBytesRead());
+    in.readObject();
+    assertEquals(baos.size(), in.getBytesRead());
+  }
+
+  private static CycArrayList makeCommand(final String operator, final Object... args) {
+    final CycArrayList command = new CycArrayList();
+    command.add(CycObjectFactory.makeCycSymbol(operator));
+    for (final Object arg : args) {
+      command.add(arg);
+    }
+    return command;
+  }
+}
@@ -0,0 +1,162 @@
+package com.cyc.baseclient.connection;
+
+/*
+ * #%L
+ * File: SublFutureTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.conn.Worker;
+import com.cyc.base.conn.WorkerStatus;
+import com.cyc.base.exception.CycApiException;
+import com.cyc.baseclient.DefaultSublWorker;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import com.cyc.baseclient.exception.CycApiServerSideException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests the completion, callbacks and cancellation of SubL futures.
+ */
+public class SublFutureTest {
+
+  private static final SublFuture.Converter<Object> CONVERTER = new SublFuture.Converter<Object>() {
+    @Override
+    public Object convert(Object[] response) {
+      if (!Boolean.TRUE.equals(response[0])) {
+        throw new CycApiException(response[1].toString());
+      }
+      return response[1];
+    }
+  };
+
+  private final Worker worker = new DefaultSublWorker(CycArrayList.makeCycList("+", 1, 1), null);
+
+  @Test
+  public void testSuccess() throws Exception {
+    final SublFuture<Object> future = new SublFuture<Object>(CONVERTER);
+    final List<Object> results = new ArrayList<Object>();
+    future.addCallback(new RecordingCallback(results));
+    final SublFuture<String> transformed = future.transform(
+            new SublFuture.Transformer<Object, String>() {
+      @Override
+      public String transform(Object result) {
+        return "result " + result;
+      }
+    });
+    assertFalse(future.isDone());
+    assertTrue(results.isEmpty());
+    future.notifySubLWorkerDataAvailable(new SublWorkerEvent(worker, 2, 100));
+    future.notifySubLWorkerTerminated(new SublWorkerEvent(worker, WorkerStatus.FINISHED_STATUS, null));
+    assertTrue(future.isDone());
+    assertFalse(future.isCancelled());
+    assertEquals(2, future.get());
+    assertEquals(2, future.join());
+    assertEquals("result 2", transformed.get(1, TimeUnit.SECONDS));
+    future.addCallback(new RecordingCallback(results));
+    assertEquals(2, results.size());
+    assertEquals(2, results.get(0));
+    assertEquals(2, results.get(1));
+    // a second termination does not change the outcome
+    future.notifySubLWorkerTerminated(new SublWorkerEvent(worker, WorkerStatus.CANCELED_STATUS, null));
+    assertEquals(2, future.get());
+  }
+
+  @Test
+  public void testServerSideError() throws Exception {
+    final SublFuture<Object> future = new SublFuture<Object>(CONVERTER);
+    final List<Object> results = new ArrayList<Object>();
+    future.addCallback(new RecordingCallback(results));
+    future.notifySubLWorkerTerminated(new SublWorkerEvent(worker, WorkerStatus.EXCEPTION_STATUS,
+            new CycApiServerSideException("no such function")));
+    try {
+      future.get();
+      fail("Expected an ExecutionException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof CycApiException);
+    }
+    try {
+      future.join();
+      fail("Expected a CycApiException");
+    } catch (CycApiException e) {
+      assertTrue(e.getMessage().contains("no such function"));
+    }
+    assertEquals(1, results.size());
+    assertTrue(results.get(0) instanceof CycApiException);
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    final SublFuture<Object> future = new SublFuture<Object>(CONVERTER);
+    final SublFuture<Object> transformed = future.transform(
+            new SublFuture.Transformer<Object, Object>() {
+      @Override
+      public Object transform(Object result) {
+        return result;
+      }
+    });
+    assertTrue(transformed.cancel(true));
+    assertFalse(transformed.cancel(true));
+    assertTrue(future.isCancelled());
+    assertTrue(transformed.isCancelled());
+    future.notifySubLWorkerTerminated(new SublWorkerEvent(worker, WorkerStatus.FINISHED_STATUS, null));
+    try {
+      future.get();
+      fail("Expected a CancellationException");
+    } catch (CancellationException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testCompletedAndTimeout() throws Exception {
+    assertEquals("done", SublFuture.completed("done").join());
+    try {
+      new SublFuture<Object>(CONVERTER).get(10, TimeUnit.MILLISECONDS);
+      fail("Expected a TimeoutException");
+    } catch (TimeoutException e) {
+      // expected
+    }
+  }
+
+  private static class RecordingCallback implements SublFuture.Callback<Object> {
+
+    RecordingCallback(final List<Object> results) {
+      this.results = results;
+    }
+
+    @Override
+    public void onSuccess(Object result) {
+      results.add(result);
+    }
+
+    @Override
+    public void onFailure(Exception exception) {
+      results.add(exception);
+    }
+
+    private final List<Object> results;
+  }
+
+}
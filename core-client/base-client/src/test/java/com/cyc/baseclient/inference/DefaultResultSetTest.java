@@ -0,0 +1,174 @@
+package com.cyc.baseclient.inference;
+
+/*
+ * #%L
+ * File: DefaultResultSetTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.cycobject.CycList;
+import com.cyc.base.cycobject.CycVariable;
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests a DefaultResultSet which grows as answers arrive.
+ */
+public class DefaultResultSetTest {
+
+  private static final CycVariable X = CycObjectFactory.makeCycVariable("?X");
+  private static final CycVariable Y = CycObjectFactory.makeCycVariable("?Y");
+
+  @Test
+  public void testAddResults() {
+    final DefaultResultSet rs = new DefaultResultSet(new ArrayList<Object>(), true);
+    assertTrue(rs.hasTruthValue());
+    assertFalse(rs.isInferenceComplete());
+    rs.addResults(answers(1, 2));
+    assertFalse(rs.hasTruthValue());
+    assertEquals(2, rs.getCurrentRowCount());
+    assertTrue(rs.next());
+    assertEquals(1, rs.getObject("?X"));
+    assertTrue(rs.next());
+    assertFalse(rs.next());
+    assertTrue(rs.isAfterLast());
+    rs.addResults(answers(3));
+    // the cursor after the last row moves onto the row which has arrived since
+    assertTrue(rs.next());
+    assertEquals(3, rs.getObject("?X"));
+    assertEquals(3, rs.getRow());
+    assertFalse(rs.next());
+    assertTrue(rs.previous());
+    assertEquals(3, rs.getObject("?X"));
+    rs.setGrowing(false);
+    assertTrue(rs.isInferenceComplete());
+  }
+
+  @Test
+  public void testTruthValue() {
+    final DefaultResultSet rs = new DefaultResultSet(new ArrayList<Object>(), true);
+    rs.addResults(Collections.<Object>singletonList(CycObjectFactory.nil));
+    assertTrue(rs.getTruthValue());
+    assertEquals(0, rs.getCurrentRowCount());
+  }
+
+  @Test
+  public void testAwaitRows() throws InterruptedException {
+    final DefaultResultSet rs = new DefaultResultSet(new ArrayList<Object>(), true);
+    final AtomicInteger notified = new AtomicInteger();
+    rs.notifyWhenRows(2, new Runnable() {
+      @Override
+      public void run() {
+        notified.incrementAndGet();
+      }
+    });
+    assertFalse(rs.awaitRows(1, 10));
+    final Thread producer = new Thread() {
+      @Override
+      public void run() {
+        for (int i = 0; i < 3; i++) {
+          rs.addResults(answers(i));
+        }
+      }
+    };
+    producer.start();
+    assertTrue(rs.awaitRows(3, 0));
+    producer.join();
+    assertEquals(1, notified.get());
+    rs.setGrowing(false);
+    assertFalse(rs.awaitRows(4, 0));
+    rs.notifyWhenRows(4, new Runnable() {
+      @Override
+      public void run() {
+        notified.incrementAndGet();
+      }
+    });
+    assertEquals(2, notified.get());
+  }
+
+  @Test
+  public void testColumnAddedAfterRows() {
+    final DefaultResultSet rs = new DefaultResultSet(new ArrayList<Object>(), true);
+    rs.addResults(answers(1));
+    assertTrue(rs.next());
+    rs.addResults(Collections.<Object>singletonList(CycArrayList.makeCycList(
+            CycArrayList.makeDottedPair((Object) Y, 5))));
+    assertEquals(2, rs.getColumnNames().size());
+    // the earlier row is not changed, and has no binding for the new column
+    assertEquals(1, rs.getObject("?X"));
+    assertNull(rs.getObject("?Y"));
+    assertTrue(rs.next());
+    assertNull(rs.getObject("?X"));
+    assertEquals(5, rs.getObject("?Y"));
+  }
+
+  @Test
+  public void testReadersSeeCompleteRows() throws InterruptedException {
+    final DefaultResultSet rs = new DefaultResultSet(new ArrayList<Object>(), true);
+    final int rowCount = 2000;
+    final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+    final Thread producer = new Thread() {
+      @Override
+      public void run() {
+        for (int i = 0; i < rowCount; i++) {
+          final CycList answer = CycArrayList.makeCycList(CycArrayList.makeDottedPair((Object) X, i));
+          if (i % 100 == 0) {
+            // a new column while cursors are reading
+            answer.add(CycArrayList.makeDottedPair(
+                    (Object) CycObjectFactory.makeCycVariable("?V" + i), i));
+          }
+          rs.addResults(Collections.<Object>singletonList(answer));
+        }
+        rs.setGrowing(false);
+      }
+    };
+    producer.start();
+    int seen = 0;
+    try {
+      while (seen < rowCount) {
+        if (rs.next()) {
+          assertEquals(seen, rs.getObject("?X"));
+          rs.toString();
+          seen++;
+        } else if (!rs.awaitRows(seen + 1, 0)) {
+          break;
+        }
+      }
+    } catch (Throwable t) {
+      failures.add(t);
+    }
+    producer.join();
+    assertEquals(Collections.emptyList(), failures);
+    assertEquals(rowCount, seen);
+  }
+
+  private static List<Object> answers(int... values) {
+    final List<Object> answers = new ArrayList<Object>();
+    for (final int value : values) {
+      answers.add(CycArrayList.makeCycList(CycArrayList.makeDottedPair((Object) X, value)));
+    }
+    return answers;
+  }
+
+}
@@ -0,0 +1,96 @@
+package com.cyc.baseclient.parser;
+
+/*
+ * #%L
+ * File: CyclParserUtilTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.cycobject.CycConstant;
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.cycobject.CycConstantImpl;
+import com.cyc.baseclient.cycobject.CycFormulaSentence;
+import com.cyc.baseclient.cycobject.GuidImpl;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests the parts of CyclParserUtil which do not need a Cyc server: constants which are in the
+ * local constant caches are completed without a round trip, so these tests pass no CycAccess.
+ */
+public class CyclParserUtilTest {
+
+  private static final CycConstantImpl DOG =
+          new CycConstantImpl("Dog", new GuidImpl("bd58daa0-9c29-11b1-9dad-c379636f7270"));
+
+  private static final CycConstantImpl ISA =
+          new CycConstantImpl("isa", new GuidImpl("bd588104-9c29-11b1-9dad-c379636f7270"));
+
+  private static final CycConstantImpl GENLS =
+          new CycConstantImpl("genls", new GuidImpl("bd58810e-9c29-11b1-9dad-c379636f7270"));
+
+  @Before
+  public void setUp() {
+    CycObjectFactory.resetCycConstantCaches();
+    CycObjectFactory.addCycConstantCache(DOG);
+    CycObjectFactory.addCycConstantCache(ISA);
+    CycObjectFactory.addCycConstantCache(GENLS);
+  }
+
+  @After
+  public void tearDown() {
+    CycObjectFactory.resetCycConstantCaches();
+  }
+
+  @Test
+  public void testCompleteConstantsFromCache() throws Exception {
+    final CycConstantImpl byName = new CycConstantImpl("Dog", null);
+    final CycConstantImpl byGuid = new CycConstantImpl(null, DOG.getGuid());
+    CyclParserUtil.completeConstants(byName, null);
+    CyclParserUtil.completeConstants(byGuid, null);
+    assertEquals(DOG.getGuid(), byName.getGuid());
+    assertEquals("Dog", byGuid.getName());
+  }
+
+  @Test
+  public void testParseCycLSentences() throws Exception {
+    final List<String> toParse = Arrays.asList("(#$isa ?X #$Dog)", "(genls Dog ?Y)",
+            "(#$and (isa ?X Dog) (genls ?Y Dog))", "(isa ?Z #G\"bd58daa0-9c29-11b1-9dad-c379636f7270\")");
+    final List<CycFormulaSentence> sentences = CyclParserUtil.parseCycLSentences(toParse, true, null);
+    assertEquals(toParse.size(), sentences.size());
+    assertEquals(ISA, sentences.get(0).getOperator());
+    assertEquals(GENLS, sentences.get(1).getOperator());
+    assertEquals(2, sentences.get(2).getArity());
+    for (final CycFormulaSentence sentence : sentences) {
+      for (final CycConstant constant : sentence.treeConstants()) {
+        assertNotNull(constant.getName());
+        assertNotNull(constant.getGuid());
+      }
+    }
+  }
+
+  @Test(expected = ParseException.class)
+  public void testParseCycLSentencesReportsParseFailure() throws Exception {
+    CyclParserUtil.parseCycLSentences(Arrays.asList("(isa ?X Dog)", "(isa ?X", "(genls Dog ?Y)"),
+            true, null);
+  }
+}
@@ -0,0 +1,286 @@
+package com.cyc.baseclient.taxonomy;
+
+/*
+ * #%L
+ * File: TaxonomyIndexTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.CommandTool;
+import com.cyc.base.CycAccess;
+import com.cyc.base.cycobject.CycList;
+import com.cyc.base.cycobject.CycObject;
+import com.cyc.baseclient.CommonConstants;
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import com.cyc.baseclient.cycobject.CycConstantImpl;
+import com.cyc.baseclient.cycobject.GuidImpl;
+import com.cyc.baseclient.cycobject.NautImpl;
+import com.cyc.baseclient.taxonomy.TaxonomyIndex.Relation;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests the closures which a TaxonomyIndex computes, and how it follows KB operations.
+ */
+public class TaxonomyIndexTest {
+
+  private static final CycConstantImpl THING = constant("Thing");
+  private static final CycConstantImpl ANIMAL = constant("Animal");
+  private static final CycConstantImpl MAMMAL = constant("Mammal");
+  private static final CycConstantImpl DOG = constant("Dog");
+  private static final CycConstantImpl CAT = constant("Cat");
+  private static final CycConstantImpl FIDO = constant("Fido");
+  private static final CycConstantImpl TOM = constant("Tom");
+  private static final CycConstantImpl BASE_KB = constant("BaseKB");
+  private static final CycConstantImpl SPEC_MT = constant("SpecMt");
+  private static final CycConstantImpl OTHER_MT = constant("OtherMt");
+
+  @Test
+  public void testGenlsClosure() {
+    final TaxonomyIndex index = new TaxonomyIndex(null, Relation.GENLS);
+    assertTrue(index.addEdge(Relation.GENLS, DOG, MAMMAL));
+    assertTrue(index.addEdge(Relation.GENLS, CAT, MAMMAL));
+    assertTrue(index.addEdge(Relation.GENLS, MAMMAL, ANIMAL));
+    assertEquals(Boolean.TRUE, index.isGenlOf(ANIMAL, DOG));
+    assertEquals(Boolean.TRUE, index.isGenlOf(DOG, DOG));
+    assertEquals(Boolean.FALSE, index.isGenlOf(DOG, ANIMAL));
+    assertEquals(Boolean.FALSE, index.isGenlOf(CAT, DOG));
+    assertEquals(Boolean.FALSE, index.isGenlOf(THING, DOG));
+    assertNull(index.isGenlOf(ANIMAL, FIDO));
+    assertEquals(set(DOG, MAMMAL, ANIMAL), set(index.getAllGenls(DOG)));
+    assertEquals(set(MAMMAL, DOG, CAT), set(index.getAllSpecs(MAMMAL)));
+    assertNull(index.getAllSpecs(FIDO));
+    assertNull("ISA is not indexed", index.isa(FIDO, DOG));
+    assertEquals(3, index.getEdgeCount());
+    assertEquals(4, index.getTermCount());
+  }
+
+  @Test
+  public void testCycles() {
+    final TaxonomyIndex index = new TaxonomyIndex(null, Relation.GENLS);
+    index.addEdge(Relation.GENLS, DOG, CAT);
+    index.addEdge(Relation.GENLS, CAT, DOG);
+    index.addEdge(Relation.GENLS, CAT, MAMMAL);
+    index.addEdge(Relation.GENLS, ANIMAL, DOG);
+    assertEquals(Boolean.TRUE, index.isGenlOf(DOG, CAT));
+    assertEquals(Boolean.TRUE, index.isGenlOf(CAT, DOG));
+    assertEquals(Boolean.TRUE, index.isGenlOf(MAMMAL, ANIMAL));
+    assertEquals(Boolean.FALSE, index.isGenlOf(ANIMAL, MAMMAL));
+    assertEquals(set(ANIMAL, DOG, CAT, MAMMAL), set(index.getAllSpecs(MAMMAL)));
+    index.removeEdge(Relation.GENLS, CAT, DOG);
+    assertEquals(Boolean.FALSE, index.isGenlOf(DOG, CAT));
+    assertEquals(Boolean.TRUE, index.isGenlOf(MAMMAL, ANIMAL));
+  }
+
+  @Test
+  public void testIsa() {
+    final TaxonomyIndex index = new TaxonomyIndex(null);
+    index.addEdge(Relation.GENLS, DOG, MAMMAL);
+    index.addEdge(Relation.GENLS, CAT, MAMMAL);
+    index.addEdge(Relation.GENLS, MAMMAL, ANIMAL);
+    index.addEdge(Relation.ISA, FIDO, DOG);
+    index.addEdge(Relation.ISA, TOM, CAT);
+    assertEquals(Boolean.TRUE, index.isa(FIDO, DOG));
+    assertEquals(Boolean.TRUE, index.isa(FIDO, ANIMAL));
+    assertEquals(Boolean.FALSE, index.isa(FIDO, CAT));
+    assertEquals(Boolean.FALSE, index.isa(FIDO, THING));
+    assertNull(index.isa(DOG, ANIMAL));
+    assertEquals(set(DOG, MAMMAL, ANIMAL), set(index.getAllIsa(FIDO)));
+    assertEquals(set(FIDO, TOM), set(index.getAllInstances(ANIMAL)));
+    assertEquals(set(TOM), set(index.getAllInstances(CAT)));
+    assertNull(index.getAllInstances(THING));
+  }
+
+  @Test
+  public void testNautsMakeClosuresUnknown() {
+    final TaxonomyIndex index = new TaxonomyIndex(null, Relation.GENLS);
+    index.addEdge(Relation.GENLS, DOG, MAMMAL);
+    index.addEdge(Relation.GENLS, MAMMAL, ANIMAL);
+    index.addEdge(Relation.GENLS, CAT, new NautImpl(constant("CollectionUnionFn"), MAMMAL));
+    assertEquals(set(DOG, MAMMAL, ANIMAL), set(index.getAllGenls(DOG)));
+    assertNull(index.getAllGenls(CAT));
+    assertNull(index.isGenlOf(MAMMAL, CAT));
+  }
+
+  @Test
+  public void testApply() {
+    final TaxonomyIndex index = new TaxonomyIndex(null, Relation.GENLS);
+    assertTrue(index.apply(operation("fi-assert", sentence(CommonConstants.GENLS, DOG, MAMMAL),
+            BASE_KB)));
+    assertTrue(index.apply(CycArrayList.makeCycList(CycObjectFactory.makeCycSymbol("clet"),
+            new CycArrayList(),
+            operation("ke-assert-now", sentence(CommonConstants.GENLS, MAMMAL, ANIMAL), BASE_KB))));
+    assertEquals(Boolean.TRUE, index.isGenlOf(ANIMAL, DOG));
+    // a second supporting assertion keeps the edge after the first is unasserted
+    assertFalse(index.apply(operation("fi-assert", sentence(CommonConstants.GENLS, DOG, MAMMAL),
+            OTHER_MT)));
+    assertFalse(index.apply(operation("fi-unassert", sentence(CommonConstants.GENLS, DOG, MAMMAL),
+            BASE_KB)));
+    assertEquals(Boolean.TRUE, index.isGenlOf(ANIMAL, DOG));
+    assertTrue(index.apply(operation("fi-unassert", sentence(CommonConstants.GENLS, DOG, MAMMAL),
+            OTHER_MT)));
+    assertNull(index.isGenlOf(ANIMAL, DOG));
+    // a redundant assert adds no support, so one unassert removes the edge
+    assertTrue(index.apply(operation("fi-assert", sentence(CommonConstants.GENLS, DOG, MAMMAL),
+            BASE_KB)));
+    assertFalse(index.apply(operation("fi-assert", sentence(CommonConstants.GENLS, DOG, MAMMAL),
+            BASE_KB)));
+    assertTrue(index.apply(operation("fi-unassert", sentence(CommonConstants.GENLS, DOG, MAMMAL),
+            BASE_KB)));
+    assertNull(index.isGenlOf(ANIMAL, DOG));
+    assertFalse(index.apply(operation("fi-assert", sentence(CommonConstants.ISA, FIDO, DOG),
+            BASE_KB)));
+    assertTrue(index.apply(operation("fi-kill", MAMMAL)));
+    assertNull(index.getAllSpecs(ANIMAL));
+    assertFalse(index.isStale());
+    index.apply(operation("fi-assert", CycArrayList.makeCycList(CycObjectFactory.quote,
+            CycArrayList.makeCycList(CommonConstants.IMPLIES,
+                    sentence(CommonConstants.GENLS, DOG, MAMMAL),
+                    sentence(CommonConstants.GENLS, CAT, MAMMAL))), BASE_KB));
+    assertTrue(index.isStale());
+    index.addEdge(Relation.GENLS, CAT, MAMMAL);
+    assertNull(index.isGenlOf(MAMMAL, CAT));
+  }
+
+  @Test
+  public void testMtRelevance() {
+    final TaxonomyIndex index = new TaxonomyIndex(SPEC_MT);
+    index.addEdge(Relation.GENL_MT, SPEC_MT, BASE_KB);
+    index.addEdge(Relation.GENL_MT, OTHER_MT, BASE_KB);
+    assertEquals(Boolean.TRUE, index.isGenlMtOf(BASE_KB, SPEC_MT));
+    assertEquals(Boolean.FALSE, index.isGenlMtOf(OTHER_MT, SPEC_MT));
+    assertTrue(index.apply(operation("fi-assert", sentence(CommonConstants.GENLS, DOG, MAMMAL),
+            BASE_KB)));
+    assertFalse(index.apply(operation("fi-assert", sentence(CommonConstants.GENLS, CAT, MAMMAL),
+            OTHER_MT)));
+    assertEquals(Boolean.TRUE, index.isGenlOf(MAMMAL, DOG));
+    assertNull(index.isGenlOf(MAMMAL, CAT));
+    assertFalse(index.isStale());
+    // an mt which is not a genlMt of the indexed one cannot be visible from it
+    assertFalse(index.apply(operation("fi-assert", sentence(CommonConstants.GENLS, CAT, MAMMAL),
+            constant("UnknownMt"))));
+    assertFalse(index.isStale());
+    assertNull(index.isGenlOf(MAMMAL, CAT));
+  }
+
+  @Test
+  public void testMtRelevanceWithoutGenlMts() {
+    // without the genlMts of the indexed mt, an operation in another mt may be visible
+    final TaxonomyIndex index = new TaxonomyIndex(SPEC_MT, Relation.GENLS);
+    assertTrue(index.apply(operation("fi-assert", sentence(CommonConstants.GENLS, DOG, MAMMAL),
+            SPEC_MT)));
+    assertFalse(index.isStale());
+    index.apply(operation("fi-assert", sentence(CommonConstants.GENLS, CAT, MAMMAL), OTHER_MT));
+    assertTrue(index.isStale());
+  }
+
+  @Test
+  public void testLoadIsConsistentWithLog() throws Exception {
+    final TaxonomyIndex index = new TaxonomyIndex(null, Relation.GENLS);
+    final long[] positions = {5, 7, 7};
+    final int[] reads = {0};
+    final KbOperationLog log = new KbOperationLog() {
+      @Override
+      public long getPosition() {
+        return positions[reads[0]++];
+      }
+
+      @Override
+      public long readOperations(long position, List<CycList> operations) {
+        return position;
+      }
+    };
+    final CycAccess cyc = emptyExtents();
+    // an operation appeared during the first load, so it is repeated
+    assertEquals(7, index.load(cyc, log));
+    assertEquals(3, reads[0]);
+  }
+
+  @Test
+  public void testLabels() {
+    // a diamond lattice needs more than one interval per label
+    final TaxonomyGraph graph = new TaxonomyGraph();
+    final int width = 20;
+    for (int i = 0; i < width; i++) {
+      for (int j = 0; j < width; j++) {
+        graph.addEdge(width + j, i, 0);
+      }
+      graph.addEdge(2 * width, width + i, 0);
+    }
+    final ReachabilityLabels labels = graph.computeLabels(2 * width + 1);
+    for (int i = 0; i < width; i++) {
+      assertTrue(labels.reaches(i, 2 * width));
+      assertTrue(labels.reaches(i, width + i));
+      assertFalse(labels.reaches(width + i, i));
+      assertEquals(width + 2, labels.getDescendants(i).length);
+    }
+    assertEquals(2 * width + 1, labels.getAncestors(2 * width).length);
+    assertFalse(labels.reaches(0, 1));
+  }
+
+  /** A CycAccess whose every extent is empty. */
+  private static CycAccess emptyExtents() {
+    final CommandTool converse = (CommandTool) Proxy.newProxyInstance(
+            CommandTool.class.getClassLoader(), new Class<?>[]{CommandTool.class},
+            new InvocationHandler() {
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args) {
+                return "converseList".equals(method.getName()) ? new CycArrayList() : null;
+              }
+            });
+    return (CycAccess) Proxy.newProxyInstance(CycAccess.class.getClassLoader(),
+            new Class<?>[]{CycAccess.class}, new InvocationHandler() {
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args) {
+                return "converse".equals(method.getName()) ? converse : null;
+              }
+            });
+  }
+
+  private static CycConstantImpl constant(String name) {
+    return new CycConstantImpl(name, new GuidImpl(UUID.nameUUIDFromBytes(name.getBytes()).toString()));
+  }
+
+  private static CycList sentence(Object... args) {
+    return CycArrayList.makeCycList(CycObjectFactory.quote, CycArrayList.makeCycList(args));
+  }
+
+  private static CycList operation(String name, Object... args) {
+    final CycList operation = CycArrayList.makeCycList(CycObjectFactory.makeCycSymbol(name));
+    operation.addAll(Arrays.asList(args));
+    return operation;
+  }
+
+  private static HashSet<Object> set(Object... objects) {
+    return new HashSet<Object>(Arrays.asList(objects));
+  }
+
+  private static HashSet<Object> set(CycList list) {
+    assertNotNull(list);
+    return new HashSet<Object>(list);
+  }
+
+}
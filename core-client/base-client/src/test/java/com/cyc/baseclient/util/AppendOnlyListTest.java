@@ -0,0 +1,84 @@
+package com.cyc.baseclient.util;
+
+/*
+ * #%L
+ * File: AppendOnlyListTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests AppendOnlyList across its chunk boundaries, and with a concurrent reader.
+ */
+public class AppendOnlyListTest {
+
+  @Test
+  public void testAddAndGet() {
+    final List<Integer> list = new AppendOnlyList<Integer>();
+    for (int i = 0; i < 10000; i++) {
+      list.add(i);
+      assertEquals(i + 1, list.size());
+    }
+    for (int i = 0; i < 10000; i++) {
+      assertEquals(Integer.valueOf(i), list.get(i));
+    }
+    int expected = 0;
+    for (final Integer element : list) {
+      assertEquals(Integer.valueOf(expected++), element);
+    }
+    try {
+      list.get(10000);
+      fail("Expected an IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testRemove() {
+    final List<Integer> list = new AppendOnlyList<Integer>();
+    list.add(1);
+    list.remove(0);
+  }
+
+  @Test
+  public void testConcurrentReader() throws InterruptedException {
+    final List<Integer> list = new AppendOnlyList<Integer>();
+    final Thread writer = new Thread() {
+      @Override
+      public void run() {
+        for (int i = 0; i < 100000; i++) {
+          list.add(i);
+        }
+      }
+    };
+    writer.start();
+    int read = 0;
+    while (read < 100000) {
+      final int size = list.size();
+      for (; read < size; read++) {
+        assertEquals(Integer.valueOf(read), list.get(read));
+      }
+    }
+    writer.join();
+  }
+
+}
@@ -0,0 +1,158 @@
+package com.cyc.baseclient.util;
+
+/*
+ * #%L
+ * File: ConcurrentLruCacheTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests the bounds, eviction order and counters of ConcurrentLruCache.
+ */
+public class ConcurrentLruCacheTest {
+
+  @Test
+  public void testRecentlyReadEntriesSurviveEviction() {
+    final ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<Integer, String>(4);
+    for (int i = 0; i < 4; i++) {
+      cache.put(i, "v" + i);
+    }
+    assertEquals("v0", cache.get(0));
+    assertEquals("v1", cache.get(1));
+    cache.put(4, "v4");
+    cache.put(5, "v5");
+    assertEquals(4, cache.size());
+    assertEquals("v0", cache.get(0));
+    assertEquals("v1", cache.get(1));
+    assertNull(cache.get(2));
+    assertNull(cache.get(3));
+    assertEquals(2, cache.getEvictionCount());
+    assertEquals(4, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  public void testPutNullRemoves() {
+    final ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(10);
+    cache.put("a", "b");
+    assertEquals("b", cache.put("a", null));
+    assertFalse(cache.containsKey("a"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testSetMaximumSize() {
+    final ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<Integer, Integer>(100);
+    for (int i = 0; i < 100; i++) {
+      cache.put(i, i);
+    }
+    cache.setMaximumSize(10);
+    assertEquals(10, cache.size());
+    assertEquals(10, cache.entrySet().size());
+    assertEquals(90, cache.getEvictionCount());
+  }
+
+  @Test
+  public void testConcurrentPutsStayBounded() throws InterruptedException {
+    final ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<Integer, Integer>(64);
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < 8; t++) {
+      final int base = t * 10000;
+      final Thread thread = new Thread() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          for (int i = 0; i < 10000; i++) {
+            cache.put(base + i, i);
+            cache.get(base + (i / 2));
+          }
+        }
+      };
+      threads.add(thread);
+      thread.start();
+    }
+    start.countDown();
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(64, cache.size());
+    assertEquals(64, cache.entrySet().size());
+    assertEquals(80000, cache.getHitCount() + cache.getMissCount());
+  }
+
+  @Test
+  public void testWeightsExpiryAndRemovalHooks() {
+    final List<String> removals = new ArrayList<String>();
+    final ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(5) {
+      @Override
+      protected int weigh(String key, String value) {
+        return value.length();
+      }
+
+      @Override
+      protected boolean isExpired(String value) {
+        return value.startsWith("x");
+      }
+
+      @Override
+      protected void entryRemoved(String key, String value, RemovalCause cause) {
+        removals.add(key + " " + cause);
+      }
+    };
+    cache.put("a", "aa");
+    cache.put("b", "bbb");
+    assertEquals(5, cache.getWeight());
+    assertTrue(cache.replace("a", "aa", "a"));
+    assertFalse(cache.replace("a", "aa", "a"));
+    assertEquals(4, cache.getWeight());
+    assertEquals("bbb", cache.putIfAbsent("b", "b"));
+    cache.put("c", "cc");
+    assertEquals(1, cache.getEvictionCount());
+    assertTrue(cache.getWeight() <= 5);
+    assertTrue(removals.contains("a EVICTED") || removals.contains("b EVICTED"));
+    cache.put("d", "x");
+    assertNull(cache.get("d"));
+    assertTrue(removals.contains("d EXPIRED"));
+    assertTrue(cache.remove("c", "cc"));
+    assertTrue(removals.contains("c REMOVED"));
+  }
+
+  @Test
+  public void testLruCacheBackedByConcurrentCache() {
+    final ConcurrentLruCache<String, String> concurrentCache = new ConcurrentLruCache<String, String>(2);
+    final LruCache<String, String> cache = new LruCache<String, String>(concurrentCache);
+    assertSame(concurrentCache, cache.getConcurrentCache());
+    assertNull(new LruCache<String, String>(2, 2).getConcurrentCache());
+    cache.put("a", "1");
+    cache.put("b", "2");
+    cache.put("c", "3");
+    assertEquals(2, cache.size());
+    assertEquals(1, concurrentCache.getEvictionCount());
+  }
+}
@@ -0,0 +1,68 @@
+package com.cyc.baseclient.util;
+
+/*
+ * #%L
+ * File: LatencyHistogramTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests the bucketing and percentiles of LatencyHistogram.
+ */
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBucketsCoverTheirValues() {
+    for (long value = 0; value < 100000; value += 7) {
+      final int index = LatencyHistogram.getBucketIndex(value);
+      assertTrue(value <= LatencyHistogram.getBucketUpperBound(index));
+      if (index > 0) {
+        assertTrue(value > LatencyHistogram.getBucketUpperBound(index - 1));
+      }
+    }
+    assertEquals(Long.MAX_VALUE,
+            LatencyHistogram.getBucketUpperBound(LatencyHistogram.getBucketIndex(Long.MAX_VALUE)));
+  }
+
+  @Test
+  public void testPercentilesAreWithinPrecision() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 1; value <= 10000; value++) {
+      histogram.record(value * 1000);
+    }
+    final LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+    assertEquals(10000, snapshot.getCount());
+    assertEquals(1000, snapshot.getMin());
+    assertEquals(10000000, snapshot.getMax());
+    assertEquals(5000500.0, snapshot.getMean(), 0.001);
+    assertWithin(5000000, snapshot.getValueAtPercentile(50));
+    assertWithin(9900000, snapshot.getValueAtPercentile(99));
+    assertEquals(10000000, snapshot.getValueAtPercentile(100));
+    histogram.reset();
+    assertEquals(0, histogram.getSnapshot().getValueAtPercentile(99));
+  }
+
+  private static void assertWithin(final long expected, final long actual) {
+    final double error = Math.abs(actual - expected) / (double) expected;
+    assertTrue("expected about " + expected + " but got " + actual,
+            error <= 1.0 / LatencyHistogram.SUB_BUCKET_COUNT);
+  }
+}
@@ -0,0 +1,92 @@
+package com.cyc.baseclient.xml;
+
+/*
+ * #%L
+ * File: JaxbCacheTest.java
+ * Project: Base Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.baseclient.xml.cycml.CycmlDecoder;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that JaxbCache fetches a schema again after it could not be loaded.
+ */
+public class JaxbCacheTest {
+
+  private File xsd;
+  private String xsdUri;
+
+  @Before
+  public void setUp() throws IOException {
+    xsd = File.createTempFile("JaxbCacheTest", ".xsd");
+    assertTrue(xsd.delete());
+    xsdUri = xsd.toURI().toString();
+  }
+
+  @After
+  public void tearDown() {
+    JaxbCache.setSchemaRetryMillis(JaxbCache.DEFAULT_SCHEMA_RETRY_MILLIS);
+    JaxbCache.clear();
+    xsd.delete();
+  }
+
+  @Test
+  public void testMissingSchemaIsRememberedUntilRetry() throws Exception {
+    JaxbCache.setSchemaRetryMillis(60000);
+    assertNull(JaxbCache.getSchema(xsdUri));
+    writeSchema();
+    assertNull("The missing schema was fetched again at once", JaxbCache.getSchema(xsdUri));
+    JaxbCache.setSchemaRetryMillis(0);
+    assertNotNull(JaxbCache.getSchema(xsdUri));
+    JaxbCache.setSchemaRetryMillis(60000);
+    xsd.delete();
+    assertNotNull("A loaded schema was fetched again", JaxbCache.getSchema(xsdUri));
+  }
+
+  @Test
+  public void testPoolValidatesOnceSchemaLoads() throws Exception {
+    final String contextPath = CycmlDecoder.class.getPackage().getName();
+    JaxbCache.setSchemaRetryMillis(0);
+    final UnmarshallerPool unvalidated = JaxbCache.getUnmarshallerPool(contextPath, xsdUri);
+    assertNull(unvalidated.getSchema());
+    assertSame(unvalidated, JaxbCache.getUnmarshallerPool(contextPath, xsdUri));
+    writeSchema();
+    final UnmarshallerPool validated = JaxbCache.getUnmarshallerPool(contextPath, xsdUri);
+    assertNotNull(validated.getSchema());
+    assertSame(unvalidated.getContext(), validated.getContext());
+    assertSame(validated, JaxbCache.getUnmarshallerPool(contextPath, xsdUri));
+  }
+
+  private void writeSchema() throws IOException {
+    final OutputStream out = new FileOutputStream(xsd);
+    try {
+      out.write(("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">"
+              + "<xs:element name=\"empty\"/></xs:schema>").getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+  }
+}
@@ -21,7 +21,9 @@ package com.cyc.baseclient.xml.cycml;
  * #L%
  */
 
+import com.cyc.baseclient.xml.JaxbCache;
 import java.io.ByteArrayInputStream;
+import javax.xml.stream.XMLStreamReader;
 import junit.framework.TestCase;
 
 /**
@@ -72,4 +74,32 @@ public class CycmlDecoderTest extends TestCase {
       assertEquals(expResult, result.toString());
     }
   }
+
+  /**
+   * Test of decode method, of class CycMLDecoder, on terms streamed from one
+   * document.
+   */
+  public void testDecode_XMLStreamReader() throws Exception {
+    System.out.println("decode");
+    CycmlDecoder instance = new CycmlDecoder();
+    final StringBuilder xml = new StringBuilder("<terms>");
+    for (final CycmlDecoderTestCase testCase : CycmlDecoderTestCase.values()) {
+      xml.append(testCase.xml.substring(testCase.xml.indexOf("?>") + 2));
+    }
+    xml.append("</terms>");
+    final XMLStreamReader reader = JaxbCache.createXmlStreamReader(
+            new ByteArrayInputStream(xml.toString().getBytes()));
+    reader.nextTag();
+    reader.nextTag();
+    int i = 0;
+    while (reader.isStartElement()) {
+      Object result = instance.decode(reader);
+      System.out.println(result);
+      assertEquals(CycmlDecoderTestCase.values()[i++].cycl, result.toString());
+      while (reader.isWhiteSpace()) {
+        reader.next();
+      }
+    }
+    assertEquals(CycmlDecoderTestCase.values().length, i);
+  }
 }
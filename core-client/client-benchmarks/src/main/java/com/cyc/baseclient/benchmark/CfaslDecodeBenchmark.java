@@ -0,0 +1,95 @@
+package com.cyc.baseclient.benchmark;
+
+/*
+ * #%L
+ * File: CfaslDecodeBenchmark.java
+ * Project: Client Benchmarks
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.connection.CfaslInputStream;
+import com.cyc.baseclient.connection.CfaslOutputStream;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the default CfaslInputStream decoder with its buffer-reusing mode on a response
+ * shaped like a query result set: a list of binding lists, each pairing variables with strings,
+ * symbols and integers. Run with <code>-prof gc</code> to see the allocation rate per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CfaslDecodeBenchmark {
+
+  @Param({"false", "true"})
+  public boolean reusingBuffers;
+
+  @Param({"1000", "100000"})
+  public int bindingCount;
+
+  private byte[] encodedResponse;
+
+  @Setup
+  public void setUp() throws IOException {
+    final CycArrayList bindingLists = new CycArrayList(bindingCount);
+    for (int i = 0; i < bindingCount; i++) {
+      final CycArrayList bindingList = new CycArrayList();
+      bindingList.add(makeBinding("?X", "Instance " + i));
+      bindingList.add(makeBinding("?Y", CycObjectFactory.makeCycSymbol(":KEYWORD-" + (i % 16))));
+      bindingList.add(makeBinding("?Z", i));
+      bindingLists.add(bindingList);
+    }
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final CfaslOutputStream out = new CfaslOutputStream(baos);
+    out.writeObject(bindingLists);
+    out.flush();
+    encodedResponse = baos.toByteArray();
+  }
+
+  @Benchmark
+  public Object decode() throws IOException {
+    final CfaslInputStream in = new CfaslInputStream(new ByteArrayInputStream(encodedResponse));
+    in.setReusingBuffers(reusingBuffers);
+    return in.readObject();
+  }
+
+  private static CycArrayList makeBinding(final String variable, final Object value) {
+    final CycArrayList binding = new CycArrayList();
+    binding.add(CycObjectFactory.makeCycVariable(variable));
+    binding.add(value);
+    return binding;
+  }
+}
@@ -0,0 +1,86 @@
+package com.cyc.baseclient.benchmark;
+
+/*
+ * #%L
+ * File: CfaslEncodeBenchmark.java
+ * Project: Client Benchmarks
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.connection.CfaslOutputStream;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures CfaslOutputStream encoding of a request shaped like a bulk assertion: a quoted list of
+ * sentences, each mixing symbols, strings and integers. This is the counterpart of
+ * {@link CfaslDecodeBenchmark} on the request side of a round trip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CfaslEncodeBenchmark {
+
+  @Param({"100", "10000"})
+  public int sentenceCount;
+
+  private CycArrayList request;
+
+  private ByteArrayOutputStream buffer;
+
+  @Setup
+  public void setUp() {
+    final CycArrayList sentences = new CycArrayList(sentenceCount);
+    for (int i = 0; i < sentenceCount; i++) {
+      final CycArrayList sentence = new CycArrayList();
+      sentence.add(CycObjectFactory.makeCycSymbol(":PREDICATE-" + (i % 16)));
+      sentence.add("Argument " + i);
+      sentence.add(i);
+      sentences.add(sentence);
+    }
+    request = new CycArrayList();
+    request.add(CycObjectFactory.makeCycSymbol("assert-all"));
+    request.add(CycArrayList.makeCycList(CycObjectFactory.quote, sentences));
+    buffer = new ByteArrayOutputStream(16 * sentenceCount);
+  }
+
+  @Benchmark
+  public int encode() throws IOException {
+    buffer.reset();
+    final CfaslOutputStream out = new CfaslOutputStream(buffer);
+    out.writeObject(request);
+    out.flush();
+    return buffer.size();
+  }
+}
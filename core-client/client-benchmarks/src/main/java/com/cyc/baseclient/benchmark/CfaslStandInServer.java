@@ -0,0 +1,522 @@
+package com.cyc.baseclient.benchmark;
+
+/*
+ * #%L
+ * File: CfaslStandInServer.java
+ * Project: Client Benchmarks
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.cycobject.CycList;
+import com.cyc.base.cycobject.CycSymbol;
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.connection.CfaslInputStream;
+import com.cyc.baseclient.connection.CfaslOutputStream;
+import com.cyc.baseclient.connection.CycConnectionImpl;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import com.cyc.baseclient.cycobject.CycSymbolImpl;
+import com.cyc.baseclient.exception.CfaslInputStreamClosedException;
+import com.cyc.session.CycServer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <P>CfaslStandInServer is a lightweight, in-process stand-in for the CFASL port of a Cyc server,
+ * so that the client stack can be exercised and measured without a live Cyc image. It speaks the
+ * task-processor protocol which {@link CycConnectionImpl} uses: it accepts request sockets and the
+ * passive response sockets which clients open with <code>initialize-java-api-passive-socket</code>,
+ * decodes each <code>task-processor-request</code>, and sends the response computed by its
+ * {@link Responder} back on the passive socket of the requesting channel.
+ *
+ * <P>The stand-in does not evaluate SubL. Responses are scripted per head operator with a
+ * {@link ScriptedResponder}, or served by any other Responder, for example one which replays
+ * recorded traffic. Requests are answered in the order in which they arrive on each socket.
+ *
+ * <P>Example usage: <code>
+ * final CfaslStandInServer server = new CfaslStandInServer(CfaslStandInServer.ScriptedResponder.forCycClient()
+ *         .respondTo("find-constant", constant));
+ * server.start();
+ * final CycClient client = new CycClient(server.getCycServer());
+ * ...
+ * client.close();
+ * server.close();
+ * </code>
+ */
+public class CfaslStandInServer implements Closeable {
+  
+  /** Computes the response to a SubL request. */
+  public interface Responder {
+    
+    /**
+     * Returns the response to the given request.
+     *
+     * @param request the SubL form of a task-processor request
+     * @return the response, which must be encodable by CfaslOutputStream
+     * @throws SublError to answer with a server-side error instead
+     */
+    Object respond(CycList request) throws SublError;
+  }
+  
+  /** Thrown by a Responder to answer a request with a server-side error. */
+  public static class SublError extends Exception {
+    
+    /**
+     * Creates a new SublError.
+     *
+     * @param message the error message sent to the client
+     */
+    public SublError(final String message) {
+      super(message);
+    }
+  }
+  
+  /**
+   * A Responder which answers each request according to its head operator, with a fixed response
+   * or a nested Responder, and otherwise with a default response. The head operators of requests
+   * which were answered by default are collected, which helps to complete a script.
+   */
+  public static class ScriptedResponder implements Responder {
+    
+    /**
+     * Returns a new ScriptedResponder which answers the requests a CycClient sends while it
+     * connects, so that clients can be created against the stand-in.
+     *
+     * @return the new responder
+     */
+    public static ScriptedResponder forCycClient() {
+      return new ScriptedResponder()
+              .respondTo("cyc-image-id", IMAGE_ID)
+              .respondTo("cyc-opencyc-feature", CycObjectFactory.nil)
+              .respondTo("with-immediate-execution", "api services lease granted by " + IMAGE_ID)
+              .respondTo("get-inference-parameter-information", CycObjectFactory.nil);
+    }
+    
+    /**
+     * Answers requests with the given head operator with the given response.
+     *
+     * @param operator the head operator, in any case
+     * @param response the response
+     * @return this responder
+     */
+    public ScriptedResponder respondTo(final String operator, final Object response) {
+      return respondTo(operator, new Responder() {
+        @Override
+        public Object respond(CycList request) {
+          return response;
+        }
+      });
+    }
+    
+    /**
+     * Answers requests with the given head operator with the given Responder.
+     *
+     * @param operator the head operator, in any case
+     * @param responder the responder
+     * @return this responder
+     */
+    public ScriptedResponder respondTo(final String operator, final Responder responder) {
+      responders.put(operator.toUpperCase(Locale.ENGLISH), responder);
+      return this;
+    }
+    
+    /**
+     * Answers requests with the given head operator with a server-side error.
+     *
+     * @param operator the head operator, in any case
+     * @param message the error message
+     * @return this responder
+     */
+    public ScriptedResponder failOn(final String operator, final String message) {
+      return respondTo(operator, new Responder() {
+        @Override
+        public Object respond(CycList request) throws SublError {
+          throw new SublError(message);
+        }
+      });
+    }
+    
+    /**
+     * Sets the response to requests whose head operator is not scripted; by default it is NIL.
+     *
+     * @param response the default response
+     * @return this responder
+     */
+    public ScriptedResponder setDefaultResponse(final Object response) {
+      defaultResponse = response;
+      return this;
+    }
+    
+    /**
+     * Returns the head operators of the requests which were answered with the default response.
+     *
+     * @return the unscripted head operators
+     */
+    public Set<String> getUnscriptedOperators() {
+      return Collections.unmodifiableSet(unscripted);
+    }
+    
+    @Override
+    public Object respond(final CycList request) throws SublError {
+      final String operator = getOperator(request);
+      final Responder responder = (operator == null) ? null : responders.get(operator);
+      if (responder != null) {
+        return responder.respond(request);
+      }
+      if (operator != null) {
+        unscripted.add(operator);
+      }
+      return defaultResponse;
+    }
+    
+    private static String getOperator(final CycList request) {
+      if (request.isEmpty() || !(request.get(0) instanceof CycSymbol)) {
+        return null;
+      }
+      return ((CycSymbol) request.get(0)).getSymbolName().toUpperCase(Locale.ENGLISH);
+    }
+    
+    private final Map<String, Responder> responders = new ConcurrentHashMap<String, Responder>();
+    
+    private final Set<String> unscripted = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    
+    private volatile Object defaultResponse = CycObjectFactory.nil;
+  }
+  
+  //// Constructors
+  
+  /**
+   * Creates a new stand-in server on the first free base port from 3600 upwards. The
+   * base port has four digits, as session configurations require of a CycServer.
+   *
+   * @param responder computes the responses
+   * @throws IOException if no port can be opened
+   */
+  public CfaslStandInServer(final Responder responder) throws IOException {
+    this.responder = responder;
+    this.serverSocket = openFreeCfaslPort();
+  }
+  
+  /**
+   * Creates a new stand-in server.
+   *
+   * @param basePort the base port, from which the CFASL port is derived
+   * @param responder computes the responses
+   * @throws IOException if the port cannot be opened
+   */
+  public CfaslStandInServer(final int basePort, final Responder responder) throws IOException {
+    this.responder = responder;
+    this.serverSocket = openCfaslPort(basePort);
+  }
+  
+  //// Public Area
+  
+  /** Starts accepting connections. */
+  public synchronized void start() {
+    if (acceptThread != null) {
+      throw new IllegalStateException("The stand-in server has already been started.");
+    }
+    acceptThread = new Thread("CfaslStandInServer " + getCfaslPort()) {
+      @Override
+      public void run() {
+        acceptConnections();
+      }
+    };
+    acceptThread.setDaemon(true);
+    acceptThread.start();
+  }
+  
+  /** Stops accepting connections and closes every open socket. */
+  @Override
+  public synchronized void close() {
+    isClosed = true;
+    closeQuietly(serverSocket);
+    for (final Socket socket : sockets) {
+      closeQuietly(socket);
+    }
+    sockets.clear();
+    synchronized (passiveSockets) {
+      passiveSockets.clear();
+      passiveSockets.notifyAll();
+    }
+  }
+  
+  /**
+   * Returns the local port on which this stand-in accepts CFASL connections.
+   *
+   * @return the CFASL port
+   */
+  public int getCfaslPort() {
+    return serverSocket.getLocalPort();
+  }
+  
+  /**
+   * Returns the base port from which clients derive the CFASL port of this stand-in.
+   *
+   * @return the base port
+   */
+  public int getBasePort() {
+    return getCfaslPort() - CycServer.CYC_CFASL_PORT_OFFSET;
+  }
+  
+  /**
+   * Returns the address at which clients reach this stand-in.
+   *
+   * @return the server address
+   */
+  public CycServer getCycServer() {
+    return new CycServer(HOST_NAME, getBasePort());
+  }
+  
+  /**
+   * Returns the number of task-processor requests which this stand-in has answered.
+   *
+   * @return the request count
+   */
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+  
+  @Override
+  public String toString() {
+    return "CfaslStandInServer[" + HOST_NAME + ":" + getCfaslPort() + ", " + getRequestCount() + " requests]";
+  }
+  
+  //// Private Area
+  
+  private static ServerSocket openFreeCfaslPort() throws IOException {
+    IOException lastException = null;
+    for (int basePort = FIRST_BASE_PORT; basePort <= LAST_BASE_PORT; basePort += BASE_PORT_STEP) {
+      try {
+        return openCfaslPort(basePort);
+      } catch (IOException e) {
+        lastException = e;
+      }
+    }
+    throw lastException;
+  }
+  
+  private static ServerSocket openCfaslPort(final int basePort) throws IOException {
+    return new ServerSocket(basePort + CycServer.CYC_CFASL_PORT_OFFSET, 50, InetAddress.getByName(HOST_NAME));
+  }
+  
+  private void acceptConnections() {
+    while (!isClosed) {
+      final Socket socket;
+      try {
+        socket = serverSocket.accept();
+        socket.setTcpNoDelay(true);
+      } catch (IOException e) {
+        if (!isClosed) {
+          LOGGER.log(Level.WARNING, "The stand-in server stopped accepting connections.", e);
+        }
+        return;
+      }
+      sockets.add(socket);
+      final Thread connectionThread = new Thread("CfaslStandInServer connection " + socket.getPort()) {
+        @Override
+        public void run() {
+          serve(socket);
+        }
+      };
+      connectionThread.setDaemon(true);
+      connectionThread.start();
+    }
+  }
+  
+  private void serve(final Socket socket) {
+    String passiveUuid = null;
+    try {
+      final CfaslInputStream in = new CfaslInputStream(new BufferedInputStream(socket.getInputStream()));
+      final CfaslOutputStream out = new CfaslOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      while (!isClosed) {
+        final Object message = in.readObject();
+        if (!(message instanceof CycArrayList) || ((CycArrayList) message).isEmpty()) {
+          LOGGER.log(Level.WARNING, "Ignoring an unexpected message: {0}", message);
+          continue;
+        }
+        final CycArrayList form = (CycArrayList) message;
+        final Object operator = form.get(0);
+        if (INITIALIZE_PASSIVE_SOCKET.equals(operator)) {
+          passiveUuid = form.get(1).toString();
+          synchronized (out) {
+            out.writeObject(CycObjectFactory.t);
+            out.writeObject(CycObjectFactory.t);
+            out.flush();
+          }
+          synchronized (passiveSockets) {
+            passiveSockets.put(passiveUuid, out);
+            passiveSockets.notifyAll();
+          }
+        } else if (TASK_PROCESSOR_REQUEST.equals(operator)) {
+          answer(form);
+        } else if (API_QUIT.equals(operator) || CycObjectFactory.END_CYC_CONNECTION.equals(form)) {
+          return;
+        } else {
+          // e.g. release-resources-for-java-api-client, which the client sends without awaiting a reply
+          LOGGER.log(Level.FINE, "Ignoring a message which is not a task-processor request: {0}", form);
+        }
+      }
+    } catch (IOException e) {
+      if (!isClosed && !(e instanceof SocketException)) {
+        LOGGER.log(Level.FINE, "A stand-in connection ended.", e);
+      }
+    } catch (CfaslInputStreamClosedException e) {
+      // the client closed the socket
+    } catch (RuntimeException e) {
+      if (!isClosed) {
+        LOGGER.log(Level.WARNING, "A stand-in connection failed.", e);
+      }
+    } finally {
+      if (passiveUuid != null) {
+        synchronized (passiveSockets) {
+          passiveSockets.remove(passiveUuid);
+        }
+      }
+      sockets.remove(socket);
+      closeQuietly(socket);
+    }
+  }
+  
+  /**
+   * Answers a request of the form
+   * <code>(task-processor-request request id priority requestor bindings uuid)</code> with
+   * <code>(task-processor-response request id priority requestor response error finished)</code>
+   * on the passive socket for the uuid.
+   */
+  private void answer(final CycArrayList taskProcessorRequest) throws IOException {
+    final Object request = taskProcessorRequest.get(1);
+    Object response = CycObjectFactory.nil;
+    Object error = CycObjectFactory.nil;
+    try {
+      response = responder.respond((request instanceof CycList)
+              ? (CycList) request : new CycArrayList(request));
+    } catch (SublError e) {
+      error = e.getMessage();
+    } catch (RuntimeException e) {
+      error = "Stand-in responder failed: " + e;
+      LOGGER.log(Level.WARNING, "The stand-in responder failed on " + request, e);
+    }
+    final CycArrayList taskProcessorResponse = new CycArrayList();
+    taskProcessorResponse.add(TASK_PROCESSOR_RESPONSE);
+    taskProcessorResponse.add(request);
+    taskProcessorResponse.add(taskProcessorRequest.get(2));
+    taskProcessorResponse.add(taskProcessorRequest.get(3));
+    taskProcessorResponse.add(taskProcessorRequest.get(4));
+    taskProcessorResponse.add(response);
+    taskProcessorResponse.add(error);
+    taskProcessorResponse.add(CycObjectFactory.t);
+    final CfaslOutputStream out = awaitPassiveSocket(taskProcessorRequest.get(6).toString());
+    if (out == null) {
+      LOGGER.log(Level.WARNING, "No passive socket for the request {0}", taskProcessorRequest);
+      return;
+    }
+    requestCount.incrementAndGet();
+    synchronized (out) {
+      out.writeObject(CycObjectFactory.t);
+      out.writeObject(taskProcessorResponse);
+      out.flush();
+    }
+  }
+  
+  private CfaslOutputStream awaitPassiveSocket(final String uuid) {
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PASSIVE_SOCKET_WAIT_MILLIS);
+    synchronized (passiveSockets) {
+      CfaslOutputStream out = passiveSockets.get(uuid);
+      while ((out == null) && !isClosed) {
+        final long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return null;
+        }
+        try {
+          TimeUnit.NANOSECONDS.timedWait(passiveSockets, remaining);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return null;
+        }
+        out = passiveSockets.get(uuid);
+      }
+      return out;
+    }
+  }
+  
+  private static void closeQuietly(final Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      // ignore
+    }
+  }
+  
+  //// Internal Rep
+  
+  private static final String HOST_NAME = "localhost";
+  
+  private static final String IMAGE_ID = "cyc-stand-in";
+  
+  private static final int FIRST_BASE_PORT = 3600;
+  
+  private static final int LAST_BASE_PORT = 9900;
+  
+  private static final int BASE_PORT_STEP = 20;
+  
+  private static final long PASSIVE_SOCKET_WAIT_MILLIS = 5000;
+  
+  private static final CycSymbolImpl INITIALIZE_PASSIVE_SOCKET =
+          CycObjectFactory.makeCycSymbol("initialize-java-api-passive-socket");
+  
+  private static final CycSymbolImpl TASK_PROCESSOR_REQUEST =
+          CycObjectFactory.makeCycSymbol("task-processor-request");
+  
+  private static final CycSymbolImpl API_QUIT = CycObjectFactory.makeCycSymbol("api-quit");
+  
+  private static final CycSymbolImpl TASK_PROCESSOR_RESPONSE =
+          CycObjectFactory.makeCycSymbol("task-processor-response");
+  
+  private static final Logger LOGGER = Logger.getLogger(CfaslStandInServer.class.getName());
+  
+  private final Responder responder;
+  
+  private final ServerSocket serverSocket;
+  
+  private final CopyOnWriteArrayList<Socket> sockets = new CopyOnWriteArrayList<Socket>();
+  
+  /** The output streams of the passive response sockets, by the UUID of their channel. */
+  private final Map<String, CfaslOutputStream> passiveSockets = new HashMap<String, CfaslOutputStream>();
+  
+  private final AtomicLong requestCount = new AtomicLong();
+  
+  private volatile boolean isClosed = false;
+  
+  private Thread acceptThread = null;
+}
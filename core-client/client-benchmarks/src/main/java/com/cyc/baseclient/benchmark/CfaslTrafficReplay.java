@@ -0,0 +1,416 @@
+package com.cyc.baseclient.benchmark;
+
+/*
+ * #%L
+ * File: CfaslTrafficReplay.java
+ * Project: Client Benchmarks
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.CycAccess;
+import com.cyc.base.cycobject.CycList;
+import com.cyc.base.exception.CycApiException;
+import com.cyc.base.exception.CycConnectionException;
+import com.cyc.baseclient.CycClient;
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.connection.CfaslTrafficReader;
+import com.cyc.baseclient.connection.CfaslTrafficRecorder;
+import com.cyc.baseclient.connection.CycConnectionImpl;
+import com.cyc.baseclient.connection.DefaultSublWorkerSynch;
+import com.cyc.baseclient.util.LatencyHistogram;
+import com.cyc.session.CycServer;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <P>CfaslTrafficReplay re-issues the requests of a traffic log written by a
+ * {@link CfaslTrafficRecorder}, against a Cyc server or against a {@link CfaslStandInServer} which
+ * serves the recorded responses, and reports the throughput and latency percentiles achieved
+ * next to the latencies which were recorded.
+ *
+ * <P>Requests are issued at their recorded offsets, divided by the rate scale: 1 replays at the
+ * original rate, 2 at twice the original rate, and 0 as fast as the replay threads allow. When
+ * pacing, latency is measured from the time at which a request was due rather than the time at
+ * which it was sent, so that a client which falls behind is not flattered by its own backlog.
+ *
+ * <P>Usage: <code>java -cp benchmarks.jar com.cyc.baseclient.benchmark.CfaslTrafficReplay
+ * &lt;log&gt; [stand-in | host:basePort] [rate scale] [threads]</code>
+ */
+public class CfaslTrafficReplay {
+  
+  /** A recorded request, paired with its final recorded response. */
+  public static class Exchange {
+    
+    Exchange(final CfaslTrafficReader.Record request) {
+      this.request = request;
+    }
+    
+    /** @return the request record */
+    public CfaslTrafficReader.Record getRequest() {
+      return request;
+    }
+    
+    /** @return the final response record, or null if none was recorded */
+    public CfaslTrafficReader.Record getResponse() {
+      return response;
+    }
+    
+    /** @return the recorded latency in nanoseconds, or -1 if no response was recorded */
+    public long getRecordedLatencyNanos() {
+      return (response == null) ? -1 : response.getNanos() - request.getNanos();
+    }
+    
+    private final CfaslTrafficReader.Record request;
+    private CfaslTrafficReader.Record response;
+  }
+  
+  /**
+   * A stand-in Responder which answers each request with the response recorded for an equal
+   * command, cycling through the recorded responses when a command was recorded several times.
+   * Requests which were not recorded, such as lease requests naming another connection, are
+   * passed to a fallback responder.
+   */
+  public static class RecordedResponder implements CfaslStandInServer.Responder {
+    
+    /**
+     * Creates a new RecordedResponder.
+     *
+     * @param exchanges the recorded exchanges
+     * @param fallback answers the requests which were not recorded
+     */
+    public RecordedResponder(final List<Exchange> exchanges, final CfaslStandInServer.Responder fallback) {
+      for (final Exchange exchange : exchanges) {
+        if (exchange.getResponse() != null) {
+          Deque<CfaslTrafficReader.Record> responses = responsesByCommand.get(exchange.getRequest().getCommand());
+          if (responses == null) {
+            responses = new ArrayDeque<CfaslTrafficReader.Record>();
+            responsesByCommand.put(exchange.getRequest().getCommand(), responses);
+          }
+          responses.add(exchange.getResponse());
+        }
+      }
+      this.fallback = fallback;
+    }
+    
+    @Override
+    public Object respond(final CycList request) throws CfaslStandInServer.SublError {
+      final CfaslTrafficReader.Record response;
+      synchronized (responsesByCommand) {
+        final Deque<CfaslTrafficReader.Record> responses = responsesByCommand.get(request);
+        if (responses == null) {
+          response = null;
+        } else {
+          response = responses.poll();
+          responses.add(response);
+        }
+      }
+      if (response == null) {
+        return fallback.respond(request);
+      }
+      if (!CycObjectFactory.nil.equals(response.getError())) {
+        throw new CfaslStandInServer.SublError(String.valueOf(response.getError()));
+      }
+      return response.getResponse();
+    }
+    
+    private final Map<Object, Deque<CfaslTrafficReader.Record>> responsesByCommand =
+            new HashMap<Object, Deque<CfaslTrafficReader.Record>>();
+    
+    private final CfaslStandInServer.Responder fallback;
+  }
+  
+  /** The outcome of a replay. */
+  public static class Report {
+    
+    Report(final long requestCount, final long failureCount, final long elapsedNanos,
+            final LatencyHistogram.Snapshot latency, final LatencyHistogram.Snapshot recordedLatency) {
+      this.requestCount = requestCount;
+      this.failureCount = failureCount;
+      this.elapsedNanos = elapsedNanos;
+      this.latency = latency;
+      this.recordedLatency = recordedLatency;
+    }
+    
+    /** @return the number of requests replayed */
+    public long getRequestCount() {
+      return requestCount;
+    }
+    
+    /** @return the number of requests which failed, including server-side errors */
+    public long getFailureCount() {
+      return failureCount;
+    }
+    
+    /** @return the nanoseconds from the first request being due until the last one completed */
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+    
+    /** @return the requests completed per second */
+    public double getThroughput() {
+      return (elapsedNanos <= 0) ? 0.0 : requestCount * 1e9 / elapsedNanos;
+    }
+    
+    /** @return the replayed latencies, in nanoseconds */
+    public LatencyHistogram.Snapshot getLatency() {
+      return latency;
+    }
+    
+    /** @return the recorded latencies of the replayed requests, in nanoseconds */
+    public LatencyHistogram.Snapshot getRecordedLatency() {
+      return recordedLatency;
+    }
+    
+    @Override
+    public String toString() {
+      final StringBuilder sb = new StringBuilder();
+      sb.append(String.format("%d requests, %d failed, in %.3f s: %.1f requests/s%n",
+              requestCount, failureCount, elapsedNanos / 1e9, getThroughput()));
+      sb.append(String.format("%-10s %10s %10s %10s %10s %10s%n", "latency", "p50", "p90", "p99", "p99.9", "max"));
+      appendPercentiles(sb, "replayed", latency);
+      appendPercentiles(sb, "recorded", recordedLatency);
+      return sb.toString();
+    }
+    
+    private static void appendPercentiles(final StringBuilder sb, final String label,
+            final LatencyHistogram.Snapshot snapshot) {
+      sb.append(String.format("%-10s %8.3fms %8.3fms %8.3fms %8.3fms %8.3fms%n", label,
+              snapshot.getValueAtPercentile(50) / 1e6, snapshot.getValueAtPercentile(90) / 1e6,
+              snapshot.getValueAtPercentile(99) / 1e6, snapshot.getValueAtPercentile(99.9) / 1e6,
+              snapshot.getMax() / 1e6));
+    }
+    
+    private final long requestCount;
+    private final long failureCount;
+    private final long elapsedNanos;
+    private final LatencyHistogram.Snapshot latency;
+    private final LatencyHistogram.Snapshot recordedLatency;
+  }
+  
+  //// Constructors
+  
+  /**
+   * Creates a new replay of the given exchanges.
+   *
+   * @param exchanges the exchanges, in the order in which their requests were recorded
+   * @param access the client through which the requests are re-issued
+   */
+  public CfaslTrafficReplay(final List<Exchange> exchanges, final CycAccess access) {
+    this.exchanges = exchanges;
+    this.access = access;
+  }
+  
+  //// Public Area
+  
+  /**
+   * Pairs each recorded request with the final response recorded for it on the same connection.
+   *
+   * @param records the records of a traffic log
+   * @return the exchanges, in the order in which their requests were recorded
+   */
+  public static List<Exchange> pair(final List<CfaslTrafficReader.Record> records) {
+    final Map<Long, Exchange> pending = new HashMap<Long, Exchange>();
+    final List<Exchange> exchanges = new ArrayList<Exchange>();
+    for (final CfaslTrafficReader.Record record : records) {
+      final Long key = (((long) record.getConnection()) << 32) | (record.getId() & 0xffffffffL);
+      if (record.isRequest()) {
+        final Exchange exchange = new Exchange(record);
+        pending.put(key, exchange);
+        exchanges.add(exchange);
+      } else {
+        final Exchange exchange = pending.get(key);
+        if (exchange != null) {
+          exchange.response = record;
+          if (record.isFinished()) {
+            pending.remove(key);
+          }
+        }
+      }
+    }
+    return exchanges;
+  }
+  
+  /**
+   * Sets the factor by which the recorded rate is multiplied; 0 issues requests as fast as the
+   * replay threads allow. The default is 1.
+   *
+   * @param rateScale the rate scale
+   * @return this replay
+   */
+  public CfaslTrafficReplay setRateScale(final double rateScale) {
+    if (rateScale < 0) {
+      throw new IllegalArgumentException("The rate scale must not be negative: " + rateScale);
+    }
+    this.rateScale = rateScale;
+    return this;
+  }
+  
+  /**
+   * Sets the number of threads which issue requests, and so the most requests in flight. The
+   * default is 16.
+   *
+   * @param threadCount the number of replay threads
+   * @return this replay
+   */
+  public CfaslTrafficReplay setThreadCount(final int threadCount) {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("A replay needs at least one thread.");
+    }
+    this.threadCount = threadCount;
+    return this;
+  }
+  
+  /**
+   * Sets the time after which a single request is abandoned. The default is one minute.
+   *
+   * @param timeoutMillis the request timeout in milliseconds
+   * @return this replay
+   */
+  public CfaslTrafficReplay setTimeoutMillis(final long timeoutMillis) {
+    this.timeoutMillis = timeoutMillis;
+    return this;
+  }
+  
+  /**
+   * Replays the exchanges and waits for every request to complete.
+   *
+   * @return the report of the replay
+   * @throws InterruptedException if interrupted while replaying
+   */
+  public Report run() throws InterruptedException {
+    final LatencyHistogram latency = new LatencyHistogram();
+    final LatencyHistogram recordedLatency = new LatencyHistogram();
+    final AtomicLong failureCount = new AtomicLong();
+    final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    final long firstNanos = exchanges.isEmpty() ? 0 : exchanges.get(0).getRequest().getNanos();
+    final boolean isPaced = (rateScale > 0);
+    final long startNanos = System.nanoTime();
+    final AtomicLong endNanos = new AtomicLong(startNanos);
+    try {
+      for (final Exchange exchange : exchanges) {
+        final long dueNanos = isPaced
+                ? startNanos + (long) ((exchange.getRequest().getNanos() - firstNanos) / rateScale)
+                : startNanos;
+        final long delayNanos = dueNanos - System.nanoTime();
+        if (delayNanos > 0) {
+          TimeUnit.NANOSECONDS.sleep(delayNanos);
+        }
+        if (exchange.getRecordedLatencyNanos() >= 0) {
+          recordedLatency.record(exchange.getRecordedLatencyNanos());
+        }
+        executor.execute(new Runnable() {
+          @Override
+          public void run() {
+            final long sentNanos = isPaced ? dueNanos : System.nanoTime();
+            try {
+              new DefaultSublWorkerSynch((CycList) exchange.getRequest().getCommand(), access,
+                      timeoutMillis, getPriority(exchange)).getWork();
+            } catch (CycConnectionException e) {
+              failureCount.incrementAndGet();
+            } catch (CycApiException e) {
+              failureCount.incrementAndGet();
+            }
+            final long now = System.nanoTime();
+            latency.record(now - sentNanos);
+            long end = endNanos.get();
+            while (now > end && !endNanos.compareAndSet(end, now)) {
+              end = endNanos.get();
+            }
+          }
+        });
+      }
+    } finally {
+      executor.shutdown();
+    }
+    executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    return new Report(latency.getCount(), failureCount.get(), endNanos.get() - startNanos,
+            latency.getSnapshot(), recordedLatency.getSnapshot());
+  }
+  
+  /**
+   * Replays a traffic log and prints the report.
+   *
+   * @param args the log file; then optionally <code>stand-in</code> (the default) or the
+   * <code>host:basePort</code> of a Cyc server, the rate scale, and the number of threads
+   * @throws Exception if the replay cannot be run
+   */
+  public static void main(final String[] args) throws Exception {
+    if (args.length < 1) {
+      System.err.println("Usage: CfaslTrafficReplay <log> [stand-in | host:basePort] [rate scale] [threads]");
+      System.exit(2);
+    }
+    final List<Exchange> exchanges = pair(CfaslTrafficReader.readAll(new File(args[0])));
+    final String target = (args.length > 1) ? args[1] : "stand-in";
+    final double rateScale = (args.length > 2) ? Double.parseDouble(args[2]) : 1.0;
+    final int threadCount = (args.length > 3) ? Integer.parseInt(args[3]) : DEFAULT_THREAD_COUNT;
+    CfaslStandInServer standIn = null;
+    final CycServer server;
+    if ("stand-in".equals(target)) {
+      standIn = new CfaslStandInServer(
+              new RecordedResponder(exchanges, CfaslStandInServer.ScriptedResponder.forCycClient()));
+      standIn.start();
+      server = standIn.getCycServer();
+    } else {
+      server = CycServer.fromString(target);
+    }
+    final CycClient client = new CycClient(server);
+    try {
+      System.out.println("Replaying " + exchanges.size() + " requests against " + server
+              + " at rate scale " + rateScale + " with " + threadCount + " threads");
+      System.out.print(new CfaslTrafficReplay(exchanges, client)
+              .setRateScale(rateScale)
+              .setThreadCount(threadCount)
+              .run());
+    } finally {
+      client.close();
+      if (standIn != null) {
+        standIn.close();
+      }
+    }
+  }
+  
+  //// Private Area
+  
+  private static Integer getPriority(final Exchange exchange) {
+    final Object priority = exchange.getRequest().getPriority();
+    return (priority instanceof Integer) ? (Integer) priority : CycConnectionImpl.NORMAL_PRIORITY;
+  }
+  
+  //// Internal Rep
+  
+  private static final int DEFAULT_THREAD_COUNT = 16;
+  
+  private final List<Exchange> exchanges;
+  
+  private final CycAccess access;
+  
+  private double rateScale = 1.0;
+  
+  private int threadCount = DEFAULT_THREAD_COUNT;
+  
+  private long timeoutMillis = TimeUnit.MINUTES.toMillis(1);
+}
@@ -0,0 +1,92 @@
+package com.cyc.baseclient.benchmark;
+
+/*
+ * #%L
+ * File: ConverseRoundTripBenchmark.java
+ * Project: Client Benchmarks
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.exception.CycConnectionException;
+import com.cyc.baseclient.CycClient;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the client side of a SubL round trip against a {@link CfaslStandInServer}, which
+ * answers without evaluating anything: encoding the task-processor request, routing it over the
+ * request and passive sockets, and decoding the response for the waiting worker. The response
+ * is a list of the given size. The concurrent variant shares one CycClient between threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConverseRoundTripBenchmark {
+
+  @Param({"1", "1000"})
+  public int responseSize;
+
+  private CfaslStandInServer server;
+
+  private CycClient client;
+
+  @Setup
+  public void setUp() throws IOException, CycConnectionException {
+    final CycArrayList response = new CycArrayList(responseSize);
+    for (int i = 0; i < responseSize; i++) {
+      response.add("Response element " + i);
+    }
+    server = new CfaslStandInServer(CfaslStandInServer.ScriptedResponder.forCycClient()
+            .respondTo("benchmark-request", response));
+    server.start();
+    client = new CycClient(server.getCycServer());
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.close();
+    server.close();
+  }
+
+  @Benchmark
+  public Object converse() throws CycConnectionException {
+    return client.converse().converseList("(benchmark-request 1 2 3)");
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Object converseConcurrently() throws CycConnectionException {
+    return client.converse().converseList("(benchmark-request 1 2 3)");
+  }
+}
@@ -0,0 +1,112 @@
+package com.cyc.baseclient.benchmark;
+
+/*
+ * #%L
+ * File: CycObjectFactoryBenchmark.java
+ * Project: Client Benchmarks
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.cycobject.CycConstantImpl;
+import com.cyc.baseclient.cycobject.GuidImpl;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the CycObjectFactory caches which the CFASL decoder and the parsers consult for every
+ * symbol, variable and constant they produce. The concurrent variants share the caches between
+ * threads, as the response handlers of a pooled connection do. The 256 names of each kind fit
+ * within the default cache sizes, so every lookup is a hit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CycObjectFactoryBenchmark {
+
+  private static final int NAME_COUNT = 256;
+
+  private final String[] symbolNames = new String[NAME_COUNT];
+
+  private final String[] variableNames = new String[NAME_COUNT];
+
+  private final String[] constantNames = new String[NAME_COUNT];
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    private int index = 0;
+
+    int next() {
+      index = (index + 1) & (NAME_COUNT - 1);
+      return index;
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    for (int i = 0; i < NAME_COUNT; i++) {
+      symbolNames[i] = ":BENCHMARK-SYMBOL-" + i;
+      variableNames[i] = "?BENCHMARK-VARIABLE-" + i;
+      constantNames[i] = "BenchmarkConstant-" + i;
+      CycObjectFactory.makeCycSymbol(symbolNames[i]);
+      CycObjectFactory.makeCycVariable(variableNames[i]);
+      CycObjectFactory.addCycConstantCache(
+              new CycConstantImpl(constantNames[i], new GuidImpl(UUID.randomUUID())));
+    }
+  }
+
+  @Benchmark
+  public Object makeCycSymbol(Cursor cursor) {
+    return CycObjectFactory.makeCycSymbol(symbolNames[cursor.next()]);
+  }
+
+  @Benchmark
+  public Object makeCycVariable(Cursor cursor) {
+    return CycObjectFactory.makeCycVariable(variableNames[cursor.next()]);
+  }
+
+  @Benchmark
+  public Object getCycConstantCacheByName(Cursor cursor) {
+    return CycObjectFactory.getCycConstantCacheByName(constantNames[cursor.next()]);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Object makeCycSymbolConcurrently(Cursor cursor) {
+    return CycObjectFactory.makeCycSymbol(symbolNames[cursor.next()]);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Object getCycConstantCacheByNameConcurrently(Cursor cursor) {
+    return CycObjectFactory.getCycConstantCacheByName(constantNames[cursor.next()]);
+  }
+}
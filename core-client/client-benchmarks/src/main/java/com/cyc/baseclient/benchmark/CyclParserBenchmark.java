@@ -0,0 +1,148 @@
+package com.cyc.baseclient.benchmark;
+
+/*
+ * #%L
+ * File: CyclParserBenchmark.java
+ * Project: Client Benchmarks
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.exception.CycConnectionException;
+import com.cyc.base.cycobject.CycList;
+import com.cyc.baseclient.CycClient;
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import com.cyc.baseclient.cycobject.CycConstantImpl;
+import com.cyc.baseclient.cycobject.CycListParser;
+import com.cyc.baseclient.cycobject.GuidImpl;
+import com.cyc.baseclient.parser.CyclParserUtil;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing a CycL sentence with CyclParserUtil and with CycListParser, against a
+ * CycClient connected to a {@link CfaslStandInServer}. With a cold constant cache each parse
+ * looks its constants up on the stand-in, so the round trip taken to complete them is included;
+ * with a warm cache the parse is local. The bulk benchmark parses {@value #BULK_SIZE} sentences
+ * with one call to CyclParserUtil.parseCycLSentences.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CyclParserBenchmark {
+
+  private static final String SENTENCE = "(#$and (#$isa ?DOG #$Dog) (#$genls #$Dog #$Mammal) "
+          + "(#$owns ?PERSON ?DOG) (#$comment #$Dog \"A domesticated canine\") (#$numberOfLegs ?DOG 4))";
+
+  private static final int BULK_SIZE = 64;
+
+  private static final List<String> SENTENCES = new ArrayList<String>(BULK_SIZE);
+
+  static {
+    for (int i = 0; i < BULK_SIZE; i++) {
+      SENTENCES.add("(#$and (#$isa ?DOG #$Dog" + (i % 8) + ") (#$genls #$Dog" + (i % 8) + " #$Mammal) "
+              + "(#$owns ?PERSON ?DOG) (#$numberOfLegs ?DOG " + i + "))");
+    }
+  }
+
+  @Param({"false", "true"})
+  public boolean coldConstantCache;
+
+  private CfaslStandInServer server;
+
+  private CycClient client;
+
+  @Setup
+  public void setUp() throws IOException, CycConnectionException {
+    server = new CfaslStandInServer(CfaslStandInServer.ScriptedResponder.forCycClient()
+            .respondTo("find-constant", new CfaslStandInServer.Responder() {
+              @Override
+              public Object respond(CycList request) {
+                return makeConstant((String) request.get(1));
+              }
+            })
+            .respondTo("mapcar", new CfaslStandInServer.Responder() {
+              @Override
+              public Object respond(CycList request) {
+                // (mapcar (quote find-constant) (list name ...))
+                final CycList names = (CycList) request.get(2);
+                final CycArrayList constants = new CycArrayList(names.size() - 1);
+                for (int i = 1; i < names.size(); i++) {
+                  constants.add(makeConstant((String) names.get(i)));
+                }
+                return constants;
+              }
+            }));
+    server.start();
+    client = new CycClient(server.getCycServer());
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.close();
+    server.close();
+    CycObjectFactory.resetCycConstantCaches();
+  }
+
+  @Benchmark
+  public Object parseCycLSentence() throws Exception {
+    if (coldConstantCache) {
+      CycObjectFactory.resetCycConstantCaches();
+    }
+    return CyclParserUtil.parseCycLSentence(SENTENCE, true, client);
+  }
+
+  @Benchmark
+  public Object parseCycLSentences() throws Exception {
+    if (coldConstantCache) {
+      CycObjectFactory.resetCycConstantCaches();
+    }
+    return CyclParserUtil.parseCycLSentences(SENTENCES, true, client);
+  }
+
+  @Benchmark
+  public Object readCycList() throws Exception {
+    if (coldConstantCache) {
+      CycObjectFactory.resetCycConstantCaches();
+    }
+    return new CycListParser(client).read(SENTENCE);
+  }
+
+  private static CycConstantImpl makeConstant(final String name) {
+    return new CycConstantImpl(name,
+            new GuidImpl(UUID.nameUUIDFromBytes(name.getBytes(Charset.forName("UTF-8")))));
+  }
+}
@@ -0,0 +1,103 @@
+package com.cyc.baseclient.benchmark;
+
+/*
+ * #%L
+ * File: ResultSetIterationBenchmark.java
+ * Project: Client Benchmarks
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.base.cycobject.CycVariable;
+import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.cycobject.CycArrayList;
+import com.cyc.baseclient.inference.DefaultResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures iterating over a query result set and reading every binding, by column name and by
+ * variable, as callers of the query API do for each row. The rows are binding lists in the form
+ * the inference workers deliver them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResultSetIterationBenchmark {
+
+  private static final CycVariable X = CycObjectFactory.makeCycVariable("?X");
+
+  private static final CycVariable Y = CycObjectFactory.makeCycVariable("?Y");
+
+  private static final CycVariable Z = CycObjectFactory.makeCycVariable("?Z");
+
+  @Param({"1000", "100000"})
+  public int rowCount;
+
+  private DefaultResultSet resultSet;
+
+  @Setup
+  public void setUp() {
+    final List<Object> rows = new ArrayList<Object>(rowCount);
+    for (int i = 0; i < rowCount; i++) {
+      final CycArrayList row = new CycArrayList();
+      row.add(CycArrayList.makeDottedPair(X, "Instance " + i));
+      row.add(CycArrayList.makeDottedPair(Y, CycObjectFactory.makeCycSymbol(":KEYWORD-" + (i % 16))));
+      row.add(CycArrayList.makeDottedPair(Z, i));
+      rows.add(row);
+    }
+    resultSet = new DefaultResultSet(rows);
+  }
+
+  @Benchmark
+  public long iterateByColumnName() {
+    long checksum = 0;
+    resultSet.beforeFirst();
+    while (resultSet.next()) {
+      checksum += resultSet.getString("?X").length();
+      checksum += resultSet.getObject("?Y").hashCode();
+      checksum += resultSet.getInt("?Z");
+    }
+    return checksum;
+  }
+
+  @Benchmark
+  public long iterateByVariable() {
+    long checksum = 0;
+    resultSet.beforeFirst();
+    while (resultSet.next()) {
+      checksum += resultSet.getString(X).length();
+      checksum += resultSet.getObject(Y).hashCode();
+      checksum += resultSet.getInt(Z);
+    }
+    return checksum;
+  }
+}
@@ -0,0 +1,110 @@
+package com.cyc.kb.client;
+
+/*
+ * #%L
+ * File: KbObjectCacheBenchmark.java
+ * Project: Client Benchmarks
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.baseclient.cycobject.CycConstantImpl;
+import com.cyc.baseclient.cycobject.GuidImpl;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the BoundedKbObjectCache lookups behind KbObjectFactory, which every KB API call that
+ * names a term by string goes through. The working set is either within the maximum weight, so
+ * that lookups hit, or twice the maximum weight, so that lookups miss and the caching which
+ * follows a miss keeps the CLOCK eviction busy.
+ *
+ * This benchmark lives in the kb-client package because the cache methods are package-private.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KbObjectCacheBenchmark {
+
+  private static final int MAX_WEIGHT = 10000;
+
+  @Param({"5000", "20000"})
+  public int workingSetSize;
+
+  private BoundedKbObjectCache cache;
+
+  private String[] keys;
+
+  private KbObjectImpl[] terms;
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    private int index = 0;
+
+    int next(int size) {
+      index = (index + 1) % size;
+      return index;
+    }
+  }
+
+  @Setup
+  @SuppressWarnings("deprecation")
+  public void setUp() {
+    cache = new BoundedKbObjectCache(MAX_WEIGHT, 0);
+    keys = new String[workingSetSize];
+    terms = new KbObjectImpl[workingSetSize];
+    for (int i = 0; i < workingSetSize; i++) {
+      keys[i] = "BenchmarkTerm-" + i;
+      terms[i] = new KbObjectImpl(new CycConstantImpl(keys[i], new GuidImpl(UUID.randomUUID())));
+      cache.put(keys[i], KbObjectImpl.class, terms[i]);
+    }
+  }
+
+  @Benchmark
+  public Object getOrPut(Cursor cursor) {
+    return lookUp(cursor.next(workingSetSize));
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Object getOrPutConcurrently(Cursor cursor) {
+    return lookUp(cursor.next(workingSetSize));
+  }
+
+  private Object lookUp(final int i) {
+    final Object cached = cache.get(keys[i]);
+    if (cached == null) {
+      cache.put(keys[i], KbObjectImpl.class, terms[i]);
+      return terms[i];
+    }
+    return cached;
+  }
+}
@@ -43,6 +43,11 @@ import com.cyc.kb.KbStatus;
 import com.cyc.kb.exception.CreateException;
 import com.cyc.kb.exception.KbRuntimeException;
 import com.cyc.kb.exception.KbTypeException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -84,6 +89,17 @@ abstract public class AbstractKbObjectFactoryService<T extends KbObjectImpl> {
     return KbObjectFactory.get(cleanString(nameOrId), getObjectType());
   }
   
+  public Map<String, T> getAll(Collection<String> namesOrIds) {
+    return keyByInputs(namesOrIds,
+            KbObjectFactory.getAll(cleanStrings(namesOrIds), getObjectType()));
+  }
+  
+  public Map<String, T> findOrCreateAll(Collection<String> namesOrIds)
+          throws CreateException, KbTypeException {
+    return keyByInputs(namesOrIds,
+            KbObjectFactory.findOrCreateAll(cleanStrings(namesOrIds), getObjectType()));
+  }
+  
   public KbStatus getStatus(String nameOrId)  {
     return KbObjectFactory.getStatus(cleanString(nameOrId), getObjectType());
   }
@@ -113,6 +129,29 @@ abstract public class AbstractKbObjectFactoryService<T extends KbObjectImpl> {
     return KbObjectFactory.get(cycObject, getObjectType());
   }
   
+  /**
+   * Re-keys <code>results</code>, which are keyed by the trimmed forms of
+   * <code>inputStrings</code>, by the input strings themselves, in their iteration order.
+   */
+  static <V> Map<String, V> keyByInputs(Collection<String> inputStrings, Map<String, V> results) {
+    final Map<String, V> byInput = new LinkedHashMap<String, V>(results.size());
+    for (final String inputString : inputStrings) {
+      final V result = results.get(inputString.trim());
+      if ((result != null) && !byInput.containsKey(inputString)) {
+        byInput.put(inputString, result);
+      }
+    }
+    return byInput;
+  }
+  
+  private List<String> cleanStrings(Collection<String> inputStrings) {
+    final List<String> cleanStrings = new ArrayList<String>(inputStrings.size());
+    for (final String inputString : inputStrings) {
+      cleanStrings.add(cleanString(inputString));
+    }
+    return cleanStrings;
+  }
+  
   private String cleanString(String inputString) {
     if (inputString == null) {
       NullPointerException npe = new NullPointerException("String cannot be null");
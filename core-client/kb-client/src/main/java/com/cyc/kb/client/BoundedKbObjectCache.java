@@ -0,0 +1,471 @@
+package com.cyc.kb.client;
+
+/*
+ * #%L
+ * File: BoundedKbObjectCache.java
+ * Project: KB Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.baseclient.util.ConcurrentLruCache;
+import com.cyc.kb.KbObject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The cache behind {@link KbObjectFactory}. It maps the cyclified names, ids and non-cyclified
+ * names of terms to the {@link KbObjectImpl}s built for them, one per requested class.
+ *
+ * The cache is a {@link ConcurrentLruCache} bounded by weight, where the weight of a key is the
+ * number of classes cached for it. Once the maximum weight is exceeded, keys which have not been
+ * read recently are evicted using the CLOCK approximation of LRU. Keys may also expire a fixed
+ * time after they were cached.
+ *
+ * Each key is stamped with the KB operation number current when it was cached, as last reported
+ * through {@link #advanceKbOperationNumber(long)}, and is indexed by the term cached under it.
+ * After a KB change the keys of the changed terms which were cached before it can be dropped with
+ * {@link #invalidateBefore(long, Collection)}, and the keys of a single term with
+ * {@link #invalidate(KbObject)}, instead of clearing the whole cache.
+ *
+ * The maximum weight and time to live default to the values of the system properties
+ * {@value #MAX_WEIGHT_PROPERTY} and {@value #TTL_PROPERTY}.
+ */
+public final class BoundedKbObjectCache {
+
+  /** The system property holding the default maximum weight. */
+  public static final String MAX_WEIGHT_PROPERTY = "com.cyc.kb.client.cache.maxWeight";
+  /** The system property holding the default time to live, in milliseconds; 0 means none. */
+  public static final String TTL_PROPERTY = "com.cyc.kb.client.cache.ttlMillis";
+  /** The maximum weight used when {@value #MAX_WEIGHT_PROPERTY} is not set. */
+  public static final long DEFAULT_MAX_WEIGHT = 100000;
+
+  private static final Logger log = LoggerFactory.getLogger(BoundedKbObjectCache.class.getCanonicalName());
+
+  private final Entries entries;
+  /** the keys under which each term is cached; guarded by its own monitor */
+  private final Map<Object, Set<String>> keysByCore = new HashMap<Object, Set<String>>();
+  private final AtomicLong kbOperationNumber = new AtomicLong();
+  private final AtomicLong expirationCount = new AtomicLong();
+  private final AtomicLong invalidationCount = new AtomicLong();
+  private volatile long ttlMillis;
+
+  BoundedKbObjectCache() {
+    this(Long.getLong(MAX_WEIGHT_PROPERTY, DEFAULT_MAX_WEIGHT), Long.getLong(TTL_PROPERTY, 0));
+  }
+
+  BoundedKbObjectCache(long maxWeight, long ttlMillis) {
+    entries = new Entries(toMaximumSize(maxWeight));
+    setTtlMillis(ttlMillis);
+  }
+
+  /**
+   * Returns the objects cached for <code>key</code>, by class, and marks the key as recently
+   * used.
+   *
+   * @param key the cache key
+   *
+   * @return an unmodifiable view of the objects cached for <code>key</code>, or null
+   */
+  Map<Class<?>, KbObjectImpl> get(String key) {
+    final CacheEntry entry = entries.get(key);
+    return (entry == null) ? null : entry.byClass;
+  }
+
+  /**
+   * Returns the object cached for <code>key</code> as class <code>c</code>, without counting a
+   * read or marking the key as recently used.
+   *
+   * @param key the cache key
+   * @param c the class the object was cached as
+   *
+   * @return the cached object, or null
+   */
+  KbObjectImpl peek(String key, Class<?> c) {
+    final CacheEntry entry = entries.peek(key);
+    return (entry == null) ? null : entry.byClass.get(c);
+  }
+
+  boolean containsKey(String key) {
+    return entries.peek(key) != null;
+  }
+
+  /**
+   * Caches <code>kbObject</code> as class <code>c</code> under <code>key</code>. The most specific
+   * object cached for the key is then used for every class cached for it.
+   *
+   * @param key the cache key
+   * @param c the class the object is cached as
+   * @param kbObject the object to cache
+   */
+  void put(String key, Class<?> c, KbObjectImpl kbObject) {
+    while (true) {
+      final CacheEntry entry = entries.peek(key);
+      if (entry == null) {
+        final CacheEntry newEntry = new CacheEntry(Collections.<Class<?>, KbObjectImpl>emptyMap(),
+                c, kbObject, kbOperationNumber.get(), System.currentTimeMillis());
+        if (entries.putIfAbsent(key, newEntry) == null) {
+          index(key, newEntry);
+          return;
+        }
+      } else {
+        final CacheEntry newEntry = new CacheEntry(entry.byClass, c, kbObject,
+                entry.kbOperationNumber, entry.createdMillis);
+        if (entries.replace(key, entry, newEntry)) {
+          if (!newEntry.core.equals(entry.core)) {
+            unindex(key, entry.core);
+          }
+          index(key, newEntry);
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes <code>key</code> from the cache.
+   *
+   * @param key the cache key
+   *
+   * @return true if the key was cached
+   */
+  boolean remove(String key) {
+    return entries.remove(key) != null;
+  }
+
+  /**
+   * Removes every key under which <code>kbObject</code>, or another object for the same term, is
+   * cached. This finds keys which are no longer derivable from the term, such as the name it had
+   * before being renamed.
+   *
+   * @param kbObject the term to drop
+   *
+   * @return the number of keys removed
+   */
+  public int invalidate(KbObject kbObject) {
+    final int removed = invalidateCore(KbObjectImpl.getCore(kbObject), Long.MAX_VALUE);
+    log.debug("Invalidated {} cache keys for {}", removed, kbObject);
+    return removed;
+  }
+
+  /**
+   * Removes <code>key</code>, and every other key under which the objects cached for it are
+   * cached.
+   *
+   * @param key the cache key
+   *
+   * @return the number of keys removed
+   */
+  public int invalidate(String key) {
+    final CacheEntry entry = entries.peek(key);
+    if (entry == null) {
+      return 0;
+    }
+    int removed = invalidateCore(entry.core, Long.MAX_VALUE);
+    if (entries.remove(key, entry)) {
+      invalidationCount.incrementAndGet();
+      removed++;
+    }
+    return removed;
+  }
+
+  /**
+   * Removes the keys of the given terms which were cached before the KB reached
+   * <code>kbOperationNumber</code>, i.e. those which may have been cached from content which the
+   * changes to the terms have since made stale. The keys of other terms, and those cached since,
+   * are kept. The cost is proportional to the number of keys of the given terms.
+   *
+   * @param kbOperationNumber the KB operation number of the earliest change to take into account
+   * @param changedTerms the terms changed since, as KbObjects or as CycObjects
+   *
+   * @return the number of keys removed
+   */
+  public int invalidateBefore(long kbOperationNumber, Collection<?> changedTerms) {
+    int removed = 0;
+    for (final Object term : changedTerms) {
+      removed += invalidateCore(KbObjectImpl.getCore(term), kbOperationNumber);
+    }
+    log.debug("Invalidated {} cache keys of {} terms cached before KB operation {}",
+            new Object[]{removed, changedTerms.size(), kbOperationNumber});
+    return removed;
+  }
+
+  /**
+   * Removes every key cached before the KB reached <code>kbOperationNumber</code>, whatever its
+   * term. This scans the whole cache, and drops everything cached before the given operation;
+   * when the changed terms are known, {@link #invalidateBefore(long, Collection)} keeps the rest.
+   *
+   * @param kbOperationNumber the KB operation number of the earliest change to take into account
+   *
+   * @return the number of keys removed
+   */
+  public int invalidateBefore(long kbOperationNumber) {
+    int removed = 0;
+    for (final Entry<String, CacheEntry> e : entries.entrySet()) {
+      if (e.getValue().kbOperationNumber < kbOperationNumber
+              && entries.remove(e.getKey(), e.getValue())) {
+        removed++;
+      }
+    }
+    invalidationCount.addAndGet(removed);
+    log.debug("Invalidated {} cache keys cached before KB operation {}", removed, kbOperationNumber);
+    return removed;
+  }
+
+  /**
+   * Records that the KB has reached <code>kbOperationNumber</code>. Keys cached from now on are
+   * stamped with it. The number never decreases.
+   *
+   * @param kbOperationNumber the current KB operation number
+   */
+  public void advanceKbOperationNumber(long kbOperationNumber) {
+    long current = this.kbOperationNumber.get();
+    while (kbOperationNumber > current
+            && !this.kbOperationNumber.compareAndSet(current, kbOperationNumber)) {
+      current = this.kbOperationNumber.get();
+    }
+  }
+
+  public long getKbOperationNumber() {
+    return kbOperationNumber.get();
+  }
+
+  /** Removes every key from the cache. */
+  public void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Returns the number of keys in the cache, including any which have expired but have not yet
+   * been read.
+   *
+   * @return the number of keys
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns the total weight of the cache, i.e. the number of (key, class) pairs it holds.
+   *
+   * @return the weight of the cache
+   */
+  public long getWeight() {
+    return entries.getWeight();
+  }
+
+  public long getMaximumWeight() {
+    return entries.getMaximumSize();
+  }
+
+  /**
+   * Sets the maximum weight of the cache, evicting keys if it is now too heavy.
+   *
+   * @param maxWeight the maximum number of (key, class) pairs
+   */
+  public void setMaximumWeight(long maxWeight) {
+    entries.setMaximumSize(toMaximumSize(maxWeight));
+  }
+
+  public long getTtlMillis() {
+    return ttlMillis;
+  }
+
+  /**
+   * Sets how long keys stay in the cache after they are cached.
+   *
+   * @param ttlMillis the time to live in milliseconds, or 0 for no limit
+   */
+  public void setTtlMillis(long ttlMillis) {
+    if (ttlMillis < 0) {
+      throw new IllegalArgumentException("Invalid cache time to live: " + ttlMillis);
+    }
+    this.ttlMillis = ttlMillis;
+  }
+
+  public long getHitCount() {
+    return entries.getHitCount();
+  }
+
+  public long getMissCount() {
+    return entries.getMissCount();
+  }
+
+  public long getEvictionCount() {
+    return entries.getEvictionCount();
+  }
+
+  public long getExpirationCount() {
+    return expirationCount.get();
+  }
+
+  public long getInvalidationCount() {
+    return invalidationCount.get();
+  }
+
+  /**
+   * Returns the fraction of reads which found their key, or 0 if there have been no reads.
+   *
+   * @return the hit ratio
+   */
+  public double getHitRatio() {
+    return entries.getHitRatio();
+  }
+
+  /** Resets the hit, miss, eviction, expiration and invalidation counters. */
+  public void resetStatistics() {
+    entries.resetStatistics();
+    expirationCount.set(0);
+    invalidationCount.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return "BoundedKbObjectCache keys: " + size() + " weight: " + getWeight() + "/" + getMaximumWeight()
+            + " hits: " + getHitCount() + " misses: " + getMissCount()
+            + " evictions: " + getEvictionCount() + " expirations: " + expirationCount.get()
+            + " invalidations: " + invalidationCount.get();
+  }
+
+  private static int toMaximumSize(long maxWeight) {
+    if (maxWeight < 1) {
+      throw new IllegalArgumentException("Invalid maximum cache weight: " + maxWeight);
+    }
+    return (int) Math.min(maxWeight, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Removes the keys of the given term which were cached before the given KB operation.
+   */
+  private int invalidateCore(final Object core, final long kbOperationNumber) {
+    final List<String> keys;
+    synchronized (keysByCore) {
+      final Set<String> coreKeys = keysByCore.get(core);
+      if (coreKeys == null) {
+        return 0;
+      }
+      keys = new ArrayList<String>(coreKeys);
+    }
+    int removed = 0;
+    for (final String key : keys) {
+      final CacheEntry entry = entries.peek(key);
+      if (entry != null && entry.core.equals(core) && entry.kbOperationNumber < kbOperationNumber
+              && entries.remove(key, entry)) {
+        removed++;
+      }
+    }
+    invalidationCount.addAndGet(removed);
+    return removed;
+  }
+
+  /** Indexes <code>key</code> by the term of <code>entry</code>, if the entry is still cached. */
+  private void index(final String key, final CacheEntry entry) {
+    synchronized (keysByCore) {
+      // a removal of the entry which has already unindexed the key must not be undone
+      if (entries.peek(key) != entry) {
+        return;
+      }
+      Set<String> keys = keysByCore.get(entry.core);
+      if (keys == null) {
+        keys = new HashSet<String>(2);
+        keysByCore.put(entry.core, keys);
+      }
+      keys.add(key);
+    }
+  }
+
+  private void unindex(final String key, final Object core) {
+    synchronized (keysByCore) {
+      final CacheEntry current = entries.peek(key);
+      if (current != null && current.core.equals(core)) {
+        // the key has been cached again for the same term
+        return;
+      }
+      final Set<String> keys = keysByCore.get(core);
+      if (keys != null && keys.remove(key) && keys.isEmpty()) {
+        keysByCore.remove(core);
+      }
+    }
+  }
+
+  /** The keys and their entries, weighed by their number of classes and expired by the TTL. */
+  private final class Entries extends ConcurrentLruCache<String, CacheEntry> {
+
+    Entries(final int maxWeight) {
+      super(1024, maxWeight);
+    }
+
+    @Override
+    protected int weigh(final String key, final CacheEntry entry) {
+      return entry.byClass.size();
+    }
+
+    @Override
+    protected boolean isExpired(final CacheEntry entry) {
+      final long ttl = ttlMillis;
+      return ttl > 0 && System.currentTimeMillis() - entry.createdMillis > ttl;
+    }
+
+    @Override
+    protected void entryRemoved(final String key, final CacheEntry entry, final RemovalCause cause) {
+      if (cause == RemovalCause.EXPIRED) {
+        expirationCount.incrementAndGet();
+      }
+      unindex(key, entry.core);
+    }
+  }
+
+  /** The objects cached under one key, by class. Entries are immutable, and replaced on change. */
+  private static final class CacheEntry {
+
+    final Map<Class<?>, KbObjectImpl> byClass;
+    final Object core;
+    final long kbOperationNumber;
+    final long createdMillis;
+
+    /** Creates the entry which adds <code>kbObject</code>, as class <code>c</code>, to byClass. */
+    CacheEntry(Map<Class<?>, KbObjectImpl> byClass, Class<?> c, KbObjectImpl kbObject,
+            long kbOperationNumber, long createdMillis) {
+      KbObjectImpl bestKBObject = kbObject;
+      // Ensure the most specific KBObject is used for all classes:
+      for (final KbObjectImpl maybeBest : byClass.values()) {
+        if (bestKBObject != maybeBest
+                && bestKBObject.getClass().isAssignableFrom(maybeBest.getClass())) {
+          bestKBObject = maybeBest;
+        }
+      }
+      final Map<Class<?>, KbObjectImpl> newByClass = new HashMap<Class<?>, KbObjectImpl>(byClass);
+      newByClass.put(c, bestKBObject);
+      for (final Class<?> oneClass : newByClass.keySet()) {
+        newByClass.put(oneClass, bestKBObject);
+      }
+      this.byClass = Collections.unmodifiableMap(newByClass);
+      this.core = bestKBObject.getCore();
+      this.kbOperationNumber = kbOperationNumber;
+      this.createdMillis = createdMillis;
+    }
+  }
+}
@@ -31,6 +31,7 @@ import com.cyc.base.cycobject.Guid;
 import com.cyc.baseclient.cycobject.CycArrayList;
 import com.cyc.baseclient.cycobject.CycConstantImpl;
 import com.cyc.baseclient.cycobject.CycFormulaSentence;
+import com.cyc.baseclient.taxonomy.TaxonomyIndex;
 import com.cyc.kb.Context;
 import com.cyc.kb.client.LookupType;
 import com.cyc.kb.KbCollection;
@@ -519,7 +520,11 @@ public class KbCollectionImpl extends KbTermImpl implements KbCollection {
     CycList cycResults;
     Set<KbCollection> results = new HashSet<KbCollection>();
     try {
-      if (ctx != null) {
+      final TaxonomyIndex index = getTaxonomyIndex(ctx);
+      final CycList indexed = (index == null) ? null : index.getAllSpecs(getCore());
+      if (indexed != null) {
+        cycResults = indexed;
+      } else if (ctx != null) {
         String command = "(" + SublConstants.getInstance().allSpecs.stringApiValue() + " " + this.getCore().stringApiValue() + " " + ctx.stringApiValue() + ")";
         cycResults = getAccess().converse().converseList(command);
       } else {
@@ -529,13 +534,7 @@ public class KbCollectionImpl extends KbTermImpl implements KbCollection {
         cycResults = getAccess().converse().converseList(command);
       }
 
-      for (Object o : cycResults) {
-        try {
-          results.add(KbCollectionImpl.get((CycObject) o));
-        } catch (CreateException ce){ // ignore
-        } catch (KbTypeException te){ // ignore
-        }
-      }
+      results.addAll(KbObjectFactory.getAllFor(cycResults, KbCollectionImpl.class).values());
 
       return results;
     } catch (CycConnectionException ex) {
@@ -640,7 +639,11 @@ public class KbCollectionImpl extends KbTermImpl implements KbCollection {
     CycList<Object> cycResults;
     Set<KbCollection> results = new HashSet<KbCollection>();
     try {
-      if (ctx != null) {
+      final TaxonomyIndex index = getTaxonomyIndex(ctx);
+      final CycList<Object> indexed = (index == null) ? null : index.getAllGenls(getCore());
+      if (indexed != null) {
+        cycResults = indexed;
+      } else if (ctx != null) {
         String command = "(" + SublConstants.getInstance().removeDuplicates.stringApiValue() 
                 + " (" + SublConstants.getInstance().allGenls.stringApiValue() 
                 + " " + this.getCore().stringApiValue() + " " + ctx.stringApiValue() + "))";
@@ -652,13 +655,7 @@ public class KbCollectionImpl extends KbTermImpl implements KbCollection {
         cycResults = getAccess().converse().converseList(command);
       }
 
-      for (Object o : cycResults) {
-        try {
-          results.add(KbCollectionImpl.get((CycObject) o));
-        } catch (CreateException ce){ // ignore
-        } catch (KbTypeException te){ // ignore
-        }
-      }
+      results.addAll(KbObjectFactory.getAllFor(cycResults, KbCollectionImpl.class).values());
 
       return results;
     } catch (CycConnectionException ex) {
@@ -942,6 +939,18 @@ public class KbCollectionImpl extends KbTermImpl implements KbCollection {
     return new KbIndividualImpl(indVar, kboData);
   }
   
+  /**
+   * Returns the taxonomy index registered for the given context, or for any context when ctx is
+   * null.
+   */
+  private TaxonomyIndex getTaxonomyIndex(Context ctx) {
+    final Object mt = (ctx == null) ? null : ctx.getCore();
+    if ((ctx != null) && !(mt instanceof CycObject)) {
+      return null;
+    }
+    return TaxonomyIndex.forAccess(getAccess(), (CycObject) mt);
+  }
+  
   private static String deriveRandomizedInstanceName(KbObject kbo){
     String characters = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ1234567890";
     StringBuffer sb = new StringBuffer();
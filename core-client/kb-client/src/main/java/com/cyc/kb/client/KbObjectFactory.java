@@ -25,10 +25,15 @@ import com.cyc.base.CycAccess;
 import com.cyc.base.exception.CycApiException;
 import com.cyc.base.exception.CycConnectionException;
 import com.cyc.base.cycobject.CycAssertion;
+import com.cyc.base.cycobject.CycConstant;
+import com.cyc.base.cycobject.CycList;
 import com.cyc.base.cycobject.CycObject;
 import com.cyc.base.cycobject.DenotationalTerm;
 import com.cyc.baseclient.CycObjectFactory;
+import com.cyc.baseclient.cycobject.CycArrayList;
 import com.cyc.baseclient.cycobject.DefaultCycObject;
+import static com.cyc.baseclient.subl.functions.SublFunctions.CATEGORIZE_TERMS_WRT_API;
+import static com.cyc.baseclient.subl.functions.SublFunctions.RESOLVE_TERMS_WRT_API;
 import com.cyc.kb.Context;
 import com.cyc.kb.client.LookupType;
 import com.cyc.kb.KbCollection;
@@ -43,11 +48,19 @@ import com.cyc.kb.exception.KbTypeException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,8 +80,25 @@ public class KbObjectFactory {
 
   private static Logger log = LoggerFactory.getLogger(KbObjectFactory.class.getCanonicalName());
   
-  //a cache from the cyclified names/ids/non-cyclified names to classes to KBObjects
-  private static final Map<String, Map<Class<?>, KbObjectImpl>> stringCache = new ConcurrentHashMap<String, Map<Class<?>, KbObjectImpl>>();  
+  //a bounded cache from the cyclified names/ids/non-cyclified names to classes to KBObjects
+  private static final BoundedKbObjectCache stringCache = new BoundedKbObjectCache();
+  //the most names resolved by one RESOLVE-TERMS-WRT-API call in getAll, and the most terms
+  //categorized by one CATEGORIZE-TERMS-WRT-API call in getAllFor
+  static final int RESOLVE_BATCH_SIZE = 500;
+  /** The system property from which the time in milliseconds that unknown names are remembered is read. */
+  public static final String NEGATIVE_TTL_PROPERTY = "com.cyc.kb.client.cache.negativeTtlMillis";
+  /** The time unknown names are remembered for when {@value #NEGATIVE_TTL_PROPERTY} is not set. */
+  public static final long DEFAULT_NEGATIVE_TTL_MILLIS = 2000;
+  //the size past which expired entries are swept from the negative cache
+  private static final int NEGATIVE_CACHE_SWEEP_SIZE = 10000;
+  //by server, the names recently looked up there and not found, to the System.nanoTime() at which
+  //they are forgotten
+  private static final ConcurrentHashMap<Object, Map<String, Long>> negativeCache =
+          new ConcurrentHashMap<Object, Map<String, Long>>();
+  private static volatile long negativeTtlMillis = Long.getLong(NEGATIVE_TTL_PROPERTY, DEFAULT_NEGATIVE_TTL_MILLIS);
+  //the servers which do not have RESOLVE-TERMS-WRT-API
+  private static final Set<Object> resolveUnsupportedServers =
+          Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
   private static final List<Class<? extends KbObjectImpl>> KB_OBJECT_TYPES = Arrays.asList(AssertionImpl.class,
           BinaryPredicateImpl.class,
           ContextImpl.class,
@@ -115,6 +145,11 @@ public class KbObjectFactory {
    * and it is already a {@link StandardKBObject#getType()}, it will be returned. 
    * If it is not already a {@link StandardKBObject#getType()}, a {@link KbTypeException} is thrown
    * 
+   * A constant name or HLID which is not cached is resolved in a single round trip where the
+   * server has RESOLVE-TERMS-WRT-API. A name which is not found is remembered as missing from the
+   * current server for {@link #getNegativeTtlMillis()} milliseconds, during which it is not looked
+   * up there again.
+   * 
    * @param nameOrId the string representation or the HLID of the candidate object to be returned 
    * @param c represents the class <code>O</code>, a subclass of {@link KbObjectImpl}
    * 
@@ -130,6 +165,20 @@ public class KbObjectFactory {
       return kbObj;
     }
     
+    if (isKnownMissing(nameOrId)) {
+      String msg = "No KB object \"" + nameOrId + "\" as " + c.getSimpleName() + ".";
+      log.trace(msg + " (remembered)");
+      throw new KbObjectNotFoundException(msg);
+    }
+    
+    final CycObject typeCore = getClassTypeCore(c);
+    if (typeCore != null && !nameOrId.startsWith("?") && !nameOrId.contains("(")) {
+      kbObj = KbObjectFactory.<O>resolve(nameOrId, typeCore, c);
+      if (kbObj != null) {
+        return kbObj;
+      }
+    }
+    
     CycObject co = StandardKbObject.getTempCoreFromNameOrId(nameOrId);
     if (co != null) {
       return (O) get(co, c);
@@ -137,6 +186,7 @@ public class KbObjectFactory {
       String msg = "No KB object \"" + nameOrId + "\" as " + c.getSimpleName() + ".";
       //since this is called from findOrCreate, it's not necessarily an error.  Don't log it as such.
       log.trace(msg);
+      rememberMissing(nameOrId);
       throw new KbObjectNotFoundException(msg);
     }
     
@@ -239,8 +289,95 @@ public class KbObjectFactory {
   public static void clearKBObjectCache() {
     log.info("Cleaning the cache");
     stringCache.clear();
+    negativeCache.clear();
     CycObjectFactory.resetCycConstantCaches();
   }
+
+  /**
+   * Returns the cache of <code>KBObject</code>s, through which its occupancy and hit rate can be
+   * monitored and its bounds tuned.
+   *
+   * @return the cache of <code>KBObject</code>s
+   */
+  public static BoundedKbObjectCache getCache() {
+    return stringCache;
+  }
+
+  /**
+   * Drop <code>kbObject</code> from the cache, under every name and id it is cached by. Unlike
+   * {@link #clearKBObjectCache()}, the rest of the cache is kept.
+   *
+   * @param kbObject the object to drop from the cache
+   */
+  public static void invalidate(KbObject kbObject) {
+    stringCache.invalidate(kbObject);
+    final CycObject core = KbObjectImpl.getCore(kbObject);
+    if (core instanceof CycConstant) {
+      CycObjectFactory.removeCaches((CycConstant) core);
+    }
+  }
+
+  /**
+   * Drop the object cached under <code>nameOrId</code> from the cache, under every name and id it
+   * is cached by.
+   *
+   * @param nameOrId the string representation or the HLID of the object to drop
+   */
+  public static void invalidate(String nameOrId) {
+    stringCache.invalidate(nameOrId);
+    forgetMissing(nameOrId);
+  }
+
+  /**
+   * Drop every object cached before the KB reached <code>kbOperationNumber</code>, and stamp the
+   * objects cached from now on with it. Applications which know which terms changed should use
+   * {@link #invalidateCachedBefore(long, Collection)}, which keeps the other terms.
+   *
+   * @param kbOperationNumber the KB operation number of the earliest change not yet taken into account
+   */
+  public static void invalidateCachedBefore(long kbOperationNumber) {
+    stringCache.advanceKbOperationNumber(kbOperationNumber);
+    stringCache.invalidateBefore(kbOperationNumber);
+    negativeCache.clear();
+  }
+
+  /**
+   * Drop the objects for <code>changedTerms</code> which were cached before the KB reached
+   * <code>kbOperationNumber</code>, and stamp the objects cached from now on with it. This is
+   * intended for applications which track KB changes, e.g. from the server's transcript, and want
+   * to drop only the objects which may be affected.
+   *
+   * @param kbOperationNumber the KB operation number of the earliest change not yet taken into account
+   * @param changedTerms the terms changed by the KB operations since
+   */
+  public static void invalidateCachedBefore(long kbOperationNumber,
+          Collection<? extends KbObject> changedTerms) {
+    stringCache.advanceKbOperationNumber(kbOperationNumber);
+    stringCache.invalidateBefore(kbOperationNumber, changedTerms);
+    negativeCache.clear();
+  }
+  
+  /**
+   * Returns the time, in milliseconds, for which a name or HLID that was not found in the KB is
+   * remembered as missing. Looking it up again within that time fails without asking the server.
+   *
+   * @return the time unknown names are remembered for, or 0 if they are not remembered
+   */
+  public static long getNegativeTtlMillis() {
+    return negativeTtlMillis;
+  }
+
+  /**
+   * Sets the time, in milliseconds, for which a name or HLID that was not found in the KB is
+   * remembered as missing. It defaults to {@value #DEFAULT_NEGATIVE_TTL_MILLIS}, or the value of
+   * {@value #NEGATIVE_TTL_PROPERTY}. Names which are already remembered are forgotten.
+   *
+   * @param ttlMillis the time unknown names are remembered for, or 0 to not remember them
+   */
+  public static void setNegativeTtlMillis(long ttlMillis) {
+    negativeTtlMillis = Math.max(0, ttlMillis);
+    negativeCache.clear();
+  }
   
   /** Attempt to find a CycObject <code>cycObject</code> in the cache, as an instance of 
    * a subclass <code>O</code> of KBObject
@@ -266,10 +403,11 @@ public class KbObjectFactory {
   private static <O extends KbObject> O getCached(String nameOrId, Class<O> c) {
     O returnValue = null;
     List<String> invalidKeys = new ArrayList<String>();
-    if (stringCache.containsKey(nameOrId)) {
+    final Map<Class<?>, KbObjectImpl> cached = stringCache.get(nameOrId);
+    if (cached != null) {
       //if we find something that could be a c, return it.  It might be a subclass, but that's OK.
       log.trace("Found cache-key \"" + nameOrId + "\" in the cache");
-      for (Entry<Class<?>, KbObjectImpl> e : stringCache.get(nameOrId).entrySet()) {
+      for (Entry<Class<?>, KbObjectImpl> e : cached.entrySet()) {
         if (c.isAssignableFrom(e.getValue().getClass()) && e.getValue().isValid()) {
           returnValue = (O) e.getValue();
           log.debug("Found \"" + returnValue + "\" in the cache");
@@ -303,14 +441,15 @@ public class KbObjectFactory {
     CycObject core = kbObject.getCore();
     String cyclifiedCore = core.cyclify();
     log.trace("Storing " + kbObject + " in cache");
-    if (stringCache.containsKey(cyclifiedCore)
-            && stringCache.get(cyclifiedCore).containsKey(c)) {
+    final KbObjectImpl existing = stringCache.peek(cyclifiedCore, c);
+    if (existing != null) {
       //if this is already in the cache, but not by the ID, use the existing one.
       if (!stringCache.containsKey(nameOrId)) {
-        kbObject = stringCache.get(cyclifiedCore).get(c);
+        kbObject = existing;
       }
     }
     String coreString = getCacheKey(core);
+    forgetMissing(nameOrId);
     cacheAs(nameOrId, c, kbObject);
     cacheAs(cyclifiedCore, c, kbObject);
     cacheAs(coreString, c, kbObject);
@@ -325,22 +464,7 @@ public class KbObjectFactory {
    * @param kbObject the {@link KbObjectImpl} to be cached
    */
   private static <O extends KbObject> void cacheAs(String key, Class<O> c, KbObjectImpl kbObject) {
-    if (!stringCache.containsKey(key)) {
-      stringCache.put(key, new ConcurrentHashMap<Class<?>, KbObjectImpl>());
-    }
-    KbObjectImpl bestKBObject = kbObject;
-    final Map<Class<?>, KbObjectImpl> cacheForKey = stringCache.get(key);
-    // Ensure the most specific KBObject is used for all classes:
-    for (final KbObjectImpl maybeBest : cacheForKey.values()) {
-      if (bestKBObject != maybeBest
-              && bestKBObject.getClass().isAssignableFrom(maybeBest.getClass())) {
-        bestKBObject = maybeBest;
-      }
-    }
-    cacheForKey.put(c, bestKBObject);
-    for (final Class<?> oneClass : cacheForKey.keySet()) {
-      cacheForKey.put(oneClass, bestKBObject);
-    }
+    stringCache.put(key, c, kbObject);
   }
 
   /**
@@ -473,7 +597,136 @@ public class KbObjectFactory {
   static <O extends KbObjectImpl> O get(String nameOrId, Class<O> c) throws KbTypeException, CreateException {
     return KbObjectFactory.<O>find(nameOrId, c);
   }
+
+  /**
+   * Find instances of {@link KbObjectImpl} subclass <code>O</code> for many names or HLIDs at
+   * once. Objects already in the cache are returned from it. The remaining constant names and
+   * HLIDs are resolved, categorized and type-checked on the server in batches of
+   * {@value #RESOLVE_BATCH_SIZE}, and cached in one pass. NAUTs, variables, and all names on a
+   * server without RESOLVE-TERMS-WRT-API, are resolved one at a time as by
+   * {@link #get(String, Class)}.
+   * 
+   * Unlike {@link #get(String, Class)}, a name which is not found, or which is not already a
+   * {@link StandardKBObject#getType()}, is not an error; it is simply absent from the result.
+   * 
+   * @param <O> the class of objects to be returned
+   * @param namesOrIds the string representations or the HLIDs of the candidate objects
+   * @param c represents the class <code>O</code>, a subclass of {@link KbObjectImpl}
+   * 
+   * @return a map, in the iteration order of <code>namesOrIds</code>, from each name or HLID that
+   * was found as an <code>O</code> to its object
+   */
+  static <O extends KbObjectImpl> Map<String, O> getAll(Collection<String> namesOrIds, Class<O> c) {
+    final Map<String, O> found = new HashMap<String, O>();
+    final CycObject typeCore = getClassTypeCore(c);
+    final Set<String> toResolve = new LinkedHashSet<String>();
+    for (final String nameOrId : namesOrIds) {
+      if (found.containsKey(nameOrId) || toResolve.contains(nameOrId)) {
+        continue;
+      }
+      final O cached = KbObjectFactory.<O>getCached(nameOrId, c);
+      if (cached != null) {
+        found.put(nameOrId, cached);
+      } else if (typeCore == null || nameOrId.startsWith("?") || nameOrId.contains("(")) {
+        putIfFound(found, nameOrId, c);
+      } else {
+        toResolve.add(nameOrId);
+      }
+    }
+    final List<String> batched = new ArrayList<String>(toResolve);
+    for (int start = 0; start < batched.size(); start += RESOLVE_BATCH_SIZE) {
+      resolveBatch(batched.subList(start, Math.min(batched.size(), start + RESOLVE_BATCH_SIZE)),
+              typeCore, c, found);
+    }
+    final Map<String, O> results = new LinkedHashMap<String, O>();
+    for (final String nameOrId : namesOrIds) {
+      final O kbObj = found.get(nameOrId);
+      if (kbObj != null) {
+        results.put(nameOrId, kbObj);
+      }
+    }
+    return results;
+  }
+  
+  /**
+   * Find instances of {@link KbObjectImpl} subclass <code>O</code> for many CycObjects at once,
+   * typically the terms or assertions returned by a single call to the server. Objects already in
+   * the cache are returned from it. The remaining terms are categorized on the server in batches of
+   * {@value #RESOLVE_BATCH_SIZE}, assertions are categorized locally, and the objects made from
+   * them are cached in one pass. Other CycObjects, and all terms on a server without
+   * CATEGORIZE-TERMS-WRT-API, are found one at a time as by {@link #get(CycObject, Class)}.
+   * 
+   * Unlike {@link #get(CycObject, Class)}, an object which is not found, or which is not already a
+   * {@link StandardKBObject#getType()}, is not an error; it is simply absent from the result.
+   * 
+   * @param <O> the class of objects to be returned
+   * @param cycObjects the candidate CycObjects; elements which are not CycObjects are ignored
+   * @param c represents the class <code>O</code>, a subclass of {@link KbObjectImpl}
+   * 
+   * @return a map, in the iteration order of <code>cycObjects</code>, from each CycObject that
+   * was found as an <code>O</code> to its object
+   */
+  static <O extends KbObjectImpl> Map<CycObject, O> getAllFor(Collection<?> cycObjects, Class<O> c) {
+    final Map<CycObject, O> found = new HashMap<CycObject, O>();
+    final Set<CycObject> seen = new HashSet<CycObject>();
+    final List<CycObject> toCategorize = new ArrayList<CycObject>();
+    for (final Object o : cycObjects) {
+      if (!(o instanceof CycObject) || !seen.add((CycObject) o)) {
+        continue;
+      }
+      final CycObject cycObject = (CycObject) o;
+      final O cached = KbObjectFactory.<O>getCached(cycObject, c);
+      if (cached != null) {
+        found.put(cycObject, cached);
+      } else if (cycObject instanceof CycAssertion) {
+        putAssertion(found, (CycAssertion) cycObject, c);
+      } else if (cycObject instanceof DenotationalTerm) {
+        toCategorize.add(cycObject);
+      } else {
+        putIfFound(found, cycObject, c);
+      }
+    }
+    for (int start = 0; start < toCategorize.size(); start += RESOLVE_BATCH_SIZE) {
+      categorizeBatch(toCategorize.subList(start, Math.min(toCategorize.size(), start + RESOLVE_BATCH_SIZE)),
+              c, found);
+    }
+    final Map<CycObject, O> results = new LinkedHashMap<CycObject, O>();
+    for (final Object o : cycObjects) {
+      final O kbObj = found.get(o);
+      if (kbObj != null) {
+        results.put((CycObject) o, kbObj);
+      }
+    }
+    return results;
+  }
   
+  /**
+   * Find or create instances of {@link KbObjectImpl} subclass <code>O</code> for many names or
+   * HLIDs at once. The existing objects are found in bulk by
+   * {@link #getAll(Collection, Class)}; the rest are found or created one at a time by
+   * {@link #findOrCreate(String, Class)}.
+   * 
+   * @param <O> the class of objects to be returned
+   * @param namesOrIds the string representations or the HLIDs of the candidate objects
+   * @param c represents the class <code>O</code>, a subclass of {@link KbObjectImpl}
+   * 
+   * @return a map, in the iteration order of <code>namesOrIds</code>, from each name or HLID to
+   * its object
+   * 
+   * @throws CreateException if any object cannot be found or created
+   * @throws KbTypeException if any object cannot be made an <code>O</code>
+   */
+  static <O extends KbObjectImpl> Map<String, O> findOrCreateAll(Collection<String> namesOrIds, Class<O> c)
+          throws CreateException, KbTypeException {
+    final Map<String, O> found = getAll(namesOrIds, c);
+    final Map<String, O> results = new LinkedHashMap<String, O>();
+    for (final String nameOrId : namesOrIds) {
+      final O kbObj = found.get(nameOrId);
+      results.put(nameOrId, (kbObj != null) ? kbObj : KbObjectFactory.<O>findOrCreate(nameOrId, c));
+    }
+    return results;
+  }
+
   /**
    * Find or create an instance of {@link KbObjectImpl} subclass <code>O</code>,
    * named <code>nameOrId</code>. If no object exists in the KB with the name
@@ -735,4 +988,333 @@ public class KbObjectFactory {
   private static String getCacheKey(CycObject cycObject) {
     return (cycObject instanceof CycAssertion) ? String.valueOf(cycObject.hashCode()) : cycObject.toString();
   }
+
+  /**
+   * Returns the collection whose instances can be wrapped by class <code>c</code>, or null if
+   * <code>c</code> is not one of the KB term classes.
+   */
+  private static CycObject getClassTypeCore(Class<?> c) {
+    for (final Entry<CycObject, Class> e : cycObjectToKBAPIClass.entrySet()) {
+      if (e.getValue().equals(c)) {
+        return e.getKey();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Resolves one name as {@link #get(String, Class)} does, adding it to <code>found</code> unless
+   * it is not found or is of the wrong type.
+   */
+  private static <O extends KbObjectImpl> void putIfFound(Map<String, O> found, String nameOrId, Class<O> c) {
+    try {
+      found.put(nameOrId, KbObjectFactory.<O>get(nameOrId, c));
+    } catch (KbTypeException ex) {
+      log.debug("Skipping \"" + nameOrId + "\": " + ex.getMessage());
+    } catch (CreateException ex) {
+      log.debug("Skipping \"" + nameOrId + "\": " + ex.getMessage());
+    }
+  }
+
+  /**
+   * Finds one CycObject as {@link #get(CycObject, Class)} does, adding it to <code>found</code>
+   * unless it is not found or is of the wrong type.
+   */
+  private static <O extends KbObjectImpl> void putIfFound(Map<CycObject, O> found, CycObject cycObject, Class<O> c) {
+    try {
+      found.put(cycObject, KbObjectFactory.<O>get(cycObject, c));
+    } catch (KbTypeException ex) {
+      log.debug("Skipping \"" + cycObject + "\": " + ex.getMessage());
+    } catch (CreateException ex) {
+      log.debug("Skipping \"" + cycObject + "\": " + ex.getMessage());
+    }
+  }
+
+  /**
+   * Makes and caches the object for an assertion without asking the server: a GAF is a
+   * {@link FactImpl}, and any other assertion an {@link AssertionImpl}. If <code>c</code> is
+   * neither of those nor one of their superclasses, the assertion is found as by
+   * {@link #get(CycObject, Class)}.
+   */
+  private static <O extends KbObjectImpl> void putAssertion(Map<CycObject, O> found, CycAssertion assertion, Class<O> c) {
+    final Class assertionClass = assertion.isGaf() ? FactImpl.class : AssertionImpl.class;
+    if (!c.isAssignableFrom(assertionClass)) {
+      putIfFound(found, assertion, c);
+      return;
+    }
+    final O kbObj = (O) makePrevalidated(assertion, assertionClass, getCacheKey(assertion), c);
+    if (kbObj != null) {
+      found.put(assertion, kbObj);
+    }
+  }
+
+  /**
+   * Categorizes a batch of terms in a single CATEGORIZE-TERMS-WRT-API call, and caches the objects
+   * made from them.
+   */
+  private static <O extends KbObjectImpl> void categorizeBatch(List<CycObject> terms, Class<O> c,
+          Map<CycObject, O> found) {
+    final CycList categories;
+    try {
+      categories = CATEGORIZE_TERMS_WRT_API.eval(getStaticAccess(), new CycArrayList<CycObject>(terms));
+    } catch (CycApiException ex) {
+      // Most likely a server without the function; find the terms one at a time instead.
+      log.debug("Could not categorize terms in bulk: " + ex.getMessage());
+      for (final CycObject term : terms) {
+        putIfFound(found, term, c);
+      }
+      return;
+    } catch (CycConnectionException ex) {
+      throw new KbRuntimeException(ex.getMessage(), ex);
+    }
+    for (int i = 0; i < terms.size(); i++) {
+      final CycObject term = terms.get(i);
+      final Class tightestClass = cycObjectToKBAPIClass.get(categories.get(i));
+      if (tightestClass == null) {
+        // Not an instance of any API collection; leave the type check to the constructor.
+        putIfFound(found, term, c);
+      } else if (!c.isAssignableFrom(tightestClass)) {
+        log.debug(term + " is of type " + tightestClass.getSimpleName() + ", but is being requested as "
+                + c.getSimpleName() + ".");
+      } else {
+        final O kbObj = (O) makePrevalidated(term, tightestClass, getCacheKey(term), c);
+        if (kbObj != null) {
+          found.put(term, kbObj);
+        }
+      }
+    }
+  }
+
+  /**
+   * Resolves, categorizes and type-checks a batch of constant names and HLIDs in a single
+   * RESOLVE-TERMS-WRT-API call, and caches the objects made from them.
+   */
+  private static <O extends KbObjectImpl> void resolveBatch(List<String> namesOrIds,
+          CycObject typeCore, Class<O> c, Map<String, O> found) {
+    final CycAccess access = getStaticAccess();
+    CycList resolutions = null;
+    if (!resolveUnsupportedServers.contains(serverKey(access))) {
+      try {
+        resolutions = RESOLVE_TERMS_WRT_API.eval(access, new CycArrayList<String>(namesOrIds), typeCore);
+      } catch (CycApiException ex) {
+        noteResolveFailure(access, ex);
+        log.debug("Could not resolve terms in bulk: " + ex.getMessage());
+      } catch (CycConnectionException ex) {
+        throw new KbRuntimeException(ex.getMessage(), ex);
+      }
+    }
+    if (resolutions == null) {
+      // Resolve the names one at a time instead.
+      for (final String nameOrId : namesOrIds) {
+        putIfFound(found, nameOrId, c);
+      }
+      return;
+    }
+    for (int i = 0; i < namesOrIds.size(); i++) {
+      final String nameOrId = namesOrIds.get(i);
+      final Object resolution = resolutions.get(i);
+      if (!(resolution instanceof CycList)) {
+        log.trace("No KB object \"" + nameOrId + "\" as " + c.getSimpleName() + ".");
+        continue;
+      }
+      final O kbObj = makeResolved(nameOrId, (CycList) resolution, c);
+      if (kbObj != null) {
+        found.put(nameOrId, kbObj);
+      }
+    }
+  }
+
+  /**
+   * Makes and caches the object for one result of RESOLVE-TERMS-WRT-API: a list of the term, its
+   * most specific API collection, and whether it is an instance of the type of <code>c</code>.
+   * The class is chosen as {@link #get(CycObject, Class)} chooses it, and the term must both have
+   * a compatible API class and be an instance of the type of <code>c</code>.
+   * 
+   * @return the object, or null if the term is not an instance of <code>c</code>
+   */
+  private static <O extends KbObjectImpl> O makeResolved(String nameOrId, CycList resolution, Class<O> c) {
+    final CycObject term = (CycObject) resolution.get(0);
+    final Class tightestClass = cycObjectToKBAPIClass.get(resolution.get(1));
+    final boolean hasType = CycObjectFactory.t.equals(resolution.get(2));
+    if (tightestClass != null && !c.isAssignableFrom(tightestClass)) {
+      log.debug(term + " is of type " + tightestClass.getSimpleName() + ", but is being requested as "
+              + c.getSimpleName() + ".");
+      return null;
+    }
+    if (!hasType) {
+      // The most specific API class does not imply the type: the term may be, say, a #$Collection
+      // which is not an instance of the more specific collection type requested.
+      log.debug("The term \"" + term + "\" is not a " + c.getSimpleName() + ".");
+      return null;
+    }
+    final Class<? extends O> requestedClass = (tightestClass != null) ? tightestClass : c;
+    return KbObjectFactory.<O>makePrevalidated(term, requestedClass, nameOrId, c);
+  }
+
+  /**
+   * Makes an instance of <code>requestedClass</code> around <code>term</code>, which the caller
+   * has already checked to be of its type, and caches it under <code>nameOrId</code>.
+   * 
+   * @return the object, or null if it cannot be made
+   */
+  private static <O extends KbObjectImpl> O makePrevalidated(CycObject term,
+          Class<? extends O> requestedClass, String nameOrId, Class<O> c) {
+    try {
+      O kbObj;
+      try {
+        kbObj = requestedClass.getDeclaredConstructor().newInstance();
+        ((StandardKbObject) kbObj).setPrevalidatedCore(term);
+      } catch (NoSuchMethodException ex) {
+        kbObj = requestedClass.getDeclaredConstructor(CycObject.class).newInstance(term);
+      }
+      return cacheKBObject(kbObj, nameOrId, c);
+    } catch (InvocationTargetException ex) {
+      KbExceptionHandler.rethrowIfCycConnectionException(ex.getCause());
+      log.debug("Could not make " + term + " a " + requestedClass.getSimpleName() + ": " + ex.getCause());
+    } catch (Exception ex) {
+      log.debug("Could not make " + term + " a " + requestedClass.getSimpleName() + ": " + ex);
+    }
+    return null;
+  }
+
+  /**
+   * Resolves, categorizes and type-checks a single constant name or HLID in one
+   * RESOLVE-TERMS-WRT-API call, and makes and caches its object. This replaces the separate
+   * cyclify, lookup, categorize and type-check calls which {@link #find(String, Class)} would
+   * otherwise make. Names resolve to constants or to NARTs by HLID, so the term is always reified.
+   * 
+   * @return the object, or null if the server cannot resolve the name this way, in which case the
+   * caller should fall back to finding it step by step
+   * 
+   * @throws KbObjectNotFoundException if there is no such term, or it cannot be an <code>O</code>
+   * @throws KbTypeException if the term is of a more general type than <code>O</code>
+   */
+  private static <O extends KbObjectImpl> O resolve(String nameOrId, CycObject typeCore, Class<O> c)
+          throws KbObjectNotFoundException, KbTypeException {
+    final CycAccess access = getStaticAccess();
+    if (resolveUnsupportedServers.contains(serverKey(access))) {
+      return null;
+    }
+    final CycList resolutions;
+    try {
+      resolutions = RESOLVE_TERMS_WRT_API.eval(access,
+              new CycArrayList<String>(Collections.singletonList(nameOrId)), typeCore);
+    } catch (CycApiException ex) {
+      noteResolveFailure(access, ex);
+      log.debug("Could not resolve \"" + nameOrId + "\" in one call: " + ex.getMessage());
+      return null;
+    } catch (CycConnectionException ex) {
+      throw new KbRuntimeException(ex.getMessage(), ex);
+    }
+    final Object resolution = resolutions.isEmpty() ? null : resolutions.get(0);
+    if (!(resolution instanceof CycList)) {
+      String msg = "No KB object \"" + nameOrId + "\" as " + c.getSimpleName() + ".";
+      log.trace(msg);
+      rememberMissing(nameOrId);
+      throw new KbObjectNotFoundException(msg);
+    }
+    final CycObject term = (CycObject) ((CycList) resolution).get(0);
+    final Class tightestClass = cycObjectToKBAPIClass.get(((CycList) resolution).get(1));
+    if (tightestClass != null && !c.isAssignableFrom(tightestClass) && term instanceof DenotationalTerm) {
+      // As in get(CycObject, Class): a coercible type is a KbTypeException, so that findOrCreate
+      // can coerce it, and anything else is a conflict.
+      if (tightestClass.isAssignableFrom(c)) {
+        throw new KbTypeException(term.toString() + " is of type "
+                + tightestClass.getSimpleName() + ", but is being requested as "
+                + c.getSimpleName() + ". User findOrCreate to coerce into the requested type.");
+      } else {
+        throw new KbTypeConflictException(term.toString() + " is of type "
+                + tightestClass.getSimpleName() + ", but is being requested as "
+                + c.getSimpleName() + ", which are incompatible types.");
+      }
+    }
+    if (!CycObjectFactory.t.equals(((CycList) resolution).get(2)) && term instanceof DenotationalTerm) {
+      throw new KbTypeException("The term \"" + term.toString() + "\" is not a "
+              + c.getSimpleName() + ".");
+    }
+    final O kbObj = KbObjectFactory.<O>makeResolved(nameOrId, (CycList) resolution, c);
+    if (kbObj == null) {
+      throw new KbObjectNotFoundException("No KB object \"" + nameOrId + "\" as " + c.getSimpleName() + ".");
+    }
+    return kbObj;
+  }
+
+  /**
+   * Notes that RESOLVE-TERMS-WRT-API failed on <code>access</code>. Only if the server does not
+   * have the function is it not asked again; any other error may be transient.
+   */
+  private static void noteResolveFailure(CycAccess access, CycApiException ex) {
+    try {
+      if (!RESOLVE_TERMS_WRT_API.isBound(access)) {
+        log.debug(access.getCycServer() + " does not have " + RESOLVE_TERMS_WRT_API + ".");
+        resolveUnsupportedServers.add(serverKey(access));
+      }
+    } catch (CycApiException ex2) {
+      log.debug("Could not check for " + RESOLVE_TERMS_WRT_API + ": " + ex2.getMessage());
+    } catch (CycConnectionException ex2) {
+      throw new KbRuntimeException(ex2.getMessage(), ex2);
+    }
+  }
+
+  /**
+   * The key under which what is known about the server behind <code>access</code> is kept: its
+   * address, so that sessions with the same server share it.
+   */
+  private static Object serverKey(CycAccess access) {
+    final Object server = access.getCycServer();
+    return (server != null) ? server : access;
+  }
+
+  /**
+   * Whether <code>nameOrId</code> was looked up on the current server and not found there within
+   * the last {@link #getNegativeTtlMillis()} milliseconds.
+   */
+  private static boolean isKnownMissing(String nameOrId) {
+    final Map<String, Long> missing = negativeCache.get(serverKey(getStaticAccess()));
+    final Long expiry = (missing == null) ? null : missing.get(nameOrId);
+    if (expiry == null) {
+      return false;
+    }
+    if (System.nanoTime() - expiry < 0) {
+      return true;
+    }
+    missing.remove(nameOrId);
+    return false;
+  }
+
+  /**
+   * Remembers that <code>nameOrId</code> was not found on the current server, for
+   * {@link #getNegativeTtlMillis()} milliseconds.
+   */
+  private static void rememberMissing(String nameOrId) {
+    final long ttlMillis = negativeTtlMillis;
+    if (ttlMillis <= 0) {
+      return;
+    }
+    final Object server = serverKey(getStaticAccess());
+    Map<String, Long> missing = negativeCache.get(server);
+    if (missing == null) {
+      final Map<String, Long> created = new ConcurrentHashMap<String, Long>();
+      missing = negativeCache.putIfAbsent(server, created);
+      if (missing == null) {
+        missing = created;
+      }
+    }
+    final long now = System.nanoTime();
+    if (missing.size() >= NEGATIVE_CACHE_SWEEP_SIZE) {
+      for (final Iterator<Long> it = missing.values().iterator(); it.hasNext();) {
+        if (now - it.next() >= 0) {
+          it.remove();
+        }
+      }
+    }
+    missing.put(nameOrId, now + TimeUnit.MILLISECONDS.toNanos(ttlMillis));
+  }
+
+  /** Forgets that <code>nameOrId</code> was not found, on every server. */
+  private static void forgetMissing(String nameOrId) {
+    for (final Map<String, Long> missing : negativeCache.values()) {
+      missing.remove(nameOrId);
+    }
+  }
 }
@@ -46,6 +46,7 @@ import com.cyc.baseclient.cycobject.DefaultCycObject;
 import com.cyc.baseclient.cycobject.NautImpl;
 import com.cyc.baseclient.datatype.DateConverter;
 import com.cyc.baseclient.nl.ParaphraserFactory;
+import static com.cyc.baseclient.subl.functions.SublFunctions.GAF_ARG_VALUES_WRT_API;
 import com.cyc.kb.Assertion;
 import com.cyc.kb.BinaryPredicate;
 import com.cyc.kb.Context;
@@ -56,6 +57,7 @@ import com.cyc.kb.KbIndividual;
 import com.cyc.kb.KbObject;
 import com.cyc.kb.KbPredicate;
 import com.cyc.kb.KbTerm;
+import com.cyc.kb.PagedKbObject;
 import com.cyc.kb.Sentence;
 import com.cyc.kb.client.config.KbConfiguration;
 import com.cyc.kb.client.config.KbDefaultContext;
@@ -78,11 +80,14 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -96,7 +101,7 @@ import org.slf4j.LoggerFactory;
  * @author Vijay Raj
  * @version "$Id: KbObjectImpl.java 163355 2016-01-04 20:53:24Z nwinant $"
  */
-public class KbObjectImpl implements KbObject {
+public class KbObjectImpl implements PagedKbObject {
   
   /**
    * The CORE object wrapped by all KBObjects. The type of object wrapped by
@@ -312,16 +317,8 @@ public class KbObjectImpl implements KbObject {
       Set<Fact> facts = new HashSet<Fact>();
       if (!CycObjectFactory.nil.equals(res)) {
         CycList<CycAssertion> assertList = (CycList<CycAssertion>) res;
-        for (Object o : assertList) {
-          if (o instanceof CycAssertion) {
-            try {
-              facts.add(FactImpl.get((CycAssertion) o));
-            } catch (KbException kbe) {
-              // Nothing to do. We did get the facts we are building
-              // but something went wrong. Just don't add it to the list.
-            }
-          }
-        }
+        // Facts which cannot be built are simply left out of the list.
+        facts.addAll(KbObjectFactory.getAllFor(assertList, FactImpl.class).values());
       }
       return facts;
     } catch (CycConnectionException ex) {
@@ -331,6 +328,190 @@ public class KbObjectImpl implements KbObject {
     }
   }
 
+  /**
+   * Gets the distinct objects in the <code>getArgPos</code> argument position of the asserted
+   * facts visible from <code>ctx</code>, using the predicate <code>pred</code>, with
+   * <code>matchArg</code> at the position <code>matchArgPos</code>. Only the objects are sent back
+   * by the server, not the facts. The objects are in the order in which the KB indexes the facts,
+   * and this order is what <code>offset</code> and <code>limit</code> page through. The server stops
+   * walking the index once it has found <code>offset + limit</code> distinct objects.
+   *
+   * @param pred the predicate of the facts
+   * @param matchArg the object in the matchArgPos
+   * @param matchArgPos the argument position of matchArg in the facts
+   * @param getArgPos the argument position of the returned objects
+   * @param match2Arg if not null, the object which must also be in the match2ArgPos
+   * @param match2ArgPos the argument position of match2Arg in the facts
+   * @param ctx the Context. If null, returns objects from the default context
+   * {@link KBAPIDefaultContext#forQuery()}
+   * @param offset the number of distinct objects to skip
+   * @param limit the most objects to return, or a negative number for no limit
+   *
+   * @return the objects, as the server returned them
+   */
+  private List<Object> projectValues(KbPredicate pred, KbObject matchArg, int matchArgPos, int getArgPos,
+          Object match2Arg, int match2ArgPos, Context ctx, int offset, int limit) {
+    try {
+      final String ctxStr = (ctx == null) ? KbConfiguration.getDefaultContext().forQuery().stringApiValue()
+              : ctx.stringApiValue();
+      StringBuilder command = new StringBuilder();
+      command.append("(clet ((values nil) (seen (make-hash-table 64 #'equal)) (count 0))")
+              .append(" (").append(SublConstants.getInstance().withInferenceMtRelevance.stringApiValue())
+              .append(" ").append(ctxStr)
+              .append(" (do-gaf-arg-index (gaf ").append(matchArg.stringApiValue())
+              .append(" :index ").append(matchArgPos)
+              .append(" :predicate ").append(pred.stringApiValue());
+      if (limit >= 0) {
+        command.append(" :done (>= count ").append(offset + limit).append(")");
+      }
+      command.append(")");
+      if (match2Arg != null) {
+        command.append(" (pwhen (equal (gaf-arg gaf ").append(match2ArgPos).append(") ")
+                .append(DefaultCycObject.stringApiValue(match2Arg)).append(")");
+      }
+      command.append(" (clet ((value (gaf-arg gaf ").append(getArgPos).append(")))")
+              .append(" (punless (gethash value seen)")
+              .append(" (sethash value seen t)")
+              .append(" (pwhen (>= count ").append(offset).append(")");
+      if (limit >= 0) {
+        command.append(" (pwhen (< count ").append(offset + limit).append(")");
+      }
+      command.append(" (cpush value values))");
+      if (limit >= 0) {
+        command.append(")");
+      }
+      command.append(" (cincf count)))");
+      if (match2Arg != null) {
+        command.append(")");
+      }
+      command.append("))")
+              .append(" (nreverse values))");
+      log.trace("projectValues: {}", command);
+      Object res = getAccess().converse().converseObject(command.toString());
+      List<Object> values = new ArrayList<Object>();
+      if (res instanceof CycList) {
+        values.addAll((CycList<Object>) res);
+      }
+      return values;
+    } catch (CycConnectionException ex) {
+      throw new KbRuntimeException(ex);
+    } catch (CycApiException ex) {
+      throw new KbRuntimeException(ex.getMessage(), ex);
+    }
+  }
+
+  /**
+   * Converts the objects returned by {@link #projectValues}, leaving out any which cannot be
+   * converted.
+   */
+  private static <O> List<O> convertValues(List<Object> values) {
+    List<O> converted = new ArrayList<O>(values.size());
+    Map<CycObject, KbObjectImpl> forts = getAllForts(values);
+    for (Object o : values) {
+      try {
+        converted.add(KbObjectImpl.<O>checkAndCastObject(o, forts));
+      } catch (KbException kbe) {
+        // Don't do anything. 
+      }
+
+      // TODO: Need to unify casting and typing of KBObject. And individual
+      // types.
+      // TODO: Need to decide what exception to throw if an KBObject can't
+      // be typed into a subclass here.
+      // TODO: Need to decide if instanceof check should be present
+    }
+    return converted;
+  }
+
+  /**
+   * Iterates over the values of {@link #iterateValues}, asking the server for a page of them at a
+   * time. Where the server has GAF-ARG-VALUES-WRT-API, it gathers the values once and keeps the
+   * rest under a cursor between pages; otherwise, or once the cursor has expired, each page is
+   * gathered by {@link #projectValues} from the offset reached so far.
+   */
+  private class ValueIterator<O> implements Iterator<O> {
+
+    private final KbPredicate pred;
+    private final int thisArgPos;
+    private final int getArgPos;
+    private final Context ctx;
+    private final int pageSize;
+    private int offset = 0;
+    private Boolean isCursorSupported = null;
+    private Long cursor = null;
+    private boolean isLastPage = false;
+    private List<O> page = Collections.emptyList();
+    private int index = 0;
+
+    ValueIterator(KbPredicate pred, int thisArgPos, int getArgPos, Context ctx, int pageSize) {
+      this.pred = pred;
+      this.thisArgPos = thisArgPos;
+      this.getArgPos = getArgPos;
+      this.ctx = ctx;
+      this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (index >= page.size() && !isLastPage) {
+        final List<Object> values = nextValues();
+        // The offset counts the values on the server, some of which may not convert.
+        offset += values.size();
+        page = KbObjectImpl.<O>convertValues(values);
+        index = 0;
+      }
+      return index < page.size();
+    }
+
+    private List<Object> nextValues() {
+      try {
+        if (isCursorSupported == null) {
+          isCursorSupported = GAF_ARG_VALUES_WRT_API.isBound(getAccess());
+        }
+        if (isCursorSupported) {
+          final Context valuesCtx = (ctx == null) ? KbConfiguration.getDefaultContext().forQuery() : ctx;
+          final Object res = GAF_ARG_VALUES_WRT_API.eval(getAccess(), cursor, getCore(), thisArgPos,
+                  (CycObject) pred.getCore(), getArgPos, (CycObject) valuesCtx.getCore(), pageSize);
+          if ((res instanceof CycList) && (((CycList) res).size() == 2)) {
+            final Object nextCursor = ((CycList) res).get(0);
+            cursor = (nextCursor instanceof Number) ? ((Number) nextCursor).longValue() : null;
+            isLastPage = (cursor == null);
+            final List<Object> values = new ArrayList<Object>();
+            if (((CycList) res).get(1) instanceof CycList) {
+              values.addAll((CycList<Object>) ((CycList) res).get(1));
+            }
+            return values;
+          }
+          // The server dropped the cursor, so go on from the offset reached.
+          log.debug("The cursor for the values of {} has expired: {}", KbObjectImpl.this, res);
+          isCursorSupported = false;
+          cursor = null;
+        }
+      } catch (CycConnectionException ex) {
+        throw new KbRuntimeException(ex);
+      } catch (CycApiException ex) {
+        throw new KbRuntimeException(ex.getMessage(), ex);
+      }
+      final List<Object> values = projectValues(pred, KbObjectImpl.this, thisArgPos, getArgPos,
+              null, 0, ctx, offset, pageSize);
+      isLastPage = values.size() < pageSize;
+      return values;
+    }
+
+    @Override
+    public O next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return page.get(index++);
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Values cannot be removed.");
+    }
+  }
+
   /* (non-Javadoc)
    * @see com.cyc.kb.KBObject#getValues(java.lang.String, int, int, java.lang.String)
    */
@@ -380,27 +561,32 @@ public class KbObjectImpl implements KbObject {
    * the facts.
    */
   private <O> Collection<O> getValues(KbPredicate pred, KbObject matchArg, int matchArgPos, int getArgPos, Context ctx) {
-    Set<O> myvalues = new HashSet<O>();
-    java.util.Collection<Fact> facts = getFacts(pred, matchArg, matchArgPos, ctx);
+    Set<O> myvalues = new HashSet<O>(KbObjectImpl.<O>convertValues(
+            projectValues(pred, matchArg, matchArgPos, getArgPos, null, 0, ctx, 0, -1)));
+    log.debug("Results from getValues: {}", myvalues);
+    return myvalues;
+  }
 
-    for (Fact a : facts) {
-      CycAssertion ca = (CycAssertion) a.getCore();
-      CycList<Object> g = ca.getGaf().getArgs();
-      Object o = g.get(getArgPos);
-      try {
-        myvalues.add(KbObjectImpl.<O>checkAndCastObject(o));
-      } catch (KbException kbe) {
-        // Don't do anything. 
-      }
+  /* (non-Javadoc)
+   * @see com.cyc.kb.KBObject#getValues(com.cyc.kb.KBPredicate, int, int, com.cyc.kb.Context, int, int)
+   */
+  @Override
+  public <O> List<O> getValues(KbPredicate pred, int thisArgPos, int getArgPos, Context ctx, int offset, int limit) {
+    if (offset < 0) {
+      throw new IllegalArgumentException("The offset " + offset + " is negative.");
+    }
+    return KbObjectImpl.<O>convertValues(projectValues(pred, this, thisArgPos, getArgPos, null, 0, ctx, offset, limit));
+  }
 
-      // TODO: Need to unify casting and typing of KBObject. And individual
-      // types.
-      // TODO: Need to decide what exception to throw if an KBObject can't
-      // be typed into a subclass here.
-      // TODO: Need to decide if instanceof check should be present
+  /* (non-Javadoc)
+   * @see com.cyc.kb.KBObject#iterateValues(com.cyc.kb.KBPredicate, int, int, com.cyc.kb.Context, int)
+   */
+  @Override
+  public <O> Iterator<O> iterateValues(KbPredicate pred, int thisArgPos, int getArgPos, Context ctx, int pageSize) {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("The page size " + pageSize + " is not positive.");
     }
-    log.debug("Results from getValues: {}", myvalues);
-    return myvalues;
+    return new ValueIterator<O>(pred, thisArgPos, getArgPos, ctx, pageSize);
   }
 
   /**
@@ -439,34 +625,18 @@ public class KbObjectImpl implements KbObject {
    * @see #getFacts(com.cyc.kb.KBPredicate, int, com.cyc.kb.Context)
    */
   private <O> Collection<O> getValues(KbPredicate pred, KbObject match1Arg, int match1ArgPos, int getPos, Object match2Arg, int match2ArgPos, Context ctx) {
-    Set<O> myvalues = new HashSet<O>();
-    Collection<Fact> facts = getFacts(pred, match1Arg, match1ArgPos, ctx);
-
     Object cycAccessFilter;
     if (match2Arg instanceof KbObjectImpl) {
       cycAccessFilter = ((KbObject) match2Arg).getCore();
     } else {
       cycAccessFilter = match2Arg;
     }
-
-    for (Fact a : facts) {
-      CycAssertion ca = (CycAssertion) a.getCore();
-      CycList<Object> g = ca.getGaf().getArgs();
-      Object o = g.get(getPos);
-      if (g.get(match2ArgPos).equals(cycAccessFilter)) {
-        try {
-          myvalues.add(KbObjectImpl.<O>checkAndCastObject(o));
-        } catch (KbException kbe) {
-          // Don't do anything. 
-        }
-      }
-
-      // TODO: Need to unify casting and typing of KBObject. And individual
-      // types.
-      // TODO: Need to decide what exception to throw if an KBObject can't
-      // be typed into a subclass here.
-      // TODO: Need to decide if instanceof check should be present
+    if (cycAccessFilter == null) {
+      return new HashSet<O>();
     }
+
+    Set<O> myvalues = new HashSet<O>(KbObjectImpl.<O>convertValues(
+            projectValues(pred, match1Arg, match1ArgPos, getPos, cycAccessFilter, match2ArgPos, ctx, 0, -1)));
     return myvalues;
   }
 
@@ -874,8 +1044,22 @@ public class KbObjectImpl implements KbObject {
    * @throws CreateException
    */
   static public <T> T checkAndCastObject(Object o) throws CreateException {
+    return KbObjectImpl.<T>checkAndCastObject(o, Collections.<CycObject, KbObjectImpl>emptyMap());
+  }
+
+  /**
+   * As {@link #checkAndCastObject(Object)}, but a constant or NART which is a key of
+   * <code>forts</code> is returned as its value, without asking the server for its type.
+   *
+   * @param o object to be mapped to KBObject
+   * @param forts objects already found for constants and NARTs, e.g. by {@link #getAllForts(Collection)}
+   *
+   * @return the KBObject constructed.
+   * @throws CreateException
+   */
+  static <T> T checkAndCastObject(Object o, Map<CycObject, KbObjectImpl> forts) throws CreateException {
     if (o instanceof CycObject) {
-      return (T) KbObjectImpl.convertCycObject((CycObject) o);
+      return (T) KbObjectImpl.convertCycObject((CycObject) o, forts);
     } else if (o instanceof String || o instanceof Number || o instanceof Date) {
       return (T) o;
     } else {
@@ -883,12 +1067,30 @@ public class KbObjectImpl implements KbObject {
       // return null;
     }
   }
+  /**
+   * Finds the objects for the constants and NARTs among <code>values</code> in bulk, as their most
+   * specific types, so that converting each value need not ask the server for its type.
+   *
+   * @param values objects to be mapped to KBObjects
+   *
+   * @return a map from each constant or NART that was found to its object
+   */
+  static Map<CycObject, KbObjectImpl> getAllForts(Collection<Object> values) {
+    List<Object> forts = new ArrayList<Object>();
+    for (Object o : values) {
+      if (o instanceof Fort) {
+        forts.add(o);
+      }
+    }
+    return KbObjectFactory.getAllFor(forts, KbObjectImpl.class);
+  }
+
   static private final CycConstant THE_LIST = new CycConstantImpl("TheList", new Guid("bdcc9f7c-9c29-11b1-9dad-c379636f7270"));
   static private final CycConstant THE_EMPTY_LIST = new CycConstantImpl("TheEmptyList", new Guid("bd79c885-9c29-11b1-9dad-c379636f7270"));
   static private final CycConstant THE_SET = new CycConstantImpl("TheSet", new Guid("bd58e476-9c29-11b1-9dad-c379636f7270"));
   static private final CycConstant THE_EMPTY_SET = new CycConstantImpl("TheEmptySet", new Guid("bdf8edae-9c29-11b1-9dad-c379636f7270"));
   
-  static private Object convertCycObject(CycObject cyco) throws CreateException {
+  static private Object convertCycObject(CycObject cyco, Map<CycObject, KbObjectImpl> forts) throws CreateException {
     // First try converting to a Set, List, or Date:
     if (cyco instanceof CycArrayList) {
       CycList cl = (CycArrayList) cyco;
@@ -943,11 +1145,11 @@ public class KbObjectImpl implements KbObject {
         }
       }
     }
-    return convertToKBObject(cyco);
+    return convertToKBObject(cyco, forts);
   }
 
 
-  private static KbObject convertToKBObject(CycObject cyco) throws CreateException {
+  private static KbObject convertToKBObject(CycObject cyco, Map<CycObject, KbObjectImpl> forts) throws CreateException {
     try {
       if (cyco instanceof CycVariable) {
         return new VariableImpl(cyco);
@@ -959,6 +1161,11 @@ public class KbObjectImpl implements KbObject {
         return new SentenceImpl(cyco);
       }
 
+      final KbObjectImpl found = forts.get(cyco);
+      if (found != null) {
+        return found;
+      }
+
       // Find most specific type, convert it to that and cast to T:
       CycObject tightCol = null;
       try {
@@ -1148,6 +1355,7 @@ public class KbObjectImpl implements KbObject {
       if (core instanceof Fort) {
         getAccess().getUnassertTool().kill((Fort) core, true, KbConfiguration.getShouldTranscriptOperations());
         isValid = false;
+        KbObjectFactory.invalidate(this);
       } /*
        * else if (core instanceof CycAssertion) { CycAssertion ca =
        * (CycAssertion) core; if (ca.isGaf()){
@@ -1200,6 +1408,8 @@ public class KbObjectImpl implements KbObject {
       } catch (CycApiException cae) {
         throw new InvalidNameException(cae.getMessage(), cae);
       }
+      // the old name must no longer find this term
+      KbObjectFactory.invalidate(this);
       return this;
     } else {
       throw new UnsupportedOperationException("Couldn't rename " + core
@@ -555,15 +555,7 @@ public class KbPredicateImpl extends RelationImpl implements KbPredicate {
     List<Fact> kbFacts = new ArrayList<Fact>();
     try {
       CycList assertions = getAccess().getLookupTool().getPredExtent(this.getCore(), (ctx != null ? getCore(ctx) : null));
-      for (Object o : assertions) {
-        if (o instanceof CycAssertion) {
-          try {
-            kbFacts.add(FactImpl.get((CycAssertion) o));
-          } catch (Exception e) {
-            // ignore
-          }
-        }
-      }
+      kbFacts.addAll(KbObjectFactory.getAllFor(assertions, FactImpl.class).values());
     } catch (CycConnectionException ex) {
       throw new KbRuntimeException(ex);
     }
@@ -429,6 +429,17 @@ abstract class StandardKbObject extends KbObjectImpl {
     //}
   }
 
+  /**
+   * Sets the core without checking it against getTypeString(). This should only be used for cores
+   * which have already been type-checked, e.g. in bulk by
+   * {@link KbObjectFactory#getAll(java.util.Collection, java.lang.Class)}.
+   *
+   * @param cycObject the already type-checked core
+   */
+  final void setPrevalidatedCore(CycObject cycObject) {
+    core = cycObject;
+  }
+
   private CycConstant makeCycConstant(String cyclifiedIndStr) {
     try {
       return getAccess().getObjectTool().makeCycConstant(cyclifiedIndStr, true,
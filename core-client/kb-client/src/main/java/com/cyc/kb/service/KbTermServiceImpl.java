@@ -36,6 +36,7 @@ package com.cyc.kb.service;
  * #L%
  */
 
+import com.cyc.kb.spi.BulkKbTermService;
 import com.cyc.kb.spi.KbTermService;
 import com.cyc.kb.client.AbstractKbObjectFactoryService;
 import com.cyc.kb.client.KbTermImpl;
@@ -44,7 +45,8 @@ import com.cyc.kb.client.KbTermImpl;
  *
  * @author nwinant
  */
-public class KbTermServiceImpl<T extends KbTermImpl> extends AbstractKbObjectFactoryService<T> implements KbTermService<T> {
+public class KbTermServiceImpl<T extends KbTermImpl> extends AbstractKbObjectFactoryService<T>
+        implements KbTermService<T>, BulkKbTermService<T> {
   
   // Protected
   
@@ -0,0 +1,49 @@
+package com.cyc.kb.client;
+
+/*
+ * #%L
+ * File: AbstractKbObjectFactoryServiceTest.java
+ * Project: KB Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the parts of AbstractKbObjectFactoryService which do not need a Cyc server.
+ */
+public class AbstractKbObjectFactoryServiceTest {
+
+  @Test
+  public void testResultsAreKeyedByInputs() {
+    final Map<String, Integer> results = new LinkedHashMap<String, Integer>();
+    results.put("Dog", 1);
+    results.put("#$Cat", 2);
+    final Map<String, Integer> byInput = AbstractKbObjectFactoryService.keyByInputs(
+            Arrays.asList("  Dog ", "Missing", "#$Cat", "Dog", "#$Cat"), results);
+    assertEquals(Arrays.asList("  Dog ", "#$Cat", "Dog"), new ArrayList<String>(byInput.keySet()));
+    assertEquals(Integer.valueOf(1), byInput.get("  Dog "));
+    assertEquals(Integer.valueOf(1), byInput.get("Dog"));
+    assertEquals(Integer.valueOf(2), byInput.get("#$Cat"));
+    assertNull(byInput.get("Missing"));
+  }
+}
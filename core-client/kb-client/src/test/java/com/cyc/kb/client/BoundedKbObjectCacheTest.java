@@ -0,0 +1,138 @@
+package com.cyc.kb.client;
+
+/*
+ * #%L
+ * File: BoundedKbObjectCacheTest.java
+ * Project: KB Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.baseclient.cycobject.CycConstantImpl;
+import com.cyc.baseclient.cycobject.GuidImpl;
+import java.util.Arrays;
+import java.util.UUID;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests the bounds, expiry and invalidation of BoundedKbObjectCache. These tests do not need a Cyc
+ * server.
+ */
+public class BoundedKbObjectCacheTest {
+
+  private static KbObjectImpl makeTerm(String name) {
+    return new KbObjectImpl(new CycConstantImpl(name, new GuidImpl(UUID.randomUUID())));
+  }
+
+  @Test
+  public void testWeightBoundEvictsUnreadKeys() {
+    final BoundedKbObjectCache cache = new BoundedKbObjectCache(4, 0);
+    for (int i = 0; i < 4; i++) {
+      cache.put("term" + i, KbObjectImpl.class, makeTerm("term" + i));
+    }
+    assertNotNull(cache.get("term0"));
+    cache.put("term4", KbObjectImpl.class, makeTerm("term4"));
+    assertEquals(4, cache.getWeight());
+    assertEquals(1, cache.getEvictionCount());
+    assertEquals(4, cache.size());
+    assertTrue(cache.containsKey("term0"));
+  }
+
+  @Test
+  public void testWeightCountsClasses() {
+    final BoundedKbObjectCache cache = new BoundedKbObjectCache(100, 0);
+    final KbObjectImpl term = makeTerm("Dog");
+    cache.put("Dog", KbObjectImpl.class, term);
+    cache.put("Dog", KbTermImpl.class, term);
+    assertEquals(1, cache.size());
+    assertEquals(2, cache.getWeight());
+    assertTrue(cache.remove("Dog"));
+    assertEquals(0, cache.getWeight());
+  }
+
+  @Test
+  public void testExpiry() throws InterruptedException {
+    final BoundedKbObjectCache cache = new BoundedKbObjectCache(100, 20);
+    cache.put("Dog", KbObjectImpl.class, makeTerm("Dog"));
+    assertNotNull(cache.get("Dog"));
+    Thread.sleep(50);
+    assertNull(cache.get("Dog"));
+    assertEquals(1, cache.getExpirationCount());
+    assertEquals(0, cache.getWeight());
+  }
+
+  @Test
+  public void testInvalidateTermDropsAllItsKeys() {
+    final BoundedKbObjectCache cache = new BoundedKbObjectCache(100, 0);
+    final KbObjectImpl dog = makeTerm("Dog");
+    cache.put("Dog", KbObjectImpl.class, dog);
+    cache.put("#$Dog", KbObjectImpl.class, dog);
+    cache.put("Cat", KbObjectImpl.class, makeTerm("Cat"));
+    assertEquals(2, cache.invalidate("#$Dog"));
+    assertFalse(cache.containsKey("Dog"));
+    assertTrue(cache.containsKey("Cat"));
+    assertEquals(2, cache.getInvalidationCount());
+  }
+
+  @Test
+  public void testInvalidateBeforeKbOperationNumber() {
+    final BoundedKbObjectCache cache = new BoundedKbObjectCache(100, 0);
+    cache.advanceKbOperationNumber(10);
+    cache.put("Dog", KbObjectImpl.class, makeTerm("Dog"));
+    cache.advanceKbOperationNumber(20);
+    cache.advanceKbOperationNumber(15);
+    assertEquals(20, cache.getKbOperationNumber());
+    cache.put("Cat", KbObjectImpl.class, makeTerm("Cat"));
+    assertEquals(1, cache.invalidateBefore(20));
+    assertFalse(cache.containsKey("Dog"));
+    assertTrue(cache.containsKey("Cat"));
+  }
+
+  @Test
+  public void testInvalidateChangedTermsBeforeKbOperationNumber() {
+    final BoundedKbObjectCache cache = new BoundedKbObjectCache(100, 0);
+    final KbObjectImpl dog = makeTerm("Dog");
+    final KbObjectImpl cat = makeTerm("Cat");
+    cache.advanceKbOperationNumber(10);
+    cache.put("Dog", KbObjectImpl.class, dog);
+    cache.put("#$Dog", KbObjectImpl.class, dog);
+    cache.put("Cat", KbObjectImpl.class, cat);
+    cache.advanceKbOperationNumber(20);
+    final KbObjectImpl fish = makeTerm("Fish");
+    cache.put("Fish", KbObjectImpl.class, fish);
+    assertEquals(2, cache.invalidateBefore(20, Arrays.asList(dog, fish)));
+    assertFalse(cache.containsKey("Dog"));
+    assertFalse(cache.containsKey("#$Dog"));
+    // not changed
+    assertTrue(cache.containsKey("Cat"));
+    // cached after the change
+    assertTrue(cache.containsKey("Fish"));
+  }
+
+  @Test
+  public void testEvictedKeysLeaveTheTermIndex() {
+    final BoundedKbObjectCache cache = new BoundedKbObjectCache(2, 0);
+    final KbObjectImpl dog = makeTerm("Dog");
+    cache.put("Dog", KbObjectImpl.class, dog);
+    cache.put("Cat", KbObjectImpl.class, makeTerm("Cat"));
+    cache.put("Fish", KbObjectImpl.class, makeTerm("Fish"));
+    assertEquals(1, cache.getEvictionCount());
+    cache.put("#$Dog", KbObjectImpl.class, dog);
+    assertEquals(cache.containsKey("Dog") ? 2 : 1, cache.invalidate(dog));
+    assertFalse(cache.containsKey("#$Dog"));
+  }
+}
@@ -24,6 +24,8 @@ package com.cyc.kb.client;
 import com.cyc.base.CycAccess;
 import com.cyc.base.CycAccessManager;
 import com.cyc.base.cycobject.CycAssertion;
+import com.cyc.base.cycobject.CycList;
+import com.cyc.base.cycobject.CycObject;
 import com.cyc.base.cycobject.ElMt;
 import com.cyc.base.cycobject.FormulaSentence;
 import com.cyc.base.cycobject.Nart;
@@ -35,10 +37,12 @@ import com.cyc.kb.Context;
 import com.cyc.kb.KbIndividual;
 import com.cyc.kb.KbObject;
 import com.cyc.kb.exception.KbException;
+import com.cyc.kb.exception.KbObjectNotFoundException;
 import com.cyc.session.exception.SessionException;
 
 import java.io.IOException;
 import java.net.UnknownHostException;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import org.junit.AfterClass;
@@ -113,5 +117,48 @@ public class KbObjectFactoryTest {
 
   }
 
+  @Test
+  public void testGetAllForMatchesGet() throws Exception {
+    CycAccess cyc = CycAccessManager.getCurrentAccess();
+    CycList specs = cyc.getLookupTool().getAllSpecs(cyc.getLookupTool().getKnownConstantByName("Dog"));
+    KbObjectFactory.clearKBObjectCache();
+    Map<CycObject, KbCollectionImpl> all = KbObjectFactory.getAllFor(specs, KbCollectionImpl.class);
+    assertEquals(specs.size(), all.size());
+    for (Object spec : specs) {
+      KbCollectionImpl c = KbCollectionImpl.get((CycObject) spec);
+      assertSame("Didn't get the same object for " + spec + " in bulk and one at a time", c, all.get(spec));
+    }
+  }
+
+  @Test
+  public void testUnknownNameIsRemembered() throws Exception {
+    final String name = "NoSuchTermForKbObjectFactoryTest";
+    KbObjectFactory.clearKBObjectCache();
+    for (int i = 0; i < 2; i++) {
+      try {
+        KbIndividualImpl.get(name);
+        fail("Found " + name);
+      } catch (KbObjectNotFoundException ex) {
+        // expected, the second time from the negative cache
+      }
+    }
+    KbObjectFactory.invalidate(name);
+    try {
+      KbIndividualImpl.get(name);
+      fail("Found " + name);
+    } catch (KbObjectNotFoundException ex) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testGetByHlidMatchesGetByName() throws Exception {
+    KbObjectFactory.clearKBObjectCache();
+    KbCollectionImpl byName = KbCollectionImpl.get("Dog");
+    KbObjectFactory.clearKBObjectCache();
+    KbCollectionImpl byHlid = KbCollectionImpl.get(byName.getId());
+    assertEquals(byName.getCore(), byHlid.getCore());
+    assertEquals(byName.getClass(), byHlid.getClass());
+  }
 
 }
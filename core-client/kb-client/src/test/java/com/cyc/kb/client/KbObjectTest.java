@@ -344,6 +344,24 @@ public class KbObjectTest {
     System.out.println("TheList: " + list);
     assertEquals(inputList, list.iterator().next());
   }
+
+  @Test
+  public void testPagedValues() throws Exception {
+    KbCollectionImpl dog = KbCollectionImpl.get("Dog");
+    KbPredicateImpl isa = KbPredicateImpl.get("isa");
+    ContextImpl ctx = ContextImpl.get("InferencePSC");
+    Collection<Object> all = dog.getValues(isa, 2, 1, ctx);
+    List<Object> firstPage = dog.getValues(isa, 2, 1, ctx, 0, 2);
+    assertTrue(firstPage.size() <= 2);
+    assertTrue(all.containsAll(firstPage));
+    List<Object> iterated = new ArrayList<Object>();
+    for (Iterator<Object> values = dog.iterateValues(isa, 2, 1, ctx, 2); values.hasNext();) {
+      iterated.add(values.next());
+    }
+    assertEquals(all.size(), iterated.size());
+    assertEquals(all, new HashSet<Object>(iterated));
+    assertEquals(firstPage, iterated.subList(0, firstPage.size()));
+  }
   
   @Test
   public void testQuotedIsa() throws KbException {
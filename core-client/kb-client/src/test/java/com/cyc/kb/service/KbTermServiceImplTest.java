@@ -51,7 +51,10 @@ import com.cyc.kb.exception.KbTypeException;
 import com.cyc.kb.service.examples.ServiceTestExamplesInKb;
 import static com.cyc.kb.service.examples.ServiceTestUtils.TEST_ITERATOR;
 import static com.cyc.kb.service.examples.ServiceTestUtils.trimString;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -181,6 +184,45 @@ public class KbTermServiceImplTest {
     assertEquals(expResult, result);
   }
 
+  /**
+   * Test of getAll method, of class KbTermServiceImplTest.
+   */
+  @Test
+  public void testGetAll() throws Exception {
+    System.out.println("getAll");
+    final List<String> names = Arrays.asList("SomeAirlineLogMt", constraintColStr, nameOrId, "#$Dog");
+    final Map<String, KbTermImpl> result = instance.getAll(names);
+    assertEquals(Arrays.asList("SomeAirlineLogMt", constraintColStr, "#$Dog"),
+            new ArrayList<String>(result.keySet()));
+    for (String name : result.keySet()) {
+      assertEquals(KbTermImpl.get(name), result.get(name));
+    }
+  }
+
+  /**
+   * Test that getAll keys its results by the names as they were given, padding and all.
+   */
+  @Test
+  public void testGetAllPaddedName() throws Exception {
+    System.out.println("getAll padded");
+    final String padded = "  " + constraintColStr + " ";
+    final Map<String, KbTermImpl> result = instance.getAll(Arrays.asList(padded, "#$Dog"));
+    assertEquals(Arrays.asList(padded, "#$Dog"), new ArrayList<String>(result.keySet()));
+    assertEquals(KbTermImpl.get(constraintColStr), result.get(padded));
+  }
+
+  /**
+   * Test of findOrCreateAll method, of class KbTermServiceImplTest.
+   */
+  @Test
+  public void testFindOrCreateAll() throws Exception {
+    System.out.println("findOrCreateAll");
+    final Map<String, KbTermImpl> result = instance.findOrCreateAll(Arrays.asList(constraintColStr, nameOrId));
+    assertEquals(2, result.size());
+    assertEquals(KbTermImpl.get(constraintColStr), result.get(constraintColStr));
+    assertEquals(KbTermImpl.get(nameOrId), result.get(nameOrId));
+  }
+
   /**
    * Test of getStatus method, of class KbTermServiceImplTest.
    */
@@ -25,8 +25,12 @@ import static com.cyc.baseclient.connection.SublApiHelper.makeSubLStmt;
 
 import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.xml.bind.JAXBException;
 
@@ -34,6 +38,7 @@ import com.cyc.base.CycAccess;
 import com.cyc.base.CycAccessSession;
 import com.cyc.base.exception.CycApiException;
 import com.cyc.base.exception.CycConnectionException;
+import com.cyc.base.cycobject.CycList;
 import com.cyc.base.cycobject.CycObject;
 import com.cyc.base.cycobject.CycSymbol;
 import com.cyc.base.cycobject.DenotationalTerm;
@@ -44,6 +49,8 @@ import com.cyc.query.InferenceIdentifier;
 import com.cyc.base.justification.Justification;
 import com.cyc.baseclient.CycObjectFactory;
 import com.cyc.baseclient.connection.SublApiHelper;
+import com.cyc.baseclient.connection.SublApiHelper.AsIsTerm;
+import com.cyc.baseclient.util.LruCache;
 import com.cyc.baseclient.xml.cycml.CycmlDecoder;
 import com.cyc.baseclient.xml.cycml.Paraphrase;
 import com.cyc.query.QueryAnswer;
@@ -67,6 +74,10 @@ import com.cyc.xml.query.SubEntries;
  * can get its root note (via {@link #getRoot()}), and display it as an
  * interactive tree structure.
  *
+ * <p>Each of those steps is a round trip to Cyc. To create, configure and
+ * populate justifications in one round trip, for one answer or a batch of
+ * them, use a {@link Builder} instead.
+ *
  * @author baxter
  */
 public class ProofViewJustification implements Justification {
@@ -103,6 +114,38 @@ public class ProofViewJustification implements Justification {
     }
   }
   
+  /**
+   * Create a justification that Cyc has already configured and populated, with
+   * its proof view already fetched.
+   */
+  private ProofViewJustification(final QueryAnswer answer, final CycAccess cyc,
+          final int proofViewId, final Options options, final String xml) {
+    this.answer = answer;
+    this.cyc = cyc;
+    this.proofViewId = proofViewId;
+    this.domainMt = options.domainMt;
+    this.languageMt = options.languageMt;
+    this.includeDetails = options.includeDetails;
+    this.includeLinear = options.includeLinear;
+    this.includeSummary = options.includeSummary;
+    this.richCycl = options.richCycl;
+    this.suppressAssertionBookkeeping = options.suppressAssertionBookkeeping;
+    this.suppressAssertionCyclists = options.suppressAssertionCyclists;
+    if (options.summaryAlgorithm != null) {
+      this.summaryAlgorithm = options.summaryAlgorithm;
+    }
+    this.addressee = options.addressee;
+    this.isPopulated = true;
+    try {
+      this.proofViewUnmarshaller = new ProofViewUnmarshaller();
+      this.proofView = proofViewUnmarshaller.unmarshalProofview(
+              new ByteArrayInputStream(xml.getBytes()));
+    } catch (JAXBException ex) {
+      throw new RuntimeException("Failed to get root of proof view.", ex);
+    }
+    this.root = new ProofViewEntryNode(proofView.getProofViewEntry());
+  }
+  
   @Override
   public InferenceAnswer getAnswer() {
     throw new UnsupportedOperationException("Use getQueryAnswer() instead.");
@@ -395,7 +438,7 @@ public class ProofViewJustification implements Justification {
     return root;
   }
 
-  private String requireNamespace(String command) {
+  private static String requireNamespace(String command) {
     return SublApiHelper.wrapVariableBinding(
             command, makeCycSymbol("*proof-view-include-namespace?*"),
             makeCycSymbol("T"));
@@ -569,6 +612,422 @@ public class ProofViewJustification implements Justification {
     }
   }
 
+  /**
+   * Creates, configures and populates proof-view justifications in one round
+   * trip to Cyc, for a single answer or a batch of answers. The proof view of
+   * each justification is fetched in the same round trip.
+   *
+   * <p>Only options that are set on the builder are sent to Cyc; the others
+   * keep Cyc's defaults. A builder may optionally keep the justifications it
+   * builds, keyed by inference answer and options, and return them again for
+   * answers it has already justified with the same options.
+   *
+   * <p>A builder may be shared between threads. Each build uses the options
+   * that were set when it started.
+   */
+  public static class Builder {
+
+    /**
+     * Construct a new builder with Cyc's default options and no cache.
+     */
+    public Builder() {
+    }
+
+    /**
+     * @param domainMt the microtheory from which semantic checks are performed
+     * @return this builder
+     * @see ProofViewJustification#setDomainMt(ElMt)
+     */
+    public synchronized Builder setDomainMt(final ElMt domainMt) {
+      this.domainMt = domainMt;
+      return this;
+    }
+
+    /**
+     * @param languageMt the microtheory used for natural-language generation
+     * @return this builder
+     * @see ProofViewJustification#setLanguageMt(ElMt)
+     */
+    public synchronized Builder setLanguageMt(final ElMt languageMt) {
+      this.languageMt = languageMt;
+      return this;
+    }
+
+    /**
+     * @param includeDetails whether to include a details section
+     * @return this builder
+     * @see ProofViewJustification#setIncludeDetails(boolean)
+     */
+    public synchronized Builder setIncludeDetails(final boolean includeDetails) {
+      this.includeDetails = includeDetails;
+      return this;
+    }
+
+    /**
+     * @param includeLinear whether to include a linear section
+     * @return this builder
+     * @see ProofViewJustification#setIncludeLinear(boolean)
+     */
+    public synchronized Builder setIncludeLinear(final boolean includeLinear) {
+      this.includeLinear = includeLinear;
+      return this;
+    }
+
+    /**
+     * @param includeSummary whether to include a summary section
+     * @return this builder
+     * @see ProofViewJustification#setIncludeSummary(boolean)
+     */
+    public synchronized Builder setIncludeSummary(final boolean includeSummary) {
+      this.includeSummary = includeSummary;
+      return this;
+    }
+
+    /**
+     * @param richCycl whether to include rich CycL objects
+     * @return this builder
+     * @see ProofViewJustification#setRichCycLContent(boolean)
+     */
+    public synchronized Builder setRichCycLContent(final boolean richCycl) {
+      this.richCycl = richCycl;
+      return this;
+    }
+
+    /**
+     * @param suppressAssertionBookkeeping whether to leave out bookkeeping nodes
+     * @return this builder
+     * @see ProofViewJustification#setSuppressAssertionBookkeeping(boolean)
+     */
+    public synchronized Builder setSuppressAssertionBookkeeping(final boolean suppressAssertionBookkeeping) {
+      this.suppressAssertionBookkeeping = suppressAssertionBookkeeping;
+      return this;
+    }
+
+    /**
+     * @param suppressAssertionCyclists whether to leave out cyclists
+     * @return this builder
+     * @see ProofViewJustification#setSuppressAssertionCyclists(boolean)
+     */
+    public synchronized Builder setSuppressAssertionCyclists(final boolean suppressAssertionCyclists) {
+      this.suppressAssertionCyclists = suppressAssertionCyclists;
+      return this;
+    }
+
+    /**
+     * @param algorithm the summary algorithm
+     * @return this builder
+     * @see ProofViewJustification#setSummaryAlgorithm(SummaryAlgorithm)
+     */
+    public synchronized Builder setSummaryAlgorithm(final SummaryAlgorithm algorithm) {
+      this.summaryAlgorithm = algorithm;
+      return this;
+    }
+
+    /**
+     * @param addressee the addressee
+     * @return this builder
+     * @see ProofViewJustification#setAddressee(DenotationalTerm)
+     */
+    public synchronized Builder setAddressee(final DenotationalTerm addressee) {
+      this.addressee = addressee;
+      return this;
+    }
+
+    /**
+     * Keep up to maxSize of the justifications built by this builder, keyed by
+     * inference answer and options, and return them again instead of asking
+     * Cyc. A size of zero, the default, keeps none.
+     *
+     * @param maxSize the most justifications to keep
+     * @return this builder
+     */
+    public Builder setCacheSize(final int maxSize) {
+      synchronized (this) {
+        this.cache = (maxSize > 0)
+                ? new LruCache<AnswerKey, ProofViewJustification>(Math.min(maxSize, 64), maxSize)
+                : null;
+      }
+      return this;
+    }
+
+    /**
+     * Forget any justifications kept by this builder.
+     */
+    public void clearCache() {
+      final Map<AnswerKey, ProofViewJustification> currentCache = getCache();
+      if (currentCache != null) {
+        currentCache.clear();
+      }
+    }
+
+    /**
+     * Create, configure and populate a justification for one answer.
+     *
+     * @param answer
+     * @return the populated justification
+     * @throws SessionCommunicationException if there is a problem talking to Cyc.
+     * @throws OpenCycUnsupportedFeatureException when run against an OpenCyc server.
+     */
+    public ProofViewJustification build(final QueryAnswer answer)
+            throws SessionCommunicationException, OpenCycUnsupportedFeatureException {
+      return buildAll(Collections.singletonList(answer)).get(0);
+    }
+
+    /**
+     * Create, configure and populate justifications for a batch of answers,
+     * with one round trip to each Cyc server the answers come from.
+     *
+     * @param answers
+     * @return the populated justifications, in the same order as answers
+     * @throws SessionCommunicationException if there is a problem talking to Cyc.
+     * @throws OpenCycUnsupportedFeatureException when run against an OpenCyc server.
+     */
+    public List<ProofViewJustification> buildAll(final Collection<? extends QueryAnswer> answers)
+            throws SessionCommunicationException, OpenCycUnsupportedFeatureException {
+      PROOF_VIEW_JUSTIFICATION_REQUIREMENTS.throwRuntimeExceptionIfIncompatible();
+      final Map<AnswerKey, ProofViewJustification> currentCache = getCache();
+      final Options options = getOptions();
+      final Map<AnswerKey, ProofViewJustification> results
+              = new LinkedHashMap<AnswerKey, ProofViewJustification>();
+      final Map<CycAccess, Map<AnswerKey, QueryAnswer>> toBuild
+              = new LinkedHashMap<CycAccess, Map<AnswerKey, QueryAnswer>>();
+      final List<AnswerKey> keys = new ArrayList<AnswerKey>(answers.size());
+      for (final QueryAnswer answer : answers) {
+        final AnswerKey key = new AnswerKey(answer, options);
+        keys.add(key);
+        if (results.containsKey(key)) {
+          continue;
+        }
+        final ProofViewJustification cached = (currentCache == null) ? null : currentCache.get(key);
+        results.put(key, cached);
+        if (cached == null) {
+          Map<AnswerKey, QueryAnswer> serverAnswers = toBuild.get(key.cyc);
+          if (serverAnswers == null) {
+            serverAnswers = new LinkedHashMap<AnswerKey, QueryAnswer>();
+            toBuild.put(key.cyc, serverAnswers);
+          }
+          serverAnswers.put(key, answer);
+        }
+      }
+      for (final Map.Entry<CycAccess, Map<AnswerKey, QueryAnswer>> server : toBuild.entrySet()) {
+        build(server.getKey(), server.getValue(), results);
+      }
+      if (currentCache != null) {
+        for (final Map<AnswerKey, QueryAnswer> serverAnswers : toBuild.values()) {
+          for (final AnswerKey key : serverAnswers.keySet()) {
+            currentCache.put(key, results.get(key));
+          }
+        }
+      }
+      final List<ProofViewJustification> justifications
+              = new ArrayList<ProofViewJustification>(keys.size());
+      for (final AnswerKey key : keys) {
+        justifications.add(results.get(key));
+      }
+      return justifications;
+    }
+
+    private void build(final CycAccess cyc, final Map<AnswerKey, QueryAnswer> answers,
+            final Map<AnswerKey, ProofViewJustification> results) throws SessionCommunicationException {
+      final List<Object> forms = new ArrayList<Object>(answers.size());
+      for (final AnswerKey key : answers.keySet()) {
+        forms.add(new AsIsTerm(key.options.makeCommand(
+                key.problemStoreId, key.inferenceId, key.answerId)));
+      }
+      final CycList response;
+      try {
+        response = cyc.converse().converseList(requireNamespace(
+                makeSubLStmt("list", forms.toArray())));
+      } catch (CycConnectionException ex) {
+        throw new SessionCommunicationException(ex);
+      } catch (CycApiException ex) {
+        throw new QueryRuntimeException(ex);
+      }
+      int i = 0;
+      for (final Map.Entry<AnswerKey, QueryAnswer> entry : answers.entrySet()) {
+        final List<?> idAndXml = (List<?>) response.get(i++);
+        final int proofViewId = ((Number) idAndXml.get(0)).intValue();
+        final String xml = (String) idAndXml.get(1);
+        results.put(entry.getKey(), new ProofViewJustification(
+                entry.getValue(), cyc, proofViewId, entry.getKey().options, xml));
+      }
+    }
+
+    /**
+     * Make the SubL form that creates, configures and populates the proof view
+     * for one answer with the current options, and returns its id and XML.
+     */
+    String makeCommand(final int problemStoreId, final int inferenceId, final int answerId) {
+      return getOptions().makeCommand(problemStoreId, inferenceId, answerId);
+    }
+
+    /**
+     * Get a snapshot of the options currently set on this builder.
+     */
+    synchronized Options getOptions() {
+      return new Options(this);
+    }
+
+    private synchronized Map<AnswerKey, ProofViewJustification> getCache() {
+      return cache;
+    }
+
+    private ElMt domainMt = null;
+    private ElMt languageMt = null;
+    private Boolean includeDetails = null;
+    private Boolean includeLinear = null;
+    private Boolean includeSummary = null;
+    private Boolean richCycl = null;
+    private Boolean suppressAssertionBookkeeping = null;
+    private Boolean suppressAssertionCyclists = null;
+    private SummaryAlgorithm summaryAlgorithm = null;
+    private DenotationalTerm addressee = null;
+    private Map<AnswerKey, ProofViewJustification> cache = null;
+  }
+
+  /**
+   * The options of a {@link Builder}, as they were when a build started.
+   */
+  static final class Options {
+
+    private Options(final Builder builder) {
+      this.domainMt = builder.domainMt;
+      this.languageMt = builder.languageMt;
+      this.includeDetails = builder.includeDetails;
+      this.includeLinear = builder.includeLinear;
+      this.includeSummary = builder.includeSummary;
+      this.richCycl = builder.richCycl;
+      this.suppressAssertionBookkeeping = builder.suppressAssertionBookkeeping;
+      this.suppressAssertionCyclists = builder.suppressAssertionCyclists;
+      this.summaryAlgorithm = builder.summaryAlgorithm;
+      this.addressee = builder.addressee;
+    }
+
+    /**
+     * Make the SubL form that creates, configures and populates the proof view
+     * for one answer, and returns its id and XML.
+     */
+    private String makeCommand(final int problemStoreId, final int inferenceId, final int answerId) {
+      final AsIsTerm id = new AsIsTerm(ID_VARIABLE);
+      final StringBuilder command = new StringBuilder("(clet ((");
+      command.append(ID_VARIABLE).append(" ").append(makeSubLStmt(
+              "get-new-empty-proof-view-id", problemStoreId, inferenceId, answerId));
+      command.append("))");
+      if (domainMt != null) {
+        command.append(" ").append(makeSubLStmt("set-proof-view-domain-mt", id, domainMt));
+      }
+      if (languageMt != null) {
+        command.append(" ").append(makeSubLStmt("set-proof-view-language-mt", id, languageMt));
+      }
+      if (includeDetails != null) {
+        command.append(" ").append(makeSubLStmt("set-proof-view-include-details", id, includeDetails));
+      }
+      if (includeLinear != null) {
+        command.append(" ").append(makeSubLStmt("set-proof-view-include-linear", id, includeLinear));
+      }
+      if (includeSummary != null) {
+        command.append(" ").append(makeSubLStmt("set-proof-view-include-summary", id, includeSummary));
+      }
+      if (richCycl != null) {
+        command.append(" ").append(makeSubLStmt("set-proof-view-include-cycml", id, richCycl));
+      }
+      if (suppressAssertionBookkeeping != null) {
+        command.append(" ").append(makeSubLStmt(
+                "set-proof-view-suppress-assertion-bookkeeping", id, suppressAssertionBookkeeping));
+      }
+      if (suppressAssertionCyclists != null) {
+        command.append(" ").append(makeSubLStmt(
+                "set-proof-view-suppress-assertion-cyclists", id, suppressAssertionCyclists));
+      }
+      if (summaryAlgorithm != null) {
+        command.append(" ").append(makeSubLStmt(
+                "set-proof-view-summary-algorithm", id, summaryAlgorithm.getCycName()));
+      }
+      if (addressee != null) {
+        command.append(" ").append(makeSubLStmt("set-proof-view-addressee", id, addressee));
+      }
+      command.append(" ").append(makeSubLStmt("proof-view-id-populate", id));
+      command.append(" ").append(makeSubLStmt("list", id, new AsIsTerm(
+              makeSubLStmt("proof-view-xml", id))));
+      return command.append(")").toString();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (!(obj instanceof Options)) {
+        return false;
+      }
+      final Options other = (Options) obj;
+      return Arrays.equals(values(), other.values());
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(values());
+    }
+
+    private Object[] values() {
+      return new Object[]{domainMt, languageMt, includeDetails, includeLinear, includeSummary,
+        richCycl, suppressAssertionBookkeeping, suppressAssertionCyclists, summaryAlgorithm,
+        addressee};
+    }
+
+    private static final String ID_VARIABLE = "proof-view-id";
+    private final ElMt domainMt;
+    private final ElMt languageMt;
+    private final Boolean includeDetails;
+    private final Boolean includeLinear;
+    private final Boolean includeSummary;
+    private final Boolean richCycl;
+    private final Boolean suppressAssertionBookkeeping;
+    private final Boolean suppressAssertionCyclists;
+    private final SummaryAlgorithm summaryAlgorithm;
+    private final DenotationalTerm addressee;
+  }
+
+  /**
+   * Identifies an inference answer on a particular Cyc server, justified with
+   * particular options.
+   */
+  private static class AnswerKey {
+
+    private AnswerKey(final QueryAnswer answer, final Options options) {
+      final InferenceAnswerIdentifier answerID = answer.getId();
+      final InferenceIdentifier inferenceID = answerID.getInferenceIdentifier();
+      this.cyc = ((CycAccessSession) (inferenceID.getSession())).getAccess();
+      this.problemStoreId = inferenceID.getProblemStoreId();
+      this.inferenceId = inferenceID.getInferenceId();
+      this.answerId = answerID.getAnswerId();
+      this.options = options;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (!(obj instanceof AnswerKey)) {
+        return false;
+      }
+      final AnswerKey other = (AnswerKey) obj;
+      return cyc == other.cyc && problemStoreId == other.problemStoreId
+              && inferenceId == other.inferenceId && answerId == other.answerId
+              && options.equals(other.options);
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = System.identityHashCode(cyc);
+      hash = 31 * hash + problemStoreId;
+      hash = 31 * hash + inferenceId;
+      hash = 31 * hash + answerId;
+      return 31 * hash + options.hashCode();
+    }
+
+    private final Options options;
+    private final CycAccess cyc;
+    private final int problemStoreId;
+    private final int inferenceId;
+    private final int answerId;
+  }
+
   private void requireNotPopulated() throws UnsupportedOperationException {
     if (isPopulated) {
       throw new UnsupportedOperationException(
@@ -625,6 +1084,9 @@ public class ProofViewJustification implements Justification {
       if (!isPopulated) {
         populate();
       }
+      if (proofView != null) {
+        return;
+      }
       try {
         final String xml = cyc.converse().converseString(requireNamespace(makeSubLStmt(
                 "proof-view-xml", proofViewId)));
@@ -1944,7 +1944,11 @@ public class QueryImpl implements Query, Closeable, InferenceParameterSetter, In
     private QueryWorker worker;
     private InferenceStatus inferenceStatus = InferenceStatus.NOT_STARTED;
     private InferenceIdentifier inferenceIdentifier = null;
-    private final List<Object> cycAnswers = new ArrayList<Object>();
+    /**
+     * The answers of the inference worker, which are added in place as they
+     * arrive rather than copied into a new result set for each batch.
+     */
+    private QueryResultSetImpl answers = null;
 
     private QueryInference() {}
 
@@ -1979,7 +1983,7 @@ public class QueryImpl implements Query, Closeable, InferenceParameterSetter, In
     @Override
     public void notifyInferenceAnswersAvailable(InferenceWorker inferenceWorker,
             List newAnswers) {
-      cycAnswers.addAll(newAnswers);
+      getAnswers().addAnswers(newAnswers);
     }
 
     /**
@@ -1990,6 +1994,7 @@ public class QueryImpl implements Query, Closeable, InferenceParameterSetter, In
     @Override
     public void notifyInferenceTerminated(InferenceWorker inferenceWorker,
             Exception e) {
+      getAnswers().setGrowing(false);
       if (isContinuingInference) {
         isContinuingInference = false;
         synchronized (continueInferenceLock) {
@@ -2058,15 +2063,19 @@ public class QueryImpl implements Query, Closeable, InferenceParameterSetter, In
           performInference();
         }
         if (rs == null) {
-          setResultSet(new QueryResultSetImpl(cycAnswers));
+          setResultSet(getAnswers());
         }
       }
-      if (rs.getCurrentRowCount() < cycAnswers.size()) {
-        setResultSet(new QueryResultSetImpl(cycAnswers));
-      }
       return rs;
     }
 
+    private synchronized QueryResultSetImpl getAnswers() {
+      if (answers == null) {
+        answers = new QueryResultSetImpl(new ArrayList<Object>(), true);
+      }
+      return answers;
+    }
+
     private QueryResultSet performInference() throws CycConnectionException {
 
       if (requiresInferenceWorker()) {
@@ -2091,6 +2100,7 @@ public class QueryImpl implements Query, Closeable, InferenceParameterSetter, In
       } else if (worker != null) {
         try {
           isContinuingInference = true;
+          getAnswers().setGrowing(true);
           worker.continueInference(params);
           synchronized (continueInferenceLock) {
             while (isContinuingInference) {
@@ -2130,7 +2140,9 @@ public class QueryImpl implements Query, Closeable, InferenceParameterSetter, In
       worker = null;
       inferenceStatus = InferenceStatus.NOT_STARTED;
       inferenceIdentifier = null;
-      cycAnswers.clear();
+      synchronized (this) {
+        answers = null;
+      }
     }
   }
 
@@ -78,6 +78,17 @@ public class QueryResultSetImpl implements QueryResultSet, Iterable<QueryAnswer>
     this.rs = new DefaultResultSet(results);
   }
 
+  /**
+   * Create a new KBInferenceResultSet from a list of results, to which the
+   * answers of a running inference are added as they arrive.
+   *
+   * @param results
+   * @param isGrowing whether more answers may be added
+   */
+  protected QueryResultSetImpl(List<Object> results, boolean isGrowing) {
+    this.rs = new DefaultResultSet(results, isGrowing);
+  }
+
   /**
    * Construct a new KBInferenceResultSet from an InferenceResultSet.
    *
@@ -266,11 +277,12 @@ public class QueryResultSetImpl implements QueryResultSet, Iterable<QueryAnswer>
   @Override
   public List<Variable> getColumns() {
     List<Variable> result = this.columns;
-    if (result == null) {
+    if ((result == null) || (result.size() < getColumnNames().size())) {
       // Double-checked locking, woohoo...
       synchronized (this) {
         result = this.columns;
-        if (result == null) {
+        // a growing result set may gain columns along with its rows
+        if ((result == null) || (result.size() < getColumnNames().size())) {
           try {
             result = new ArrayList();
             for (String name : getColumnNames()) {
@@ -300,6 +312,63 @@ public class QueryResultSetImpl implements QueryResultSet, Iterable<QueryAnswer>
     return rs.isInferenceComplete();
   }
 
+  /**
+   * Waits until this result set has at least <code>rowCount</code> rows, until
+   * its inference stops producing answers, or until the timeout elapses. Rows
+   * are added in place as answers arrive, so a consumer can read each row once
+   * with {@link #next()} and then wait for more.
+   *
+   * @param rowCount the number of rows to wait for
+   * @param timeoutMillis the maximum time to wait, or zero to wait without
+   * limit
+   * @return <code>true</code> if this result set has at least
+   * <code>rowCount</code> rows
+   * @throws InterruptedException if the calling thread is interrupted while
+   * waiting
+   */
+  public boolean awaitRows(int rowCount, long timeoutMillis) throws InterruptedException {
+    if (rs instanceof DefaultResultSet) {
+      return ((DefaultResultSet) rs).awaitRows(rowCount, timeoutMillis);
+    }
+    return rs.getCurrentRowCount() >= rowCount;
+  }
+
+  /**
+   * Runs a callback once this result set has at least <code>rowCount</code>
+   * rows, or once its inference stops producing answers. The callback may run
+   * on the thread which receives the answers, so it should be quick.
+   *
+   * @param rowCount the number of rows to wait for
+   * @param callback the callback
+   */
+  public void notifyWhenRows(int rowCount, Runnable callback) {
+    if (rs instanceof DefaultResultSet) {
+      ((DefaultResultSet) rs).notifyWhenRows(rowCount, callback);
+    } else {
+      callback.run();
+    }
+  }
+
+  /**
+   * Adds answers which have arrived since this result set was created.
+   *
+   * @param answers the answers, as returned by "new-cyc-query"
+   */
+  void addAnswers(List<Object> answers) {
+    ((DefaultResultSet) rs).addResults(answers);
+  }
+
+  /**
+   * Sets whether more answers may be added to this result set.
+   *
+   * @param isGrowing whether more answers may be added
+   */
+  void setGrowing(boolean isGrowing) {
+    if (rs instanceof DefaultResultSet) {
+      ((DefaultResultSet) rs).setGrowing(isGrowing);
+    }
+  }
+
   /**
    * Releases this <code>QueryResultSetImpl</code> object's server side
    * inference resources. Failure to close a result set may leave significant
@@ -22,14 +22,12 @@ package com.cyc.xml.query;
  */
 
 import java.io.InputStream;
-import java.net.URL;
-import javax.xml.XMLConstants;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.validation.SchemaFactory;
 import com.cyc.baseclient.xml.cycml.CycmlDecoder;
 
 import com.cyc.baseclient.xml.Constants;
+import com.cyc.baseclient.xml.JaxbCache;
+import com.cyc.baseclient.xml.UnmarshallerPool;
 
 /**
  *
@@ -37,7 +35,7 @@ import com.cyc.baseclient.xml.Constants;
  */
 public class FormulaTemplateUnmarshaller {
 
-  private final javax.xml.bind.Unmarshaller unmarshaller;
+  private final UnmarshallerPool unmarshallers;
   public static final String XSD_URI = Constants.XSD_HOME + "/formulatemplate.xsd";
   private boolean shouldValidate = true;
 
@@ -45,19 +43,11 @@ public class FormulaTemplateUnmarshaller {
     final String packages = CycmlDecoder.class.getPackage().getName()
             + ":" + CyclQueryUnmarshaller.class.getPackage().getName() + ":" 
             + this.getClass().getPackage().getName();
-    this.unmarshaller = JAXBContext.newInstance(packages).createUnmarshaller();
-    if (shouldValidate) {
-      try {
-        unmarshaller.setSchema(SchemaFactory.newInstance(
-                XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(
-                new URL(XSD_URI)));
-      } catch (Exception e) {
-        e.printStackTrace();
-      }
-    }
+    this.unmarshallers = JaxbCache.getUnmarshallerPool(packages,
+            shouldValidate ? XSD_URI : null);
   }
 
   public Object unmarshal(final InputStream stream) throws JAXBException {
-    return unmarshaller.unmarshal(stream);
+    return unmarshallers.unmarshal(stream);
   }
 }
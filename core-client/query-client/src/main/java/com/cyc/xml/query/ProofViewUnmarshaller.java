@@ -22,61 +22,197 @@ package com.cyc.xml.query;
  */
 
 import java.io.InputStream;
-import java.net.URL;
+import java.math.BigInteger;
 
-import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
-import javax.xml.validation.SchemaFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 //import org.opencyc.xml.Constants;
 import com.cyc.baseclient.xml.Constants;
+import com.cyc.baseclient.xml.JaxbCache;
+import com.cyc.baseclient.xml.UnmarshallerPool;
 import com.cyc.baseclient.xml.cycml.CycmlDecoder;
-import org.xml.sax.SAXParseException;
+import com.cyc.baseclient.xml.cycml.Paraphrase;
+import static com.cyc.xml.query.Constants.PROOFVIEW_NAMESPACE;
 
 /**
  * A class to read in proof views encoded in XML.
  *
+ * <p>The JAXB context, schema and unmarshallers are shared process-wide, so
+ * constructing an unmarshaller is cheap and one instance may be used from
+ * several threads at once.
+ *
  * @author baxter
  */
 public class ProofViewUnmarshaller {
 
   public static final String XSD_URI = Constants.XSD_HOME + "/proofview.xsd";
   private boolean shouldValidate = true;
-  private final javax.xml.bind.Unmarshaller unmarshaller;
+  private final UnmarshallerPool unmarshallers;
 
   public ProofViewUnmarshaller() throws JAXBException {
-    JAXBContext jaxbContext = getJaxbContext();
-    this.unmarshaller = jaxbContext.createUnmarshaller();
-    if (shouldValidate) {
-      try {
-        unmarshaller.setSchema(SchemaFactory.newInstance(
-                XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(
-                new URL(XSD_URI)));
-      } catch (SAXParseException e) {
-        // Means file wasn't found.
-      } catch (Exception e) {
-        e.printStackTrace();
-      }
-    }
+    this.unmarshallers = JaxbCache.getUnmarshallerPool(getContextPath(),
+            shouldValidate ? XSD_URI : null);
   }
 
   public ProofView unmarshalProofview(final InputStream stream) throws JAXBException {
-    synchronized (unmarshaller) {
-      return (ProofView) unmarshaller.unmarshal(stream);
-    }
+    return (ProofView) unmarshallers.unmarshal(stream);
   }
 
   public ProofViewEntry unmarshalEntry(final InputStream stream) throws JAXBException {
-    synchronized (unmarshaller) {
-      return (ProofViewEntry) unmarshaller.unmarshal(stream);
+    return (ProofViewEntry) unmarshallers.unmarshal(stream);
+  }
+
+  /**
+   * Receives proof-view entries as a proof view is streamed.
+   *
+   * @see ProofViewUnmarshaller#streamEntries(InputStream, EntryHandler)
+   */
+  public interface EntryHandler {
+
+    /**
+     * Handle one entry. The entry has no sub-entries; they are handled next,
+     * depth first.
+     *
+     * @param entry the entry
+     * @param parent the entry's parent, or null for the top entry
+     * @param depth the entry's depth, 0 for the top entry
+     */
+    void handleEntry(ProofViewEntry entry, ProofViewEntry parent, int depth);
+  }
+
+  /**
+   * Read a proof view, or a single proof-view entry, from a stream, handing
+   * each entry to a handler as it is read instead of building the whole tree.
+   * Only the parts of an entry other than its sub-entries (paraphrase, CycL,
+   * content) are unmarshalled, so memory use is bounded by the depth of the
+   * proof view rather than its size.
+   *
+   * <p>Entries are handed over before their sub-entries, when the sub-entries
+   * start; any parts of an entry that follow its sub-entries in the document
+   * are filled in after the entry has been handled.
+   *
+   * @param stream
+   * @param handler
+   * @return the id of the proof view, or null if the stream held a single entry
+   * @throws JAXBException if the stream is not a well-formed proof view
+   */
+  public BigInteger streamEntries(final InputStream stream, final EntryHandler handler)
+          throws JAXBException {
+    try {
+      final XMLStreamReader reader = JaxbCache.createXmlStreamReader(stream);
+      try {
+        reader.nextTag();
+        BigInteger proofViewId = null;
+        if (isProofViewElement(reader, PROOF_VIEW)) {
+          proofViewId = new BigInteger(reader.getAttributeValue(null, "id"));
+          reader.nextTag();
+        }
+        streamEntry(reader, null, 0, handler);
+        return proofViewId;
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      throw new JAXBException(e);
     }
   }
 
   static JAXBContext getJaxbContext() throws JAXBException {
-    final String packages = CycmlDecoder.class.getPackage().getName() + ":"
+    return JaxbCache.getContext(getContextPath());
+  }
+
+  private static String getContextPath() {
+    return CycmlDecoder.class.getPackage().getName() + ":"
             + ProofViewUnmarshaller.class.getPackage().getName();
-    final JAXBContext jaxbContext = JAXBContext.newInstance(packages);
-    return jaxbContext;
   }
+
+  /**
+   * Read the entry at the reader's cursor, leaving the cursor on its end tag.
+   */
+  private void streamEntry(final XMLStreamReader reader, final ProofViewEntry parent,
+          final int depth, final EntryHandler handler) throws XMLStreamException, JAXBException {
+    if (!isProofViewElement(reader, PROOF_VIEW_ENTRY)) {
+      throw new JAXBException("Expected " + PROOF_VIEW_ENTRY + " but found " + reader.getName());
+    }
+    final ProofViewEntry entry = new ProofViewEntry();
+    entry.setId(new BigInteger(reader.getAttributeValue(null, "id")));
+    final String expandInitially = reader.getAttributeValue(null, "expand-initially");
+    if (expandInitially != null) {
+      entry.setExpandInitially(parseBoolean(expandInitially));
+    }
+    entry.setLabel(reader.getAttributeValue(null, "label"));
+    entry.setObjectType(reader.getAttributeValue(null, "object-type"));
+    final String abducedSupport = reader.getAttributeValue(null, "abduced-support");
+    if (abducedSupport != null) {
+      entry.setAbducedSupport(parseBoolean(abducedSupport));
+    }
+    boolean handled = false;
+    int event = reader.nextTag();
+    while (event == XMLStreamConstants.START_ELEMENT) {
+      if (isProofViewElement(reader, SUB_ENTRIES)) {
+        if (!handled) {
+          handler.handleEntry(entry, parent, depth);
+          handled = true;
+        }
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+          streamEntry(reader, entry, depth + 1, handler);
+        }
+        event = reader.nextTag();
+      } else {
+        setPart(entry, unmarshallers.unmarshal(reader));
+        event = skipToTag(reader);
+      }
+    }
+    if (!handled) {
+      handler.handleEntry(entry, parent, depth);
+    }
+  }
+
+  private static void setPart(final ProofViewEntry entry, final Object part) {
+    if (part instanceof Paraphrase) {
+      entry.setParaphrase((Paraphrase) part);
+    } else if (part instanceof Content) {
+      entry.setContent((Content) part);
+    } else if (part instanceof JAXBElement) {
+      final JAXBElement elt = (JAXBElement) part;
+      final String name = elt.getName().getLocalPart();
+      if ("cycl".equals(name)) {
+        entry.setCycl((String) elt.getValue());
+      } else if ("silk".equals(name)) {
+        entry.setSilk((String) elt.getValue());
+      }
+    }
+  }
+
+  /**
+   * Advance past whitespace, comments and the like to the next start or end tag.
+   */
+  private static int skipToTag(final XMLStreamReader reader) throws XMLStreamException {
+    int event = reader.getEventType();
+    while (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+      if (event == XMLStreamConstants.END_DOCUMENT) {
+        throw new XMLStreamException("Unexpected end of proof view.");
+      }
+      event = reader.next();
+    }
+    return event;
+  }
+
+  private static boolean isProofViewElement(final XMLStreamReader reader, final String name) {
+    return reader.isStartElement() && name.equals(reader.getLocalName())
+            && PROOFVIEW_NAMESPACE.equals(reader.getNamespaceURI());
+  }
+
+  private static Boolean parseBoolean(final String value) {
+    return "true".equals(value) || "1".equals(value);
+  }
+
+  private static final String PROOF_VIEW = "proof-view";
+  private static final String PROOF_VIEW_ENTRY = "proof-view-entry";
+  private static final String SUB_ENTRIES = "sub-entries";
 }
@@ -0,0 +1,75 @@
+package com.cyc.km.query.answer.justification;
+
+/*
+ * #%L
+ * File: ProofViewJustificationBuilderTest.java
+ * Project: Query Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.km.query.answer.justification.ProofViewJustification.Builder;
+import com.cyc.km.query.answer.justification.ProofViewJustification.Options;
+import com.cyc.km.query.answer.justification.ProofViewJustification.SummaryAlgorithm;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the parts of ProofViewJustification.Builder which do not need a Cyc server.
+ */
+public class ProofViewJustificationBuilderTest {
+
+  private static final String CREATE
+          = "(clet ((proof-view-id (get-new-empty-proof-view-id 1 2 3)))";
+
+  private static final String POPULATE
+          = " (proof-view-id-populate proof-view-id)"
+          + " (list proof-view-id (proof-view-xml proof-view-id)))";
+
+  @Test
+  public void testMakeCommandWithDefaults() {
+    assertEquals(CREATE + POPULATE, new Builder().makeCommand(1, 2, 3));
+  }
+
+  @Test
+  public void testMakeCommandWithOptions() {
+    final Builder builder = new Builder()
+            .setIncludeDetails(true)
+            .setIncludeSummary(false)
+            .setSuppressAssertionCyclists(true)
+            .setSummaryAlgorithm(SummaryAlgorithm.WHITELIST);
+    assertEquals(CREATE
+            + " (set-proof-view-include-details proof-view-id t)"
+            + " (set-proof-view-include-summary proof-view-id nil)"
+            + " (set-proof-view-suppress-assertion-cyclists proof-view-id t)"
+            + " (set-proof-view-summary-algorithm proof-view-id :WHITELIST)"
+            + POPULATE, builder.makeCommand(1, 2, 3));
+  }
+
+  @Test
+  public void testOptionsAreSnapshots() {
+    final Builder builder = new Builder().setIncludeDetails(true);
+    final Options details = builder.getOptions();
+    assertEquals(details, new Builder().setIncludeDetails(true).getOptions());
+    assertEquals(details.hashCode(), new Builder().setIncludeDetails(true).getOptions().hashCode());
+    builder.setIncludeDetails(false);
+    final Options noDetails = builder.getOptions();
+    assertFalse("Justifications built with other options would be shared", details.equals(noDetails));
+    assertFalse(noDetails.equals(new Builder().getOptions()));
+    assertEquals(new Builder().setIncludeDetails(true).makeCommand(1, 2, 3),
+            new Builder().setIncludeDetails(false).setIncludeDetails(true).makeCommand(1, 2, 3));
+  }
+}
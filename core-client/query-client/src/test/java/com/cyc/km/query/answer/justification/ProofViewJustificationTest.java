@@ -26,6 +26,9 @@ package com.cyc.km.query.answer.justification;
  */
 
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.*;
 
 import static org.junit.Assert.*;
@@ -344,4 +347,47 @@ public class ProofViewJustificationTest {
     instance.populate();
     instance.setSuppressAssertionCyclists(false);
   }
+
+  /**
+   * Test of build method, of class ProofViewJustification.Builder.
+   */
+  @Test
+  public void testBuilderBuild() throws SessionCommunicationException, OpenCycUnsupportedFeatureException {
+    System.out.println("Builder.build");
+    assumeNotOpenCyc();
+    final ProofViewJustification result = new ProofViewJustification.Builder()
+            .setDomainMt(domainMt)
+            .setIncludeDetails(true)
+            .setSuppressAssertionCyclists(true)
+            .build(answer);
+    assertEquals(answer, result.getQueryAnswer());
+    assertEquals(domainMt, result.getDomainMt());
+    assertEquals(true, result.isIncludeDetails());
+    assertEquals(true, result.isSuppressAssertionCyclists());
+    assertNotNull(result.getRoot());
+    assertNotNull(result.getProofView());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testBuilderBuildException() throws SessionCommunicationException, OpenCycUnsupportedFeatureException {
+    assumeNotOpenCyc();
+    new ProofViewJustification.Builder().build(answer).setIncludeDetails(false);
+  }
+
+  /**
+   * Test of buildAll method, of class ProofViewJustification.Builder.
+   */
+  @Test
+  public void testBuilderBuildAllCached() throws SessionCommunicationException, OpenCycUnsupportedFeatureException {
+    System.out.println("Builder.buildAll");
+    assumeNotOpenCyc();
+    final ProofViewJustification.Builder builder = new ProofViewJustification.Builder()
+            .setCacheSize(10);
+    final List<ProofViewJustification> result = builder.buildAll(Arrays.asList(answer, answer));
+    assertEquals(2, result.size());
+    assertSame(result.get(0), result.get(1));
+    assertSame(result.get(0), builder.build(answer));
+    builder.clearCache();
+    assertNotSame(result.get(0), builder.build(answer));
+  }
 }
@@ -0,0 +1,111 @@
+package com.cyc.xml.query;
+
+/*
+ * #%L
+ * File: ProofViewUnmarshallerTest.java
+ * Project: Query Client
+ * %%
+ * Copyright (C) 2013 - 2016 Cycorp, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the streaming of proof views by ProofViewUnmarshaller, which needs no Cyc server.
+ */
+public class ProofViewUnmarshallerTest {
+
+  private static final String NESTED_PROOF_VIEW
+          = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+          + "<proof-view xmlns=\"http://www.opencyc.org/xml/proofView/\" id=\"7\">\n"
+          + "  <proof-view-entry id=\"1\" label=\"Query\" expand-initially=\"true\">\n"
+          + "    <cycl>(isa ?X Dog)</cycl>\n"
+          + "    <sub-entries>\n"
+          + "      <proof-view-entry id=\"2\" object-type=\"assertion\">\n"
+          + "        <cycl>(genls Dog Mammal)</cycl>\n"
+          + "        <sub-entries>\n"
+          + "          <proof-view-entry id=\"3\"><cycl>(isa Fido Dog)</cycl></proof-view-entry>\n"
+          + "        </sub-entries>\n"
+          + "      </proof-view-entry>\n"
+          + "      <!-- an entry with no parts -->\n"
+          + "      <proof-view-entry id=\"4\" abduced-support=\"false\"/>\n"
+          + "    </sub-entries>\n"
+          + "  </proof-view-entry>\n"
+          + "</proof-view>\n";
+
+  @Test
+  public void testStreamEntries() throws Exception {
+    final RecordingHandler handler = new RecordingHandler();
+    final BigInteger proofViewId = new ProofViewUnmarshaller().streamEntries(
+            toStream(NESTED_PROOF_VIEW), handler);
+    assertEquals(BigInteger.valueOf(7), proofViewId);
+    assertEquals(Arrays.asList(1, 2, 3, 4), handler.ids);
+    assertEquals(Arrays.asList(0, 1, 2, 1), handler.depths);
+    assertEquals(Arrays.asList(null, 1, 2, 1), handler.parentIds);
+    assertEquals(Arrays.asList("(isa ?X Dog)", "(genls Dog Mammal)", "(isa Fido Dog)", null),
+            handler.cycls);
+    final ProofViewEntry top = handler.entries.get(0);
+    assertEquals("Query", top.getLabel());
+    assertEquals(Boolean.TRUE, top.isExpandInitially());
+    assertNull("Sub-entries should be handed over, not attached", top.getSubEntries());
+    assertEquals("assertion", handler.entries.get(1).getObjectType());
+    assertEquals(Boolean.FALSE, handler.entries.get(3).isAbducedSupport());
+  }
+
+  @Test
+  public void testStreamSingleEntry() throws Exception {
+    final RecordingHandler handler = new RecordingHandler();
+    final BigInteger proofViewId = new ProofViewUnmarshaller().streamEntries(toStream(
+            "<proof-view-entry xmlns=\"http://www.opencyc.org/xml/proofView/\" id=\"5\">"
+            + "<cycl>(isa Fido Dog)</cycl></proof-view-entry>"), handler);
+    assertNull(proofViewId);
+    assertEquals(Arrays.asList(5), handler.ids);
+    assertEquals(Arrays.asList(0), handler.depths);
+    assertEquals(Arrays.asList((Integer) null), handler.parentIds);
+    assertEquals("(isa Fido Dog)", handler.cycls.get(0));
+  }
+
+  private static InputStream toStream(final String xml) throws UnsupportedEncodingException {
+    return new ByteArrayInputStream(xml.getBytes("UTF-8"));
+  }
+
+  /** Records the entries it is handed, and what they held when they were handed over. */
+  private static class RecordingHandler implements ProofViewUnmarshaller.EntryHandler {
+
+    @Override
+    public void handleEntry(ProofViewEntry entry, ProofViewEntry parent, int depth) {
+      entries.add(entry);
+      ids.add(entry.getId().intValue());
+      parentIds.add((parent == null) ? null : parent.getId().intValue());
+      depths.add(depth);
+      cycls.add(entry.getCycl());
+    }
+
+    final List<ProofViewEntry> entries = new ArrayList<ProofViewEntry>();
+    final List<Integer> ids = new ArrayList<Integer>();
+    final List<Integer> parentIds = new ArrayList<Integer>();
+    final List<Integer> depths = new ArrayList<Integer>();
+    final List<String> cycls = new ArrayList<String>();
+  }
+}